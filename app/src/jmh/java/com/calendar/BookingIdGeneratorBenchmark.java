@@ -0,0 +1,87 @@
+package com.calendar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Booking reference cost: whole references for a CBxx.xx.xxx room and for a
+ * room name that takes the fallback path, suffix allocation with four threads
+ * on one hot slot and spread across many slots, plus validation and display
+ * formatting. The allocator gets an empty seeder so no database is needed.
+ *
+ * Run with ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookingIdGeneratorBenchmark {
+    private static final LocalDate DATE = LocalDate.of(2025, 10, 21);
+    private static final LocalDateTime START = DATE.atTime(9, 0);
+    private static final int PREFIXES = 512;
+
+    private BookingRefAllocator allocator;
+    private String[] prefixes;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // A fresh allocator per iteration keeps suffix widths comparable between runs
+        allocator = new BookingRefAllocator((conn, prefix) -> new HashSet<>());
+        prefixes = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            prefixes[i] = "CB" + (100 + i) + "-1021M-";
+        }
+    }
+
+    @Benchmark
+    public String generateRef() throws SQLException {
+        return BookingIdGenerator.generateBookingRef(allocator, null, "CB07.02.010A", START, "Adam Nguyen");
+    }
+
+    @Benchmark
+    public String generateRefOtherRoomName() throws SQLException {
+        return BookingIdGenerator.generateBookingRef(allocator, null, "Lab 5 West", START, "Adam Nguyen");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String hotPrefix() throws SQLException {
+        return allocator.nextSuffix(null, "CB112-1021M-", DATE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String rotatingPrefixes() throws SQLException {
+        String prefix = prefixes[(cursor.getAndIncrement() & Integer.MAX_VALUE) % PREFIXES];
+        return allocator.nextSuffix(null, prefix, DATE);
+    }
+
+    @Benchmark
+    public String formatForDisplay() {
+        return BookingIdGenerator.formatBookingRefForDisplay("CB112-1021M-A7Q");
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return BookingIdGenerator.isValidBookingRef("CB112-1021M-A7Q");
+    }
+
+    @Benchmark
+    public String encodeSuffix() {
+        return BookingRefAllocator.encode(cursor.getAndIncrement() & 0xFFFF);
+    }
+}
@@ -12,6 +12,9 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -38,17 +41,27 @@ public class AvailabilityServlet extends HttpServlet {
             
             if ("block".equals(action)) {
                 // Block availability by adding a booking
+                LocalDateTime start = parseDateTime(startTime);
+                LocalDateTime end = parseDateTime(endTime);
+                if (start == null || end == null || !end.isAfter(start)) {
+                    result.put("success", false);
+                    result.put("error", "startTime and endTime must be date-times with endTime after startTime");
+                    resp.getWriter().write(gson.toJson(result));
+                    return;
+                }
+                int room = Integer.parseInt(roomId);
                 String sql = "INSERT INTO booktime (room_id, start_Time, end_Time) VALUES (?, ?, ?)";
                 PreparedStatement pstmt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
-                pstmt.setInt(1, Integer.parseInt(roomId));
-                pstmt.setString(2, startTime);
-                pstmt.setString(3, endTime);
+                pstmt.setInt(1, room);
+                pstmt.setTimestamp(2, Timestamp.valueOf(start));
+                pstmt.setTimestamp(3, Timestamp.valueOf(end));
                 
                 int rows = pstmt.executeUpdate();
                 
                 if (rows > 0) {
                     ResultSet keys = pstmt.getGeneratedKeys();
                     if (keys.next()) {
+                        BookingIndexes.bookingCreated(keys.getInt(1), room, start, end);
                         result.put("success", true);
                         result.put("bookingId", keys.getInt(1));
                         result.put("message", "Time slot blocked successfully");
@@ -65,6 +78,9 @@ public class AvailabilityServlet extends HttpServlet {
                 pstmt.setInt(1, Integer.parseInt(bookingId));
                 
                 int rows = pstmt.executeUpdate();
+                if (rows > 0) {
+                    BookingIndexes.bookingRemoved(Integer.parseInt(bookingId));
+                }
                 result.put("success", rows > 0);
                 result.put("message", rows > 0 ? "Time slot unblocked" : "Booking not found");
                 
@@ -78,4 +94,18 @@ public class AvailabilityServlet extends HttpServlet {
         
         resp.getWriter().write(gson.toJson(result));
     }
+    
+    /**
+     * Accepts "2025-10-21T09:00", "2025-10-21 09:00" or with seconds.
+     */
+    private LocalDateTime parseDateTime(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value.trim().replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
 }
\ No newline at end of file
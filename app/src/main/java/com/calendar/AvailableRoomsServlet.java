@@ -11,32 +11,41 @@ import java.io.IOException;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
-import uni.space.finder.DatabaseSetup;
+import uni.space.finder.Log;
 
 @WebServlet("/api/available-rooms")
 public class AvailableRoomsServlet extends HttpServlet {
+    private static final Log LOG = Log.get(AvailableRoomsServlet.class);
+
     private Gson gson = new Gson();
-    private static boolean databaseInitialized = false;
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) 
             throws ServletException, IOException {
         
-        // Ensure database is initialized
-        if (!databaseInitialized) {
-            System.out.println("🔄 Initializing database for AvailableRoomsServlet...");
-            DatabaseSetup.initDatabase();
-            databaseInitialized = true;
-        }
-        
         resp.setContentType("application/json");
         resp.setCharacterEncoding("UTF-8");
         resp.setHeader("Access-Control-Allow-Origin", "*");
         
         try {
-            List<Map<String, Object>> rooms = getAllAvailableRooms();
+            String from = req.getParameter("from");
+            String to = req.getParameter("to");
+            List<Map<String, Object>> rooms;
+            if (from != null || to != null) {
+                LocalDateTime windowStart = parseDateTime(from);
+                LocalDateTime windowEnd = parseDateTime(to);
+                if (windowStart == null || windowEnd == null || !windowEnd.isAfter(windowStart)) {
+                    resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                    resp.getWriter().write("{\"error\":\"from and to must be valid date-times with from before to\"}");
+                    return;
+                }
+                rooms = getRoomsAvailableBetween(windowStart, windowEnd);
+            } else {
+                rooms = getAllAvailableRooms();
+            }
             
             Gson gson = new Gson();
             String json = gson.toJson(rooms);
@@ -45,11 +54,10 @@ public class AvailableRoomsServlet extends HttpServlet {
             resp.setCharacterEncoding("UTF-8");
             resp.getWriter().write(json);
             
-            System.out.println("✅ Found " + rooms.size() + " rooms available right now");
+            LOG.debug(() -> "Found " + rooms.size() + " available rooms");
             
         } catch (Exception e) {
-            System.err.println("❌ Error fetching available rooms: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error fetching available rooms", e);
             resp.setStatus(500);
             resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
         }
@@ -64,184 +72,90 @@ public class AvailableRoomsServlet extends HttpServlet {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
         String currentTime = now.format(formatter);
         
-        System.out.println("🔍 Checking all rooms available right now: " + currentTime);
+        LOG.debug(() -> "Checking all rooms available right now: " + currentTime);
         
-        // First, let's check what rooms exist in total
-        String countQuery = "SELECT COUNT(*) as total FROM room";
-        try (Connection conn = DatabaseSetup.getConnection();
-             PreparedStatement countStmt = conn.prepareStatement(countQuery);
-             ResultSet countRs = countStmt.executeQuery()) {
-            if (countRs.next()) {
-                System.out.println("📊 Total rooms in database: " + countRs.getInt("total"));
-            }
-        } catch (SQLException e) {
-            System.err.println("Error counting rooms: " + e.getMessage());
-        }
-        
-        // Check what bookings exist right now
-        String bookingQuery = "SELECT * FROM booktime WHERE start_Time <= ? AND end_Time > ?";
-        try (Connection conn = DatabaseSetup.getConnection();
-             PreparedStatement bookingStmt = conn.prepareStatement(bookingQuery)) {
-            bookingStmt.setString(1, currentTime);
-            bookingStmt.setString(2, currentTime);
-            try (ResultSet bookingRs = bookingStmt.executeQuery()) {
-                int bookingCount = 0;
-                while (bookingRs.next()) {
-                    bookingCount++;
-                    System.out.println("📅 Current booking: Room " + bookingRs.getInt("room_id") + 
-                                     " from " + bookingRs.getString("start_Time") + 
-                                     " to " + bookingRs.getString("end_Time"));
-                }
-                System.out.println("📊 Found " + bookingCount + " active bookings right now");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error checking bookings: " + e.getMessage());
-        }
-        
-        // Query to find rooms that are NOT currently booked
-        String query = """
-            SELECT DISTINCT r.room_id, r.room_name, r.room_type, r.capacity, 
-                   r.speaker, r.whiteboard, r.monitor, r.hdmi_cable, r.image
-            FROM room r 
-            WHERE r.room_id NOT IN (
-                SELECT DISTINCT b.room_id 
-                FROM booktime b 
-                WHERE b.start_Time <= ? AND b.end_Time > ?
-            )
-            ORDER BY r.room_name
-            """;
-        
-        try (Connection conn = DatabaseSetup.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
-            // Set parameters for current time check
-            pstmt.setString(1, currentTime);     // booking starts before or at current time
-            pstmt.setString(2, currentTime);     // but ends after current time
-            
-            System.out.println("🔍 Executing availability query for current time:");
-            System.out.println("  Current time: " + currentTime);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                int roomCount = 0;
-                while (rs.next()) {
-                    roomCount++;
-                    Map<String, Object> room = new HashMap<>();
-                    room.put("roomId", rs.getInt("room_id"));
-                    room.put("roomName", rs.getString("room_name"));
-                    room.put("roomType", rs.getString("room_type"));
-                    room.put("capacity", rs.getInt("capacity"));
-                    room.put("speaker", rs.getBoolean("speaker"));
-                    room.put("whiteboard", rs.getBoolean("whiteboard"));
-                    room.put("monitor", rs.getBoolean("monitor"));
-                    room.put("hdmiCable", rs.getBoolean("hdmi_cable"));
-                    room.put("image", rs.getString("image"));
-                    
-                    // Add computed fields
-                    room.put("location", getLocationFromRoomName(rs.getString("room_name")));
-                    room.put("equipment", getEquipmentList(rs));
-                    room.put("availableFor", "Available now"); // Since they're available right now
-                    room.put("rating", getRoomAverageRating(rs.getInt("room_id"))); // Get actual rating from database
-                    
-                    availableRooms.add(room);
-                    System.out.println("✅ Available room: " + rs.getString("room_name"));
-                }
-                System.out.println("📊 Query returned " + roomCount + " available rooms");
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error fetching available rooms: " + e.getMessage());
-            e.printStackTrace();
+        // Free right now = no booking in progress at this instant. Asked of the interval
+        // index rather than the slot bitmaps, so a room freed mid-slot shows up at once
+        BitSet freeRoomIds = RoomCatalog.getInstance().roomIds();
+        BitSet busy = RoomIntervalIndex.getInstance().busyAt(now);
+        if (busy == null) {
+            freeRoomIds.clear(); // Index unavailable: claim nothing is free
+        } else {
+            freeRoomIds.andNot(busy);
         }
+        availableRooms.addAll(loadRooms(freeRoomIds, "Available now"));
         
         // If no rooms found with complex query, try a simple fallback
         if (availableRooms.isEmpty()) {
-            System.out.println("🔄 No rooms found with availability query, trying fallback...");
-            String fallbackQuery = "SELECT * FROM room LIMIT 5"; // Show some rooms as fallback
-            try (Connection conn = DatabaseSetup.getConnection();
-                 PreparedStatement fallbackStmt = conn.prepareStatement(fallbackQuery);
-                 ResultSet rs = fallbackStmt.executeQuery()) {
-                
-                while (rs.next()) {
-                    Map<String, Object> room = new HashMap<>();
-                    room.put("roomId", rs.getInt("room_id"));
-                    room.put("roomName", rs.getString("room_name"));
-                    room.put("roomType", rs.getString("room_type"));
-                    room.put("capacity", rs.getInt("capacity"));
-                    room.put("speaker", rs.getBoolean("speaker"));
-                    room.put("whiteboard", rs.getBoolean("whiteboard"));
-                    room.put("monitor", rs.getBoolean("monitor"));
-                    room.put("hdmiCable", rs.getBoolean("hdmi_cable"));
-                    room.put("image", rs.getString("image"));
-                    
-                    room.put("location", getLocationFromRoomName(rs.getString("room_name")));
-                    room.put("equipment", getEquipmentList(rs));
-                    room.put("availableFor", "Available (fallback)");
-                    room.put("rating", getRoomAverageRating(rs.getInt("room_id"))); // Get actual rating from database
-                    
-                    availableRooms.add(room);
-                    System.out.println("🔄 Fallback room: " + rs.getString("room_name"));
+            LOG.debug(() -> "No rooms found with availability query, trying fallback");
+            for (RoomCatalog.Room catalogRoom : RoomCatalog.getInstance().roomsById()) {
+                if (availableRooms.size() >= 5) {
+                    break; // Show some rooms as fallback
                 }
-            } catch (SQLException e) {
-                System.err.println("❌ Error in fallback query: " + e.getMessage());
+                Map<String, Object> room = new HashMap<>(catalogRoom.getListingView());
+                room.put("availableFor", "Available (fallback)");
+                room.put("rating", getRoomAverageRating(catalogRoom.getRoomId())); // Served from in-memory rating totals
+                
+                availableRooms.add(room);
+                LOG.log(Log.Level.TRACE, () -> "Fallback room: " + catalogRoom.getRoomName(), null);
             }
         }
         
         return availableRooms;
     }
     
-    private String getLocationFromRoomName(String roomName) {
-        if (roomName != null && roomName.length() >= 2) {
-            // Extract building code from room name (e.g., "CB06.06.112" -> "CB Building")
-            String buildingCode = roomName.substring(0, 2);
-            return buildingCode + " Building";
-        }
-        return "Unknown Location";
+    /**
+     * Rooms with no ACTIVE booking in any slot between from and to.
+     */
+    private List<Map<String, Object>> getRoomsAvailableBetween(LocalDateTime from, LocalDateTime to) {
+        BitSet freeRoomIds = SlotAvailabilityEngine.getInstance().freeRooms(from, to);
+        LOG.debug(() -> "Checking rooms available between " + from + " and " + to + ": " + freeRoomIds.cardinality() + " free");
+        return loadRooms(freeRoomIds, "Available " + from.toLocalTime() + " - " + to.toLocalTime());
     }
     
-    private List<String> getEquipmentList(ResultSet rs) throws SQLException {
-        List<String> equipment = new ArrayList<>();
-        
-        if (rs.getBoolean("speaker")) equipment.add("Speaker");
-        if (rs.getBoolean("whiteboard")) equipment.add("Whiteboard");
-        if (rs.getBoolean("monitor")) equipment.add("Monitor");
-        if (rs.getBoolean("hdmi_cable")) equipment.add("HDMI Cable");
+    private List<Map<String, Object>> loadRooms(BitSet roomIds, String availableFor) {
+        List<Map<String, Object>> rooms = new ArrayList<>();
+        if (roomIds.isEmpty()) {
+            return rooms;
+        }
         
-        // Add some default equipment for better display
-        if (equipment.isEmpty()) {
-            equipment.add("Basic Equipment");
+        for (RoomCatalog.Room catalogRoom : RoomCatalog.getInstance().roomsByName()) {
+            if (!roomIds.get(catalogRoom.getRoomId())) {
+                continue;
+            }
+            // Copy the prebuilt listing map and add the per-request fields
+            Map<String, Object> room = new HashMap<>(catalogRoom.getListingView());
+            room.put("availableFor", availableFor);
+            room.put("rating", getRoomAverageRating(catalogRoom.getRoomId())); // Served from in-memory rating totals
+            
+            rooms.add(room);
         }
+        LOG.debug(() -> "Catalog returned " + rooms.size() + " available rooms");
         
-        return equipment;
+        return rooms;
     }
     
     /**
-     * Calculate the average rating for a specific room.
-     * Ratings are stored per booking, so we need to JOIN through booktime table.
+     * Accepts "2025-10-21T09:00", "2025-10-21 09:00" or with seconds.
+     */
+    private LocalDateTime parseDateTime(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        String normalized = value.trim().replace(' ', 'T');
+        try {
+            return LocalDateTime.parse(normalized);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Average rating for a room, served from the in-memory rating totals.
      * @param roomId The room ID to get the average rating for
      * @return The average rating (0.0 if no ratings exist)
      */
     private double getRoomAverageRating(int roomId) {
-        String query = "SELECT AVG(r.rating) as avg_rating " +
-                       "FROM ratings r " +
-                       "INNER JOIN booktime b ON r.booking_id = b.timeID " +
-                       "WHERE b.room_id = ?";
-        
-        try (Connection conn = DatabaseSetup.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
-            pstmt.setInt(1, roomId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                double avgRating = rs.getDouble("avg_rating");
-                // If no ratings exist, AVG returns NULL and getDouble returns 0
-                return avgRating > 0 ? Math.round(avgRating * 10.0) / 10.0 : 0.0;
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error fetching rating for room " + roomId + ": " + e.getMessage());
-        }
-        
-        return 0.0; // Default to 0 if no ratings or error
+        return RoomRatingAggregates.getInstance().getAverageRating(roomId);
     }
 }
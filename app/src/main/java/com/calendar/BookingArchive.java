@@ -0,0 +1,347 @@
+package com.calendar;
+
+/**
+ * BookingArchive - Moves old bookings out of booktime and tells readers when to look for them
+ *
+ * Archiving: a background job moves COMPLETED and CANCELLED bookings that
+ * ended more than retentionDays ago into booktime_archive, chunkSize rows per
+ * transaction (select FOR UPDATE, copy, delete, advance the watermark), at
+ * most maxChunks per run. Bookings that have ratings stay in booktime because
+ * ratings reference them with ON DELETE CASCADE. booktime is left with recent
+ * and upcoming bookings, small enough to stay cached.
+ *
+ * Reading: every archived booking ended by the watermark (the latest end time
+ * archived, kept in job_watermarks). A query bounded below by from only needs
+ * the archive if from is before that, which needed(from) answers; an
+ * unbounded one needs it once anything has been archived (hasArchived()).
+ * include() turns a query into a UNION ALL of the same query on each table, so
+ * every WHERE, ORDER BY and LIMIT is applied inside its branch and each table
+ * is read through its own indexes; the outer query only merges the two sorted
+ * branches. Until the first chunk is archived, nothing is ever unioned.
+ *
+ * Settings:
+ * - unispace.archive.retentionDays: age after which finished bookings are archived (default 180)
+ * - unispace.archive.chunkSize: bookings moved per transaction (default 1000)
+ * - unispace.archive.maxChunks: chunks per run (default 10)
+ * - unispace.archive.intervalMs: delay between runs (default 3600000)
+ */
+
+import uni.space.finder.AppConfig;
+import uni.space.finder.BackgroundJobs;
+import uni.space.finder.DatabaseSetup;
+import uni.space.finder.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+public class BookingArchive {
+    private static final Log LOG = Log.get(BookingArchive.class);
+
+    static final String JOB = "booking-archive";
+    private static final long INTERVAL_MS = AppConfig.getLong("unispace.archive.intervalMs", 3_600_000);
+    // How long a watermark read from the database is trusted before re-reading it
+    private static final long WATERMARK_REFRESH_MS = 60_000;
+
+    private static final String HOT_SOURCE = "FROM booktime b ";
+    private static final String ARCHIVE_SOURCE = "FROM booktime_archive b ";
+    private static final String ORDER_BY = "ORDER BY ";
+    private static final String LIMIT_PARAMETER = "LIMIT ?";
+    // Table alias on the ORDER BY columns; the outer query orders by result column names
+    private static final Pattern ALIAS = Pattern.compile("\\bb\\.");
+
+    private static final String ARCHIVED_COLUMNS =
+        "timeID, booking_ref, room_id, user_id, start_time, end_time, booking_status, purpose, " +
+        "created_at, updated_at, cancelled_at, checked_in_at, checked_out_at";
+
+    private static final String SELECT_CHUNK =
+        "SELECT b.timeID, b.end_Time FROM booktime b " +
+        "WHERE b.booking_status IN ('COMPLETED', 'CANCELLED') AND b.end_Time < ? " +
+        "AND NOT EXISTS (SELECT 1 FROM ratings r WHERE r.booking_id = b.timeID) " +
+        "ORDER BY b.end_Time LIMIT ? FOR UPDATE";
+
+    private static final String READ_WATERMARK =
+        "SELECT watermark, processed FROM job_watermarks WHERE job = ?";
+    private static final String WRITE_WATERMARK =
+        "UPDATE job_watermarks SET watermark = ?, processed = processed + ?, updated_at = ? WHERE job = ?";
+
+    private static final BookingArchive INSTANCE = new BookingArchive(
+        AppConfig.getInt("unispace.archive.retentionDays", 180),
+        AppConfig.getInt("unispace.archive.chunkSize", 1000),
+        AppConfig.getInt("unispace.archive.maxChunks", 10));
+
+    private final int retentionDays;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final AtomicLong archived = new AtomicLong();
+    private volatile LocalDateTime watermark;
+    private volatile long watermarkReadAt;
+    private volatile long lastRunMillis;
+    private ScheduledExecutorService scheduler;
+
+    BookingArchive(int retentionDays, int chunkSize, int maxChunks) {
+        this.retentionDays = Math.max(1, retentionDays);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxChunks = Math.max(1, maxChunks);
+    }
+
+    /**
+     * A query and its parameters in placeholder order.
+     */
+    public record Query(String sql, List<Object> params) {
+    }
+
+    public static BookingArchive getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Whether bookings still running at from (ending after it) can be in the
+     * archive. Unbounded reads use hasArchived() instead.
+     */
+    public boolean needed(LocalDateTime from) {
+        Objects.requireNonNull(from, "from");
+        LocalDateTime mark = watermark();
+        return mark != null && from.isBefore(mark);
+    }
+
+    /**
+     * Whether anything has been archived, so a read with no lower time bound,
+     * or one that came up short in booktime, has to look at the archive too.
+     */
+    public boolean hasArchived() {
+        return watermark() != null;
+    }
+
+    /**
+     * The query run on both tables and merged: "(sql) UNION ALL (sql on the
+     * archive)", then sql's ORDER BY and LIMIT again over the merged rows.
+     * The parameters are repeated to match, with the LIMIT bound once more if
+     * sql ends in LIMIT ?. Columns in the ORDER BY must be selected.
+     */
+    public static Query include(String sql, List<Object> params) {
+        String archive = archived(sql);
+        List<Object> all = new ArrayList<>(params.size() * 2 + 1);
+        all.addAll(params);
+        all.addAll(params);
+        StringBuilder unioned = new StringBuilder("(").append(sql).append(") UNION ALL (").append(archive).append(")");
+        int order = sql.lastIndexOf(ORDER_BY);
+        if (order >= 0) {
+            String tail = sql.substring(order).trim();
+            unioned.append(' ').append(ALIAS.matcher(tail).replaceAll(""));
+            if (tail.endsWith(LIMIT_PARAMETER)) {
+                all.add(params.get(params.size() - 1));
+            }
+        }
+        return new Query(unioned.toString(), all);
+    }
+
+    /**
+     * include(sql, params) for a query without parameters.
+     */
+    public static String include(String sql) {
+        return include(sql, List.of()).sql();
+    }
+
+    /**
+     * The query with "FROM booktime b" reading only the archive, for lookups
+     * that have already missed in booktime.
+     */
+    public static String archived(String sql) {
+        if (!sql.contains(HOT_SOURCE)) {
+            throw new IllegalArgumentException("Query does not read FROM booktime b: " + sql);
+        }
+        return sql.replace(HOT_SOURCE, ARCHIVE_SOURCE);
+    }
+
+    /**
+     * include(sql, params) if the archive is needed from from (null for an
+     * unbounded read), otherwise the query unchanged.
+     */
+    public Query source(String sql, List<Object> params, LocalDateTime from) {
+        boolean needed = from == null ? hasArchived() : needed(from);
+        return needed ? include(sql, params) : new Query(sql, params);
+    }
+
+    /**
+     * Starts the periodic job; the first run is immediate.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, JOB);
+            t.setDaemon(true);
+            return t;
+        });
+        BackgroundJobs.register(JOB, INTERVAL_MS);
+        scheduler.scheduleWithFixedDelay(this::runScheduled, 0, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void runScheduled() {
+        try (Connection conn = DatabaseSetup.getConnection()) {
+            run(conn, LocalDateTime.now());
+            BackgroundJobs.completed(JOB);
+        } catch (SQLException | RuntimeException e) {
+            LOG.error("Booking archive run failed", e);
+            BackgroundJobs.failed(JOB, e.getMessage());
+        }
+    }
+
+    /**
+     * Archives finished bookings that ended before now - retentionDays, in
+     * chunks. Returns how many were moved.
+     */
+    int run(Connection conn, LocalDateTime now) throws SQLException {
+        long started = System.currentTimeMillis();
+        readWatermark(conn);
+        LocalDateTime cutoff = now.minusDays(retentionDays);
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            int moved = archiveChunk(conn, cutoff, now);
+            total += moved;
+            if (moved < chunkSize) {
+                break;
+            }
+        }
+        lastRunMillis = System.currentTimeMillis() - started;
+        if (total > 0) {
+            int count = total;
+            LOG.info(() -> "Archived " + count + " bookings (watermark " + watermark + ")");
+        }
+        return total;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("watermark", watermark == null ? null : watermark.toString());
+        stats.put("archived", archived.get());
+        stats.put("retentionDays", retentionDays);
+        stats.put("lastRunMillis", lastRunMillis);
+        return stats;
+    }
+
+    private int archiveChunk(Connection conn, LocalDateTime cutoff, LocalDateTime now) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            List<Integer> ids = new ArrayList<>(chunkSize);
+            LocalDateTime chunkEnd = null;
+            try (PreparedStatement pstmt = conn.prepareStatement(SELECT_CHUNK)) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+                pstmt.setInt(2, chunkSize);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt("timeID"));
+                        chunkEnd = rs.getTimestamp("end_Time").toLocalDateTime();
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                conn.commit();
+                return 0;
+            }
+
+            String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO booktime_archive (" + ARCHIVED_COLUMNS + ", archived_at) " +
+                    "SELECT " + ARCHIVED_COLUMNS + ", ? FROM booktime WHERE timeID IN (" + in + ")")) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(now));
+                bindIds(pstmt, 2, ids);
+                pstmt.executeUpdate();
+            }
+            int moved;
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM booktime WHERE timeID IN (" + in + ")")) {
+                bindIds(pstmt, 1, ids);
+                moved = pstmt.executeUpdate();
+            }
+
+            // A late-inserted past booking can end before the watermark; never move it back
+            LocalDateTime mark = watermark != null && watermark.isAfter(chunkEnd) ? watermark : chunkEnd;
+            try (PreparedStatement pstmt = conn.prepareStatement(WRITE_WATERMARK)) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(mark));
+                pstmt.setLong(2, moved);
+                pstmt.setTimestamp(3, Timestamp.valueOf(now));
+                pstmt.setString(4, JOB);
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+            watermark = mark;
+            watermarkReadAt = System.currentTimeMillis();
+            archived.addAndGet(moved);
+            return moved;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void bindIds(PreparedStatement pstmt, int index, List<Integer> ids) throws SQLException {
+        for (int id : ids) {
+            pstmt.setInt(index++, id);
+        }
+    }
+
+    /**
+     * The watermark, re-read from job_watermarks when it is older than
+     * WATERMARK_REFRESH_MS so archiving by another instance is picked up.
+     */
+    /**
+     * Forgets the cached watermark so the next query re-reads it, e.g. after
+     * the database backend switched.
+     */
+    public void forgetWatermark() {
+        watermark = null;
+        watermarkReadAt = 0;
+    }
+
+    private LocalDateTime watermark() {
+        if (System.currentTimeMillis() - watermarkReadAt > WATERMARK_REFRESH_MS) {
+            try (Connection conn = DatabaseSetup.getConnection()) {
+                readWatermark(conn);
+            } catch (SQLException e) {
+                watermarkReadAt = System.currentTimeMillis(); // keep the last value rather than retry per query
+                LOG.warn(() -> "Could not read the archive watermark: " + e.getMessage());
+            }
+        }
+        return watermark;
+    }
+
+    private void readWatermark(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(READ_WATERMARK)) {
+            pstmt.setString(1, JOB);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    Timestamp ts = rs.getTimestamp("watermark");
+                    watermark = ts == null ? null : ts.toLocalDateTime();
+                    archived.set(rs.getLong("processed"));
+                }
+            }
+        }
+        watermarkReadAt = System.currentTimeMillis();
+    }
+}
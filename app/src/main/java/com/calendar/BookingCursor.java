@@ -0,0 +1,40 @@
+package com.calendar;
+
+/**
+ * BookingCursor - Keyset position in a booking listing
+ *
+ * A page ends at a (start_Time, timeID) pair; the next page continues strictly
+ * after it in the listing's sort order. The pair is sent to clients as an
+ * opaque URL-safe token so the format can change without breaking them.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+public record BookingCursor(LocalDateTime startTime, int timeId) {
+
+    public String encode() {
+        String raw = startTime + "|" + timeId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by encode()
+     */
+    public static BookingCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new BookingCursor(
+                LocalDateTime.parse(raw.substring(0, separator)),
+                Integer.parseInt(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -10,10 +10,15 @@ package com.calendar;
  * - User initial extraction
  * - Validation and display formatting
  * 
- * Example reference: CB112-1021M-A1K
+ * Example reference: CB112-1021M-A7Q
  * - CB112: Room code (CB06.06.112)
  * - 1021M: October 21, Morning
- * - A1K: User initial (A) + unique suffix
+ * - A7Q: User initial (A) + suffix from BookingRefAllocator, unique within
+ *   CB112-1021M- (two characters, growing to three or four on busy slots)
+ * 
+ * Formatters and patterns are compiled once; generating a reference parses
+ * the common CBxx.xx.xxx room names by hand, with no regex, split or
+ * String.format.
  * 
  * Contributors:
  * - Adam Nguyen (adampharrels) - Design and implementation of booking reference system
@@ -22,34 +27,51 @@ package com.calendar;
  * Last Updated: October 2025
  */
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
 
 public class BookingIdGenerator {
+    private static final DateTimeFormatter DATE_CODE = DateTimeFormatter.ofPattern("MMdd");
+    private static final Pattern ABBREV_STRIP = Pattern.compile("[.\\s]");
+    // Legacy refs have a digit+letter suffix; allocated ones use 2-4 base32 characters
+    private static final Pattern VALID_REF = Pattern.compile("^[A-Z0-9]{3,8}-\\d{4}[MAEN]-[A-Z][0-9A-Z]{2,4}$");
     
     /**
      * Generates a memorable booking reference ID
      * Format: ROOM-DATESLOT-USER
-     * Example: CB112-1021M-A (CB06.06.112 on Oct 21 Morning by Adam)
+     * Example: CB112-1021M-A7Q (CB06.06.112 on Oct 21 Morning by Adam)
+     * 
+     * The connection is used to seed the suffix sequence the first time this
+     * room/date/slot is seen; call it inside the booking transaction.
      */
-    public static String generateBookingRef(String roomName, LocalDateTime startTime, String userFullName) {
-        // Extract room abbreviation (e.g., "CB06.06.112" -> "CB112")
-        String roomAbbrev = generateRoomAbbreviation(roomName);
-        
-        // Generate date code (MMDD format)
-        String dateCode = startTime.format(DateTimeFormatter.ofPattern("MMdd"));
-        
-        // Generate time slot (M=Morning, A=Afternoon, E=Evening, N=Night)
-        String timeSlot = generateTimeSlot(startTime.getHour());
-        
-        // Generate user initial (first letter of first name)
-        String userInitial = generateUserInitial(userFullName);
+    public static String generateBookingRef(Connection conn, String roomName, LocalDateTime startTime,
+                                            String userFullName) throws SQLException {
+        return generateBookingRef(BookingRefAllocator.getInstance(), conn, roomName, startTime, userFullName);
+    }
+
+    /**
+     * As above with a given allocator, so benchmarks and tests can use one
+     * with their own seeder instead of the database.
+     */
+    static String generateBookingRef(BookingRefAllocator allocator, Connection conn, String roomName,
+                                     LocalDateTime startTime, String userFullName) throws SQLException {
+        // Room abbreviation + date code (MMDD) + time slot (M/A/E/N) identify the slot
+        String prefix = new StringBuilder(20)
+            .append(generateRoomAbbreviation(roomName))
+            .append('-')
+            .append(DATE_CODE.format(startTime))
+            .append(generateTimeSlot(startTime.getHour()))
+            .append('-')
+            .toString();
         
-        // Add random suffix to ensure uniqueness
-        String randomSuffix = generateRandomSuffix();
+        // Suffix is unique per prefix, so it holds whatever the user initial is
+        String suffix = allocator.nextSuffix(conn, prefix, startTime.toLocalDate());
         
-        return roomAbbrev + "-" + dateCode + timeSlot + "-" + userInitial + randomSuffix;
+        return prefix + generateUserInitial(userFullName) + suffix;
     }
     
     /**
@@ -59,30 +81,62 @@ public class BookingIdGenerator {
      */
     private static String generateRoomAbbreviation(String roomName) {
         if (roomName == null || roomName.isEmpty()) {
-            return "RM" + String.format("%02d", new Random().nextInt(99));
+            int n = ThreadLocalRandom.current().nextInt(99);
+            return n < 10 ? "RM0" + n : "RM" + n;
         }
         
-        // Handle formats like "CB06.06.112"
-        if (roomName.matches("CB\\d+\\.\\d+\\.\\d+[A-Z]*")) {
-            String[] parts = roomName.split("\\.");
-            if (parts.length >= 3) {
-                String building = parts[0]; // CB06
-                String lastPart = parts[2];  // 112 or 112A
-                
-                // Extract just the numbers and any letter suffix
-                String roomNum = lastPart.replaceAll("^0+", ""); // Remove leading zeros
-                if (roomNum.isEmpty()) roomNum = "0";
-                
-                return building.substring(0, 2) + roomNum; // CB + 112
+        // Handle formats like "CB06.06.112": CB + room number without leading zeros
+        int number = cbRoomNumberStart(roomName);
+        if (number >= 0) {
+            while (number < roomName.length() - 1 && roomName.charAt(number) == '0') {
+                number++;
             }
+            return "CB" + roomName.substring(number);
         }
         
         // Fallback: use first 6 chars, remove dots and spaces
-        return roomName.substring(0, Math.min(6, roomName.length()))
-                      .replaceAll("[.\\s]", "")
+        return ABBREV_STRIP.matcher(roomName.substring(0, Math.min(6, roomName.length())))
+                      .replaceAll("")
                       .toUpperCase();
     }
     
+    /**
+     * Where the room number starts if roomName is CB<digits>.<digits>.<digits>
+     * followed by optional capitals (CB06.06.112, CB07.02.010A), otherwise -1.
+     */
+    private static int cbRoomNumberStart(String roomName) {
+        if (!roomName.startsWith("CB")) {
+            return -1;
+        }
+        int i = 2;
+        int numberStart = -1;
+        for (int group = 0; group < 3; group++) {
+            int start = i;
+            while (i < roomName.length() && isDigit(roomName.charAt(i))) {
+                i++;
+            }
+            if (i == start) {
+                return -1;
+            }
+            if (group < 2) {
+                if (i == roomName.length() || roomName.charAt(i) != '.') {
+                    return -1;
+                }
+                i++;
+            } else {
+                numberStart = start;
+            }
+        }
+        while (i < roomName.length() && roomName.charAt(i) >= 'A' && roomName.charAt(i) <= 'Z') {
+            i++;
+        }
+        return i == roomName.length() ? numberStart : -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+    
     /**
      * Generates time slot code based on hour
      * 6-11: M (Morning)
@@ -90,15 +144,15 @@ public class BookingIdGenerator {
      * 18-21: E (Evening)
      * 22-5: N (Night)
      */
-    private static String generateTimeSlot(int hour) {
+    private static char generateTimeSlot(int hour) {
         if (hour >= 6 && hour < 12) {
-            return "M"; // Morning
+            return 'M'; // Morning
         } else if (hour >= 12 && hour < 18) {
-            return "A"; // Afternoon
+            return 'A'; // Afternoon
         } else if (hour >= 18 && hour < 22) {
-            return "E"; // Evening
+            return 'E'; // Evening
         } else {
-            return "N"; // Night
+            return 'N'; // Night
         }
     }
     
@@ -112,19 +166,8 @@ public class BookingIdGenerator {
             return "U"; // Unknown user
         }
         
-        String firstName = fullName.trim().split("\\s+")[0];
-        return firstName.substring(0, 1).toUpperCase();
-    }
-    
-    /**
-     * Generates a 2-character random suffix for uniqueness
-     * Examples: 1K, 9X, 4M
-     */
-    private static String generateRandomSuffix() {
-        Random random = new Random();
-        char digit = (char) ('0' + random.nextInt(10));  // 0-9
-        char letter = (char) ('A' + random.nextInt(26)); // A-Z
-        return "" + digit + letter;
+        char initial = Character.toUpperCase(fullName.trim().charAt(0));
+        return initial >= 'A' && initial <= 'Z' ? String.valueOf(initial) : "U";
     }
     
     /**
@@ -134,8 +177,8 @@ public class BookingIdGenerator {
         if (bookingRef == null) return false;
         
         // Format: ROOM-DATESLOT-USERSUFFIX
-        // Example: CB112-1021M-A1K
-        return bookingRef.matches("^[A-Z0-9]{3,8}-\\d{4}[MAEN]-[A-Z]\\d[A-Z]$");
+        // Example: CB112-1021M-A7Q (legacy: CB112-1021M-A1K)
+        return VALID_REF.matcher(bookingRef).matches();
     }
     
     /**
@@ -166,10 +209,10 @@ public class BookingIdGenerator {
         
         String userInitial = userSuffix.substring(0, 1);
         
-        return String.format("%s (%s/%s %s, User %s)", 
-                           bookingRef, 
-                           date.substring(0, 2), date.substring(2), 
-                           timeSlotName, 
-                           userInitial);
+        return new StringBuilder(bookingRef.length() + 32)
+            .append(bookingRef).append(" (")
+            .append(date, 0, 2).append('/').append(date, 2, 4).append(' ')
+            .append(timeSlotName).append(", User ").append(userInitial).append(')')
+            .toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.calendar;
+
+/**
+ * BookingIndexes - Keeps the in-memory booking indexes in step with booktime
+ *
+ * Servlets and jobs that create, cancel, complete, check in or delete
+ * bookings call this once after the database write succeeds instead of
+ * updating each index themselves.
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+public class BookingIndexes {
+
+    private BookingIndexes() {
+    }
+
+    public static void bookingCreated(int bookingId, int roomId, LocalDateTime start, LocalDateTime end) {
+        RoomIntervalIndex.getInstance().add(bookingId, roomId, start, end);
+        SlotAvailabilityEngine.getInstance().markBooked(roomId, start, end);
+    }
+
+    /**
+     * A booking with a reference; also makes it findable by reference and
+     * starts its check-in timer.
+     */
+    public static void bookingCreated(BookingRefIndex.Entry booking) {
+        bookingCreated(booking.bookingId(), booking.roomId(), booking.start(), booking.end());
+        BookingRefIndex.getInstance().bookingCreated(booking);
+        NoShowMonitor.getInstance().watch(booking.bookingId(), booking.start(), booking.end());
+    }
+
+    /**
+     * The booking was deleted and no longer holds its room.
+     */
+    public static void bookingRemoved(int bookingId) {
+        BookingRefIndex.getInstance().forget(bookingId);
+        release(bookingId);
+    }
+
+    /**
+     * The booking was cancelled or released as a no-show; it still exists as
+     * CANCELLED but no longer holds its room.
+     */
+    public static void bookingCancelled(int bookingId) {
+        BookingRefIndex.getInstance().statusChanged(bookingId, "CANCELLED");
+        release(bookingId);
+    }
+
+    /**
+     * The booking ended and is now COMPLETED. Its slots are left marked: the
+     * time has passed, so only the active-booking indexes need to drop it.
+     */
+    public static void bookingCompleted(int bookingId) {
+        NoShowMonitor.getInstance().unwatch(bookingId);
+        RoomIntervalIndex.getInstance().remove(bookingId);
+        BookingRefIndex.getInstance().statusChanged(bookingId, "COMPLETED");
+    }
+
+    /**
+     * The booking was checked in; only its status changes.
+     */
+    public static void bookingCheckedIn(int bookingId) {
+        BookingRefIndex.getInstance().statusChanged(bookingId, "CHECKED_IN");
+    }
+
+    /**
+     * Re-reads a booking row written with free-form times (or one whose
+     * no-show release was refused) and updates the indexes to match. Any
+     * check-in timer is dropped rather than moved.
+     */
+    public static void bookingChanged(Connection conn, int bookingId) throws SQLException {
+        NoShowMonitor.getInstance().unwatch(bookingId);
+        BookingRefIndex.getInstance().refresh(conn, bookingId);
+        RoomIntervalIndex index = RoomIntervalIndex.getInstance();
+        RoomIntervalIndex.Interval before = index.remove(bookingId);
+        if (before != null) {
+            SlotAvailabilityEngine.getInstance().release(before.roomId(),
+                RoomIntervalIndex.fromSeconds(before.start()), RoomIntervalIndex.fromSeconds(before.end()));
+        }
+        index.refresh(conn, bookingId);
+        RoomIntervalIndex.Interval after = index.get(bookingId);
+        if (after != null) {
+            SlotAvailabilityEngine.getInstance().markBooked(after.roomId(),
+                RoomIntervalIndex.fromSeconds(after.start()), RoomIntervalIndex.fromSeconds(after.end()));
+        }
+    }
+
+    private static void release(int bookingId) {
+        NoShowMonitor.getInstance().unwatch(bookingId);
+        RoomIntervalIndex.Interval removed = RoomIntervalIndex.getInstance().remove(bookingId);
+        if (removed != null) {
+            SlotAvailabilityEngine.getInstance().release(removed.roomId(),
+                RoomIntervalIndex.fromSeconds(removed.start()), RoomIntervalIndex.fromSeconds(removed.end()));
+        }
+    }
+}
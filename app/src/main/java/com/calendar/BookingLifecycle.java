@@ -0,0 +1,226 @@
+package com.calendar;
+
+/**
+ * BookingLifecycle - Background job that moves ended ACTIVE and CHECKED_IN bookings to COMPLETED
+ *
+ * Every run reads up to batchSize ACTIVE or CHECKED_IN bookings whose end
+ * time has passed (a range scan on idx_booktime_status_end, oldest first),
+ * completes them in one transaction together with the job's row in
+ * job_watermarks, and then drops them from the in-memory active-booking
+ * indexes. It repeats until a batch comes back short or maxBatches have
+ * run; anything left waits for the next run, so a backlog never holds a
+ * connection for long.
+ *
+ * The status itself is the progress marker: each update only applies while
+ * the booking still holds its room, so a restart, an overlapping run on
+ * another instance or a cancellation racing the job cannot complete a row
+ * twice. The watermark (latest end time completed) and running total are
+ * kept for diagnostics. Each scheduled run also drops the availability
+ * bitmaps and booking reference sequences of past days.
+ *
+ * Settings:
+ * - unispace.lifecycle.intervalMs: delay between runs (default 60000)
+ * - unispace.lifecycle.batchSize: bookings per transaction (default 500)
+ * - unispace.lifecycle.maxBatches: batches per run (default 20)
+ */
+
+import uni.space.finder.AppConfig;
+import uni.space.finder.BackgroundJobs;
+import uni.space.finder.DatabaseSetup;
+import uni.space.finder.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+public class BookingLifecycle {
+    private static final Log LOG = Log.get(BookingLifecycle.class);
+
+    static final String JOB = "booking-lifecycle";
+    private static final long INTERVAL_MS = AppConfig.getLong("unispace.lifecycle.intervalMs", 60_000);
+
+    private static final String READ_WATERMARK =
+        "SELECT watermark, processed FROM job_watermarks WHERE job = ?";
+    private static final String WRITE_WATERMARK =
+        "UPDATE job_watermarks SET watermark = ?, processed = processed + ?, updated_at = ? WHERE job = ?";
+
+    private static final BookingLifecycle INSTANCE = new BookingLifecycle(
+        AppConfig.getInt("unispace.lifecycle.batchSize", 500),
+        AppConfig.getInt("unispace.lifecycle.maxBatches", 20),
+        BookingIndexes::bookingCompleted);
+
+    private final int batchSize;
+    private final int maxBatches;
+    private final IntConsumer onCompleted;
+    private final AtomicLong completed = new AtomicLong();
+    private volatile LocalDateTime watermark;
+    private volatile long lastRunMillis;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param onCompleted called with each booking id after its batch commits
+     */
+    BookingLifecycle(int batchSize, int maxBatches, IntConsumer onCompleted) {
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatches = Math.max(1, maxBatches);
+        this.onCompleted = onCompleted;
+    }
+
+    public static BookingLifecycle getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts the periodic job; the first run is immediate.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, JOB);
+            t.setDaemon(true);
+            return t;
+        });
+        BackgroundJobs.register(JOB, INTERVAL_MS);
+        scheduler.scheduleWithFixedDelay(this::runScheduled, 0, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void runScheduled() {
+        try (Connection conn = DatabaseSetup.getConnection()) {
+            LocalDateTime now = LocalDateTime.now();
+            run(conn, now);
+            SlotAvailabilityEngine.getInstance().dropDaysBefore(now.toLocalDate());
+            BookingRefAllocator.getInstance().dropBefore(now.toLocalDate());
+            BackgroundJobs.completed(JOB);
+        } catch (SQLException | RuntimeException e) {
+            LOG.error("Booking lifecycle run failed", e);
+            BackgroundJobs.failed(JOB, e.getMessage());
+        }
+    }
+
+    /**
+     * Completes bookings that ended at or before now, in batches. Returns how
+     * many were completed.
+     */
+    int run(Connection conn, LocalDateTime now) throws SQLException {
+        long started = System.currentTimeMillis();
+        if (watermark == null) {
+            readWatermark(conn);
+        }
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<Integer> ids = new ArrayList<>(batchSize);
+            LocalDateTime batchEnd = null;
+            try (PreparedStatement pstmt = conn.prepareStatement(BookingQueries.EXPIRED_ACTIVE)) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(now));
+                pstmt.setInt(2, batchSize);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt("timeID"));
+                        batchEnd = rs.getTimestamp("end_Time").toLocalDateTime();
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Integer> done = completeBatch(conn, ids, batchEnd, now);
+            for (int bookingId : done) {
+                onCompleted.accept(bookingId);
+            }
+            total += done.size();
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        lastRunMillis = System.currentTimeMillis() - started;
+        if (total > 0) {
+            int count = total;
+            LOG.info(() -> "Completed " + count + " ended bookings (watermark " + watermark + ")");
+        }
+        return total;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("watermark", watermark == null ? null : watermark.toString());
+        stats.put("completed", completed.get());
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("batchSize", batchSize);
+        return stats;
+    }
+
+    private List<Integer> completeBatch(Connection conn, List<Integer> ids, LocalDateTime batchEnd,
+                                        LocalDateTime now) throws SQLException {
+        // A late-inserted past booking can end before the watermark; never move it back
+        LocalDateTime mark = watermark != null && watermark.isAfter(batchEnd) ? watermark : batchEnd;
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            List<Integer> done = new ArrayList<>(ids.size());
+            try (PreparedStatement pstmt = conn.prepareStatement(BookingQueries.COMPLETE)) {
+                for (int id : ids) {
+                    pstmt.setInt(1, id);
+                    pstmt.addBatch();
+                }
+                int[] counts = pstmt.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    // SUCCESS_NO_INFO: the driver did not say, treat as completed
+                    if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                        done.add(ids.get(i));
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(WRITE_WATERMARK)) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(mark));
+                pstmt.setLong(2, done.size());
+                pstmt.setTimestamp(3, Timestamp.valueOf(now));
+                pstmt.setString(4, JOB);
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+            watermark = mark;
+            completed.addAndGet(done.size());
+            return done;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void readWatermark(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(READ_WATERMARK)) {
+            pstmt.setString(1, JOB);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    Timestamp ts = rs.getTimestamp("watermark");
+                    watermark = ts == null ? null : ts.toLocalDateTime();
+                    completed.set(rs.getLong("processed"));
+                }
+            }
+        }
+    }
+}
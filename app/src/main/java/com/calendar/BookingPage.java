@@ -0,0 +1,158 @@
+package com.calendar;
+
+/**
+ * BookingPage - One page of a booking listing plus the cursor for the next page
+ *
+ * Listings page by keyset on (start_Time, timeID): each request seeks to the
+ * cursor and reads at most `limit` rows, so its cost depends on the page size
+ * and not on how many bookings exist. from/to select the bookings that
+ * overlap [from, to) (start_Time < to AND end_Time > from) in the same
+ * query, so a booking already running at from is listed too.
+ *
+ * Request parameters (any of them switches the endpoint to paged responses):
+ * - from, to  "2025-10-21", "2025-10-21T09:00" or "2025-10-21 09:00"
+ * - cursor    nextCursor from the previous page
+ * - limit     page size, default 100, at most 500
+ *
+ * Response: {"bookings": [...], "nextCursor": "..." } (nextCursor is null on the last page)
+ */
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+public record BookingPage(List<Booking> bookings, String nextCursor) {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * Parsed paging and range parameters.
+     */
+    public record Query(LocalDateTime from, LocalDateTime to, BookingCursor after, int limit) {
+
+        /**
+         * True if the caller asked for a paged response.
+         */
+        public static boolean isRequested(HttpServletRequest req) {
+            return req.getParameter("from") != null || req.getParameter("to") != null
+                || req.getParameter("cursor") != null || req.getParameter("limit") != null;
+        }
+
+        /**
+         * @throws IllegalArgumentException with a client-facing message for bad parameters
+         */
+        public static Query parse(HttpServletRequest req) {
+            LocalDateTime from = parseDateTime(req.getParameter("from"), "from");
+            LocalDateTime to = parseDateTime(req.getParameter("to"), "to");
+            if (from != null && to != null && !to.isAfter(from)) {
+                throw new IllegalArgumentException("to must be after from");
+            }
+
+            String cursor = req.getParameter("cursor");
+            BookingCursor after = cursor == null || cursor.trim().isEmpty() ? null : BookingCursor.decode(cursor.trim());
+
+            int limit = DEFAULT_LIMIT;
+            String limitParam = req.getParameter("limit");
+            if (limitParam != null && !limitParam.trim().isEmpty()) {
+                try {
+                    limit = Integer.parseInt(limitParam.trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("limit must be a number");
+                }
+                if (limit < 1) {
+                    throw new IllegalArgumentException("limit must be at least 1");
+                }
+                limit = Math.min(limit, MAX_LIMIT);
+            }
+            return new Query(from, to, after, limit);
+        }
+
+        /**
+         * Lower bound for deciding whether archived bookings can be on this
+         * page, or null if unbounded: from (a booking must still be running
+         * then), raised to the cursor's start time when paging forwards.
+         */
+        public LocalDateTime earliestStart(boolean descending) {
+            if (descending || after == null) {
+                return from;
+            }
+            return from == null || after.startTime().isAfter(from) ? after.startTime() : from;
+        }
+
+        /**
+         * Appends the range and keyset conditions (each starting with AND) and
+         * the ORDER BY / LIMIT clause. Parameters are added in placeholder order;
+         * one extra row is fetched to tell whether another page exists.
+         */
+        public void appendTo(StringBuilder sql, List<Object> params, boolean descending) {
+            if (to != null) {
+                sql.append("AND b.start_Time < ? ");
+                params.add(Timestamp.valueOf(to));
+            }
+            if (from != null) {
+                sql.append("AND b.end_Time > ? ");
+                params.add(Timestamp.valueOf(from));
+            }
+            if (after != null) {
+                String cmp = descending ? "<" : ">";
+                // The leading bound gives the index a range to seek to; the OR only breaks ties on timeID
+                sql.append("AND b.start_Time ").append(cmp).append("= ? ");
+                sql.append("AND (b.start_Time ").append(cmp).append(" ? OR b.timeID ").append(cmp).append(" ?) ");
+                Timestamp start = Timestamp.valueOf(after.startTime());
+                params.add(start);
+                params.add(start);
+                params.add(after.timeId());
+            }
+            String direction = descending ? "DESC" : "ASC";
+            sql.append("ORDER BY b.start_Time ").append(direction).append(", b.timeID ").append(direction).append(" LIMIT ?");
+            params.add(limit + 1);
+        }
+
+        private static LocalDateTime parseDateTime(String value, String name) {
+            if (value == null || value.trim().isEmpty()) {
+                return null;
+            }
+            String normalized = value.trim().replace(' ', 'T');
+            try {
+                if (normalized.length() == 10) {
+                    return LocalDate.parse(normalized).atStartOfDay();
+                }
+                return LocalDateTime.parse(normalized);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(name + " must be a date or date-time");
+            }
+        }
+    }
+
+    /**
+     * Builds the page from up to limit + 1 rows and their cursors.
+     */
+    public static BookingPage of(List<Booking> rows, List<BookingCursor> cursors, int limit) {
+        if (rows.size() <= limit) {
+            return new BookingPage(rows, null);
+        }
+        return new BookingPage(rows.subList(0, limit), cursors.get(limit - 1).encode());
+    }
+
+    public void write(Gson gson, JsonWriter out) throws IOException {
+        out.beginObject();
+        out.name("bookings");
+        gson.toJson(bookings, new TypeToken<List<Booking>>() { }.getType(), out);
+        out.name("nextCursor");
+        if (nextCursor == null) {
+            out.nullValue();
+        } else {
+            out.value(nextCursor);
+        }
+        out.endObject();
+        out.flush();
+    }
+}
@@ -0,0 +1,212 @@
+package com.calendar;
+
+/**
+ * BookingPipeline - Creates a booking in one connection and one transaction
+ *
+ * Steps (all on the same connection, committed together):
+ * 1. Lock the room row (SELECT ... FOR UPDATE on room only) and read the
+ *    session user without a lock, so bookings by the same user in different
+ *    rooms never wait on each other
+ * 2. Create the user row if the session user is not in the database yet
+ * 3. Check the room's interval index for conflicts while the room row is locked
+ *    (or the table itself, with BookingQueries.CONFLICT, if the index could not be loaded)
+ * 4. Insert the booking and publish it to the in-memory indexes, then commit
+ *
+ * Writers for the same room and day first queue on a RoomLockManager stripe,
+ * so contended slots are serialised in-process instead of piling up on the
+ * database row lock. The row lock and publishing to the indexes before commit
+ * still guarantee the second writer sees the first booking.
+ */
+
+import uni.space.finder.CredentialStore;
+import uni.space.finder.Log;
+import uni.space.finder.DatabaseSetup;
+import uni.space.finder.UserDirectory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+public class BookingPipeline {
+    private static final Log LOG = Log.get(BookingPipeline.class);
+
+    public enum Status { CREATED, ROOM_NOT_FOUND, USER_NOT_FOUND, CONFLICT, BUSY }
+
+    /**
+     * The logged-in user as known from the HTTP session.
+     */
+    public record SessionUser(String email, String fullName, String studentId) {
+    }
+
+    public record Result(Status status, int bookingId, String bookingRef, String roomName, String userFullName) {
+        static Result of(Status status) {
+            return new Result(status, -1, null, null, null);
+        }
+    }
+
+    private static final String LOCK_ROOM = "SELECT room_name FROM room WHERE room_id = ? FOR UPDATE";
+    private static final String FIND_USER = "SELECT user_id, full_name FROM users WHERE email = ?";
+
+    private static final String INSERT_BOOKING =
+        "INSERT INTO booktime (booking_ref, room_id, user_id, start_time, end_time, booking_status) VALUES (?, ?, ?, ?, ?, 'ACTIVE')";
+
+    private static final BookingPipeline INSTANCE = new BookingPipeline(DatabaseSetup::getConnection,
+        RoomLockManager.getInstance(), RoomIntervalIndex.getInstance(), new IndexPublisher());
+
+    private final Connections connections;
+    private final RoomLockManager locks;
+    private final RoomIntervalIndex index;
+    private final Publisher publisher;
+
+    /**
+     * Source of connections; DatabaseSetup's pool outside tests.
+     */
+    interface Connections {
+        Connection get() throws SQLException;
+    }
+
+    /**
+     * Keeps the in-memory indexes in step with the bookings this pipeline writes.
+     */
+    interface Publisher {
+        void created(BookingRefIndex.Entry booking);
+
+        void removed(int bookingId);
+    }
+
+    private static final class IndexPublisher implements Publisher {
+        @Override
+        public void created(BookingRefIndex.Entry booking) {
+            BookingIndexes.bookingCreated(booking);
+        }
+
+        @Override
+        public void removed(int bookingId) {
+            BookingIndexes.bookingRemoved(bookingId);
+        }
+    }
+
+    BookingPipeline(Connections connections, RoomLockManager locks, RoomIntervalIndex index, Publisher publisher) {
+        this.connections = connections;
+        this.locks = locks;
+        this.index = index;
+        this.publisher = publisher;
+    }
+
+    public static BookingPipeline getInstance() {
+        return INSTANCE;
+    }
+
+    public Result create(SessionUser user, int roomId, LocalDateTime start, LocalDateTime end) throws SQLException {
+        // Serialise only writers that could conflict: same room (and day); other rooms run in parallel
+        RoomLockManager.Held held;
+        try {
+            held = locks.acquire(roomId, start, end);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.of(Status.BUSY);
+        }
+        if (held == null) {
+            LOG.warn(() -> "Timed out waiting for booking lock on room " + roomId);
+            return Result.of(Status.BUSY);
+        }
+        try (held) {
+            return createLocked(user, roomId, start, end);
+        }
+    }
+
+    private Result createLocked(SessionUser user, int roomId, LocalDateTime start, LocalDateTime end) throws SQLException {
+        try (Connection conn = connections.get()) {
+            conn.setAutoCommit(false);
+            try {
+                Result result = createInTransaction(conn, user, roomId, start, end);
+                if (result.status() != Status.CREATED) {
+                    conn.rollback();
+                    return result;
+                }
+                try {
+                    conn.commit();
+                } catch (SQLException e) {
+                    publisher.removed(result.bookingId());
+                    throw e;
+                }
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private Result createInTransaction(Connection conn, SessionUser user, int roomId,
+                                              LocalDateTime start, LocalDateTime end) throws SQLException {
+        String roomName;
+        try (PreparedStatement pstmt = conn.prepareStatement(LOCK_ROOM)) {
+            pstmt.setInt(1, roomId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    LOG.debug(() -> "Room not found in database for ID: " + roomId);
+                    return Result.of(Status.ROOM_NOT_FOUND);
+                }
+                roomName = rs.getString("room_name");
+            }
+        }
+
+        int userId = -1;
+        String userFullName = null;
+        try (PreparedStatement pstmt = conn.prepareStatement(FIND_USER)) {
+            pstmt.setString(1, CredentialStore.normalizeEmail(user.email()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    userId = rs.getInt("user_id");
+                    userFullName = rs.getString("full_name");
+                }
+            }
+        }
+
+        if (userId == -1) {
+            LOG.warn(() -> "User not found in database: " + user.email());
+            userId = UserDirectory.createUser(conn, user.email(), user.fullName(), user.studentId());
+            if (userId == -1) {
+                return Result.of(Status.USER_NOT_FOUND);
+            }
+            userFullName = user.fullName() == null || user.fullName().trim().isEmpty()
+                ? user.email().split("@")[0] : user.fullName();
+        }
+
+        boolean conflict = index.isReady()
+            ? !index.isAvailable(roomId, start, end)
+            : BookingQueries.hasConflict(conn, roomId, start, end);
+        if (conflict) {
+            LOG.debug(() -> "Room availability check: conflict for room " + roomId);
+            return new Result(Status.CONFLICT, -1, null, roomName, userFullName);
+        }
+
+        String bookingRef = BookingIdGenerator.generateBookingRef(conn, roomName, start, userFullName);
+        int bookingId;
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_BOOKING, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, bookingRef);
+            pstmt.setInt(2, roomId);
+            pstmt.setInt(3, userId);
+            pstmt.setTimestamp(4, Timestamp.valueOf(start));
+            pstmt.setTimestamp(5, Timestamp.valueOf(end));
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("No booking ID returned for " + bookingRef);
+                }
+                bookingId = keys.getInt(1);
+            }
+        }
+
+        // Publish before commit so the next writer for this room (waiting on the row lock) sees it
+        publisher.created(new BookingRefIndex.Entry(
+            bookingId, bookingRef, roomId, roomName, userId, userFullName, start, end, "ACTIVE"));
+        LOG.info("Created booking " + bookingRef + " (ID: " + bookingId + ") for user: " + userId);
+        return new Result(Status.CREATED, bookingId, bookingRef, roomName, userFullName);
+    }
+}
@@ -0,0 +1,202 @@
+package com.calendar;
+
+/**
+ * BookingQueries - SQL for the booking reads that still go to the database
+ *
+ * Every time bound is a Timestamp parameter compared directly with a bare
+ * column, and overlap is always the one canonical test
+ *   start_time < :end AND end_time > :start
+ * so each query is a range scan on the index it was written for (created by
+ * migrations V4 and V5, checked by BookingQueriesTest through EXPLAIN):
+ * - CONFLICT: idx_booktime_room_status_time (room_id, booking_status, start_time, end_time),
+ *   which covers the whole query
+ * - USER_BOOKINGS + UPCOMING / PAST / keyset pages: idx_booktime_user_start (user_id, start_time)
+ * - REF_DETAILS + BY_REF / REFS_WITH_PREFIX: the booking_ref unique index
+ * - EXPIRED_ACTIVE: idx_booktime_status_end (booking_status, end_time)
+ *
+ * Free-form strings and CURRENT_TIMESTAMP are not used in predicates: a
+ * string compared with a TIMESTAMP column is converted per row on some
+ * backends, and "now" is passed in so a request uses one consistent instant.
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+public final class BookingQueries {
+
+    /**
+     * Overlap with [start, end); bind with bindOverlap().
+     */
+    public static final String OVERLAPS = "b.start_Time < ? AND b.end_Time > ? ";
+
+    /**
+     * Statuses that hold a room: booked, and booked and checked in.
+     */
+    private static final String HOLDING = "('ACTIVE', 'CHECKED_IN')";
+
+    public static final String CONFLICT =
+        "SELECT b.timeID FROM booktime b " +
+        "WHERE b.room_id = ? AND b.booking_status IN " + HOLDING + " AND " + OVERLAPS +
+        "LIMIT 1";
+
+    public static final String ACTIVE_INTERVALS =
+        "SELECT timeID, room_id, start_Time, end_Time FROM booktime WHERE booking_status IN " + HOLDING;
+
+    public static final String INTERVAL_BY_ID =
+        "SELECT room_id, start_Time, end_Time, booking_status FROM booktime WHERE timeID = ?";
+
+    /**
+     * A user's bookings with room and user details; parameter 1 is user_id.
+     * Append UPCOMING or PAST, then ORDER BY or a BookingPage condition.
+     */
+    public static final String USER_BOOKINGS =
+        "SELECT b.timeID, b.booking_ref, b.room_id, b.user_id, b.start_Time, b.end_Time, b.booking_status, " +
+        "b.created_at, b.cancelled_at, r.room_name, r.room_type, r.capacity, " +
+        "r.speaker, r.whiteboard, r.monitor, r.hdmi_cable, r.image, u.full_name " +
+        "FROM booktime b " +
+        "JOIN room r ON b.room_id = r.room_id " +
+        "JOIN users u ON b.user_id = u.user_id " +
+        "WHERE b.user_id = ? ";
+
+    /**
+     * Active or early checked-in bookings that have not started; one parameter, now.
+     */
+    public static final String UPCOMING = "AND b.booking_status IN " + HOLDING + " AND b.start_Time >= ? ";
+
+    /**
+     * Completed, checked out or cancelled bookings that have started; one
+     * parameter, now. BookingLifecycle moves ended ACTIVE and CHECKED_IN bookings to
+     * COMPLETED, so the status alone says whether a booking is over (one that
+     * ended since the last run shows up after the next). The start_Time bound
+     * makes the filter a range on the index.
+     */
+    public static final String PAST =
+        "AND b.start_Time < ? AND b.booking_status IN ('COMPLETED', 'CHECKED_OUT', 'CANCELLED') ";
+
+    /**
+     * Booking details for reference lookups; append one of the BY_REF /
+     * REF_BY_ID / REFS_STARTING / REFS_WITH_PREFIX conditions.
+     */
+    public static final String REF_DETAILS =
+        "SELECT b.timeID, b.booking_ref, b.room_id, b.user_id, b.start_Time, b.end_Time, b.booking_status, " +
+        "r.room_name, u.full_name " +
+        "FROM booktime b " +
+        "JOIN room r ON b.room_id = r.room_id " +
+        "LEFT JOIN users u ON b.user_id = u.user_id ";
+
+    /**
+     * One booking by reference (unique index on booking_ref).
+     */
+    public static final String BY_REF = "WHERE b.booking_ref = ?";
+
+    /**
+     * One booking by id (primary key), for re-reading a changed row.
+     */
+    public static final String REF_BY_ID = "WHERE b.timeID = ?";
+
+    /**
+     * "LIKE ?" for a likePrefix() pattern. The escape is '!' rather than a
+     * backslash: unless NO_BACKSLASH_ESCAPES is set, MySQL reads a backslash
+     * before the closing quote as escaping it and the literal never ends.
+     */
+    public static final String LIKE_PREFIX = "LIKE ? ESCAPE '!'";
+
+    /**
+     * Referenced bookings starting in [from, to) (idx_booktime_time_range).
+     */
+    public static final String REFS_STARTING =
+        "WHERE b.start_Time >= ? AND b.start_Time < ? AND b.booking_ref IS NOT NULL";
+
+    /**
+     * References with a prefix; bind likePrefix(). A constant-prefix LIKE is a
+     * range on the booking_ref index.
+     */
+    public static final String REFS_WITH_PREFIX =
+        "WHERE b.booking_ref " + LIKE_PREFIX + " ORDER BY b.start_Time DESC LIMIT ?";
+
+    /**
+     * ACTIVE or CHECKED_IN bookings that ended at or before ?, oldest first,
+     * at most ? of them (idx_booktime_status_end).
+     */
+    public static final String EXPIRED_ACTIVE =
+        "SELECT timeID, end_Time FROM booktime WHERE booking_status IN " + HOLDING + " AND end_Time <= ? " +
+        "ORDER BY end_Time LIMIT ?";
+
+    /**
+     * Completes one booking if it still holds its room, so a cancellation that
+     * got there first is left alone and re-running is harmless.
+     */
+    public static final String COMPLETE =
+        "UPDATE booktime SET booking_status = 'COMPLETED' WHERE timeID = ? AND booking_status IN " + HOLDING;
+
+    /**
+     * Referenced ACTIVE bookings that end after ? (idx_booktime_status_end):
+     * the ones that can still be checked in or released.
+     */
+    public static final String AWAITING_CHECK_IN =
+        "SELECT timeID, start_Time, end_Time, created_at FROM booktime " +
+        "WHERE booking_status = 'ACTIVE' AND end_Time > ? AND booking_ref IS NOT NULL";
+
+    /**
+     * Checks one booking in at ? if it is still ACTIVE.
+     */
+    public static final String CHECK_IN =
+        "UPDATE booktime SET booking_status = 'CHECKED_IN', checked_in_at = ? " +
+        "WHERE timeID = ? AND booking_status = 'ACTIVE'";
+
+    /**
+     * Cancels one no-show booking at ? if nobody checked it in meanwhile.
+     */
+    public static final String RELEASE =
+        "UPDATE booktime SET booking_status = 'CANCELLED', cancelled_at = ? " +
+        "WHERE timeID = ? AND booking_status = 'ACTIVE'";
+
+    public static final String STATUS_BY_ID = "SELECT booking_status FROM booktime WHERE timeID = ?";
+
+    private BookingQueries() {
+    }
+
+    /**
+     * Whether a booking with this status holds its room (see HOLDING).
+     */
+    public static boolean holdsRoom(String status) {
+        return "ACTIVE".equals(status) || "CHECKED_IN".equals(status);
+    }
+
+    /**
+     * Binds OVERLAPS at the given parameter index; returns the next index.
+     */
+    public static int bindOverlap(PreparedStatement pstmt, int index, LocalDateTime start, LocalDateTime end)
+            throws SQLException {
+        pstmt.setTimestamp(index, Timestamp.valueOf(end));
+        pstmt.setTimestamp(index + 1, Timestamp.valueOf(start));
+        return index + 2;
+    }
+
+    /**
+     * LIKE pattern matching strings that start with the prefix, taken literally.
+     * Bind it to a LIKE_PREFIX placeholder.
+     */
+    public static String likePrefix(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    /**
+     * Whether an ACTIVE booking in the room overlaps [start, end), read from
+     * the database rather than the in-memory interval index.
+     */
+    public static boolean hasConflict(Connection conn, int roomId, LocalDateTime start, LocalDateTime end)
+            throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(CONFLICT)) {
+            pstmt.setInt(1, roomId);
+            bindOverlap(pstmt, 2, start, end);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.calendar;
+
+/**
+ * BookingRefAllocator - Hands out unique booking reference suffixes per prefix
+ *
+ * A reference is PREFIX + user initial + suffix, e.g. CB112-1021M- + A + 7Q.
+ * For each prefix (room, date and time of day) the allocator keeps a counter
+ * and turns it into a suffix in Crockford base32 (digits and capitals without
+ * I, L, O and U, so it reads back unambiguously): two characters for the first
+ * 1,024 references of a prefix, then three, then four. The counter is
+ * scrambled with a fixed odd multiplier, so consecutive bookings do not get
+ * consecutive-looking references, and it still never repeats.
+ *
+ * The first time a prefix is used in this process, the suffixes already in
+ * booktime and booktime_archive for it are read once (a LIKE 'prefix%' range
+ * on the booking_ref indexes) and the counter skips them. Every later allocation is an atomic
+ * increment and a set lookup: no locks and no retry round trips. The UNIQUE
+ * constraint on booking_ref remains the backstop if two processes share a
+ * database.
+ *
+ * Each BookingLifecycle run drops the prefixes of past dates (dropBefore),
+ * so the map only holds dates that can still be booked. A sequence is never
+ * dropped while an allocation is using it: dropping retires it first, and an
+ * allocation that finds its sequence retired starts over with a fresh one,
+ * which re-reads the suffixes from the database. An allocation therefore
+ * never continues a counter that a replacement sequence restarted at 0.
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BookingRefAllocator {
+    static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final int BITS_PER_CHAR = 5;
+    private static final int MIN_WIDTH = 2;
+    private static final long SCRAMBLE = 0x9E3779B1L; // odd, so multiplying is a bijection mod 32^width
+
+    // Existing references with a prefix; bind BookingQueries.likePrefix()
+    static final String SUFFIXES =
+        "SELECT b.booking_ref FROM booktime b WHERE b.booking_ref " + BookingQueries.LIKE_PREFIX;
+
+    private static final BookingRefAllocator INSTANCE = new BookingRefAllocator(BookingRefAllocator::readSuffixes);
+
+    /**
+     * Suffixes already used for a prefix (the part after the user initial).
+     */
+    interface Seeder {
+        Set<String> existingSuffixes(Connection conn, String prefix) throws SQLException;
+    }
+
+    private static final class Sequence {
+        final LocalDate date;
+        final AtomicInteger next = new AtomicInteger();
+        // Allocations in progress; -1 once retired
+        final AtomicInteger users = new AtomicInteger();
+        volatile Set<String> taken;
+
+        Sequence(LocalDate date) {
+            this.date = date;
+        }
+
+        boolean acquire() {
+            while (true) {
+                int n = users.get();
+                if (n < 0) {
+                    return false;
+                }
+                if (users.compareAndSet(n, n + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            users.decrementAndGet();
+        }
+
+        boolean retire() {
+            return users.compareAndSet(0, -1);
+        }
+
+        synchronized Set<String> seed(Connection conn, String prefix, Seeder seeder) throws SQLException {
+            if (taken == null) {
+                taken = seeder.existingSuffixes(conn, prefix);
+            }
+            return taken;
+        }
+    }
+
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+    private final Seeder seeder;
+
+    BookingRefAllocator(Seeder seeder) {
+        this.seeder = seeder;
+    }
+
+    public static BookingRefAllocator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Next unused suffix for the prefix. The connection is only used the
+     * first time a prefix is seen in this process.
+     *
+     * @param date the booking date the prefix encodes, used to expire old prefixes
+     */
+    public String nextSuffix(Connection conn, String prefix, LocalDate date) throws SQLException {
+        Sequence sequence;
+        while (true) {
+            sequence = sequences.computeIfAbsent(prefix, p -> new Sequence(date));
+            if (sequence.acquire()) {
+                break;
+            }
+            sequences.remove(prefix, sequence); // retired by dropBefore; take its replacement
+        }
+        try {
+            Set<String> taken = sequence.taken;
+            if (taken == null) {
+                taken = sequence.seed(conn, prefix, seeder);
+            }
+            while (true) {
+                String suffix = encode(sequence.next.getAndIncrement());
+                if (!taken.contains(suffix)) {
+                    return suffix;
+                }
+            }
+        } finally {
+            sequence.release();
+        }
+    }
+
+    /**
+     * Drops the prefixes of dates before date that no allocation is using;
+     * returns how many were dropped. A busy one is left for the next call.
+     */
+    public int dropBefore(LocalDate date) {
+        int dropped = 0;
+        for (Map.Entry<String, Sequence> entry : sequences.entrySet()) {
+            Sequence sequence = entry.getValue();
+            if (sequence.date.isBefore(date) && sequence.retire()) {
+                sequences.remove(entry.getKey(), sequence);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    int size() {
+        return sequences.size();
+    }
+
+    /**
+     * Makes every prefix re-read its existing suffixes on next use, e.g.
+     * after the database backend switched. Counters keep counting, so
+     * suffixes handed out before stay unique.
+     */
+    public void reseed() {
+        sequences.values().forEach(s -> s.taken = null);
+    }
+
+    /**
+     * The n-th suffix: widths grow from two characters once each width's
+     * 32^width values are used up.
+     */
+    static String encode(int n) {
+        long remaining = n;
+        int width = MIN_WIDTH;
+        long space = 1L << (BITS_PER_CHAR * width);
+        while (remaining >= space) {
+            remaining -= space;
+            width++;
+            space = 1L << (BITS_PER_CHAR * width);
+        }
+        long value = (remaining * SCRAMBLE) & (space - 1);
+        char[] chars = new char[width];
+        for (int i = width - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) (value & 31));
+            value >>>= BITS_PER_CHAR;
+        }
+        return new String(chars);
+    }
+
+    private static Set<String> readSuffixes(Connection conn, String prefix) throws SQLException {
+        Set<String> suffixes = new HashSet<>();
+        readSuffixes(conn, SUFFIXES, prefix, suffixes);
+        // Date codes have no year, so last year's archived refs share today's prefixes
+        if (BookingArchive.getInstance().hasArchived()) {
+            readSuffixes(conn, BookingArchive.archived(SUFFIXES), prefix, suffixes);
+        }
+        return suffixes;
+    }
+
+    private static void readSuffixes(Connection conn, String sql, String prefix, Set<String> suffixes)
+            throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, BookingQueries.likePrefix(prefix));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String ref = rs.getString(1);
+                    // Skip the user initial that follows the prefix
+                    if (ref != null && ref.length() > prefix.length() + 1) {
+                        suffixes.add(ref.substring(prefix.length() + 1));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.calendar;
+
+/**
+ * BookingRefIndex - Resolves booking references for front-desk and kiosk check-in
+ *
+ * Today's referenced bookings are held in a ConcurrentSkipListMap keyed by
+ * reference, loaded with one range read of booktime the first time it is used
+ * each day. Exact lookups are a lock-free skip-list get; prefix searches for
+ * today (e.g. CB112-1021) are a subMap range over the same sorted keys. A
+ * reference from another day, or one missing from today's map, is read from
+ * the booking_ref index, then from booktime_archive if it is not in booktime;
+ * a hit for today is added to the map.
+ *
+ * The map stays complete for today so prefix searches can be answered from
+ * it alone: through BookingIndexes new bookings are added, cancelled,
+ * completed and checked-in ones keep their entry with the new status, changed
+ * ones are re-read by id, and only deleted rows are dropped. These updates
+ * go through today() like lookups do: one that arrives while the map is
+ * being loaded waits for the load and is applied to the new map, so a row
+ * committed after the load read booktime is not lost. Malformed references
+ * are rejected before any database work.
+ *
+ * Settings:
+ * - unispace.bookingRefs.searchLimit: most results a prefix search returns (default 50)
+ */
+
+import uni.space.finder.AppConfig;
+import uni.space.finder.DatabaseSetup;
+import uni.space.finder.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BookingRefIndex {
+    private static final Log LOG = Log.get(BookingRefIndex.class);
+
+    static final int SEARCH_LIMIT = AppConfig.getInt("unispace.bookingRefs.searchLimit", 50);
+    private static final DateTimeFormatter DATE_CODE = DateTimeFormatter.ofPattern("MMdd");
+
+    private static final BookingRefIndex INSTANCE = new BookingRefIndex();
+
+    /**
+     * A referenced booking as shown to staff.
+     */
+    public record Entry(int bookingId, String bookingRef, int roomId, String roomName, int userId,
+                        String userFullName, LocalDateTime start, LocalDateTime end, String status) {
+
+        public Map<String, Object> toJson() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("bookingId", bookingId);
+            m.put("bookingRef", bookingRef);
+            m.put("bookingRefDisplay", BookingIdGenerator.formatBookingRefForDisplay(bookingRef));
+            m.put("roomId", roomId);
+            m.put("roomName", roomName);
+            m.put("userId", userId);
+            m.put("userFullName", userFullName);
+            m.put("startTime", start.toString());
+            m.put("endTime", end.toString());
+            m.put("status", status);
+            return m;
+        }
+    }
+
+    /**
+     * One day's references; replaced as a whole when the date changes.
+     */
+    private record Day(LocalDate date, String dateCode, ConcurrentSkipListMap<String, Entry> byRef) {
+    }
+
+    private final BookingPipeline.Connections connections;
+    private final Clock clock;
+    private final Map<Integer, String> refById = new ConcurrentHashMap<>();
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder databaseReads = new LongAdder();
+    private volatile Day day;
+
+    BookingRefIndex() {
+        this(DatabaseSetup::getConnection, Clock.systemDefaultZone());
+    }
+
+    BookingRefIndex(BookingPipeline.Connections connections, Clock clock) {
+        this.connections = connections;
+        this.clock = clock;
+    }
+
+    public static BookingRefIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * The booking with this reference, or null. Case and surrounding spaces are ignored.
+     */
+    public Entry lookup(String bookingRef) throws SQLException {
+        String ref = normalize(bookingRef);
+        if (!BookingIdGenerator.isValidBookingRef(ref)) {
+            return null;
+        }
+        Day today = today();
+        if (today != null) {
+            Entry entry = today.byRef().get(ref);
+            if (entry != null) {
+                memoryHits.increment();
+                return entry;
+            }
+        }
+        databaseReads.increment();
+        String sql = BookingQueries.REF_DETAILS + BookingQueries.BY_REF;
+        try (Connection conn = connections.get()) {
+            Entry entry = readByRef(conn, sql, ref);
+            if (entry == null && BookingArchive.getInstance().hasArchived()) {
+                return readByRef(conn, BookingArchive.archived(sql), ref);
+            }
+            if (entry != null && today != null && entry.start().toLocalDate().equals(today.date())) {
+                put(today, entry);
+            }
+            return entry;
+        }
+    }
+
+    private static Entry readByRef(Connection conn, String sql, String ref) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, ref);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? read(rs) : null;
+            }
+        }
+    }
+
+    private static Entry readById(Connection conn, int bookingId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(BookingQueries.REF_DETAILS + BookingQueries.REF_BY_ID)) {
+            pstmt.setInt(1, bookingId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? read(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Bookings whose reference starts with the prefix (e.g. CB112-1021), at
+     * most limit of them. Today's prefixes are answered from memory in
+     * reference order; others from the database, most recent first.
+     */
+    public List<Entry> search(String prefix, int limit) throws SQLException {
+        String p = normalize(prefix);
+        int max = Math.max(1, Math.min(limit, SEARCH_LIMIT));
+        if (p.isEmpty()) {
+            return List.of();
+        }
+        Day today = today();
+        if (today != null && coversDay(p, today.dateCode())) {
+            memoryHits.increment();
+            ConcurrentNavigableMap<String, Entry> range = today.byRef().subMap(p, true, p + Character.MAX_VALUE, false);
+            List<Entry> result = new ArrayList<>(Math.min(max, range.size()));
+            for (Entry entry : range.values()) {
+                if (result.size() == max) {
+                    break;
+                }
+                result.add(entry);
+            }
+            return result;
+        }
+        databaseReads.increment();
+        List<Entry> result = new ArrayList<>();
+        String sql = BookingQueries.REF_DETAILS + BookingQueries.REFS_WITH_PREFIX;
+        try (Connection conn = connections.get()) {
+            readWithPrefix(conn, sql, p, max, result);
+            // Archived bookings are older than anything left in booktime, so they go last
+            if (result.size() < max && BookingArchive.getInstance().hasArchived()) {
+                readWithPrefix(conn, BookingArchive.archived(sql), p, max - result.size(), result);
+            }
+        }
+        return result;
+    }
+
+    private static void readWithPrefix(Connection conn, String sql, String prefix, int limit, List<Entry> result)
+            throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, BookingQueries.likePrefix(prefix));
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(read(rs));
+                }
+            }
+        }
+    }
+
+    /**
+     * A booking was just written; added if it is for today.
+     */
+    public void bookingCreated(Entry entry) {
+        if (entry.bookingRef() == null) {
+            return;
+        }
+        Day today = today();
+        if (today != null && entry.start().toLocalDate().equals(today.date())) {
+            put(today, entry);
+        }
+    }
+
+    /**
+     * A booking's status was updated (cancelled, released, completed or
+     * checked in); its entry is kept with the new status.
+     */
+    public void statusChanged(int bookingId, String status) {
+        Day today = today();
+        String ref = refById.get(bookingId);
+        if (ref != null && today != null) {
+            today.byRef().computeIfPresent(ref, (key, e) -> e.bookingId() == bookingId
+                ? new Entry(e.bookingId(), e.bookingRef(), e.roomId(), e.roomName(), e.userId(),
+                            e.userFullName(), e.start(), e.end(), status)
+                : e);
+        }
+    }
+
+    /**
+     * A booking row was written with new times or an unknown status; its
+     * entry is replaced by the row as it is now, or dropped if it is no
+     * longer for today.
+     */
+    public void refresh(Connection conn, int bookingId) throws SQLException {
+        Entry entry = readById(conn, bookingId);
+        forget(bookingId);
+        Day today = today();
+        if (entry != null && entry.bookingRef() != null && today != null
+                && entry.start().toLocalDate().equals(today.date())) {
+            put(today, entry);
+        }
+    }
+
+    /**
+     * Drops a booking whose row was deleted (or never committed).
+     */
+    public void forget(int bookingId) {
+        Day today = today();
+        String ref = refById.remove(bookingId);
+        if (ref != null && today != null) {
+            today.byRef().remove(ref);
+        }
+    }
+
+    /**
+     * Drops today's map so the next use reloads it, e.g. after the database
+     * backend switched.
+     */
+    public synchronized void invalidate() {
+        day = null;
+        refById.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Day today = day;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("date", today == null ? null : today.date().toString());
+        stats.put("refs", today == null ? 0 : today.byRef().size());
+        stats.put("memoryHits", memoryHits.sum());
+        stats.put("databaseReads", databaseReads.sum());
+        return stats;
+    }
+
+    /**
+     * Loads today's references now rather than on the first lookup.
+     */
+    void warmUp() {
+        today();
+    }
+
+    static String normalize(String ref) {
+        return ref == null ? "" : ref.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Whether every reference with this prefix has today's date code: the
+     * prefix must run past the room code, and its date digits must agree.
+     */
+    static boolean coversDay(String prefix, String dateCode) {
+        int dash = prefix.indexOf('-');
+        if (dash < 0 || prefix.length() < dash + 1 + dateCode.length()) {
+            return false;
+        }
+        return prefix.startsWith(dateCode, dash + 1);
+    }
+
+    /**
+     * Today's map, loading it if the date has changed; null if booktime could not be read.
+     */
+    private Day today() {
+        LocalDate date = LocalDate.now(clock);
+        Day current = day;
+        if (current != null && current.date().equals(date)) {
+            return current;
+        }
+        synchronized (this) {
+            current = day;
+            if (current != null && current.date().equals(date)) {
+                return current;
+            }
+            try {
+                Day loaded = load(date);
+                refById.clear();
+                loaded.byRef().values().forEach(e -> refById.put(e.bookingId(), e.bookingRef()));
+                day = loaded;
+                return loaded;
+            } catch (SQLException e) {
+                LOG.error("Error loading booking references for " + date, e);
+                return null;
+            }
+        }
+    }
+
+    private Day load(LocalDate date) throws SQLException {
+        ConcurrentSkipListMap<String, Entry> byRef = new ConcurrentSkipListMap<>();
+        try (Connection conn = connections.get();
+             PreparedStatement pstmt = conn.prepareStatement(BookingQueries.REF_DETAILS + BookingQueries.REFS_STARTING)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(date.atStartOfDay()));
+            pstmt.setTimestamp(2, Timestamp.valueOf(date.plusDays(1).atStartOfDay()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Entry entry = read(rs);
+                    byRef.put(entry.bookingRef(), entry);
+                }
+            }
+        }
+        LOG.info(() -> "Loaded " + byRef.size() + " booking references for " + date);
+        return new Day(date, DATE_CODE.format(date), byRef);
+    }
+
+    private void put(Day target, Entry entry) {
+        target.byRef().put(entry.bookingRef(), entry);
+        refById.put(entry.bookingId(), entry.bookingRef());
+    }
+
+    private static Entry read(ResultSet rs) throws SQLException {
+        return new Entry(
+            rs.getInt("timeID"),
+            rs.getString("booking_ref"),
+            rs.getInt("room_id"),
+            rs.getString("room_name"),
+            rs.getInt("user_id"),
+            rs.getString("full_name"),
+            rs.getTimestamp("start_Time").toLocalDateTime(),
+            rs.getTimestamp("end_Time").toLocalDateTime(),
+            rs.getString("booking_status"));
+    }
+}
@@ -8,6 +8,9 @@ package com.calendar;
  * - Generating unique booking references
  * - Managing user sessions and authentication
  * - Interfacing with the room booking database
+ * - Looking bookings up by reference for front-desk check-in:
+ *   GET ?ref=CB112-1021M-A7Q, or GET ?prefix=CB112-1021[&limit=n] for a list
+ *   (signed-in users, or callers AdminAccess allows, e.g. a kiosk with the token)
  * 
  * Database tables used:
  * - booktime: Stores booking records (times, room, user, status)
@@ -29,7 +32,10 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import uni.space.finder.AdminAccess;
+import uni.space.finder.Log;
 import uni.space.finder.DatabaseSetup;
+import uni.space.finder.UserDirectory;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.ArrayList;
@@ -53,6 +59,8 @@ import java.time.format.DateTimeFormatter;
 
 @WebServlet(name="BookingServlet", urlPatterns={"/api/booking"})
 public class BookingServlet extends HttpServlet {
+    private static final Log LOG = Log.get(BookingServlet.class);
+
     private final Gson gson = new Gson();
     private final List<Booking> bookings = Collections.synchronizedList(new ArrayList<>());
     private final AtomicInteger bookingIdCounter = new AtomicInteger(0);
@@ -61,6 +69,12 @@ public class BookingServlet extends HttpServlet {
     protected void doGet(HttpServletRequest req, HttpServletResponse response) throws ServletException, IOException {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
+        String ref = req.getParameter("ref");
+        String prefix = req.getParameter("prefix");
+        if (ref != null || prefix != null) {
+            lookupByRef(req, response, ref, prefix);
+            return;
+        }
         synchronized (bookings) {
             response.getWriter().write(gson.toJson(bookings));
         }
@@ -89,18 +103,15 @@ public class BookingServlet extends HttpServlet {
             String startTime = jsonData.has("startTime") ? jsonData.get("startTime").getAsString() : null;
             String endTime = jsonData.has("endTime") ? jsonData.get("endTime").getAsString() : null;
             
-            int currentUserId = getCurrentUserId(req);
-            if (currentUserId == -1) {
+            HttpSession session = req.getSession(false);
+            if (session == null || session.getAttribute("email") == null) {
+                LOG.debug(() -> "No session or email found");
                 resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 resp.getWriter().write("{\"error\":\"User not logged in or not found in database\"}");
                 return;
             }
             
-            System.out.println("🔍 Booking request received:");
-            System.out.println("  Room ID: " + roomId);
-            System.out.println("  Date: " + date);
-            System.out.println("  Start Time: " + startTime);
-            System.out.println("  End Time: " + endTime);
+            LOG.debug(() -> "Booking request: room " + roomId + ", " + date + " " + startTime + "-" + endTime);
             
             // Validate input with detailed error messages
             if (roomId == null || roomId.trim().isEmpty()) {
@@ -127,333 +138,128 @@ public class BookingServlet extends HttpServlet {
             int roomIdInt = Integer.parseInt(roomId);
             
             // Format times for database (timestamp format)
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
             String startDateTimeStr = date + " " + startTime + ":00";
             String endDateTimeStr = date + " " + endTime + ":00";
-            
-            // Get room name from room ID for booking reference
-            String roomName = getRoomNameById(roomIdInt);
-            if (roomName == null) {
-                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                resp.getWriter().write("{\"error\":\"Room not found: " + roomName + "\"}");
-                return;
+            LocalDateTime startDateTime = LocalDateTime.parse(startDateTimeStr, formatter);
+            LocalDateTime endDateTime = LocalDateTime.parse(endDateTimeStr, formatter);
+            
+            // Resolve room and user, check availability and insert - one connection, one transaction
+            BookingPipeline.Result result = BookingPipeline.getInstance().create(sessionUser(session), roomIdInt, startDateTime, endDateTime);
+            
+            switch (result.status()) {
+                case USER_NOT_FOUND:
+                    resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    resp.getWriter().write("{\"error\":\"User not logged in or not found in database\"}");
+                    return;
+                case ROOM_NOT_FOUND:
+                    resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                    resp.getWriter().write("{\"error\":\"Room not found: " + roomIdInt + "\"}");
+                    return;
+                case BUSY:
+                    resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    resp.getWriter().write("{\"error\":\"Room is busy, please try again\"}");
+                    return;
+                case CONFLICT:
+                    resp.setStatus(HttpServletResponse.SC_CONFLICT);
+                    resp.getWriter().write("{\"error\":\"Room is not available at the selected time\"}");
+                    return;
+                default:
+                    break;
             }
             
-            // Check if room is available
-            if (!isRoomAvailable(roomIdInt, startDateTimeStr, endDateTimeStr)) {
-                resp.setStatus(HttpServletResponse.SC_CONFLICT);
-                resp.getWriter().write("{\"error\":\"Room is not available at the selected time\"}");
-                return;
-            }
-            
-            // Get user info for booking reference generation
-            String userFullName = getUserFullName(currentUserId);
-            
-            LocalDateTime startDateTime = LocalDateTime.parse(startDateTimeStr, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            String bookingRef = BookingIdGenerator.generateBookingRef(roomName, startDateTime, userFullName);
-            
-            // Create booking in database with memorable reference
-            int bookingId = createBookingWithRef(roomIdInt, currentUserId, startDateTimeStr, endDateTimeStr, bookingRef);
-            
-            if (bookingId > 0) {
-                JsonObject response = new JsonObject();
-                response.addProperty("success", true);
-                response.addProperty("message", "Room booked successfully for " + userFullName + "!");
-                response.addProperty("bookingId", bookingId);
-                response.addProperty("bookingRef", bookingRef); // Add memorable reference
-                response.addProperty("bookingRefDisplay", BookingIdGenerator.formatBookingRefForDisplay(bookingRef));
-                response.addProperty("room", roomName);
-                response.addProperty("date", date);
-                response.addProperty("startTime", startTime);
-                response.addProperty("endTime", endTime);
-                response.addProperty("userFullName", userFullName);
-                
-                resp.getWriter().write(gson.toJson(response));
-                System.out.println("✅ Room booking created: " + roomName + " on " + startDateTimeStr + " (Ref: " + bookingRef + ") for user: " + userFullName);
-                return;
-            } else {
-                resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-                resp.getWriter().write("{\"error\":\"Failed to create booking in database\"}");
-            }
+            String roomName = result.roomName();
+            String userFullName = result.userFullName();
+            String bookingRef = result.bookingRef();
+            
+            JsonObject response = new JsonObject();
+            response.addProperty("success", true);
+            response.addProperty("message", "Room booked successfully for " + userFullName + "!");
+            response.addProperty("bookingId", result.bookingId());
+            response.addProperty("bookingRef", bookingRef); // Add memorable reference
+            response.addProperty("bookingRefDisplay", BookingIdGenerator.formatBookingRefForDisplay(bookingRef));
+            response.addProperty("room", roomName);
+            response.addProperty("date", date);
+            response.addProperty("startTime", startTime);
+            response.addProperty("endTime", endTime);
+            response.addProperty("userFullName", userFullName);
+            
+            resp.getWriter().write(gson.toJson(response));
+            LOG.info(() -> "Room booking created: " + roomName + " on " + startDateTimeStr + " (Ref: " + bookingRef + ") for user: " + userFullName);
             
         } catch (NumberFormatException e) {
             resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             resp.getWriter().write("{\"error\":\"Invalid duration format\"}");
         } catch (Exception e) {
-            System.err.println("❌ Error in BookingServlet: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in BookingServlet", e);
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             resp.getWriter().write("{\"error\":\"Internal server error: " + e.getMessage() + "\"}");
         }
     }
     
-    private int getRoomIdByName(String roomName) {
-        String roomNumber = roomName.split(" - ")[0].trim();
-        
-        String query = "SELECT room_id FROM room WHERE room_name = ?";
-        
-        try (Connection conn = DatabaseSetup.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
-            pstmt.setString(1, roomNumber);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                int id = rs.getInt("room_id");
-                System.out.println("✅ Found room ID " + id + " for room: " + roomNumber);
-                return id;
-            } else {
-                System.out.println("❌ Room not found in database: " + roomNumber);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting room ID: " + e.getMessage());
+    private void lookupByRef(HttpServletRequest req, HttpServletResponse resp, String ref, String prefix) throws IOException {
+        HttpSession session = req.getSession(false);
+        if ((session == null || session.getAttribute("email") == null) && !AdminAccess.isAllowed(req)) {
+            resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            resp.getWriter().write("{\"error\":\"Sign in to look up bookings\"}");
+            return;
         }
-        
-        return -1; // Room not found
-    }
-    
-    private String getRoomNameById(int roomId) {
-        String query = "SELECT room_name FROM room WHERE room_id = ?";
-        
-        try (Connection conn = DatabaseSetup.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
-            pstmt.setInt(1, roomId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                String roomName = rs.getString("room_name");
-                System.out.println("✅ Found room name " + roomName + " for room ID: " + roomId);
-                return roomName;
-            } else {
-                System.out.println("❌ Room not found in database for ID: " + roomId);
+        try {
+            BookingRefIndex index = BookingRefIndex.getInstance();
+            if (ref != null) {
+                BookingRefIndex.Entry entry = index.lookup(ref);
+                if (entry == null) {
+                    resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                    resp.getWriter().write("{\"error\":\"No booking with that reference\"}");
+                    return;
+                }
+                resp.getWriter().write(gson.toJson(entry.toJson()));
+                return;
             }
-        } catch (SQLException e) {
-            System.err.println("Error getting room name: " + e.getMessage());
-        }
-        
-        return null; // Room not found
-    }
-    
-    private boolean isRoomAvailable(int roomId, String startTime, String endTime) {
-            String query = "SELECT COUNT(*) FROM booktime WHERE room_id = ? AND booking_status = 'ACTIVE' AND " +
-                      "((start_time <= ? AND end_time > ?) OR " +
-                      "(start_time < ? AND end_time >= ?) OR " +
-                      "(start_time >= ? AND start_time < ?))";        try (Connection conn = DatabaseSetup.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
-            pstmt.setInt(1, roomId);
-            pstmt.setString(2, startTime);
-            pstmt.setString(3, startTime);
-            pstmt.setString(4, endTime);
-            pstmt.setString(5, endTime);
-            pstmt.setString(6, startTime);
-            pstmt.setString(7, endTime);
-            
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                int conflicts = rs.getInt(1);
-                boolean available = conflicts == 0;
-                System.out.println("🔍 Room availability check: " + (available ? "Available" : conflicts + " conflicts found"));
-                return available;
+            if (BookingRefIndex.normalize(prefix).length() < 3) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                resp.getWriter().write("{\"error\":\"prefix must be at least 3 characters\"}");
+                return;
             }
-        } catch (SQLException e) {
-            System.err.println("Error checking room availability: " + e.getMessage());
-        }
-        
-        return false; // Assume not available on error
-    }
-    
-    private int createBookingWithRef(int roomId, int userId, String startTime, String endTime, String bookingRef) {
-        String query = "INSERT INTO booktime (booking_ref, room_id, user_id, start_time, end_time, booking_status) VALUES (?, ?, ?, ?, ?, 'ACTIVE')";
-        
-        try (Connection conn = DatabaseSetup.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query, PreparedStatement.RETURN_GENERATED_KEYS)) {
-            
-            pstmt.setString(1, bookingRef);
-            pstmt.setInt(2, roomId);
-            pstmt.setInt(3, userId);
-            pstmt.setString(4, startTime);
-            pstmt.setString(5, endTime);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                ResultSet keys = pstmt.getGeneratedKeys();
-                if (keys.next()) {
-                    int bookingId = keys.getInt(1);
-                    System.out.println("✅ Created booking with memorable reference: " + bookingRef + " (ID: " + bookingId + ") for user: " + userId);
-                    return bookingId;
-                }
+            int limit = BookingRefIndex.SEARCH_LIMIT;
+            String limitParam = req.getParameter("limit");
+            if (limitParam != null) {
+                limit = Integer.parseInt(limitParam);
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error creating booking: " + e.getMessage());
-            e.printStackTrace();
-        }
-        
-        return -1; // Failed to create booking
-    }
-    
-    private String getUserFullName(int userId) {
-        String query = "SELECT full_name FROM users WHERE user_id = ?";
-        
-        try (Connection conn = DatabaseSetup.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
-            pstmt.setInt(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getString("full_name");
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (BookingRefIndex.Entry entry : index.search(prefix, limit)) {
+                results.add(entry.toJson());
             }
+            Map<String, Object> body = new HashMap<>();
+            body.put("prefix", BookingRefIndex.normalize(prefix));
+            body.put("bookings", results);
+            resp.getWriter().write(gson.toJson(body));
+        } catch (NumberFormatException e) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.getWriter().write("{\"error\":\"limit must be a number\"}");
         } catch (SQLException e) {
-            System.err.println("Error getting user full name: " + e.getMessage());
+            LOG.error("Error looking up booking reference", e);
+            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            resp.getWriter().write("{\"error\":\"Lookup failed\"}");
         }
-        
-        return "Unknown User";
     }
     
-    private int getCurrentUserId(HttpServletRequest req) {
-        try {
-            // Get user email from session
-            HttpSession session = req.getSession(false);
-            if (session == null || session.getAttribute("email") == null) {
-                System.err.println("❌ No session or email found");
-                return -1;
-            }
-            
-            String email = (String) session.getAttribute("email");
-            System.out.println("🔍 Looking up user ID for email: " + email);
-            
-            String query = "SELECT user_id FROM users WHERE email = ?";
-            
-            try (Connection conn = DatabaseSetup.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(query)) {
-                
-                pstmt.setString(1, email);
-                ResultSet rs = pstmt.executeQuery();
-                
-                if (rs.next()) {
-                    int userId = rs.getInt("user_id");
-                    System.out.println("✅ Found user ID: " + userId + " for email: " + email);
-                    return userId;
-                } else {
-                    System.err.println("❌ User not found in database: " + email);
-                    return createUserFromSession(req);
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error getting current user ID: " + e.getMessage());
-            e.printStackTrace();
-            return -1;
+    private int getRoomIdByName(String roomName) {
+        RoomCatalog.Room room = RoomCatalog.getInstance().byName(roomName);
+        if (room == null) {
+            LOG.debug(() -> "Room not found in catalog: " + roomName);
+            return -1; // Room not found
         }
+        return room.getRoomId();
     }
     
-    private int createUserFromSession(HttpServletRequest req) {
-        try {
-            HttpSession session = req.getSession(false);
-            if (session == null) {
-                System.err.println("❌ No session found when trying to create user");
-                return -1;
-            }
-            
-            String email = (String) session.getAttribute("email");
-            String fullName = (String) session.getAttribute("fullName");
-            String studentId = (String) session.getAttribute("studentId");
-            
-            String username = email.split("@")[0];
-            
-            if (fullName == null || fullName.trim().isEmpty()) {
-                String firstName = (String) session.getAttribute("firstName");
-                String lastName = (String) session.getAttribute("lastName");
-                if (firstName != null && lastName != null) {
-                    fullName = firstName + " " + lastName;
-                } else {
-                    fullName = username; 
-                }
-            }
-            
-            System.out.println("🆕 Creating user in database: " + email + " (Full name: " + fullName + ", Student ID: " + studentId + ")");
-            
-            String insertQuery = "INSERT INTO users (username, email, full_name, student_id) VALUES (?, ?, ?, ?)";
-            String selectQuery = "SELECT user_id FROM users WHERE email = ?";
-            String checkStudentIdQuery = "SELECT COUNT(*) FROM users WHERE student_id = ?";
-            
-            try (Connection conn = DatabaseSetup.getConnection()) {
-                boolean studentIdExists = false;
-                if (studentId != null && !studentId.trim().isEmpty()) {
-                    try (PreparedStatement checkStmt = conn.prepareStatement(checkStudentIdQuery)) {
-                        checkStmt.setString(1, studentId);
-                        ResultSet rs = checkStmt.executeQuery();
-                        if (rs.next() && rs.getInt(1) > 0) {
-                            studentIdExists = true;
-                            System.out.println("⚠️  Student ID " + studentId + " already exists, using NULL for this user");
-                        }
-                    }
-                }
-                
-                
-                try (PreparedStatement insertStmt = conn.prepareStatement(insertQuery)) {
-                    insertStmt.setString(1, username);
-                    insertStmt.setString(2, email);
-                    insertStmt.setString(3, fullName);
-                    if (studentId != null && !studentId.trim().isEmpty() && !studentIdExists) {
-                        insertStmt.setString(4, studentId);
-                    } else {
-                        insertStmt.setNull(4, java.sql.Types.VARCHAR); 
-                    }
-                    
-                    int rowsAffected = insertStmt.executeUpdate();
-                    System.out.println("✅ Added user to database: " + email + " (rows: " + rowsAffected + ")");
-                }
-                
-                
-                try (PreparedStatement selectStmt = conn.prepareStatement(selectQuery)) {
-                    selectStmt.setString(1, email);
-                    ResultSet rs = selectStmt.executeQuery();
-                    
-                    if (rs.next()) {
-                        int userId = rs.getInt("user_id");
-                        System.out.println("✅ Retrieved user ID: " + userId + " for email: " + email);
-                        return userId;
-                    }
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error auto-creating user: " + e.getMessage());
-            
-            if (e.getMessage() != null && e.getMessage().contains("Unique index")) {
-                System.out.println("⚠️  User might already exist, trying to retrieve...");
-                try {
-                    HttpSession session = req.getSession(false);
-                    String email = (String) session.getAttribute("email");
-                    String selectQuery = "SELECT user_id FROM users WHERE email = ?";
-                    
-                    try (Connection conn = DatabaseSetup.getConnection();
-                         PreparedStatement selectStmt = conn.prepareStatement(selectQuery)) {
-                        selectStmt.setString(1, email);
-                        ResultSet rs = selectStmt.executeQuery();
-                        
-                        if (rs.next()) {
-                            int userId = rs.getInt("user_id");
-                            System.out.println("✅ Found existing user ID: " + userId + " for " + email);
-                            return userId;
-                        }
-                    }
-                } catch (SQLException e2) {
-                    System.err.println("❌ Error retrieving existing user: " + e2.getMessage());
-                }
-            }
-        }
-
-        
-        return -1;
+    /**
+     * Session details used if the user still has to be added to the users table.
+     */
+    private BookingPipeline.SessionUser sessionUser(HttpSession session) {
+        return new BookingPipeline.SessionUser(
+            (String) session.getAttribute("email"),
+            UserDirectory.sessionFullName(session),
+            (String) session.getAttribute("studentId"));
     }
 }
-
-
-        
-
@@ -33,6 +33,8 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import uni.space.finder.CredentialStore;
+import uni.space.finder.Log;
 import uni.space.finder.DatabaseSetup;
 import com.google.gson.Gson;
 
@@ -48,6 +50,10 @@ import java.util.Map;
 
 @WebServlet("/api/verify-bookings")
 public class BookingVerificationServlet extends HttpServlet {
+    private static final Log LOG = Log.get(BookingVerificationServlet.class);
+
+    private static final int RECENT_BOOKINGS = 20;
+
     private final Gson gson = new Gson();
 
     @Override
@@ -70,7 +76,7 @@ public class BookingVerificationServlet extends HttpServlet {
             }
             
             String userEmail = (String) session.getAttribute("email");
-            System.out.println("🔍 Verifying bookings for user: " + userEmail);
+            LOG.debug(() -> "Verifying bookings for user: " + userEmail);
             
             // Get user's bookings from database
             List<Map<String, Object>> bookings = getUserBookingsFromDatabase(userEmail);
@@ -87,12 +93,11 @@ public class BookingVerificationServlet extends HttpServlet {
             response.put("totalBookingCount", allBookings.size());
             response.put("message", "Found " + bookings.size() + " bookings for user and " + allBookings.size() + " total bookings in database");
             
-            System.out.println("✅ Verification complete: " + bookings.size() + " user bookings, " + allBookings.size() + " total bookings");
+            LOG.debug(() -> "Verification complete: " + bookings.size() + " user bookings, " + allBookings.size() + " total bookings");
             resp.getWriter().write(gson.toJson(response));
             
         } catch (Exception e) {
-            System.err.println("❌ Error verifying bookings: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error verifying bookings", e);
             
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             Map<String, Object> errorResponse = new HashMap<>();
@@ -112,11 +117,15 @@ public class BookingVerificationServlet extends HttpServlet {
                       "JOIN users u ON b.user_id = u.user_id " +
                       "WHERE u.email = ? " +
                       "ORDER BY b.start_time DESC";
+        BookingArchive.Query source = BookingArchive.getInstance()
+            .source(query, List.<Object>of(CredentialStore.normalizeEmail(userEmail)), null);
         
         try (Connection conn = DatabaseSetup.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
+             PreparedStatement pstmt = conn.prepareStatement(source.sql())) {
             
-            pstmt.setString(1, userEmail);
+            for (int i = 0; i < source.params().size(); i++) {
+                pstmt.setObject(i + 1, source.params().get(i));
+            }
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
@@ -137,15 +146,24 @@ public class BookingVerificationServlet extends HttpServlet {
     }
     
     private List<Map<String, Object>> getAllBookingsFromDatabase() throws SQLException {
-        List<Map<String, Object>> bookings = new ArrayList<>();
-        
         String query = "SELECT b.timeid, b.booking_ref, b.start_time, b.end_time, b.booking_status, " +
                       "r.room_name, u.email, u.full_name " +
                       "FROM booktime b " +
                       "JOIN room r ON b.room_id = r.room_id " +
                       "JOIN users u ON b.user_id = u.user_id " +
                       "ORDER BY b.start_time DESC " +
-                      "LIMIT 20";  // Limit to recent bookings
+                      "LIMIT " + RECENT_BOOKINGS;
+        
+        // The most recent bookings are in booktime unless it has fewer than that in total
+        List<Map<String, Object>> bookings = recentBookings(query);
+        if (bookings.size() < RECENT_BOOKINGS && BookingArchive.getInstance().hasArchived()) {
+            bookings = recentBookings(BookingArchive.include(query));
+        }
+        return bookings;
+    }
+    
+    private List<Map<String, Object>> recentBookings(String query) throws SQLException {
+        List<Map<String, Object>> bookings = new ArrayList<>();
         
         try (Connection conn = DatabaseSetup.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(query)) {
@@ -168,4 +186,4 @@ public class BookingVerificationServlet extends HttpServlet {
         
         return bookings;
     }
-}
\ No newline at end of file
+}
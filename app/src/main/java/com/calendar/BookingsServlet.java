@@ -6,12 +6,15 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
-import java.util.List;
+import uni.space.finder.Log;
 
 @WebServlet("/api/bookings")
 public class BookingsServlet extends HttpServlet {
+    private static final Log LOG = Log.get(BookingsServlet.class);
+
     private CalendarService calendarService = new CalendarService();
     private Gson gson = new Gson();
 
@@ -23,15 +26,49 @@ public class BookingsServlet extends HttpServlet {
         resp.setCharacterEncoding("UTF-8");
         resp.setHeader("Access-Control-Allow-Origin", "*");
         
+        if (BookingPage.Query.isRequested(req)) {
+            writePage(req, resp);
+            return;
+        }
+        
+        try {
+            // Stream rows straight into the response instead of building the whole list first
+            JsonWriter out = new JsonWriter(resp.getWriter());
+            int count = calendarService.writeAllBookings(gson, out);
+            LOG.debug(() -> "Streamed " + count + " bookings");
+        } catch (Exception e) {
+            LOG.error("Error in BookingsServlet", e);
+            if (!resp.isCommitted()) {
+                resp.reset();
+                resp.setContentType("application/json");
+                resp.setCharacterEncoding("UTF-8");
+                resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
+            }
+        }
+    }
+
+    /**
+     * Paged, range-filtered listing: ?from=&to=&cursor=&limit=
+     */
+    private void writePage(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        BookingPage.Query query;
+        try {
+            query = BookingPage.Query.parse(req);
+        } catch (IllegalArgumentException e) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
+            return;
+        }
+        
         try {
-            List<Booking> bookings = calendarService.getAllBookings();
-            resp.getWriter().write(gson.toJson(bookings));
-            System.out.println("✅ Fetched " + bookings.size() + " bookings");
+            BookingPage page = calendarService.getBookingsPage(query);
+            page.write(gson, new JsonWriter(resp.getWriter()));
+            LOG.debug(() -> "Fetched page of " + page.bookings().size() + " bookings");
         } catch (Exception e) {
-            System.err.println("❌ Error in BookingsServlet: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in BookingsServlet", e);
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
         }
     }
-}
\ No newline at end of file
+}
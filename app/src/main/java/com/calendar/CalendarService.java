@@ -16,103 +16,171 @@ package com.calendar;
 
  */
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.*;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import uni.space.finder.Log;
 import uni.space.finder.DatabaseSetup;
 
 public class CalendarService {
+    private static final Log LOG = Log.get(CalendarService.class);
     
-    public CalendarService() {
-        // Initialize H2 database when service is created
-        DatabaseSetup.initDatabase();
-    }
-
     public boolean isDatabaseConnected() {
         try (Connection conn = DatabaseSetup.getConnection()) {
             return conn != null && !conn.isClosed();
         } catch (SQLException e) {
-            System.err.println("Database connection failed: " + e.getMessage());
+            LOG.warn(() -> "Database connection failed: " + e.getMessage());
             return false;
         }
     }
 
+    private static final String ALL_BOOKINGS_QUERY =
+        "SELECT b.timeID, b.room_id, b.start_Time, b.end_Time, r.room_name, r.room_type, " +
+        "r.capacity, r.speaker, r.whiteboard, r.monitor, r.hdmi_cable, r.image " +
+        "FROM booktime b JOIN room r ON b.room_id = r.room_id";
+
+    // Rows between explicit flushes while streaming
+    private static final int STREAM_FLUSH_ROWS = 500;
+
     public List<Booking> getAllBookings() {
         List<Booking> bookings = new ArrayList<>();
-        String query = "SELECT b.timeID, b.room_id, b.start_Time, b.end_Time, r.room_name, r.room_type, " +
-                      "r.capacity, r.speaker, r.whiteboard, r.monitor, r.hdmi_cable, r.image " +
-                      "FROM booktime b JOIN room r ON b.room_id = r.room_id";
         
+        String query = BookingArchive.getInstance().source(ALL_BOOKINGS_QUERY, List.of(), null).sql();
         try (Connection conn = DatabaseSetup.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
             
             while (rs.next()) {
-                Booking booking = new Booking(
-                    rs.getInt("timeID"), // bookingID
-                    rs.getInt("timeID"), // timeID  
-                    rs.getInt("room_id"),
-                    rs.getString("start_Time"),
-                    rs.getString("end_Time"),
-                    rs.getString("room_name"),
-                    rs.getString("room_type"),
-                    rs.getInt("capacity"),
-                    rs.getBoolean("speaker"),
-                    rs.getBoolean("whiteboard"),
-                    rs.getBoolean("monitor"),
-                    rs.getBoolean("hdmi_cable"),
-                    rs.getString("image")
-                );
-                bookings.add(booking);
+                bookings.add(toBooking(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error fetching bookings: " + e.getMessage());
+            LOG.error("Error fetching bookings", e);
         }
         
         return bookings;
     }
 
-    public List<Map<String, Object>> getAllRooms() {
-        List<Map<String, Object>> rooms = new ArrayList<>();
-        String query = "SELECT room_id, room_name, room_type, capacity, speaker, whiteboard, monitor, hdmi_cable, image FROM room";
-        
-        try (Connection conn = DatabaseSetup.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query);
-             ResultSet rs = pstmt.executeQuery()) {
-            
-            while (rs.next()) {
-                Map<String, Object> room = new HashMap<>();
-                room.put("roomId", rs.getInt("room_id"));
-                room.put("roomName", rs.getString("room_name"));
-                room.put("roomType", rs.getString("room_type"));
-                room.put("capacity", rs.getInt("capacity"));
-                room.put("speaker", rs.getBoolean("speaker"));
-                room.put("whiteboard", rs.getBoolean("whiteboard"));
-                room.put("monitor", rs.getBoolean("monitor"));
-                room.put("hdmiCable", rs.getBoolean("hdmi_cable"));
-                room.put("image", rs.getString("image"));
-                
-                // Add location information based on room name
-                String location = "Building " + rs.getString("room_name").substring(0, 4); // Extract building code
-                room.put("location", location);
-                
-                // Create equipment list based on available facilities
-                List<String> equipment = new ArrayList<>();
-                if (rs.getBoolean("speaker")) equipment.add("Speaker System");
-                if (rs.getBoolean("whiteboard")) equipment.add("Whiteboard");
-                if (rs.getBoolean("monitor")) equipment.add("Monitor/Display");
-                if (rs.getBoolean("hdmi_cable")) equipment.add("HDMI Cable");
-                
-                if (equipment.isEmpty()) {
-                    equipment.add("Basic furniture");
+    /**
+     * Streams every booking as a JSON array straight from the ResultSet.
+     *
+     * Each row is serialised and dropped as soon as it is read, so heap use does
+     * not grow with booking history and the client starts receiving data after
+     * the first row. On MySQL the driver streams rows instead of buffering the
+     * whole result. Like getAllBookings, a database error ends the array early
+     * rather than failing the response.
+     *
+     * @return number of bookings written
+     */
+    public int writeAllBookings(Gson gson, JsonWriter out) throws IOException {
+        String query = BookingArchive.getInstance().source(ALL_BOOKINGS_QUERY, List.of(), null).sql();
+        int count = -1;
+        try (Connection conn = DatabaseSetup.getConnection()) {
+            count = writeBookings(conn, query, gson, out);
+        } catch (SQLException e) {
+            LOG.error("Error fetching bookings", e);
+            if (count < 0) {
+                // No connection, so nothing was written yet
+                out.beginArray();
+                out.endArray();
+                out.flush();
+            }
+        }
+        return Math.max(count, 0);
+    }
+
+    /**
+     * Writes the rows of query as one complete JSON array, whatever fails part way.
+     */
+    static int writeBookings(Connection conn, String query, Gson gson, JsonWriter out) throws IOException {
+        int count = 0;
+        boolean started = false;
+        try (PreparedStatement pstmt = conn.prepareStatement(query,
+                 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(streamingFetchSize(conn));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                out.beginArray();
+                started = true;
+                while (rs.next()) {
+                    gson.toJson(toBooking(rs), Booking.class, out);
+                    if (++count % STREAM_FLUSH_ROWS == 0) {
+                        out.flush();
+                    }
                 }
-                room.put("equipment", equipment);
-                
-                rooms.add(room);
             }
         } catch (SQLException e) {
-            System.err.println("Error fetching rooms: " + e.getMessage());
+            LOG.error("Error streaming bookings after " + count + " rows", e);
+        }
+        if (!started) {
+            out.beginArray();
+        }
+        out.endArray();
+        out.flush();
+        return count;
+    }
+
+    /**
+     * One keyset page of bookings in (start_Time, timeID) order, optionally
+     * limited to bookings starting in [from, to). Archived bookings are only
+     * read if the page can reach back past the archive watermark.
+     */
+    public BookingPage getBookingsPage(BookingPage.Query page) throws SQLException {
+        StringBuilder query = new StringBuilder(ALL_BOOKINGS_QUERY).append(" WHERE 1 = 1 ");
+        List<Object> params = new ArrayList<>();
+        page.appendTo(query, params, false);
+        BookingArchive.Query source = BookingArchive.getInstance().source(query.toString(), params, page.earliestStart(false));
+
+        List<Booking> bookings = new ArrayList<>();
+        List<BookingCursor> cursors = new ArrayList<>();
+        try (Connection conn = DatabaseSetup.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(source.sql())) {
+            for (int i = 0; i < source.params().size(); i++) {
+                pstmt.setObject(i + 1, source.params().get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bookings.add(toBooking(rs));
+                    cursors.add(new BookingCursor(rs.getTimestamp("start_Time").toLocalDateTime(), rs.getInt("timeID")));
+                }
+            }
+        }
+        return BookingPage.of(bookings, cursors, page.limit());
+    }
+
+    /**
+     * Connector/J only streams row by row with a fetch size of Integer.MIN_VALUE;
+     * other drivers get an ordinary batch size.
+     */
+    private static int streamingFetchSize(Connection conn) throws SQLException {
+        String product = conn.getMetaData().getDatabaseProductName();
+        return product != null && product.toLowerCase().contains("mysql") ? Integer.MIN_VALUE : STREAM_FLUSH_ROWS;
+    }
+
+    private static Booking toBooking(ResultSet rs) throws SQLException {
+        return new Booking(
+            rs.getInt("timeID"), // bookingID
+            rs.getInt("timeID"), // timeID  
+            rs.getInt("room_id"),
+            rs.getString("start_Time"),
+            rs.getString("end_Time"),
+            rs.getString("room_name"),
+            rs.getString("room_type"),
+            rs.getInt("capacity"),
+            rs.getBoolean("speaker"),
+            rs.getBoolean("whiteboard"),
+            rs.getBoolean("monitor"),
+            rs.getBoolean("hdmi_cable"),
+            rs.getString("image")
+        );
+    }
+
+    public List<Map<String, Object>> getAllRooms() {
+        // Served from the room catalog snapshot; the maps are prebuilt and read-only
+        List<Map<String, Object>> rooms = new ArrayList<>();
+        for (RoomCatalog.Room room : RoomCatalog.getInstance().roomsById()) {
+            rooms.add(room.getCalendarView());
         }
-        
         return rooms;
     }
 }
\ No newline at end of file
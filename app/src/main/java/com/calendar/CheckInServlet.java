@@ -0,0 +1,107 @@
+package com.calendar;
+
+/**
+ * CheckInServlet - Checks a booking in by its reference
+ *
+ * POST /api/check-in with ref=CB112-1021M-A7Q (query or form parameter).
+ * The booking's owner can check in from their own session; front-desk and
+ * kiosk clients are let through by AdminAccess. Check-in opens
+ * unispace.checkIn.earlyMinutes before the start and stays open until the
+ * booking ends, unless NoShowMonitor has released it for not being checked
+ * in within the grace period.
+ *
+ * Responses: 200 checked in, 400 no reference, 401/403 not allowed,
+ * 404 unknown reference, 409 released, ended, too early or not ACTIVE.
+ */
+
+import com.google.gson.Gson;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import uni.space.finder.AdminAccess;
+import uni.space.finder.DatabaseSetup;
+import uni.space.finder.Log;
+import uni.space.finder.UserDirectory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@WebServlet("/api/check-in")
+public class CheckInServlet extends HttpServlet {
+    private static final Log LOG = Log.get(CheckInServlet.class);
+
+    private final Gson gson = new Gson();
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        String ref = req.getParameter("ref");
+        if (ref == null || ref.isBlank()) {
+            error(resp, HttpServletResponse.SC_BAD_REQUEST, "ref is required");
+            return;
+        }
+
+        boolean staff = AdminAccess.isAllowed(req);
+        HttpSession session = req.getSession(false);
+        if (!staff && (session == null || session.getAttribute("email") == null)) {
+            error(resp, HttpServletResponse.SC_UNAUTHORIZED, "Sign in to check in");
+            return;
+        }
+
+        try {
+            BookingRefIndex.Entry booking = BookingRefIndex.getInstance().lookup(ref);
+            if (booking == null) {
+                error(resp, HttpServletResponse.SC_NOT_FOUND, "No booking with that reference");
+                return;
+            }
+            if (!staff && UserDirectory.resolve(session) != booking.userId()) {
+                error(resp, HttpServletResponse.SC_FORBIDDEN, "This booking belongs to someone else");
+                return;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            NoShowMonitor.Result result;
+            try (Connection conn = DatabaseSetup.getConnection()) {
+                result = NoShowMonitor.getInstance().checkIn(conn, booking.bookingId(), booking.start(), booking.end(), now);
+            }
+
+            switch (result) {
+                case CHECKED_IN -> {
+                    BookingIndexes.bookingCheckedIn(booking.bookingId());
+                    LOG.info(() -> "Checked in " + booking.bookingRef());
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("success", true);
+                    body.put("bookingRef", booking.bookingRef());
+                    body.put("roomName", booking.roomName());
+                    body.put("checkedInAt", now.toString());
+                    resp.getWriter().write(gson.toJson(body));
+                }
+                case ALREADY_CHECKED_IN -> error(resp, HttpServletResponse.SC_CONFLICT, "Already checked in");
+                case TOO_EARLY -> error(resp, HttpServletResponse.SC_CONFLICT, "Check-in has not opened yet");
+                case ENDED -> error(resp, HttpServletResponse.SC_CONFLICT, "This booking has ended");
+                case RELEASED -> error(resp, HttpServletResponse.SC_CONFLICT,
+                    "This booking was released because it was not checked in in time");
+                case NOT_ACTIVE -> error(resp, HttpServletResponse.SC_CONFLICT, "This booking is no longer active");
+            }
+        } catch (SQLException e) {
+            LOG.error("Error checking in " + ref, e);
+            error(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+        }
+    }
+
+    private void error(HttpServletResponse resp, int status, String message) throws IOException {
+        resp.setStatus(status);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        resp.getWriter().write(gson.toJson(body));
+    }
+}
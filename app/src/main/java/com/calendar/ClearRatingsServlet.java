@@ -11,6 +11,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import com.google.gson.Gson;
 import uni.space.finder.DatabaseSetup;
+import uni.space.finder.Log;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -21,6 +22,8 @@ import java.util.Map;
  */
 @WebServlet("/api/ratings/clear")
 public class ClearRatingsServlet extends HttpServlet {
+    private static final Log LOG = Log.get(ClearRatingsServlet.class);
+
     private final Gson gson = new Gson();
 
     @Override
@@ -39,16 +42,16 @@ public class ClearRatingsServlet extends HttpServlet {
         
         try {
             int deletedCount = clearAllRatings();
+            RoomRatingAggregates.getInstance().clear();
             
             response.put("success", true);
             response.put("message", "All ratings cleared successfully");
             response.put("deletedCount", deletedCount);
             
-            System.out.println("✅ Cleared " + deletedCount + " ratings from database");
+            LOG.info(() -> "Cleared " + deletedCount + " ratings from database");
             
         } catch (Exception e) {
-            System.err.println("❌ Error clearing ratings: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error clearing ratings", e);
             
             response.put("success", false);
             response.put("error", "Failed to clear ratings: " + e.getMessage());
@@ -80,10 +83,6 @@ public class ClearRatingsServlet extends HttpServlet {
             
             int deletedCount = pstmt.executeUpdate();
             return deletedCount;
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Database error while clearing ratings: " + e.getMessage());
-            throw e;
         }
     }
 }
@@ -0,0 +1,166 @@
+package com.calendar;
+
+/**
+ * HealthServlet - Liveness, readiness and deep health for load balancers
+ *
+ * - GET /api/health/live  - 200 while the process can serve requests at all
+ * - GET /api/health/ready - 200 when the app can take traffic, 503 with the
+ *   reasons otherwise (database not initialised, caches still warming up,
+ *   no backend, pool saturated, room catalog loaded but empty)
+ * - GET /api/health       - readiness plus diagnostics: active backend and
+ *   breaker state, pool utilisation, cache hit ratios, schema version,
+ *   background job lag and the error rate over the last minute
+ *
+ * Every value comes from in-memory state kept by the components themselves;
+ * nothing here opens a connection or runs a query, so it is safe to poll
+ * every second.
+ */
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import uni.space.finder.BackendFailover;
+import uni.space.finder.BackgroundJobs;
+import uni.space.finder.ConnectionPool;
+import uni.space.finder.DatabaseSetup;
+import uni.space.finder.Metrics;
+import uni.space.finder.UserDirectory;
+import uni.space.finder.UserIdentityFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@WebServlet(urlPatterns = {"/api/health", "/api/health/*"})
+public class HealthServlet extends HttpServlet {
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+
+        String view = req.getPathInfo() == null ? "/" : req.getPathInfo();
+        Map<String, Object> body = new LinkedHashMap<>();
+        switch (view) {
+            case "/live" -> {
+                body.put("status", "UP");
+                body.put("uptimeMs", ManagementFactory.getRuntimeMXBean().getUptime());
+            }
+            case "/ready" -> {
+                List<String> problems = readinessProblems();
+                body.put("status", problems.isEmpty() ? "UP" : "DOWN");
+                body.put("problems", problems);
+                if (!problems.isEmpty()) {
+                    resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                }
+            }
+            case "/" -> {
+                List<String> problems = readinessProblems();
+                body.put("status", problems.isEmpty() ? "UP" : "DOWN");
+                body.put("problems", problems);
+                body.putAll(diagnostics());
+                if (!problems.isEmpty()) {
+                    resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                }
+            }
+            default -> {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+        }
+        resp.getWriter().write(gson.toJson(body));
+    }
+
+    /**
+     * Reasons the app should not receive traffic; empty when ready.
+     */
+    static List<String> readinessProblems() {
+        List<String> problems = new ArrayList<>();
+        Exception initFailure = DatabaseSetup.getInitFailure();
+        if (initFailure != null) {
+            problems.add("database initialization failed: " + initFailure.getMessage());
+        } else if (!DatabaseSetup.isInitialized()) {
+            problems.add("database not initialized");
+        }
+        if (StartupListener.isWarmingUp()) {
+            problems.add("warming up caches");
+        }
+        BackendFailover failover = DatabaseSetup.peekFailover();
+        if (failover == null) {
+            problems.add("no database backend");
+        } else {
+            ConnectionPool pool = failover.getActivePool();
+            if (pool.getWaitingThreads() > pool.getMaxSize()) {
+                problems.add("connection pool saturated (" + pool.getWaitingThreads() + " waiting)");
+            }
+        }
+        Map<String, Object> catalog = RoomCatalog.getInstance().getStats();
+        if (Boolean.TRUE.equals(catalog.get("loaded")) && Integer.valueOf(0).equals(catalog.get("rooms"))) {
+            problems.add("room catalog is empty");
+        }
+        return problems;
+    }
+
+    static Map<String, Object> diagnostics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("uptimeMs", ManagementFactory.getRuntimeMXBean().getUptime());
+
+        Map<String, Object> database = new LinkedHashMap<>();
+        long initializedAt = DatabaseSetup.getInitializedAt();
+        database.put("initializedAt", initializedAt == 0 ? null : new java.util.Date(initializedAt));
+        database.put("schemaVersion", DatabaseSetup.getSchemaVersion());
+        BackendFailover failover = DatabaseSetup.peekFailover();
+        if (failover != null) {
+            database.put("backend", failover.getStatus());
+            database.put("pool", poolStats(failover.getActivePool()));
+        }
+        m.put("database", database);
+
+        Map<String, Object> caches = new LinkedHashMap<>();
+        caches.put("userDirectory", UserDirectory.getCacheStats());
+        long sessionHits = UserIdentityFilter.getSessionHits();
+        long lookups = UserIdentityFilter.getDirectoryLookups();
+        Map<String, Object> sessions = new LinkedHashMap<>();
+        sessions.put("hits", sessionHits);
+        sessions.put("lookups", lookups);
+        sessions.put("hitRatio", ratio(sessionHits, sessionHits + lookups));
+        caches.put("sessionUserIds", sessions);
+        caches.put("roomCatalog", RoomCatalog.getInstance().getStats());
+        caches.put("bookingRefs", BookingRefIndex.getInstance().getStats());
+        m.put("caches", caches);
+
+        m.put("jobs", BackgroundJobs.getStatus());
+        m.put("overdueJobs", BackgroundJobs.overdue());
+        m.put("requests", Metrics.recent());
+        m.put("bookingLocks", RoomLockManager.getInstance().getStats());
+        m.put("bookingLifecycle", BookingLifecycle.getInstance().getStats());
+        m.put("bookingArchive", BookingArchive.getInstance().getStats());
+        m.put("checkIn", NoShowMonitor.getInstance().getStats());
+        return m;
+    }
+
+    private static Map<String, Object> poolStats(ConnectionPool pool) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("active", pool.getActiveConnections());
+        stats.put("idle", pool.getIdleConnections());
+        stats.put("open", pool.getOpenConnections());
+        stats.put("max", pool.getMaxSize());
+        stats.put("waiting", pool.getWaitingThreads());
+        stats.put("utilisation", ratio(pool.getActiveConnections(), pool.getMaxSize()));
+        return stats;
+    }
+
+    private static Double ratio(long part, long whole) {
+        return whole == 0 ? null : Math.round(part * 1000.0 / whole) / 1000.0;
+    }
+}
@@ -0,0 +1,397 @@
+package com.calendar;
+
+/**
+ * NoShowMonitor - Releases ACTIVE bookings nobody checks in to
+ *
+ * Each referenced ACTIVE booking has a timer on a TimerWheel, due
+ * graceMinutes after it starts (after it was made, for a booking made late).
+ * Checking in cancels the timer and moves the booking to CHECKED_IN. When a
+ * timer fires the booking is dropped from the in-memory indexes straight
+ * away, so the room is free to book on the next request, and its id is
+ * queued; every flushMs the queue is written back as CANCELLED, batchSize
+ * bookings per transaction. Until then a released booking is remembered here
+ * so a late check-in is refused instead of reviving it.
+ *
+ * Both the release and the check-in update only apply while the booking is
+ * ACTIVE. A release that finds the booking was checked in after all (another
+ * instance, or a check-in racing the load at startup) re-reads it into the
+ * indexes. Bookings that would end before their timer are left to
+ * BookingLifecycle. Timers are reloaded from booktime on start, so bookings
+ * whose grace period ran out while the app was down are released on the
+ * first tick.
+ *
+ * Settings:
+ * - unispace.checkIn.graceMinutes: minutes after the start a booking is released (default 15)
+ * - unispace.checkIn.earlyMinutes: minutes before the start check-in opens (default 15)
+ * - unispace.checkIn.tickMs: timer resolution (default 1000)
+ * - unispace.checkIn.wheelSize: timer wheel buckets (default 512)
+ * - unispace.checkIn.flushMs: delay between release flushes (default 2000)
+ * - unispace.checkIn.batchSize: releases per transaction (default 500)
+ */
+
+import uni.space.finder.AppConfig;
+import uni.space.finder.BackgroundJobs;
+import uni.space.finder.DatabaseSetup;
+import uni.space.finder.Log;
+import uni.space.finder.TimerWheel;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+public class NoShowMonitor {
+    private static final Log LOG = Log.get(NoShowMonitor.class);
+
+    static final String JOB = "no-show-release";
+    private static final long TICK_MS = Math.max(10, AppConfig.getLong("unispace.checkIn.tickMs", 1000));
+    private static final long FLUSH_MS = AppConfig.getLong("unispace.checkIn.flushMs", 2000);
+
+    public enum Result { CHECKED_IN, ALREADY_CHECKED_IN, TOO_EARLY, ENDED, RELEASED, NOT_ACTIVE }
+
+    /**
+     * Puts a booking whose release did not apply back into the indexes.
+     */
+    @FunctionalInterface
+    interface Restorer {
+        void restore(Connection conn, int bookingId) throws SQLException;
+    }
+
+    private static final NoShowMonitor INSTANCE = new NoShowMonitor(
+        new TimerWheel(TICK_MS, AppConfig.getInt("unispace.checkIn.wheelSize", 512), System.currentTimeMillis()),
+        AppConfig.getInt("unispace.checkIn.graceMinutes", 15),
+        AppConfig.getInt("unispace.checkIn.earlyMinutes", 15),
+        AppConfig.getInt("unispace.checkIn.batchSize", 500),
+        BookingIndexes::bookingCancelled,
+        BookingIndexes::bookingChanged);
+
+    private final TimerWheel wheel;
+    private final int graceMinutes;
+    private final int earlyMinutes;
+    private final int batchSize;
+    private final IntConsumer onReleased;
+    private final Restorer restorer;
+
+    private final Map<Integer, TimerWheel.Timeout> timers = new ConcurrentHashMap<>();
+    // Released in memory and not yet written back; unsaved is the write queue
+    private final Set<Integer> released = ConcurrentHashMap.newKeySet();
+    private final Queue<Integer> unsaved = new ConcurrentLinkedQueue<>();
+    private final LongAdder checkIns = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+    private final LongAdder restored = new LongAdder();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param onReleased called on the wheel thread with each booking id as its timer fires
+     * @param restorer   called for a release the database refused
+     */
+    NoShowMonitor(TimerWheel wheel, int graceMinutes, int earlyMinutes, int batchSize,
+                  IntConsumer onReleased, Restorer restorer) {
+        this.wheel = wheel;
+        this.graceMinutes = Math.max(0, graceMinutes);
+        this.earlyMinutes = Math.max(0, earlyMinutes);
+        this.batchSize = Math.max(1, batchSize);
+        this.onReleased = onReleased;
+        this.restorer = restorer;
+    }
+
+    public static NoShowMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts the timer for a booking made now.
+     */
+    public void watch(int bookingId, LocalDateTime start, LocalDateTime end) {
+        watch(bookingId, start, end, LocalDateTime.now());
+    }
+
+    void watch(int bookingId, LocalDateTime start, LocalDateTime end, LocalDateTime created) {
+        LocalDateTime due = (created.isAfter(start) ? created : start).plusMinutes(graceMinutes);
+        if (!due.isBefore(end)) {
+            unwatch(bookingId);
+            return;
+        }
+        schedule(bookingId, toMillis(due));
+    }
+
+    /**
+     * Drops the timer of a booking that was cancelled, deleted or completed.
+     */
+    public void unwatch(int bookingId) {
+        TimerWheel.Timeout timeout = timers.remove(bookingId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * Checks a booking in if now is inside its check-in window and it has not
+     * been released. The timer is cancelled before the update, so of a
+     * release and a check-in racing each other exactly one wins.
+     */
+    public Result checkIn(Connection conn, int bookingId, LocalDateTime start, LocalDateTime end,
+                          LocalDateTime now) throws SQLException {
+        if (now.isBefore(start.minusMinutes(earlyMinutes))) {
+            return Result.TOO_EARLY;
+        }
+        if (!now.isBefore(end)) {
+            return Result.ENDED;
+        }
+        TimerWheel.Timeout timeout = timers.remove(bookingId);
+        if (timeout != null && !timeout.cancel()) {
+            return Result.RELEASED;
+        }
+        // Checked after the remove: a fired timer is marked released before it leaves the map
+        if (released.contains(bookingId)) {
+            return Result.RELEASED;
+        }
+        try {
+            int updated;
+            try (PreparedStatement pstmt = conn.prepareStatement(BookingQueries.CHECK_IN)) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(now));
+                pstmt.setInt(2, bookingId);
+                updated = pstmt.executeUpdate();
+            }
+            if (updated > 0) {
+                checkIns.increment();
+                return Result.CHECKED_IN;
+            }
+            return "CHECKED_IN".equals(status(conn, bookingId)) ? Result.ALREADY_CHECKED_IN : Result.NOT_ACTIVE;
+        } catch (SQLException | RuntimeException e) {
+            if (timeout != null) {
+                schedule(bookingId, timeout.deadline());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the wheel and the release flush, after loading timers for the
+     * bookings already waiting for check-in.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, JOB + "-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        BackgroundJobs.register(JOB, FLUSH_MS);
+        scheduler.execute(this::loadScheduled);
+        scheduler.scheduleAtFixedRate(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::flushScheduled, FLUSH_MS, FLUSH_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Drops every timer and queued release and loads the timers again, e.g.
+     * after the database backend switched: booking ids from the old backend
+     * mean other bookings in the new one. Does nothing if not started.
+     */
+    public synchronized void reload() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.execute(() -> {
+            timers.keySet().forEach(this::unwatch);
+            unsaved.clear();
+            released.clear();
+            loadScheduled();
+        });
+    }
+
+    private void loadScheduled() {
+        try (Connection conn = DatabaseSetup.getConnection()) {
+            int count = load(conn, LocalDateTime.now());
+            LOG.info(() -> "Watching " + count + " bookings for check-in");
+        } catch (SQLException | RuntimeException e) {
+            LOG.error("Could not load bookings awaiting check-in", e);
+        }
+    }
+
+    private void tick() {
+        try {
+            wheel.advance(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            LOG.error("No-show timer tick failed", e);
+        }
+    }
+
+    private void flushScheduled() {
+        if (unsaved.isEmpty()) {
+            BackgroundJobs.completed(JOB);
+            return;
+        }
+        try (Connection conn = DatabaseSetup.getConnection()) {
+            flush(conn, LocalDateTime.now());
+            BackgroundJobs.completed(JOB);
+        } catch (SQLException | RuntimeException e) {
+            LOG.error("Saving no-show releases failed", e);
+            BackgroundJobs.failed(JOB, e.getMessage());
+        }
+    }
+
+    /**
+     * Starts timers for the ACTIVE bookings that have not ended. Returns how
+     * many were read.
+     */
+    int load(Connection conn, LocalDateTime now) throws SQLException {
+        int count = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(BookingQueries.AWAITING_CHECK_IN)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(now));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int bookingId = rs.getInt("timeID");
+                    LocalDateTime start = rs.getTimestamp("start_Time").toLocalDateTime();
+                    Timestamp created = rs.getTimestamp("created_at");
+                    if (!released.contains(bookingId)) {
+                        watch(bookingId, start, rs.getTimestamp("end_Time").toLocalDateTime(),
+                            created == null ? start : created.toLocalDateTime());
+                    }
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes queued releases back as CANCELLED, batchSize per transaction.
+     * Returns how many were cancelled; on failure the batch stays queued.
+     */
+    int flush(Connection conn, LocalDateTime now) throws SQLException {
+        int total = 0;
+        while (true) {
+            List<Integer> ids = new ArrayList<>(batchSize);
+            Integer next;
+            while (ids.size() < batchSize && (next = unsaved.poll()) != null) {
+                ids.add(next);
+            }
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Integer> refused;
+            try {
+                refused = releaseBatch(conn, ids, now);
+            } catch (SQLException | RuntimeException e) {
+                unsaved.addAll(ids);
+                throw e;
+            }
+            for (int bookingId : refused) {
+                LOG.debug(() -> "Release of booking " + bookingId + " did not apply, restoring it");
+                restorer.restore(conn, bookingId);
+                restored.increment();
+            }
+            released.removeAll(ids);
+            total += ids.size() - refused.size();
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("watching", timers.size());
+        stats.put("checkIns", checkIns.sum());
+        stats.put("released", releases.sum());
+        stats.put("unsaved", released.size());
+        stats.put("restored", restored.sum());
+        stats.put("graceMinutes", graceMinutes);
+        stats.put("wheel", wheel.getStats());
+        return stats;
+    }
+
+    private void schedule(int bookingId, long deadlineMillis) {
+        TimerWheel.Timeout timeout = wheel.schedule(() -> release(bookingId), deadlineMillis);
+        TimerWheel.Timeout previous = timers.put(bookingId, timeout);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Runs on the wheel thread when a booking's grace period is over.
+     */
+    private void release(int bookingId) {
+        released.add(bookingId);
+        timers.remove(bookingId);
+        unsaved.add(bookingId);
+        releases.increment();
+        onReleased.accept(bookingId);
+        LOG.debug(() -> "Released booking " + bookingId + ": not checked in");
+    }
+
+    /**
+     * Returns the ids whose update did not apply.
+     */
+    private List<Integer> releaseBatch(Connection conn, List<Integer> ids, LocalDateTime now) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            List<Integer> refused = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(BookingQueries.RELEASE)) {
+                for (int id : ids) {
+                    pstmt.setTimestamp(1, Timestamp.valueOf(now));
+                    pstmt.setInt(2, id);
+                    pstmt.addBatch();
+                }
+                int[] counts = pstmt.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    // Only an explicit 0 means it was no longer ACTIVE; SUCCESS_NO_INFO counts as applied
+                    if (counts[i] == 0) {
+                        refused.add(ids.get(i));
+                    }
+                }
+            }
+            conn.commit();
+            return refused;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static String status(Connection conn, int bookingId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(BookingQueries.STATUS_BY_ID)) {
+            pstmt.setInt(1, bookingId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -32,10 +32,13 @@ import java.io.*;
 import java.sql.*;
 import java.util.*;
 import com.google.gson.Gson;
+import uni.space.finder.Log;
 import uni.space.finder.DatabaseSetup;
 
 @WebServlet(name = "RatingServlet", urlPatterns = {"/api/ratings"})
 public class RatingServlet extends HttpServlet {
+    private static final Log LOG = Log.get(RatingServlet.class);
+
     private final Gson gson = new Gson();
 
     @Override
@@ -63,13 +66,13 @@ public class RatingServlet extends HttpServlet {
         } catch (SQLException e) {
             resp.setStatus(500);
             resp.getWriter().write("{\"error\":\"db_error\"}");
-            e.printStackTrace();
+            LOG.error("Error loading ratings", e);
         }
     }
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        System.out.println("🔍 RatingServlet: Received POST request");
+        LOG.debug(() -> "Received rating POST request");
         resp.setContentType("application/json");
         resp.setCharacterEncoding("UTF-8");
         resp.setHeader("Access-Control-Allow-Origin", "*");
@@ -78,17 +81,17 @@ public class RatingServlet extends HttpServlet {
         
         try (BufferedReader br = req.getReader()) {
             String requestBody = br.lines().collect(java.util.stream.Collectors.joining());
-            System.out.println("📝 Rating request body: " + requestBody);
+            LOG.debug(() -> "Rating request body: " + requestBody);
             
             Map<?, ?> data = gson.fromJson(requestBody, Map.class);
             Number bookingIdN = (Number) data.get("bookingId");
             Number ratingN = (Number) data.get("rating");
             String comment = data.get("comment") == null ? null : data.get("comment").toString();
             
-            System.out.println("🔍 Parsed data - bookingId: " + bookingIdN + ", rating: " + ratingN + ", comment: " + comment);
+            LOG.debug(() -> "Parsed data - bookingId: " + bookingIdN + ", rating: " + ratingN + ", comment: " + comment);
             
             if (bookingIdN == null || ratingN == null) {
-                System.err.println("❌ Missing fields - bookingId: " + bookingIdN + ", rating: " + ratingN);
+                LOG.warn(() -> "Missing fields - bookingId: " + bookingIdN + ", rating: " + ratingN);
                 resp.setStatus(400);
                 resp.getWriter().write("{\"error\":\"missing_fields\"}");
                 return;
@@ -96,24 +99,33 @@ public class RatingServlet extends HttpServlet {
             long bookingId = bookingIdN.longValue();
             int rating = ratingN.intValue();
 
-            try (Connection conn = DatabaseSetup.getConnection();
-                 PreparedStatement ps = conn.prepareStatement("INSERT INTO ratings (booking_id, rating, comment) VALUES (?, ?, ?)")) {
+            // Opened before the INSERT so a totals rebuild cannot count this rating twice
+            try (RoomRatingAggregates.Pending pending = RoomRatingAggregates.getInstance().begin();
+                 Connection conn = DatabaseSetup.getConnection();
+                 PreparedStatement ps = conn.prepareStatement("INSERT INTO ratings (booking_id, rating, comment) VALUES (?, ?, ?)");
+                 PreparedStatement roomPs = conn.prepareStatement("SELECT room_id FROM booktime WHERE timeID = ?")) {
                 ps.setLong(1, bookingId);
                 ps.setInt(2, rating);
                 ps.setString(3, comment);
                 int rows = ps.executeUpdate();
-                System.out.println("✅ Rating saved successfully! Rows affected: " + rows);
+                LOG.debug(() -> "Rating saved, rows affected: " + rows);
+                
+                // Keep the in-memory room totals current
+                roomPs.setLong(1, bookingId);
+                try (ResultSet rs = roomPs.executeQuery()) {
+                    if (rows > 0 && rs.next()) {
+                        pending.record(rs.getInt("room_id"), rating);
+                    }
+                }
                 resp.getWriter().write("{\"success\":true}");
             } catch (SQLException e) {
-                System.err.println("❌ Database error saving rating: " + e.getMessage());
-                e.printStackTrace();
+                LOG.error("Database error saving rating", e);
                 throw e;
             }
         } catch (Exception e) {
-            System.err.println("❌ Error in RatingServlet: " + e.getMessage());
+            LOG.error("Error in RatingServlet", e);
             resp.setStatus(500);
             resp.getWriter().write("{\"error\":\"server_error\",\"message\":\"" + e.getMessage() + "\"}");
-            e.printStackTrace();
         }
     }
 }
\ No newline at end of file
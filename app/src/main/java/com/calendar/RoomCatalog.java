@@ -0,0 +1,353 @@
+package com.calendar;
+
+/**
+ * RoomCatalog - Immutable, versioned snapshot of the room table
+ *
+ * Rooms almost never change, so they are read once into a snapshot holding:
+ * - id -> room and name -> room lookups
+ * - rooms ordered by id (calendar) and by name (available-rooms listing)
+ * - precomputed location / equipment values and response maps for both views
+ *
+ * The snapshot is swapped atomically, so readers never lock and never see a
+ * half-built catalog. It is rebuilt when invalidate() is called or when the
+ * periodic version check (unispace.rooms.versionCheckIntervalMs) finds that the
+ * checksum of the room table has changed. While the catalog is empty (the
+ * table is still being seeded, or could not be read) a read retries the load
+ * at most once per version-check interval and otherwise gets the empty
+ * snapshot. stop() ends the version check on undeploy.
+ */
+
+import uni.space.finder.AppConfig;
+import uni.space.finder.BackgroundJobs;
+import uni.space.finder.DatabaseSetup;
+import uni.space.finder.Log;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+public class RoomCatalog {
+    private static final Log LOG = Log.get(RoomCatalog.class);
+
+    private static final long VERSION_CHECK_INTERVAL_MS = AppConfig.getLong("unispace.rooms.versionCheckIntervalMs", 60_000);
+    private static final String VERSION_CHECK_JOB = "room-catalog-version-check";
+    private static final RoomCatalog INSTANCE =
+        new RoomCatalog(DatabaseSetup::getConnection, VERSION_CHECK_INTERVAL_MS);
+
+    private static final String QUERY =
+        "SELECT room_id, room_name, room_type, capacity, speaker, whiteboard, monitor, hdmi_cable, image FROM room";
+
+    private final BookingPipeline.Connections connections;
+    private final long checkIntervalMs;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    private volatile boolean loaded = false;
+    private volatile long lastLoadAttempt = 0;
+    private ScheduledExecutorService versionChecker;
+
+    /**
+     * One room with its derived display values.
+     */
+    public static final class Room {
+        private final int roomId;
+        private final String roomName;
+        private final String roomType;
+        private final int capacity;
+        private final boolean speaker;
+        private final boolean whiteboard;
+        private final boolean monitor;
+        private final boolean hdmiCable;
+        private final String image;
+        private final Map<String, Object> calendarView;
+        private final Map<String, Object> listingView;
+
+        Room(int roomId, String roomName, String roomType, int capacity,
+             boolean speaker, boolean whiteboard, boolean monitor, boolean hdmiCable, String image) {
+            this.roomId = roomId;
+            this.roomName = roomName;
+            this.roomType = roomType;
+            this.capacity = capacity;
+            this.speaker = speaker;
+            this.whiteboard = whiteboard;
+            this.monitor = monitor;
+            this.hdmiCable = hdmiCable;
+            this.image = image;
+
+            // Calendar view: "Building CB06", "Speaker System"
+            List<String> calendarEquipment = new ArrayList<>();
+            if (speaker) calendarEquipment.add("Speaker System");
+            if (whiteboard) calendarEquipment.add("Whiteboard");
+            if (monitor) calendarEquipment.add("Monitor/Display");
+            if (hdmiCable) calendarEquipment.add("HDMI Cable");
+            if (calendarEquipment.isEmpty()) {
+                calendarEquipment.add("Basic furniture");
+            }
+            String calendarLocation = roomName != null && roomName.length() >= 4
+                ? "Building " + roomName.substring(0, 4) : "Unknown Location";
+            this.calendarView = view(calendarLocation, calendarEquipment);
+
+            // Available-rooms view: "CB Building", "Speaker"
+            List<String> listingEquipment = new ArrayList<>();
+            if (speaker) listingEquipment.add("Speaker");
+            if (whiteboard) listingEquipment.add("Whiteboard");
+            if (monitor) listingEquipment.add("Monitor");
+            if (hdmiCable) listingEquipment.add("HDMI Cable");
+            if (listingEquipment.isEmpty()) {
+                listingEquipment.add("Basic Equipment");
+            }
+            String listingLocation = roomName != null && roomName.length() >= 2
+                ? roomName.substring(0, 2) + " Building" : "Unknown Location";
+            this.listingView = view(listingLocation, listingEquipment);
+        }
+
+        private Map<String, Object> view(String location, List<String> equipment) {
+            Map<String, Object> room = new HashMap<>();
+            room.put("roomId", roomId);
+            room.put("roomName", roomName);
+            room.put("roomType", roomType);
+            room.put("capacity", capacity);
+            room.put("speaker", speaker);
+            room.put("whiteboard", whiteboard);
+            room.put("monitor", monitor);
+            room.put("hdmiCable", hdmiCable);
+            room.put("image", image);
+            room.put("location", location);
+            room.put("equipment", Collections.unmodifiableList(equipment));
+            return Collections.unmodifiableMap(room);
+        }
+
+        public int getRoomId() { return roomId; }
+        public String getRoomName() { return roomName; }
+        public String getRoomType() { return roomType; }
+        public int getCapacity() { return capacity; }
+        public String getImage() { return image; }
+
+        /**
+         * Read-only room map as served by /api/rooms.
+         */
+        public Map<String, Object> getCalendarView() { return calendarView; }
+
+        /**
+         * Read-only room map as served by /api/available-rooms (before availability fields).
+         */
+        public Map<String, Object> getListingView() { return listingView; }
+
+        void checksum(CRC32 crc) {
+            String row = roomId + "|" + roomName + "|" + roomType + "|" + capacity + "|" + speaker + "|"
+                + whiteboard + "|" + monitor + "|" + hdmiCable + "|" + image + "\n";
+            crc.update(row.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Everything readers need, built once and never modified.
+     */
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, 0, List.of());
+
+        final long version;
+        final long checksum;
+        final List<Room> byIdOrder;
+        final List<Room> byNameOrder;
+        final Map<Integer, Room> byId;
+        final Map<String, Room> byName;
+        final BitSet ids;
+
+        Snapshot(long version, long checksum, List<Room> rooms) {
+            this.version = version;
+            this.checksum = checksum;
+            List<Room> sortedById = new ArrayList<>(rooms);
+            sortedById.sort(Comparator.comparingInt(Room::getRoomId));
+            List<Room> sortedByName = new ArrayList<>(rooms);
+            sortedByName.sort(Comparator.comparing(Room::getRoomName, Comparator.nullsLast(Comparator.naturalOrder())));
+            Map<Integer, Room> idMap = new HashMap<>();
+            Map<String, Room> nameMap = new HashMap<>();
+            BitSet idSet = new BitSet();
+            for (Room room : rooms) {
+                idMap.put(room.getRoomId(), room);
+                if (room.getRoomName() != null) {
+                    nameMap.put(room.getRoomName(), room);
+                }
+                idSet.set(room.getRoomId());
+            }
+            this.byIdOrder = Collections.unmodifiableList(sortedById);
+            this.byNameOrder = Collections.unmodifiableList(sortedByName);
+            this.byId = Collections.unmodifiableMap(idMap);
+            this.byName = Collections.unmodifiableMap(nameMap);
+            this.ids = idSet;
+        }
+    }
+
+    RoomCatalog(BookingPipeline.Connections connections, long checkIntervalMs) {
+        this.connections = connections;
+        this.checkIntervalMs = checkIntervalMs;
+    }
+
+    public static RoomCatalog getInstance() {
+        return INSTANCE;
+    }
+
+    public Room byId(int roomId) {
+        return current().byId.get(roomId);
+    }
+
+    /**
+     * Looks a room up by name; "CB06.06.112 - Group Study Room" style labels are accepted.
+     */
+    public Room byName(String roomName) {
+        if (roomName == null) {
+            return null;
+        }
+        return current().byName.get(roomName.split(" - ")[0].trim());
+    }
+
+    public List<Room> roomsById() {
+        return current().byIdOrder;
+    }
+
+    public List<Room> roomsByName() {
+        return current().byNameOrder;
+    }
+
+    /**
+     * Copy of the set of known room ids.
+     */
+    public BitSet roomIds() {
+        return (BitSet) current().ids.clone();
+    }
+
+    public long getVersion() {
+        return current().version;
+    }
+
+    /**
+     * Loaded state, version and size of the current snapshot, without loading it.
+     */
+    public Map<String, Object> getStats() {
+        Snapshot s = snapshot.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", loaded);
+        stats.put("version", s.version);
+        stats.put("rooms", s.byIdOrder.size());
+        return stats;
+    }
+
+    /**
+     * Explicit refresh hook for code that changes the room table.
+     */
+    public void invalidate() {
+        refresh(true);
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot.get();
+        if (!loaded || (s.byIdOrder.isEmpty() && retryDue())) {
+            ensureLoaded();
+            s = snapshot.get();
+        }
+        return s;
+    }
+
+    private boolean retryDue() {
+        return System.currentTimeMillis() - lastLoadAttempt >= checkIntervalMs;
+    }
+
+    /**
+     * Reads the room table and swaps in a new snapshot if it differs from the
+     * current one (or unconditionally when forced). Returns false on database errors.
+     */
+    synchronized boolean refresh(boolean force) {
+        List<Room> rooms = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        try (Connection conn = connections.get();
+             PreparedStatement pstmt = conn.prepareStatement(QUERY + " ORDER BY room_id");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                Room room = new Room(
+                    rs.getInt("room_id"),
+                    rs.getString("room_name"),
+                    rs.getString("room_type"),
+                    rs.getInt("capacity"),
+                    rs.getBoolean("speaker"),
+                    rs.getBoolean("whiteboard"),
+                    rs.getBoolean("monitor"),
+                    rs.getBoolean("hdmi_cable"),
+                    rs.getString("image"));
+                room.checksum(crc);
+                rooms.add(room);
+            }
+        } catch (SQLException e) {
+            LOG.error("Error loading room catalog", e);
+            return false;
+        }
+
+        Snapshot previous = snapshot.get();
+        if (!force && previous.checksum == crc.getValue() && previous.byIdOrder.size() == rooms.size()) {
+            return true;
+        }
+        snapshot.set(new Snapshot(previous.version + 1, crc.getValue(), rooms));
+        LOG.info(() -> "Room catalog v" + (previous.version + 1) + " loaded: " + rooms.size() + " rooms");
+        return true;
+    }
+
+    /**
+     * Stops the periodic version check; the current snapshot stays in use.
+     */
+    public synchronized void stop() {
+        if (versionChecker != null) {
+            versionChecker.shutdownNow();
+            versionChecker = null;
+        }
+    }
+
+    /**
+     * Loads the first snapshot now instead of on the first request.
+     */
+    void warmUp() {
+        ensureLoaded();
+    }
+
+    private void ensureLoaded() {
+        if (loaded && !snapshot.get().byIdOrder.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded && (!snapshot.get().byIdOrder.isEmpty() || !retryDue())) {
+                return;
+            }
+            // An empty table usually means the database is still being seeded; try again after an interval
+            lastLoadAttempt = System.currentTimeMillis();
+            refresh(false);
+            if (!loaded) {
+                versionChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "room-catalog-version-check");
+                    t.setDaemon(true);
+                    return t;
+                });
+                BackgroundJobs.register(VERSION_CHECK_JOB, checkIntervalMs);
+                versionChecker.scheduleWithFixedDelay(() -> {
+                    if (refresh(false)) {
+                        BackgroundJobs.completed(VERSION_CHECK_JOB);
+                    } else {
+                        BackgroundJobs.failed(VERSION_CHECK_JOB, "room table unreadable");
+                    }
+                }, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+            }
+            loaded = true;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.calendar;
+
+/**
+ * RoomIntervalIndex - In-memory index of ACTIVE bookings per room for conflict checks
+ *
+ * Each room keeps its ACTIVE and CHECKED_IN bookings in a set sorted by start time. A conflict
+ * check only has to look at bookings that start before the requested end and
+ * no earlier than (requested start - longest booking in that room), so it is an
+ * O(log n) seek plus a handful of neighbours instead of a COUNT(*) over booktime.
+ *
+ * The index is loaded from booktime on first use and kept current by the
+ * servlets that create and cancel bookings. The database stays the final
+ * safety net for anything that slips past it. reload() re-reads it after the
+ * database backend switches; changes wait for a reload to finish so it
+ * cannot overwrite them.
+ */
+
+import uni.space.finder.DatabaseSetup;
+import uni.space.finder.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RoomIntervalIndex {
+    private static final Log LOG = Log.get(RoomIntervalIndex.class);
+
+    private static final RoomIntervalIndex INSTANCE = new RoomIntervalIndex(true);
+
+    private final Map<Integer, RoomBookings> rooms = new ConcurrentHashMap<>();
+    private final Map<Integer, Interval> byBookingId = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * A booked interval; times are wall-clock seconds (same clock as booktime).
+     */
+    public record Interval(int bookingId, int roomId, long start, long end) {
+    }
+
+    RoomIntervalIndex(boolean loadFromDatabase) {
+        this.loaded = !loadFromDatabase;
+    }
+
+    public static RoomIntervalIndex getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isAvailable(int roomId, LocalDateTime start, LocalDateTime end) {
+        if (!ensureLoaded()) {
+            return false; // Assume not available if the index could not be built
+        }
+        RoomBookings bookings = rooms.get(roomId);
+        return bookings == null || !bookings.overlaps(toSeconds(start), toSeconds(end));
+    }
+
+    /**
+     * Rooms with a booking in progress at the given instant, to the second;
+     * null if the index could not be loaded.
+     */
+    public BitSet busyAt(LocalDateTime instant) {
+        if (!ensureLoaded()) {
+            return null;
+        }
+        long at = toSeconds(instant);
+        BitSet busy = new BitSet();
+        rooms.forEach((roomId, bookings) -> {
+            if (bookings.overlaps(at, at + 1)) {
+                busy.set(roomId);
+            }
+        });
+        return busy;
+    }
+
+    /**
+     * ACTIVE bookings in the room that overlap [start, end).
+     */
+    public List<Interval> overlapping(int roomId, LocalDateTime start, LocalDateTime end) {
+        ensureLoaded();
+        RoomBookings bookings = rooms.get(roomId);
+        return bookings == null ? List.of() : bookings.overlapping(toSeconds(start), toSeconds(end));
+    }
+
+    public void add(int bookingId, int roomId, LocalDateTime start, LocalDateTime end) {
+        ensureLoaded();
+        put(new Interval(bookingId, roomId, toSeconds(start), toSeconds(end)));
+    }
+
+    /**
+     * Removes a booking (cancelled, completed or deleted). Returns the removed interval, if any.
+     */
+    public synchronized Interval remove(int bookingId) {
+        ensureLoaded();
+        Interval interval = byBookingId.remove(bookingId);
+        if (interval != null) {
+            RoomBookings bookings = rooms.get(interval.roomId());
+            if (bookings != null) {
+                bookings.remove(interval);
+            }
+        }
+        return interval;
+    }
+
+    /**
+     * Re-reads one booking row and updates the index to match it.
+     * Used by paths that write booktime with free-form time strings.
+     */
+    public void refresh(Connection conn, int bookingId) throws SQLException {
+        ensureLoaded();
+        try (PreparedStatement pstmt = conn.prepareStatement(BookingQueries.INTERVAL_BY_ID)) {
+            pstmt.setInt(1, bookingId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next() && BookingQueries.holdsRoom(rs.getString("booking_status"))) {
+                    put(new Interval(
+                        bookingId,
+                        rs.getInt("room_id"),
+                        toSeconds(rs.getTimestamp("start_Time").toLocalDateTime()),
+                        toSeconds(rs.getTimestamp("end_Time").toLocalDateTime())));
+                } else {
+                    remove(bookingId);
+                }
+            }
+        }
+    }
+
+    public Interval get(int bookingId) {
+        ensureLoaded();
+        return byBookingId.get(bookingId);
+    }
+
+    /**
+     * Snapshot of every indexed booking.
+     */
+    public List<Interval> all() {
+        ensureLoaded();
+        return new ArrayList<>(byBookingId.values());
+    }
+
+    public int size() {
+        return byBookingId.size();
+    }
+
+    public static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime fromSeconds(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    private synchronized void put(Interval interval) {
+        Interval previous = byBookingId.put(interval.bookingId(), interval);
+        if (previous != null) {
+            RoomBookings old = rooms.get(previous.roomId());
+            if (old != null) {
+                old.remove(previous);
+            }
+        }
+        rooms.computeIfAbsent(interval.roomId(), id -> new RoomBookings()).add(interval);
+    }
+
+    /**
+     * Loads the index if it is not loaded yet; false if the table could not be read.
+     */
+    public boolean isReady() {
+        return ensureLoaded();
+    }
+
+    /**
+     * Reads the active bookings now rather than on first use.
+     */
+    void warmUp() {
+        ensureLoaded();
+    }
+
+    private boolean ensureLoaded() {
+        if (loaded) {
+            return true;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                loaded = loadActiveBookings();
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * Re-reads the active bookings, e.g. after the database backend switched.
+     * Rooms are replaced one at a time, so readers never see an empty index.
+     * Returns false (keeping the current contents) if booktime could not be read.
+     */
+    public synchronized boolean reload() {
+        Map<Integer, Interval> fresh;
+        try {
+            fresh = readActiveBookings();
+        } catch (SQLException e) {
+            LOG.error("Error reloading room interval index", e);
+            return false;
+        }
+        Map<Integer, RoomBookings> freshRooms = new HashMap<>();
+        fresh.values().forEach(interval ->
+            freshRooms.computeIfAbsent(interval.roomId(), id -> new RoomBookings()).add(interval));
+        rooms.putAll(freshRooms);
+        rooms.keySet().retainAll(freshRooms.keySet());
+        byBookingId.putAll(fresh);
+        byBookingId.keySet().retainAll(fresh.keySet());
+        loaded = true;
+        LOG.info(() -> "Reloaded " + fresh.size() + " active bookings into the room interval index");
+        return true;
+    }
+
+    private boolean loadActiveBookings() {
+        try {
+            Map<Integer, Interval> fresh = readActiveBookings();
+            fresh.values().forEach(this::put);
+            LOG.info(() -> "Loaded " + fresh.size() + " active bookings into the room interval index");
+            return true;
+        } catch (SQLException e) {
+            LOG.error("Error loading room interval index", e);
+            rooms.clear();
+            byBookingId.clear();
+            return false;
+        }
+    }
+
+    private static Map<Integer, Interval> readActiveBookings() throws SQLException {
+        Map<Integer, Interval> intervals = new HashMap<>();
+        try (Connection conn = DatabaseSetup.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(BookingQueries.ACTIVE_INTERVALS);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                Interval interval = new Interval(
+                    rs.getInt("timeID"),
+                    rs.getInt("room_id"),
+                    toSeconds(rs.getTimestamp("start_Time").toLocalDateTime()),
+                    toSeconds(rs.getTimestamp("end_Time").toLocalDateTime()));
+                intervals.put(interval.bookingId(), interval);
+            }
+        }
+        return intervals;
+    }
+
+    /**
+     * Bookings for one room, ordered by (start, bookingId).
+     */
+    private static class RoomBookings {
+        private static final Comparator<Interval> ORDER =
+            Comparator.comparingLong(Interval::start).thenComparingInt(Interval::bookingId);
+
+        private final NavigableSet<Interval> intervals = new TreeSet<>(ORDER);
+        private long longestDuration = 0;
+
+        synchronized void add(Interval interval) {
+            intervals.add(interval);
+            longestDuration = Math.max(longestDuration, interval.end() - interval.start());
+        }
+
+        synchronized void remove(Interval interval) {
+            intervals.remove(interval);
+        }
+
+        synchronized boolean overlaps(long start, long end) {
+            for (Interval candidate : candidates(start, end)) {
+                if (candidate.end() > start) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized List<Interval> overlapping(long start, long end) {
+            List<Interval> result = new ArrayList<>();
+            for (Interval candidate : candidates(start, end)) {
+                if (candidate.end() > start) {
+                    result.add(candidate);
+                }
+            }
+            return result;
+        }
+
+        // Anything overlapping [start, end) must start before end and no earlier than start - longestDuration
+        private NavigableSet<Interval> candidates(long start, long end) {
+            Interval from = new Interval(Integer.MIN_VALUE, 0, start - longestDuration, 0);
+            Interval to = new Interval(Integer.MIN_VALUE, 0, end, 0);
+            if (ORDER.compare(from, to) >= 0) {
+                return new TreeSet<>(ORDER);
+            }
+            return intervals.subSet(from, true, to, false);
+        }
+    }
+}
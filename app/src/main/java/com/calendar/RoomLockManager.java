@@ -0,0 +1,214 @@
+package com.calendar;
+
+/**
+ * RoomLockManager - Striped in-process locks for booking writes
+ *
+ * Writes that might conflict (same room, and with day striping the same day)
+ * hash to the same stripe and run one at a time; writes for other rooms land on
+ * other stripes and run in parallel. A booking that spans several days takes
+ * every stripe it touches, always in ascending stripe order so two writers can
+ * never deadlock.
+ *
+ * Contention is recorded per stripe: acquisitions, how many had to wait, total
+ * and worst wait time, and current / peak queue depth.
+ *
+ * Settings (application.properties or -D):
+ * - unispace.locks.stripes   number of stripes, rounded up to a power of two
+ * - unispace.locks.byDay     also stripe by booking day (default true)
+ * - unispace.locks.timeoutMs how long a writer waits before giving up
+ */
+
+import uni.space.finder.AppConfig;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class RoomLockManager {
+    private static final RoomLockManager INSTANCE = new RoomLockManager(
+        AppConfig.getInt("unispace.locks.stripes", 64),
+        Boolean.parseBoolean(AppConfig.get("unispace.locks.byDay", "true")),
+        AppConfig.getLong("unispace.locks.timeoutMs", 5000));
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final boolean byDay;
+    private final long timeoutMillis;
+
+    private final AtomicLongArray acquisitions;
+    private final AtomicLongArray contended;
+    private final AtomicLongArray waitNanos;
+    private final AtomicLongArray maxWaitNanos;
+    private final AtomicIntegerArray queued;
+    private final AtomicIntegerArray maxQueued;
+    private final AtomicLong timeouts = new AtomicLong();
+
+    /**
+     * Stripes held by one writer; closing releases them in reverse order.
+     */
+    public static final class Held implements AutoCloseable {
+        private final List<ReentrantLock> locks;
+
+        private Held(List<ReentrantLock> locks) {
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    RoomLockManager(int stripeCount, boolean byDay, long timeoutMillis) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = size - 1;
+        this.byDay = byDay;
+        this.timeoutMillis = timeoutMillis;
+        this.acquisitions = new AtomicLongArray(size);
+        this.contended = new AtomicLongArray(size);
+        this.waitNanos = new AtomicLongArray(size);
+        this.maxWaitNanos = new AtomicLongArray(size);
+        this.queued = new AtomicIntegerArray(size);
+        this.maxQueued = new AtomicIntegerArray(size);
+    }
+
+    public static RoomLockManager getInstance() {
+        return INSTANCE;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Locks every stripe a booking of the room over [start, end) could conflict on.
+     * Returns null if the stripes could not all be taken within the timeout.
+     */
+    public Held acquire(int roomId, LocalDateTime start, LocalDateTime end) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<ReentrantLock> held = new ArrayList<>();
+        for (int stripe : stripesFor(roomId, start, end)) {
+            if (!lockStripe(stripe, deadline)) {
+                timeouts.incrementAndGet();
+                new Held(held).close();
+                return null;
+            }
+            held.add(stripes[stripe]);
+        }
+        return new Held(held);
+    }
+
+    /**
+     * Stripe indexes for the booking, ascending and without duplicates.
+     */
+    TreeSet<Integer> stripesFor(int roomId, LocalDateTime start, LocalDateTime end) {
+        TreeSet<Integer> result = new TreeSet<>();
+        if (!byDay) {
+            result.add(stripeOf(roomId, 0));
+            return result;
+        }
+        long firstDay = start.toLocalDate().toEpochDay();
+        long lastDay = end.isAfter(start) ? end.minusNanos(1).toLocalDate().toEpochDay() : firstDay;
+        for (long day = firstDay; day <= lastDay && result.size() < stripes.length; day++) {
+            result.add(stripeOf(roomId, day));
+        }
+        return result;
+    }
+
+    private int stripeOf(int roomId, long day) {
+        int h = roomId * 31 + Long.hashCode(day);
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h & mask;
+    }
+
+    private boolean lockStripe(int stripe, long deadline) throws InterruptedException {
+        ReentrantLock lock = stripes[stripe];
+        acquisitions.incrementAndGet(stripe);
+        if (lock.tryLock()) {
+            return true;
+        }
+
+        contended.incrementAndGet(stripe);
+        int depth = queued.incrementAndGet(stripe);
+        maxQueued.accumulateAndGet(stripe, depth, Math::max);
+        long waitStart = System.nanoTime();
+        try {
+            return lock.tryLock(deadline - waitStart, TimeUnit.NANOSECONDS);
+        } finally {
+            queued.decrementAndGet(stripe);
+            long waited = System.nanoTime() - waitStart;
+            waitNanos.addAndGet(stripe, waited);
+            maxWaitNanos.accumulateAndGet(stripe, waited, Math::max);
+        }
+    }
+
+    /**
+     * Contention summary across all stripes, plus the busiest stripes.
+     */
+    public Map<String, Object> getStats() {
+        long totalAcquisitions = 0;
+        long totalContended = 0;
+        long totalWait = 0;
+        long worstWait = 0;
+        int waitingNow = 0;
+        int peakQueue = 0;
+        TreeSet<long[]> hottest = new TreeSet<>((a, b) -> a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compare(a[0], b[0]));
+        for (int i = 0; i < stripes.length; i++) {
+            totalAcquisitions += acquisitions.get(i);
+            totalContended += contended.get(i);
+            totalWait += waitNanos.get(i);
+            worstWait = Math.max(worstWait, maxWaitNanos.get(i));
+            waitingNow += queued.get(i);
+            peakQueue = Math.max(peakQueue, maxQueued.get(i));
+            if (contended.get(i) > 0) {
+                hottest.add(new long[] { i, contended.get(i) });
+                if (hottest.size() > 5) {
+                    hottest.pollLast();
+                }
+            }
+        }
+
+        List<Map<String, Object>> hotStripes = new ArrayList<>();
+        for (long[] entry : hottest) {
+            int i = (int) entry[0];
+            Map<String, Object> stripe = new LinkedHashMap<>();
+            stripe.put("stripe", i);
+            stripe.put("acquisitions", acquisitions.get(i));
+            stripe.put("contended", contended.get(i));
+            stripe.put("waitMs", TimeUnit.NANOSECONDS.toMillis(waitNanos.get(i)));
+            stripe.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get(i)));
+            stripe.put("queueDepth", queued.get(i));
+            stripe.put("maxQueueDepth", maxQueued.get(i));
+            hotStripes.add(stripe);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stripes", stripes.length);
+        stats.put("byDay", byDay);
+        stats.put("acquisitions", totalAcquisitions);
+        stats.put("contended", totalContended);
+        stats.put("timeouts", timeouts.get());
+        stats.put("totalWaitMs", TimeUnit.NANOSECONDS.toMillis(totalWait));
+        stats.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(worstWait));
+        stats.put("waiting", waitingNow);
+        stats.put("maxQueueDepth", peakQueue);
+        stats.put("hotStripes", hotStripes);
+        return stats;
+    }
+}
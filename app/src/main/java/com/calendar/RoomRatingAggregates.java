@@ -0,0 +1,274 @@
+package com.calendar;
+
+/**
+ * RoomRatingAggregates - Per-room rating totals served from memory
+ *
+ * Keeps a count, a sum and a 1-5 star histogram for every room so the room
+ * listing can show average ratings without a query per room.
+ *
+ * - RatingServlet records each new rating incrementally
+ * - ClearRatingsServlet resets everything
+ * - A background job periodically rebuilds the totals from the ratings table
+ *   (one GROUP BY query) and swaps them in, correcting any drift
+ *
+ * Every record and clear bumps a version under the same lock as the swap. A
+ * rebuild only swaps in if the version is unchanged since its query started,
+ * and otherwise runs the query again (up to MAX_REBUILDS times), so a rating
+ * recorded or a clear made while the query runs is never overwritten.
+ *
+ * RatingServlet opens a Pending before its INSERT and records through it
+ * after the commit. A rebuild does not swap in while any Pending is open:
+ * such a rating may already be in the query's result, and recording it on
+ * top of the new totals would count it twice. Every rating recorded after a
+ * swap was therefore begun after it, and committed after the query read.
+ */
+
+import uni.space.finder.AppConfig;
+import uni.space.finder.BackgroundJobs;
+import uni.space.finder.DatabaseSetup;
+import uni.space.finder.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class RoomRatingAggregates {
+    private static final Log LOG = Log.get(RoomRatingAggregates.class);
+
+    private static final long RECONCILE_INTERVAL_MS = AppConfig.getLong("unispace.ratings.reconcileIntervalMs", 600_000);
+    private static final String RECONCILE_JOB = "rating-reconciler";
+    // Rebuilds attempted per reconcile while ratings keep changing underneath
+    static final int MAX_REBUILDS = 3;
+    private static final RoomRatingAggregates INSTANCE = new RoomRatingAggregates(RoomRatingAggregates::readTotals, true);
+
+    private final Loader loader;
+    private final boolean scheduled;
+    private final Object lock = new Object();
+    private volatile Map<Integer, RoomRating> rooms = new ConcurrentHashMap<>();
+    private long version; // guarded by lock
+    private int inFlight; // ratings begun and not yet recorded or abandoned; guarded by lock
+    private volatile boolean loaded = false;
+    private volatile long lastReconciled = 0;
+    private ScheduledExecutorService reconciler;
+
+    /**
+     * Reads the totals from the ratings table; replaced in tests.
+     */
+    interface Loader {
+        Map<Integer, RoomRating> load() throws SQLException;
+    }
+
+    /**
+     * @param scheduled whether to start the periodic reconciler on first use
+     */
+    RoomRatingAggregates(Loader loader, boolean scheduled) {
+        this.loader = loader;
+        this.scheduled = scheduled;
+    }
+
+    /**
+     * Running totals for one room.
+     */
+    public static class RoomRating {
+        private long count;
+        private long sum;
+        private final long[] stars = new long[5];
+
+        synchronized void add(int rating, long times) {
+            count += times;
+            sum += (long) rating * times;
+            if (rating >= 1 && rating <= 5) {
+                stars[rating - 1] += times;
+            }
+        }
+
+        public synchronized long getCount() { return count; }
+
+        public synchronized double getAverage() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        public synchronized long[] getHistogram() {
+            return stars.clone();
+        }
+    }
+
+    public static RoomRatingAggregates getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Average rating rounded to one decimal place (0.0 if the room has no ratings).
+     */
+    public double getAverageRating(int roomId) {
+        ensureLoaded();
+        RoomRating rating = rooms.get(roomId);
+        if (rating == null) {
+            return 0.0;
+        }
+        double avgRating = rating.getAverage();
+        return avgRating > 0 ? Math.round(avgRating * 10.0) / 10.0 : 0.0;
+    }
+
+    public RoomRating getRoomRating(int roomId) {
+        ensureLoaded();
+        return rooms.get(roomId);
+    }
+
+    /**
+     * A rating about to be written. Open it before the INSERT, record() after
+     * the commit, and close it in any case.
+     */
+    public final class Pending implements AutoCloseable {
+        private boolean done; // guarded by lock
+
+        private Pending() {
+        }
+
+        public void record(int roomId, int rating) {
+            synchronized (lock) {
+                if (done) {
+                    throw new IllegalStateException("Rating already recorded");
+                }
+                rooms.computeIfAbsent(roomId, id -> new RoomRating()).add(rating, 1);
+                version++;
+                done = true;
+                inFlight--;
+            }
+        }
+
+        /**
+         * Abandons the rating if it was not recorded; the next rebuild picks it up if it was saved.
+         */
+        @Override
+        public void close() {
+            synchronized (lock) {
+                if (!done) {
+                    done = true;
+                    inFlight--;
+                }
+            }
+        }
+    }
+
+    public Pending begin() {
+        ensureLoaded();
+        synchronized (lock) {
+            inFlight++;
+        }
+        return new Pending();
+    }
+
+    /**
+     * Records a rating with no write in between; callers that write the
+     * ratings table use begin() instead.
+     */
+    public void recordRating(int roomId, int rating) {
+        try (Pending written = begin()) {
+            written.record(roomId, rating);
+        }
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            rooms = new ConcurrentHashMap<>();
+            version++;
+        }
+    }
+
+    public long getLastReconciled() {
+        return lastReconciled;
+    }
+
+    /**
+     * Rebuilds the totals from the ratings table and swaps them in, unless
+     * ratings kept changing (or were being written) through every rebuild;
+     * false if nothing was swapped.
+     */
+    public boolean reconcile() {
+        for (int attempt = 0; attempt < MAX_REBUILDS; attempt++) {
+            long started;
+            synchronized (lock) {
+                started = version;
+            }
+            Map<Integer, RoomRating> rebuilt;
+            try {
+                rebuilt = loader.load();
+            } catch (SQLException e) {
+                LOG.error("Error reconciling room ratings", e);
+                return false;
+            }
+            synchronized (lock) {
+                if (version == started && inFlight == 0) {
+                    rooms = rebuilt;
+                    lastReconciled = System.currentTimeMillis();
+                    return true;
+                }
+            }
+        }
+        LOG.warn(() -> "Ratings changed or were being written during " + MAX_REBUILDS + " rebuilds, keeping the incremental totals");
+        return false;
+    }
+
+    private static Map<Integer, RoomRating> readTotals() throws SQLException {
+        String query = "SELECT b.room_id, r.rating, COUNT(*) AS rating_count " +
+                       "FROM ratings r " +
+                       "INNER JOIN booktime b ON r.booking_id = b.timeID " +
+                       "GROUP BY b.room_id, r.rating";
+        Map<Integer, RoomRating> totals = new ConcurrentHashMap<>();
+        try (Connection conn = DatabaseSetup.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                totals.computeIfAbsent(rs.getInt("room_id"), id -> new RoomRating())
+                      .add(rs.getInt("rating"), rs.getLong("rating_count"));
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Builds the rating totals and starts the reconciler now rather than on first use.
+     */
+    void warmUp() {
+        ensureLoaded();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            if (reconcile()) {
+                LOG.info(() -> "Loaded rating totals for " + rooms.size() + " rooms");
+            }
+            if (!scheduled) {
+                loaded = true;
+                return;
+            }
+            reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "rating-reconciler");
+                t.setDaemon(true);
+                return t;
+            });
+            BackgroundJobs.register(RECONCILE_JOB, RECONCILE_INTERVAL_MS);
+            reconciler.scheduleWithFixedDelay(() -> {
+                if (reconcile()) {
+                    BackgroundJobs.completed(RECONCILE_JOB);
+                } else {
+                    BackgroundJobs.failed(RECONCILE_JOB, "ratings query failed");
+                }
+            }, RECONCILE_INTERVAL_MS, RECONCILE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            loaded = true;
+        }
+    }
+}
@@ -29,9 +29,12 @@ import com.google.gson.Gson;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import uni.space.finder.Log;
 
 @WebServlet("/api/rooms")
 public class RoomsServlet extends HttpServlet {
+    private static final Log LOG = Log.get(RoomsServlet.class);
+
     private CalendarService calendarService = new CalendarService();
     private Gson gson = new Gson();
 
@@ -46,10 +49,9 @@ public class RoomsServlet extends HttpServlet {
         try {
             List<Map<String, Object>> rooms = calendarService.getAllRooms();
             resp.getWriter().write(gson.toJson(rooms));
-            System.out.println("✅ Fetched " + rooms.size() + " rooms");
+            LOG.debug(() -> "Fetched " + rooms.size() + " rooms");
         } catch (Exception e) {
-            System.err.println("❌ Error in RoomsServlet: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in RoomsServlet", e);
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
         }
@@ -0,0 +1,268 @@
+package com.calendar;
+
+/**
+ * SlotAvailabilityEngine - Bitmap availability for arbitrary time windows
+ *
+ * Each day is divided into fixed slots (15 minutes by default, configurable with
+ * unispace.availability.slotMinutes). Every room keeps one BitSet per day with a
+ * bit set for each slot covered by an ACTIVE booking.
+ *
+ * "Which rooms are free for every slot between T1 and T2" becomes: build the slot
+ * mask for each day in the window, OR together the ids of rooms whose bitmap
+ * intersects it, and AND-NOT that with the set of all rooms.
+ *
+ * Slots are conservative: a booking that covers part of a slot marks the whole
+ * slot busy. The set of rooms comes from RoomCatalog; the bitmaps are seeded from
+ * RoomIntervalIndex and updated through BookingIndexes on create and cancel.
+ * Days that have passed are dropped by BookingLifecycle's runs; reload()
+ * rebuilds the bitmaps from the index after the database backend switches.
+ */
+
+import uni.space.finder.AppConfig;
+import uni.space.finder.Log;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SlotAvailabilityEngine {
+    private static final Log LOG = Log.get(SlotAvailabilityEngine.class);
+
+    private static final SlotAvailabilityEngine INSTANCE = new SlotAvailabilityEngine(
+        AppConfig.getInt("unispace.availability.slotMinutes", 15), RoomIntervalIndex.getInstance(), true);
+
+    private final int slotMinutes;
+    private final int slotsPerDay;
+    private final RoomIntervalIndex index;
+    private final Map<LocalDate, DayBitmap> days = new ConcurrentHashMap<>();
+    private final BitSet allRooms = new BitSet();
+    private final boolean useCatalog;
+    private volatile boolean loaded;
+
+    SlotAvailabilityEngine(int slotMinutes, RoomIntervalIndex index, boolean loadFromDatabase) {
+        if (slotMinutes <= 0 || 1440 % slotMinutes != 0) {
+            throw new IllegalArgumentException("Slot size must divide a day evenly: " + slotMinutes);
+        }
+        this.slotMinutes = slotMinutes;
+        this.slotsPerDay = 1440 / slotMinutes;
+        this.index = index;
+        this.useCatalog = loadFromDatabase;
+        this.loaded = !loadFromDatabase;
+    }
+
+    public static SlotAvailabilityEngine getInstance() {
+        return INSTANCE;
+    }
+
+    public int getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    /**
+     * Room ids that have no ACTIVE booking in any slot touching [from, to).
+     */
+    public BitSet freeRooms(LocalDateTime from, LocalDateTime to) {
+        ensureLoaded();
+        BitSet busy = new BitSet();
+        forEachDay(from, to, (date, firstSlot, endSlot) -> {
+            DayBitmap day = days.get(date);
+            if (day != null) {
+                day.collectBusy(firstSlot, endSlot, busy);
+            }
+        });
+        BitSet free;
+        synchronized (allRooms) {
+            free = (BitSet) allRooms.clone();
+        }
+        if (useCatalog) {
+            free.or(RoomCatalog.getInstance().roomIds()); // Picks up rooms added since loading
+        }
+        free.andNot(busy);
+        return free;
+    }
+
+    public boolean isFree(int roomId, LocalDateTime from, LocalDateTime to) {
+        ensureLoaded();
+        boolean[] free = { true };
+        forEachDay(from, to, (date, firstSlot, endSlot) -> {
+            DayBitmap day = days.get(date);
+            if (free[0] && day != null && day.isBusy(roomId, firstSlot, endSlot)) {
+                free[0] = false;
+            }
+        });
+        return free[0];
+    }
+
+    public void registerRoom(int roomId) {
+        synchronized (allRooms) {
+            allRooms.set(roomId);
+        }
+    }
+
+    public synchronized void markBooked(int roomId, LocalDateTime start, LocalDateTime end) {
+        ensureLoaded();
+        mark(days, roomId, start, end);
+    }
+
+    private void mark(Map<LocalDate, DayBitmap> target, int roomId, LocalDateTime start, LocalDateTime end) {
+        registerRoom(roomId);
+        forEachDay(start, end, (date, firstSlot, endSlot) ->
+            target.computeIfAbsent(date, d -> new DayBitmap()).mark(roomId, firstSlot, endSlot));
+    }
+
+    /**
+     * Recomputes the room's slots in [start, end) from the interval index after a
+     * booking has been removed from it, so slots shared with other bookings stay busy.
+     */
+    public synchronized void release(int roomId, LocalDateTime start, LocalDateTime end) {
+        ensureLoaded();
+        forEachDay(start, end, (date, firstSlot, endSlot) -> {
+            DayBitmap day = days.get(date);
+            if (day != null) {
+                day.recompute(roomId, date, firstSlot, endSlot);
+            }
+        });
+    }
+
+    /**
+     * Drops the bitmaps of days before date; returns how many were dropped.
+     */
+    public int dropDaysBefore(LocalDate date) {
+        int before = days.size();
+        days.keySet().removeIf(day -> day.isBefore(date));
+        return before - days.size();
+    }
+
+    /**
+     * Builds the slot bitmaps now. Uses the catalog and interval index, loading them itself if they are not warm yet.
+     */
+    void warmUp() {
+        ensureLoaded();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            BitSet roomIds = RoomCatalog.getInstance().roomIds();
+            if (roomIds.isEmpty()) {
+                LOG.warn("No rooms in catalog yet, availability engine not loaded");
+                return;
+            }
+            synchronized (allRooms) {
+                allRooms.or(roomIds);
+            }
+            for (RoomIntervalIndex.Interval interval : index.all()) {
+                mark(days, interval.roomId(),
+                    RoomIntervalIndex.fromSeconds(interval.start()), RoomIntervalIndex.fromSeconds(interval.end()));
+            }
+            loaded = true;
+            LOG.info(() -> "Availability engine ready: " + days.size() + " booked days, " + slotMinutes + "-minute slots");
+        }
+    }
+
+    /**
+     * Rebuilds every day's bitmap from the interval index, which must have
+     * been reloaded first. Days are replaced one at a time, so readers never
+     * see an empty engine; markBooked and release wait for the rebuild.
+     */
+    public synchronized void reload() {
+        if (!loaded) {
+            ensureLoaded();
+            return;
+        }
+        Map<LocalDate, DayBitmap> fresh = new HashMap<>();
+        for (RoomIntervalIndex.Interval interval : index.all()) {
+            mark(fresh, interval.roomId(),
+                RoomIntervalIndex.fromSeconds(interval.start()), RoomIntervalIndex.fromSeconds(interval.end()));
+        }
+        days.putAll(fresh);
+        days.keySet().retainAll(fresh.keySet());
+    }
+
+    private interface DaySlots {
+        void accept(LocalDate date, int firstSlot, int endSlot);
+    }
+
+    /**
+     * Splits [start, end) into per-day slot ranges [firstSlot, endSlot).
+     */
+    private void forEachDay(LocalDateTime start, LocalDateTime end, DaySlots action) {
+        if (!end.isAfter(start)) {
+            return;
+        }
+        LocalDate date = start.toLocalDate();
+        LocalDate lastDate = end.toLocalDate();
+        while (!date.isAfter(lastDate)) {
+            int firstSlot = date.equals(start.toLocalDate()) ? slotOf(start, false) : 0;
+            int endSlot = date.equals(lastDate) ? slotOf(end, true) : slotsPerDay;
+            if (endSlot > firstSlot) {
+                action.accept(date, firstSlot, endSlot);
+            }
+            date = date.plusDays(1);
+        }
+    }
+
+    private int slotOf(LocalDateTime time, boolean roundUp) {
+        int minuteOfDay = time.getHour() * 60 + time.getMinute();
+        if (roundUp && (minuteOfDay % slotMinutes != 0 || time.getSecond() > 0)) {
+            return minuteOfDay / slotMinutes + 1;
+        }
+        return minuteOfDay / slotMinutes;
+    }
+
+    /**
+     * Slot bitmaps for all rooms on one day.
+     */
+    private class DayBitmap {
+        private final Map<Integer, BitSet> rooms = new ConcurrentHashMap<>();
+
+        synchronized void mark(int roomId, int firstSlot, int endSlot) {
+            rooms.computeIfAbsent(roomId, id -> new BitSet(slotsPerDay)).set(firstSlot, endSlot);
+        }
+
+        synchronized void recompute(int roomId, LocalDate date, int firstSlot, int endSlot) {
+            BitSet slots = rooms.get(roomId);
+            if (slots == null) {
+                return;
+            }
+            slots.clear(firstSlot, endSlot);
+            LocalDateTime windowStart = date.atStartOfDay().plusMinutes((long) firstSlot * slotMinutes);
+            LocalDateTime windowEnd = date.atStartOfDay().plusMinutes((long) endSlot * slotMinutes);
+            for (RoomIntervalIndex.Interval interval : index.overlapping(roomId, windowStart, windowEnd)) {
+                LocalDateTime s = RoomIntervalIndex.fromSeconds(interval.start());
+                LocalDateTime e = RoomIntervalIndex.fromSeconds(interval.end());
+                int from = s.isBefore(windowStart) ? firstSlot : slotOf(s, false);
+                int to = e.isAfter(windowEnd) ? endSlot : slotOf(e, true);
+                if (to > from) {
+                    slots.set(from, to);
+                }
+            }
+            if (slots.isEmpty()) {
+                rooms.remove(roomId);
+            }
+        }
+
+        synchronized boolean isBusy(int roomId, int firstSlot, int endSlot) {
+            BitSet slots = rooms.get(roomId);
+            return slots != null && slots.nextSetBit(firstSlot) >= 0 && slots.nextSetBit(firstSlot) < endSlot;
+        }
+
+        synchronized void collectBusy(int firstSlot, int endSlot, BitSet busyRooms) {
+            BitSet mask = new BitSet(slotsPerDay);
+            mask.set(firstSlot, endSlot);
+            for (Map.Entry<Integer, BitSet> entry : rooms.entrySet()) {
+                if (entry.getValue().intersects(mask)) {
+                    busyRooms.set(entry.getKey());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.calendar;
+
+/**
+ * StartupListener - Owns database initialisation and cache warm-up
+ *
+ * When the web app deploys, initDatabase() is started once on a background
+ * thread; API requests wait for it in DatabaseInitFilter instead of running
+ * it themselves. After that the independent warm-up steps run in parallel:
+ * - room catalog snapshot
+ * - interval index of active bookings
+ * - rating totals
+ * - today's booking references
+ * and the slot availability engine is built once the catalog and index are
+ * in. /api/health/ready reports "warming up" until everything has finished.
+ * The BookingLifecycle and BookingArchive jobs and the NoShowMonitor start
+ * once warm-up succeeds and stop on undeploy, as does the room catalog's
+ * version check. If initialisation fails, no cache is warmed and no job is
+ * started.
+ *
+ * When the database fails over to H2 or back, every cache is reloaded from
+ * the backend now serving (reloadCaches), on the failover's probe thread.
+ * Until that finishes, requests can see the previous backend's bookings; the
+ * database constraints still reject conflicting writes.
+ *
+ * Settings:
+ * - unispace.startup.threads: warm-up threads (default 3)
+ * - unispace.startup.initTimeoutMs: how long a request waits for
+ *   initialisation before carrying on (default 120000, see DatabaseSetup)
+ */
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import uni.space.finder.AppConfig;
+import uni.space.finder.DatabaseSetup;
+import uni.space.finder.Log;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@WebListener
+public class StartupListener implements ServletContextListener {
+    private static final Log LOG = Log.get(StartupListener.class);
+
+    private static final int THREADS = Math.max(1, AppConfig.getInt("unispace.startup.threads", 3));
+
+    private static volatile boolean warmingUp = false;
+
+    private ExecutorService startup;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        long started = System.currentTimeMillis();
+        AtomicInteger threadNumber = new AtomicInteger();
+        startup = Executors.newFixedThreadPool(THREADS, r -> {
+            Thread t = new Thread(r, "startup-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        warmingUp = true;
+
+        DatabaseSetup.initializeAsync(startup)
+            .thenCompose(v -> {
+                LOG.info(() -> "Database initialised in " + (System.currentTimeMillis() - started) + " ms, warming caches");
+                DatabaseSetup.getFailover().addSwitchListener(StartupListener::reloadCaches);
+                CompletableFuture<Void> catalog = step("room catalog", () -> RoomCatalog.getInstance().warmUp());
+                CompletableFuture<Void> index = step("interval index", () -> RoomIntervalIndex.getInstance().warmUp());
+                CompletableFuture<Void> ratings = step("rating totals", () -> RoomRatingAggregates.getInstance().warmUp());
+                CompletableFuture<Void> refs = step("booking references", () -> BookingRefIndex.getInstance().warmUp());
+                CompletableFuture<Void> engine = CompletableFuture.allOf(catalog, index)
+                    .thenCompose(ignored -> step("availability engine", () -> SlotAvailabilityEngine.getInstance().warmUp()));
+                return CompletableFuture.allOf(engine, ratings, refs);
+            })
+            .whenComplete((v, error) -> {
+                warmingUp = false;
+                if (error != null) {
+                    LOG.error("Startup did not complete", error);
+                } else {
+                    LOG.info(() -> "Startup complete in " + (System.currentTimeMillis() - started) + " ms");
+                    BookingLifecycle.getInstance().start();
+                    BookingArchive.getInstance().start();
+                    NoShowMonitor.getInstance().start();
+                }
+                startup.shutdown();
+            });
+    }
+
+    /**
+     * Runs one warm-up step; a failing step is logged and does not hold up the others.
+     */
+    private CompletableFuture<Void> step(String name, Runnable task) {
+        return CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+                LOG.debug(() -> "Warmed " + name + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (RuntimeException e) {
+                LOG.error("Warm-up of " + name + " failed", e);
+            }
+        }, startup);
+    }
+
+    /**
+     * Reloads every in-memory copy of database state after the backend switched.
+     */
+    static void reloadCaches(boolean primaryActive) {
+        long start = System.nanoTime();
+        LOG.warn(() -> "Database switched to " + (primaryActive ? "MySQL" : "H2") + ", reloading caches");
+        RoomCatalog.getInstance().invalidate();
+        RoomIntervalIndex.getInstance().reload();
+        SlotAvailabilityEngine.getInstance().reload();
+        RoomRatingAggregates.getInstance().reconcile();
+        BookingRefIndex.getInstance().invalidate();
+        BookingRefAllocator.getInstance().reseed();
+        BookingArchive.getInstance().forgetWatermark();
+        NoShowMonitor.getInstance().reload();
+        LOG.info(() -> "Caches reloaded in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        BookingLifecycle.getInstance().stop();
+        BookingArchive.getInstance().stop();
+        NoShowMonitor.getInstance().stop();
+        RoomCatalog.getInstance().stop();
+        if (startup != null) {
+            startup.shutdownNow();
+        }
+        DatabaseSetup.shutdown();
+    }
+
+    /**
+     * True between deployment and the end of the warm-up steps.
+     */
+    public static boolean isWarmingUp() {
+        return warmingUp;
+    }
+}
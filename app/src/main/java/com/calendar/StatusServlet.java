@@ -6,6 +6,10 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import com.google.gson.Gson;
+import uni.space.finder.BackendFailover;
+import uni.space.finder.Log;
+import uni.space.finder.Metrics;
+import uni.space.finder.DatabaseSetup;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -13,7 +17,8 @@ import java.util.Map;
 
 @WebServlet("/api/status")
 public class StatusServlet extends HttpServlet {
-    private CalendarService calendarService = new CalendarService();
+    private static final Log LOG = Log.get(StatusServlet.class);
+
     private Gson gson = new Gson();
 
     @Override
@@ -25,14 +30,20 @@ public class StatusServlet extends HttpServlet {
         resp.setHeader("Access-Control-Allow-Origin", "*");
         
         Map<String, Object> status = new HashMap<>();
-        if (calendarService.isDatabaseConnected()) {
+        // In-memory state only; opening a connection here made every status poll a DB round trip
+        BackendFailover failover = DatabaseSetup.peekFailover();
+        if (DatabaseSetup.isInitialized() && failover != null) {
             status.put("database", "connected");
         } else {
             status.put("database", "disconnected");
         }
+        status.put("backend", failover == null ? null : failover.getStatus());
+        status.put("bookingLocks", RoomLockManager.getInstance().getStats());
+        status.put("logging", Log.getStats());
+        status.put("metrics", Metrics.summary());
         status.put("timestamp", new java.util.Date());
         
         resp.getWriter().write(gson.toJson(status));
-        System.out.println("✅ Status check: " + status.get("database"));
+        LOG.debug(() -> "Status check: " + status.get("database"));
     }
 }
\ No newline at end of file
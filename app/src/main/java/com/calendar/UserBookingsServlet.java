@@ -32,20 +32,25 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
+import uni.space.finder.Log;
 import uni.space.finder.DatabaseSetup;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @WebServlet("/api/user-bookings")
 public class UserBookingsServlet extends HttpServlet {
+    private static final Log LOG = Log.get(UserBookingsServlet.class);
+
     private final Gson gson = new Gson();
 
     @Override
@@ -58,7 +63,7 @@ public class UserBookingsServlet extends HttpServlet {
         
         try {
             // Get current user from session
-            int currentUserId = getCurrentUserId(req);
+            int currentUserId = UserHelper.getCurrentUserId(req);
             if (currentUserId == -1) {
                 resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 resp.getWriter().write("{\"error\":\"User not logged in or not found in database\"}");
@@ -66,76 +71,154 @@ public class UserBookingsServlet extends HttpServlet {
             }
             String status = req.getParameter("status"); // "current", "past", or "all"
             
+            if (BookingPage.Query.isRequested(req)) {
+                // Paged: ?from=&to=&cursor=&limit=, newest first
+                BookingPage.Query query;
+                try {
+                    query = BookingPage.Query.parse(req);
+                } catch (IllegalArgumentException e) {
+                    resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                    resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
+                    return;
+                }
+                BookingPage page = getUserBookingsPage(currentUserId, status, query);
+                page.write(gson, new JsonWriter(resp.getWriter()));
+                LOG.debug(() -> "Fetched page of " + page.bookings().size() + " bookings for user " + currentUserId);
+                return;
+            }
+            
             List<Booking> bookings = getUserBookings(currentUserId, status);
             resp.getWriter().write(gson.toJson(bookings));
-            System.out.println("✅ Fetched " + bookings.size() + " bookings for user " + currentUserId);
+            LOG.debug(() -> "Fetched " + bookings.size() + " bookings for user " + currentUserId);
             
         } catch (Exception e) {
-            System.err.println("❌ Error in UserBookingsServlet: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in UserBookingsServlet", e);
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
         }
     }
     
     private List<Booking> getUserBookings(int userId, String status) {
-        List<Booking> bookings = new ArrayList<>();
-        StringBuilder query = new StringBuilder();
-        
-        query.append("SELECT b.timeID, b.booking_ref, b.room_id, b.user_id, b.start_Time, b.end_Time, b.booking_status, ");
-        query.append("b.created_at, b.cancelled_at, r.room_name, r.room_type, r.capacity, ");
-        query.append("r.speaker, r.whiteboard, r.monitor, r.hdmi_cable, r.image, u.full_name ");
-        query.append("FROM booktime b ");
-        query.append("JOIN room r ON b.room_id = r.room_id ");
-        query.append("JOIN users u ON b.user_id = u.user_id ");
-        query.append("WHERE b.user_id = ? ");
-        
-        // Add status filter
-        if ("current".equals(status)) {
-            query.append("AND b.booking_status = 'ACTIVE' AND b.start_Time >= CURRENT_TIMESTAMP ");
-        } else if ("past".equals(status)) {
-            query.append("AND (b.booking_status = 'COMPLETED' OR b.end_Time < CURRENT_TIMESTAMP) ");
-        }
-        
+        List<Object> params = new ArrayList<>();
+        StringBuilder query = userBookingsQuery(userId, status, params);
         query.append("ORDER BY b.start_Time DESC");
+        BookingArchive.Query sql = includesHistory(status)
+            ? BookingArchive.getInstance().source(query.toString(), params, null)
+            : new BookingArchive.Query(query.toString(), params);
         
+        List<Booking> bookings = new ArrayList<>();
         try (Connection conn = DatabaseSetup.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query.toString())) {
+             PreparedStatement pstmt = conn.prepareStatement(sql.sql())) {
             
-            pstmt.setInt(1, userId);
+            for (int i = 0; i < sql.params().size(); i++) {
+                pstmt.setObject(i + 1, sql.params().get(i));
+            }
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                Booking booking = new Booking(
-                    rs.getInt("timeID"), // bookingID
-                    rs.getInt("timeID"), // timeID
-                    rs.getString("booking_ref"), // memorable booking reference
-                    rs.getInt("room_id"),
-                    rs.getInt("user_id"),
-                    rs.getString("start_Time"),
-                    rs.getString("end_Time"),
-                    rs.getString("room_name"),
-                    rs.getString("room_type"),
-                    rs.getInt("capacity"),
-                    rs.getBoolean("speaker"),
-                    rs.getBoolean("whiteboard"),
-                    rs.getBoolean("monitor"),
-                    rs.getBoolean("hdmi_cable"),
-                    rs.getString("image"),
-                    rs.getString("booking_status"),
-                    rs.getString("created_at"),
-                    rs.getString("cancelled_at"),
-                    rs.getString("full_name")
-                );
-                bookings.add(booking);
+                bookings.add(toBooking(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error fetching user bookings: " + e.getMessage());
+            LOG.error("Error fetching user bookings", e);
         }
         
         return bookings;
     }
     
+    /**
+     * One keyset page of the user's bookings, newest first.
+     *
+     * booktime is read first. Archived bookings all start before the archive
+     * watermark, so if the page filled up with bookings starting after it the
+     * archive cannot change the page; otherwise it is re-read with the archive.
+     */
+    private BookingPage getUserBookingsPage(int userId, String status, BookingPage.Query page) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder query = userBookingsQuery(userId, status, params);
+        page.appendTo(query, params, true);
+        
+        BookingArchive archive = BookingArchive.getInstance();
+        List<BookingCursor> cursors = new ArrayList<>();
+        List<Booking> bookings = readPage(query.toString(), params, cursors);
+        LocalDateTime from = page.earliestStart(true);
+        if (includesHistory(status) && (from == null ? archive.hasArchived() : archive.needed(from))) {
+            boolean full = bookings.size() > page.limit();
+            if (!full || archive.needed(cursors.get(cursors.size() - 1).startTime())) {
+                cursors.clear();
+                BookingArchive.Query both = BookingArchive.include(query.toString(), params);
+                bookings = readPage(both.sql(), both.params(), cursors);
+            }
+        }
+        return BookingPage.of(bookings, cursors, page.limit());
+    }
+    
+    private List<Booking> readPage(String sql, List<Object> params, List<BookingCursor> cursors) throws SQLException {
+        List<Booking> bookings = new ArrayList<>();
+        try (Connection conn = DatabaseSetup.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bookings.add(toBooking(rs));
+                    cursors.add(new BookingCursor(rs.getTimestamp("start_Time").toLocalDateTime(), rs.getInt("timeID")));
+                }
+            }
+        }
+        return bookings;
+    }
+    
+    /**
+     * Upcoming bookings are never archived; past and "all" listings may reach the archive.
+     */
+    private static boolean includesHistory(String status) {
+        return !"current".equals(status);
+    }
+    
+    /**
+     * BookingQueries.USER_BOOKINGS plus the status filter, without ORDER BY.
+     * Adds the matching parameters to params.
+     */
+    private StringBuilder userBookingsQuery(int userId, String status, List<Object> params) {
+        StringBuilder query = new StringBuilder(BookingQueries.USER_BOOKINGS);
+        params.add(userId);
+        
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if ("current".equals(status)) {
+            query.append(BookingQueries.UPCOMING);
+            params.add(now);
+        } else if ("past".equals(status)) {
+            query.append(BookingQueries.PAST);
+            params.add(now);
+        }
+        return query;
+    }
+    
+    private Booking toBooking(ResultSet rs) throws SQLException {
+        return new Booking(
+            rs.getInt("timeID"), // bookingID
+            rs.getInt("timeID"), // timeID
+            rs.getString("booking_ref"), // memorable booking reference
+            rs.getInt("room_id"),
+            rs.getInt("user_id"),
+            rs.getString("start_Time"),
+            rs.getString("end_Time"),
+            rs.getString("room_name"),
+            rs.getString("room_type"),
+            rs.getInt("capacity"),
+            rs.getBoolean("speaker"),
+            rs.getBoolean("whiteboard"),
+            rs.getBoolean("monitor"),
+            rs.getBoolean("hdmi_cable"),
+            rs.getString("image"),
+            rs.getString("booking_status"),
+            rs.getString("created_at"),
+            rs.getString("cancelled_at"),
+            rs.getString("full_name")
+        );
+    }
+    
     @Override
     protected void doDelete(HttpServletRequest req, HttpServletResponse resp) 
             throws ServletException, IOException {
@@ -152,13 +235,18 @@ public class UserBookingsServlet extends HttpServlet {
             }
             
             int bookingId = Integer.parseInt(bookingIdStr);
-            int currentUserId = 1; // Default user
+            int currentUserId = UserHelper.getCurrentUserId(req);
+            if (currentUserId == -1) {
+                resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                resp.getWriter().write("{\"error\":\"User not logged in or not found in database\"}");
+                return;
+            }
             
             boolean success = cancelBooking(bookingId, currentUserId);
             
             if (success) {
                 resp.getWriter().write("{\"success\":true,\"message\":\"Booking cancelled successfully\"}");
-                System.out.println("✅ Cancelled booking ID: " + bookingId);
+                LOG.info(() -> "Cancelled booking ID: " + bookingId);
             } else {
                 resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
                 resp.getWriter().write("{\"error\":\"Booking not found or cannot be cancelled\"}");
@@ -168,7 +256,7 @@ public class UserBookingsServlet extends HttpServlet {
             resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             resp.getWriter().write("{\"error\":\"Invalid booking ID format\"}");
         } catch (Exception e) {
-            System.err.println("❌ Error cancelling booking: " + e.getMessage());
+            LOG.error("Error cancelling booking", e);
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             resp.getWriter().write("{\"error\":\"Internal server error\"}");
         }
@@ -185,52 +273,14 @@ public class UserBookingsServlet extends HttpServlet {
             pstmt.setInt(2, userId);
             
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                BookingIndexes.bookingCancelled(bookingId);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
-            System.err.println("Error cancelling booking: " + e.getMessage());
+            LOG.error("Error cancelling booking", e);
             return false;
         }
     }
-    
-    /**
-     * Get current user ID from session and database
-     */
-    private int getCurrentUserId(HttpServletRequest req) {
-        try {
-            // Get user email from session
-            HttpSession session = req.getSession(false);
-            if (session == null || session.getAttribute("email") == null) {
-                System.err.println("❌ No session or email found");
-                return -1;
-            }
-            
-            String email = (String) session.getAttribute("email");
-            System.out.println("🔍 Looking up user ID for email: " + email);
-            
-            // Get user ID from database
-            String query = "SELECT user_id FROM users WHERE email = ?";
-            
-            try (Connection conn = DatabaseSetup.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(query)) {
-                
-                pstmt.setString(1, email);
-                ResultSet rs = pstmt.executeQuery();
-                
-                if (rs.next()) {
-                    int userId = rs.getInt("user_id");
-                    System.out.println("✅ Found user ID: " + userId + " for email: " + email);
-                    return userId;
-                } else {
-                    System.err.println("❌ User not found in database: " + email);
-                    return -1;
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error getting current user ID: " + e.getMessage());
-            e.printStackTrace();
-            return -1;
-        }
-    }
 }
\ No newline at end of file
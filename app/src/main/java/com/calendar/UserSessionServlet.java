@@ -32,9 +32,12 @@ import com.google.gson.Gson;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import uni.space.finder.Log;
 
 @WebServlet("/api/user-session")
 public class UserSessionServlet extends HttpServlet {
+    private static final Log LOG = Log.get(UserSessionServlet.class);
+
     private Gson gson = new Gson();
 
     @Override
@@ -49,12 +52,7 @@ public class UserSessionServlet extends HttpServlet {
         HttpSession session = req.getSession(false);
         Map<String, Object> response = new HashMap<>();
         
-        System.out.println("🔍 UserSessionServlet: Checking session...");
-        System.out.println("Session exists: " + (session != null));
-        if (session != null) {
-            System.out.println("Session ID: " + session.getId());
-            System.out.println("Email attribute: " + session.getAttribute("email"));
-        }
+        LOG.debug(() -> "Checking session: " + (session == null ? "none" : session.getId() + " (email " + session.getAttribute("email") + ")"));
         
         if (session != null && session.getAttribute("email") != null) {
             // User is logged in
@@ -72,12 +70,12 @@ public class UserSessionServlet extends HttpServlet {
             response.put("fullName", fullName != null ? fullName : extractNameFromEmail(userEmail));
             response.put("studentId", studentId);
 
-            System.out.println("✅ User session found: " + fullName + " (Email: " + userEmail + ", StudentId: " + studentId + ")");
+            LOG.debug(() -> "User session found: " + fullName + " (Email: " + userEmail + ", StudentId: " + studentId + ")");
         } else {
             // No session or user not logged in
             response.put("success", false);
             response.put("error", "User not logged in");
-            System.out.println("❌ No session or email found");
+            LOG.debug(() -> "No session or email found");
         }
         
         String json = gson.toJson(response);
@@ -1,9 +1,19 @@
 package uni.space.finder;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.io.*;
 
+// File-based account store. Logins and signups now use CredentialStore (users table);
+// accounts.txt is kept so existing accounts can be imported from it.
 public class Account {
+    private static final Log LOG = Log.get(Account.class);
+
     int id;
     String email;
     String password;
@@ -11,9 +21,15 @@ public class Account {
     String last;
     String sid;
 
-    private static List<Account> accounts = new ArrayList<>();
-    private static int nextId = 0;
+    // Accounts indexed by lower-cased email; loaded once, then kept current in memory
+    private static final Map<String, Account> byEmail = new ConcurrentHashMap<>();
+    // Same accounts in load/creation order
+    private static List<Account> accounts = new CopyOnWriteArrayList<>();
+    private static final AtomicInteger nextId = new AtomicInteger(0);
     private static final String FILE_PATH = "accounts.txt";
+    private static final AccountLog log = new AccountLog(FILE_PATH, () -> accounts);
+    private static volatile boolean loaded = false;
+    private static volatile boolean sourceFound = false;
 
     public Account() {
         id = 0;
@@ -35,70 +51,119 @@ public class Account {
 
     // Create account if not exists, save to file, return true if created
     public static boolean createAccount(String email, String password, String first, String last, String sid) {
-        loadAccounts();
-        for (Account a : accounts) {
-            if (a.email.equalsIgnoreCase(email)) {
-                return false; // already exists
-            }
+        ensureLoaded();
+        if (email == null) {
+            return false;
+        }
+        Account acc = new Account(nextId.getAndIncrement(), email, password, first, last, sid);
+        // putIfAbsent makes concurrent signups for the same email race safely
+        if (byEmail.putIfAbsent(key(email), acc) != null) {
+            return false; // already exists
         }
-        Account acc = new Account(nextId++, email, password, first, last, sid);
         accounts.add(acc);
-        saveAccounts();
-        System.out.println("Account created for " + acc.email);
+        persist(acc);
+        LOG.info(() -> "Account created for " + acc.email);
         return true;
     }
 
-    // Load accounts from file
-    private static void loadAccounts() {
-        accounts.clear();
-        File file = new File(FILE_PATH);
-        if (!file.exists()) return;
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",", -1);
-                if (parts.length >= 6) {
-                    accounts.add(new Account(Integer.parseInt(parts[0]), parts[1], parts[2], parts[3], parts[4], parts[5]));
-                }
-            }
-            nextId = accounts.size();
-        } catch (Exception e) {
-            e.printStackTrace();
+    // Change password if the current one matches
+    public static boolean updatePassword(String email, String currentPassword, String newPassword) {
+        Account existing = getAccountByEmail(email);
+        if (existing == null || !existing.password.equals(currentPassword)) {
+            return false;
+        }
+        return replace(existing, new Account(existing.id, existing.email, newPassword, existing.first, existing.last, existing.sid));
+    }
+
+    // Change first / last name; null or empty values are left unchanged
+    public static boolean updateName(String email, String first, String last) {
+        Account existing = getAccountByEmail(email);
+        if (existing == null) {
+            return false;
+        }
+        String newFirst = first != null && !first.isEmpty() ? first : existing.first;
+        String newLast = last != null && !last.isEmpty() ? last : existing.last;
+        return replace(existing, new Account(existing.id, existing.email, existing.password, newFirst, newLast, existing.sid));
+    }
+
+    // Accounts are replaced, never modified in place, so readers always see a consistent record
+    private static boolean replace(Account existing, Account updated) {
+        if (!byEmail.replace(key(existing.email), existing, updated)) {
+            return false; // changed concurrently
+        }
+        accounts.replaceAll(a -> a == existing ? updated : a);
+        persist(updated);
+        return true;
+    }
+
+    // Waits until the account writer has made the change durable
+    private static void persist(Account acc) {
+        try {
+            log.append(acc).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.error("Could not save account " + acc.email, e.getCause());
         }
     }
 
-    // Save accounts to file
-    private static void saveAccounts() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(FILE_PATH))) {
-            for (Account a : accounts) {
-                bw.write(a.id + "," + a.email + "," + a.password + "," + a.first + "," + a.last + "," + a.sid + "\n");
+    private static void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (Account.class) {
+            if (!loaded) {
+                loadAccounts();
+                loaded = true;
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
     }
 
+    // Load accounts from file (snapshot plus change log)
+    private static void loadAccounts() {
+        Map<String, Account> loadedAccounts = new LinkedHashMap<>();
+        int maxId = -1;
+        for (Account a : log.load()) {
+            loadedAccounts.put(key(a.email), a); // later log entries win
+            maxId = Math.max(maxId, a.id);
+        }
+        sourceFound = log.wasFound();
+        byEmail.clear();
+        byEmail.putAll(loadedAccounts);
+        accounts = new CopyOnWriteArrayList<>(loadedAccounts.values());
+        nextId.set(Math.max(maxId + 1, accounts.size()));
+    }
+
     // Login method
     public static boolean login(String email, String password) {
-        loadAccounts();
-        for (Account a : accounts) {
-            if (a.email.equalsIgnoreCase(email) && a.password.equals(password)) {
-                System.out.println("Welcome back " + email);
-                return true;
-            }
+        Account a = getAccountByEmail(email);
+        if (a != null && a.password.equals(password)) {
+            LOG.debug(() -> "Welcome back " + email);
+            return true;
         }
         return false;
     }
     
+    // All accounts in load/creation order (used to import them into the users table)
+    static List<Account> all() {
+        ensureLoaded();
+        return List.copyOf(accounts);
+    }
+
+    // Whether accounts.txt itself was read, so all() is the complete legacy account list
+    static boolean sourceFound() {
+        ensureLoaded();
+        return sourceFound;
+    }
+
     // Get account by email
     public static Account getAccountByEmail(String email) {
-        loadAccounts();
-        for (Account a : accounts) {
-            if (a.email.equalsIgnoreCase(email)) {
-                return a;
-            }
-        }
-        return null;
+        ensureLoaded();
+        return email == null ? null : byEmail.get(key(email));
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
     }
     
     // Getters for account properties
@@ -0,0 +1,232 @@
+package uni.space.finder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Persistence for the account store.
+ *
+ * accounts.txt stays the snapshot, in its original "id,email,password,first,last,sid"
+ * format. Every change after the snapshot is appended to accounts.txt.log as one
+ * line in the same format, so a signup or password change writes a single line
+ * instead of rewriting every account.
+ *
+ * All file writes happen on one "account-writer" thread. Changes submitted while
+ * it is busy are written together as one append followed by one fsync, and each
+ * caller's future completes once its line is on disk. Once the log holds enough
+ * entries (unispace.accounts.compactEvery) the writer folds it into a fresh
+ * snapshot: written to a temp file, synced, then atomically renamed over
+ * accounts.txt, so a crash leaves either the old or the new snapshot, never a
+ * truncated one.
+ *
+ * Loading reads the snapshot and then replays the log; the last line for an
+ * email wins. A torn last line from a crash is skipped.
+ */
+public class AccountLog {
+    private static final Log LOG = Log.get(AccountLog.class);
+
+    private static final int COMPACT_EVERY = AppConfig.getInt("unispace.accounts.compactEvery", 200);
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final Supplier<Collection<Account>> currentAccounts;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private int logEntries = 0;
+    private boolean found = false;
+    private Thread writer;
+
+    private static final class Pending {
+        final String line;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(String line) {
+            this.line = line;
+        }
+    }
+
+    /**
+     * @param currentAccounts the live account set, written out on compaction
+     */
+    public AccountLog(String snapshotPath, Supplier<Collection<Account>> currentAccounts) {
+        this.snapshotFile = Path.of(snapshotPath);
+        this.logFile = Path.of(snapshotPath + ".log");
+        this.currentAccounts = currentAccounts;
+    }
+
+    /**
+     * Snapshot records followed by logged changes, in the order they were written.
+     */
+    public synchronized List<Account> load() {
+        List<Account> records = new ArrayList<>();
+        int snapshot = read(snapshotFile, records, false);
+        int logged = read(logFile, records, true);
+        found = snapshot >= 0 || logged >= 0;
+        logEntries = Math.max(0, logged);
+        return records;
+    }
+
+    /**
+     * Whether the last load() read the snapshot or the log. False if neither
+     * exists (e.g. not found from the working directory) or could be read.
+     */
+    public synchronized boolean wasFound() {
+        return found;
+    }
+
+    /**
+     * Queues one changed account for the writer thread. The future completes
+     * once the change is durable (or fails with the write error).
+     */
+    public CompletableFuture<Void> append(Account account) {
+        ensureWriter();
+        Pending pending = new Pending(format(account));
+        queue.add(pending);
+        return pending.done;
+    }
+
+    /**
+     * Writes the given accounts as the new snapshot and clears the log.
+     */
+    public synchronized void compact(Collection<Account> accounts) throws IOException {
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        StringBuilder sb = new StringBuilder();
+        for (Account a : accounts) {
+            sb.append(format(a));
+        }
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, sb.toString());
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        // Replaying an old log over the new snapshot is harmless, so a crash here loses nothing
+        Files.deleteIfExists(logFile);
+        logEntries = 0;
+        LOG.info(() -> "Compacted account log into " + snapshotFile + " (" + accounts.size() + " accounts)");
+    }
+
+    public synchronized int getLogEntries() {
+        return logEntries;
+    }
+
+    static String format(Account a) {
+        return a.id + "," + a.email + "," + a.password + "," + a.first + "," + a.last + "," + a.sid + "\n";
+    }
+
+    private synchronized void ensureWriter() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(this::writeLoop, "account-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch); // Everything that arrived meanwhile goes in the same write
+            try {
+                writeBatch(batch);
+                for (Pending p : batch) {
+                    p.done.complete(null);
+                }
+            } catch (IOException e) {
+                LOG.error("Error writing account log", e);
+                for (Pending p : batch) {
+                    p.done.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private synchronized void writeBatch(List<Pending> batch) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Pending p : batch) {
+            sb.append(p.line);
+        }
+        try (FileChannel channel = FileChannel.open(logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            writeFully(channel, sb.toString());
+            channel.force(false);
+        }
+        logEntries += batch.size();
+        if (logEntries >= COMPACT_EVERY) {
+            try {
+                compact(currentAccounts.get());
+            } catch (IOException e) {
+                // The log is still intact, so compaction can simply be retried next time
+                LOG.error("Error compacting account log", e);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * @param appendOnly true for the log, where text after the final newline is a torn write
+     * @return records read, or -1 if the file is missing or unreadable
+     */
+    private static int read(Path file, List<Account> records, boolean appendOnly) {
+        if (!Files.exists(file)) {
+            return -1;
+        }
+        String content;
+        try {
+            content = Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOG.error("Could not read " + file, e);
+            return -1;
+        }
+        String[] lines = content.split("\n", -1);
+        int count = 0;
+        // The last element is whatever follows the final newline
+        int complete = appendOnly ? lines.length - 1 : lines.length;
+        for (int i = 0; i < complete; i++) {
+            String[] parts = lines[i].split(",", -1);
+            if (parts.length < 6) {
+                continue;
+            }
+            try {
+                records.add(new Account(Integer.parseInt(parts[0].trim()), parts[1], parts[2], parts[3], parts[4], parts[5].trim()));
+                count++;
+            } catch (NumberFormatException e) {
+                LOG.warn(() -> "Skipping unreadable account line in " + file);
+            }
+        }
+        if (appendOnly && !lines[lines.length - 1].isEmpty()) {
+            LOG.warn(() -> "Ignoring incomplete last line in " + file);
+        }
+        return count;
+    }
+}
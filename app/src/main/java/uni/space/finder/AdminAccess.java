@@ -0,0 +1,56 @@
+package uni.space.finder;
+
+/**
+ * AdminAccess - Guards the operational /api/admin endpoints
+ *
+ * If unispace.admin.token is set, a request must send it in the
+ * X-Admin-Token header or as "Authorization: Bearer <token>" (what
+ * Prometheus sends). Without a token every request is refused, unless
+ * unispace.admin.trustLocalhost is true: then requests from the local
+ * machine are let in. Only enable that when nothing on the machine (such as
+ * a reverse proxy) forwards outside requests, since they arrive from
+ * loopback too.
+ *
+ * Settings:
+ * - unispace.admin.token: shared secret for admin and kiosk callers (default unset)
+ * - unispace.admin.trustLocalhost: allow loopback callers without a token (default false)
+ */
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+public class AdminAccess {
+    public static final String TOKEN_HEADER = "X-Admin-Token";
+
+    private AdminAccess() {
+    }
+
+    public static boolean isAllowed(HttpServletRequest req) {
+        String token = AppConfig.get("unispace.admin.token", null);
+        if (token != null) {
+            String sent = req.getHeader(TOKEN_HEADER);
+            String authorization = req.getHeader("Authorization");
+            if (sent == null && authorization != null && authorization.startsWith("Bearer ")) {
+                sent = authorization.substring("Bearer ".length()).trim();
+            }
+            return sent != null && MessageDigest.isEqual(
+                token.getBytes(StandardCharsets.UTF_8), sent.getBytes(StandardCharsets.UTF_8));
+        }
+        if (!Boolean.parseBoolean(AppConfig.get("unispace.admin.trustLocalhost", "false"))) {
+            return false;
+        }
+        String remote = req.getRemoteAddr();
+        if (remote == null) {
+            return false;
+        }
+        try {
+            return InetAddress.getByName(remote).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
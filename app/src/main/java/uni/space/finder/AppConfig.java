@@ -0,0 +1,72 @@
+package uni.space.finder;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Simple configuration lookup for runtime tuning values.
+ *
+ * Values are read from JVM system properties first (e.g. -Dunispace.pool.maxSize=20)
+ * and fall back to application.properties on the classpath.
+ */
+public class AppConfig {
+    private static final Properties FILE_PROPERTIES = loadProperties();
+
+    private AppConfig() {
+    }
+
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = FILE_PROPERTIES.getProperty(key);
+        }
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️  Invalid integer for " + key + ", using default " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        try {
+            return Long.parseLong(get(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️  Invalid number for " + key + ", using default " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * All keys starting with prefix (system properties win), keyed by the rest of the key.
+     */
+    public static Map<String, String> withPrefix(String prefix) {
+        Map<String, String> values = new HashMap<>();
+        for (Properties source : new Properties[] {FILE_PROPERTIES, System.getProperties()}) {
+            for (String key : source.stringPropertyNames()) {
+                if (key.startsWith(prefix) && key.length() > prefix.length()) {
+                    values.put(key.substring(prefix.length()), source.getProperty(key).trim());
+                }
+            }
+        }
+        return values;
+    }
+
+    private static Properties loadProperties() {
+        Properties properties = new Properties();
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️  Could not read application.properties: " + e.getMessage());
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,296 @@
+package uni.space.finder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * BackendFailover - Circuit breaker between the primary (MySQL) and fallback (H2) pools
+ *
+ * States:
+ * - CLOSED: traffic goes to the primary
+ * - OPEN: the primary is marked unhealthy and traffic goes straight to the fallback
+ * - HALF_OPEN: a background probe is checking whether the primary has recovered
+ *
+ * Requests never wait on the primary's connect timeout while the breaker is open;
+ * only the background probe talks to an unhealthy primary. Only connection
+ * errors from the driver (SQLState class 08) count towards tripping; the
+ * pool's own errors (busy, closed, caller interrupted) do not.
+ *
+ * Switching backends does not copy data: bookings written to the fallback
+ * stay there. SwitchListeners are told on the probe thread after each switch,
+ * so the in-memory caches can be reloaded from the backend now serving, and
+ * a recovered primary is handed to them (to migrate it) before it takes
+ * traffic; if that fails, traffic stays on the fallback until the next probe.
+ */
+public class BackendFailover {
+    private static final Log LOG = Log.get(BackendFailover.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final String PROBE_JOB = "backend-failover-probe";
+
+    private final String primaryUrl;
+    private final String primaryUser;
+    private final String primaryPassword;
+    private final PoolFactory poolFactory;
+    private final ConnectionPool fallback;
+    private final int failureThreshold;
+    private final int probeTimeoutSeconds;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.OPEN);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong primaryFailures = new AtomicLong();
+    private final AtomicLong fallbackConnections = new AtomicLong();
+    private final Map<String, AtomicLong> transitions = new ConcurrentHashMap<>();
+    private volatile ConnectionPool primary;
+    private volatile long lastStateChange = System.currentTimeMillis();
+    private volatile long lastProbe = 0;
+    private final ScheduledExecutorService prober;
+    private final Probe probe;
+    private final List<SwitchListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates the pool for the primary backend once it is known to be reachable.
+     */
+    public interface PoolFactory {
+        ConnectionPool create(String url, String user, String password);
+    }
+
+    /**
+     * Told when traffic moves between the primary and the fallback.
+     */
+    public interface SwitchListener {
+        /**
+         * Called on the probe thread before a recovered primary takes
+         * traffic; throwing keeps traffic on the fallback.
+         */
+        default void preparePrimary(ConnectionPool primary) throws SQLException {
+        }
+
+        /**
+         * Called on the probe thread once traffic has moved.
+         */
+        void switched(boolean primaryActive);
+    }
+
+    /**
+     * Checks whether the primary answers; replaced in tests.
+     */
+    interface Probe {
+        boolean primaryHealthy();
+    }
+
+    public BackendFailover(String primaryUrl, String primaryUser, String primaryPassword,
+                           PoolFactory poolFactory, ConnectionPool fallback,
+                           int failureThreshold, long probeIntervalMillis, int probeTimeoutSeconds) {
+        this(primaryUrl, primaryUser, primaryPassword, poolFactory, fallback,
+            failureThreshold, probeIntervalMillis, probeTimeoutSeconds, null);
+    }
+
+    BackendFailover(String primaryUrl, String primaryUser, String primaryPassword,
+                    PoolFactory poolFactory, ConnectionPool fallback,
+                    int failureThreshold, long probeIntervalMillis, int probeTimeoutSeconds, Probe probe) {
+        this.probe = probe != null ? probe : this::probePrimary;
+        this.primaryUrl = primaryUrl;
+        this.primaryUser = primaryUser;
+        this.primaryPassword = primaryPassword;
+        this.poolFactory = poolFactory;
+        this.fallback = fallback;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.probeTimeoutSeconds = probeTimeoutSeconds;
+
+        // Decide the starting backend with a single probe
+        lastProbe = System.currentTimeMillis();
+        if (this.probe.primaryHealthy()) {
+            primary = poolFactory.create(primaryUrl, primaryUser, primaryPassword);
+            state.set(State.CLOSED);
+        }
+
+        prober = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "backend-failover-probe");
+            t.setDaemon(true);
+            return t;
+        });
+        BackgroundJobs.register(PROBE_JOB, probeIntervalMillis);
+        prober.scheduleWithFixedDelay(() -> {
+            probeIfOpen();
+            BackgroundJobs.completed(PROBE_JOB);
+        }, probeIntervalMillis, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection getConnection() throws SQLException {
+        ConnectionPool current = primary;
+        if (state.get() == State.CLOSED && current != null) {
+            try {
+                Connection conn = current.getConnection();
+                consecutiveFailures.set(0);
+                return conn;
+            } catch (SQLException e) {
+                if (!isConnectionFailure(e)) {
+                    throw e; // e.g. pool exhausted: the primary is healthy, just busy
+                }
+                primaryFailures.incrementAndGet();
+                if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                    trip(e);
+                }
+            }
+        }
+        fallbackConnections.incrementAndGet();
+        return fallback.getConnection();
+    }
+
+    public State getState() { return state.get(); }
+
+    public void addSwitchListener(SwitchListener listener) {
+        listeners.add(listener);
+    }
+
+    public boolean isPrimaryActive() {
+        return state.get() == State.CLOSED && primary != null;
+    }
+
+    /**
+     * The pool currently serving requests.
+     */
+    public ConnectionPool getActivePool() {
+        ConnectionPool current = primary;
+        return isPrimaryActive() ? current : fallback;
+    }
+
+    /**
+     * The fallback pool, whether or not it is serving requests.
+     */
+    public ConnectionPool getFallbackPool() {
+        return fallback;
+    }
+
+    /**
+     * Breaker state and counters for StatusServlet.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state.get().name());
+        status.put("activeBackend", isPrimaryActive() ? "MySQL" : "H2");
+        status.put("lastStateChange", new java.util.Date(lastStateChange));
+        status.put("lastProbe", lastProbe == 0 ? null : new java.util.Date(lastProbe));
+        status.put("primaryFailures", primaryFailures.get());
+        status.put("fallbackConnections", fallbackConnections.get());
+        Map<String, Long> counts = new LinkedHashMap<>();
+        transitions.forEach((k, v) -> counts.put(k, v.get()));
+        status.put("transitions", counts);
+        return status;
+    }
+
+    public void close() {
+        prober.shutdownNow();
+        ConnectionPool current = primary;
+        if (current != null) {
+            current.close();
+        }
+        fallback.close();
+    }
+
+    private void trip(SQLException cause) {
+        if (transition(State.CLOSED, State.OPEN)) {
+            LOG.warn(() -> "Primary database unhealthy, switching to fallback: " + cause.getMessage());
+            ConnectionPool stale = primary;
+            primary = null;
+            if (stale != null) {
+                stale.close();
+            }
+            // Tripped on a request thread; listeners reload caches, so not here
+            try {
+                prober.execute(() -> notifySwitched(false));
+            } catch (RejectedExecutionException e) {
+                // Closed: nothing left to reload
+            }
+        }
+    }
+
+    void probeIfOpen() {
+        if (!transition(State.OPEN, State.HALF_OPEN)) {
+            return;
+        }
+        lastProbe = System.currentTimeMillis();
+        if (probe.primaryHealthy()) {
+            ConnectionPool recovered = null;
+            try {
+                recovered = poolFactory.create(primaryUrl, primaryUser, primaryPassword);
+                for (SwitchListener listener : listeners) {
+                    listener.preparePrimary(recovered);
+                }
+                primary = recovered;
+                consecutiveFailures.set(0);
+                transition(State.HALF_OPEN, State.CLOSED);
+                LOG.info("Primary database healthy again, switching back");
+                notifySwitched(true);
+                return;
+            } catch (SQLException | RuntimeException e) {
+                LOG.warn(() -> "Could not switch back to the primary database: " + e.getMessage());
+                if (recovered != null) {
+                    recovered.close();
+                }
+            }
+        }
+        transition(State.HALF_OPEN, State.OPEN);
+    }
+
+    private void notifySwitched(boolean primaryActive) {
+        for (SwitchListener listener : listeners) {
+            try {
+                listener.switched(primaryActive);
+            } catch (RuntimeException e) {
+                LOG.error("Backend switch listener failed", e);
+            }
+        }
+    }
+
+    private boolean probePrimary() {
+        String url = primaryUrl + (primaryUrl.contains("?") ? "&" : "?") + "connectTimeout=" + (probeTimeoutSeconds * 1000);
+        try (Connection conn = DriverManager.getConnection(url, primaryUser, primaryPassword);
+             Statement stmt = conn.createStatement()) {
+            stmt.setQueryTimeout(probeTimeoutSeconds);
+            stmt.execute("SELECT 1");
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean transition(State from, State to) {
+        if (state.compareAndSet(from, to)) {
+            lastStateChange = System.currentTimeMillis();
+            transitions.computeIfAbsent(from + "->" + to, k -> new AtomicLong()).incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * SQLState class 08 (connection exception), or a driver's non-transient
+     * connection exception without a state. Errors with no state at all are
+     * not counted: the pool and JDBC plumbing raise those for local problems.
+     */
+    static boolean isConnectionFailure(SQLException e) {
+        String sqlState = e.getSQLState();
+        if (sqlState != null) {
+            return sqlState.startsWith("08");
+        }
+        return e instanceof SQLNonTransientConnectionException;
+    }
+}
@@ -0,0 +1,101 @@
+package uni.space.finder;
+
+/**
+ * BackgroundJobs - Last-run bookkeeping for periodic background tasks
+ *
+ * Each scheduled job calls completed() or failed() at the end of a run. The
+ * health endpoint reads these in-memory records to report how far behind
+ * schedule a job is ("lag": time since the last successful run minus its
+ * interval) without running anything itself.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BackgroundJobs {
+    private static final Map<String, Job> JOBS = new ConcurrentHashMap<>();
+
+    private BackgroundJobs() {
+    }
+
+    private static final class Job {
+        final long intervalMillis;
+        final long registeredAt = System.currentTimeMillis();
+        volatile long lastSuccess = 0;
+        volatile long lastFailure = 0;
+        volatile String lastError;
+        final AtomicLong runs = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+
+        Job(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+        }
+
+        long lagMillis(long now) {
+            long since = lastSuccess == 0 ? registeredAt : lastSuccess;
+            return Math.max(0, now - since - intervalMillis);
+        }
+    }
+
+    /**
+     * Declares a job and how often it is expected to run. Safe to call again.
+     */
+    public static void register(String name, long intervalMillis) {
+        JOBS.putIfAbsent(name, new Job(intervalMillis));
+    }
+
+    public static void completed(String name) {
+        Job job = JOBS.get(name);
+        if (job != null) {
+            job.runs.incrementAndGet();
+            job.lastSuccess = System.currentTimeMillis();
+        }
+    }
+
+    public static void failed(String name, String error) {
+        Job job = JOBS.get(name);
+        if (job != null) {
+            job.runs.incrementAndGet();
+            job.failures.incrementAndGet();
+            job.lastFailure = System.currentTimeMillis();
+            job.lastError = error;
+        }
+    }
+
+    /**
+     * Jobs more than two intervals behind their schedule.
+     */
+    public static Map<String, Long> overdue() {
+        long now = System.currentTimeMillis();
+        Map<String, Long> late = new TreeMap<>();
+        JOBS.forEach((name, job) -> {
+            long lag = job.lagMillis(now);
+            if (lag > job.intervalMillis) {
+                late.put(name, lag);
+            }
+        });
+        return late;
+    }
+
+    public static Map<String, Object> getStatus() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> status = new TreeMap<>();
+        JOBS.forEach((name, job) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("intervalMs", job.intervalMillis);
+            m.put("lagMs", job.lagMillis(now));
+            m.put("lastSuccess", job.lastSuccess == 0 ? null : new java.util.Date(job.lastSuccess));
+            m.put("runs", job.runs.get());
+            m.put("failures", job.failures.get());
+            if (job.lastFailure != 0) {
+                m.put("lastFailure", new java.util.Date(job.lastFailure));
+                m.put("lastError", job.lastError);
+            }
+            status.put(name, m);
+        });
+        return status;
+    }
+}
@@ -23,7 +23,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 public class ChangePasswordServlet extends HttpServlet {
-    private static final String ACCOUNTS_FILE = "accounts.txt";
+    private static final Log LOG = Log.get(ChangePasswordServlet.class);
 
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         response.setContentType("application/json");
@@ -54,38 +54,20 @@ public class ChangePasswordServlet extends HttpServlet {
                 response.getWriter().write(gson.toJson(result));
                 return;
             }
-            List<String> lines = Files.readAllLines(Paths.get(ACCOUNTS_FILE));
-            boolean updated = false;
-            for (int i = 0; i < lines.size(); i++) {
-                String[] parts = lines.get(i).split(",");
-                if (parts.length < 3) continue;
-                // Debug log: print each line being checked
-                System.out.println("Checking: " + Arrays.toString(parts));
-                if (parts[1].equals(email) && parts[2].equals(current)) {
-                    System.out.println("Match found for email: " + email);
-                    parts[2] = newpw;
-                    lines.set(i, String.join(",", parts));
-                    updated = true;
-                    break;
-                }
-            }
-            if (updated) {
-                try {
-                    Files.write(Paths.get(ACCOUNTS_FILE), lines);
-                    System.out.println("accounts.txt updated for " + email);
-                    result.put("success", true);
-                } catch (Exception writeEx) {
-                    System.out.println("Error writing accounts.txt: " + writeEx.getMessage());
-                    result.put("success", false);
-                    result.put("message", "Failed to update file: " + writeEx.getMessage());
-                }
+            if (CredentialStore.changePassword(email, current, newpw)) {
+                LOG.info(() -> "Password updated for " + email);
+                result.put("success", true);
             } else {
-                System.out.println("No match for email/password. Email: " + email + ", Password: " + current);
+                LOG.debug(() -> "No match for email/password. Email: " + email);
                 result.put("success", false);
                 result.put("message", "Current password incorrect or email not found");
             }
+        } catch (PasswordHasher.BusyException ex) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            result.put("success", false);
+            result.put("message", "Server is busy, please try again");
         } catch (Exception ex) {
-            System.out.println("Exception: " + ex.getMessage());
+            LOG.error("Error changing password", ex);
             result.put("success", false);
             result.put("message", "Server error: " + ex.getMessage());
         }
@@ -0,0 +1,297 @@
+package uni.space.finder;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ConnectionPool - Small JDBC connection pool for a single database URL
+ *
+ * Hands out physical connections wrapped in a proxy whose close() returns the
+ * connection to the pool instead of closing it, so existing try-with-resources
+ * call sites keep working unchanged.
+ *
+ * Features:
+ * - Minimum/maximum pool size
+ * - Acquisition timeout (callers fail fast instead of queueing forever)
+ * - Idle eviction down to the minimum size
+ * - Statements left open by a borrower are closed when the connection is returned
+ * - Every statement execution is timed into Metrics by SQL fingerprint
+ */
+public class ConnectionPool {
+    private static final long VALIDATION_IDLE_MILLIS = 30_000;
+
+    /**
+     * SQLStates for the pool's own errors; deliberately not class 08, so a
+     * closed pool or an interrupted caller is never mistaken for a lost backend.
+     */
+    static final String POOL_CLOSED = "HY010";
+    static final String INTERRUPTED = "HY008";
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String url, String user, String password,
+                          int minSize, int maxSize, long acquireTimeoutMillis, long idleTimeoutMillis) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens connections up to the minimum size. Failures are reported to the caller
+     * so the owner can decide whether this backend is usable at all.
+     */
+    public void warmUp() throws SQLException {
+        while (openConnections.get() < minSize) {
+            idle.offerLast(openPhysical());
+        }
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed: " + url, POOL_CLOSED);
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                    "Timed out after " + acquireTimeoutMillis + "ms waiting for a database connection (max " + maxSize + ")",
+                    "HYT00");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", INTERRUPTED, e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (pooled.isUsable()) {
+                    return pooled.lease();
+                }
+                pooled.closePhysical();
+            }
+            return openPhysical().lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public String getUrl() { return url; }
+    public int getMaxSize() { return maxSize; }
+    public int getOpenConnections() { return openConnections.get(); }
+    public int getIdleConnections() { return idle.size(); }
+    public int getActiveConnections() { return maxSize - permits.availablePermits(); }
+    public int getWaitingThreads() { return permits.getQueueLength(); }
+
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    private PooledConnection openPhysical() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        openConnections.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void release(PooledConnection pooled) {
+        try {
+            if (closed || !pooled.reset()) {
+                pooled.closePhysical();
+            } else {
+                // Most recently used first: keeps a small hot set and lets the tail go idle
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && openConnections.get() > minSize) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.lastUsed > idleTimeoutMillis && idle.remove(pooled)) {
+                pooled.closePhysical();
+            }
+        }
+    }
+
+    /**
+     * One physical connection owned by the pool.
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(), new Class<?>[] { Connection.class }, new Lease(this));
+        }
+
+        boolean isUsable() {
+            try {
+                if (physical.isClosed()) return false;
+                if (System.currentTimeMillis() - lastUsed > VALIDATION_IDLE_MILLIS) {
+                    return physical.isValid(2);
+                }
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Returns the physical connection to a clean state; false if it should be discarded.
+         */
+        boolean reset() {
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (physical.isReadOnly()) {
+                    physical.setReadOnly(false);
+                }
+                physical.clearWarnings();
+                lastUsed = System.currentTimeMillis();
+                return !physical.isClosed();
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException ignored) {
+                // Closing a broken connection
+            } finally {
+                openConnections.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Proxy handler for a single borrow. A fresh handler per borrow means a stale
+     * reference held by an earlier borrower can never return someone else's lease.
+     */
+    private class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final List<Statement> openStatements = new ArrayList<>();
+        private boolean returned = false;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        private synchronized boolean markReturned() {
+            if (returned) return false;
+            returned = true;
+            for (Statement statement : openStatements) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // Statement was already unusable, nothing to clean up
+                }
+            }
+            openStatements.clear();
+            return true;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (markReturned()) {
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    synchronized (this) {
+                        return returned || pooled.physical.isClosed();
+                    }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.physical;
+                default:
+                    break;
+            }
+            synchronized (this) {
+                if (returned) {
+                    throw new SQLException("Connection has already been returned to the pool");
+                }
+            }
+            try {
+                Object result = method.invoke(pooled.physical, args);
+                if (result instanceof Statement) {
+                    synchronized (this) {
+                        openStatements.add((Statement) result);
+                    }
+                    // prepareStatement / prepareCall carry their SQL as the first argument
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                    return TimedStatement.wrap((Statement) result, sql);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
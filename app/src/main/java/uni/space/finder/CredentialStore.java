@@ -0,0 +1,367 @@
+package uni.space.finder;
+
+/**
+ * CredentialStore - Logins, signups and profile data backed by the users table
+ *
+ * users is the single source of truth for accounts: the email lookup goes
+ * through its unique index and the password is checked against the salted
+ * users.password_hash, so a login touches no files and any number of app
+ * instances can share the same database.
+ *
+ * Accounts that only exist in the old accounts.txt store are imported once,
+ * before the first login or signup is served (and at startup by
+ * DatabaseSetup). Their passwords are hashed on the PasswordHasher pool and
+ * the rows are written in one batch in one transaction. Rows the booking code
+ * already created for those emails just get the hash filled in.
+ *
+ * Rows without a password (created for bookings, by the old user sync or by
+ * the sample data) may belong to an accounts.txt owner whose password has not
+ * been imported yet. A signup only claims such a row once the import has
+ * completed against a readable accounts.txt that does not list the email;
+ * otherwise the email counts as already registered.
+ *
+ * Emails are lower-cased (normalizeEmail) before every write and lookup, so
+ * the case-sensitive H2 unique index and MySQL agree on what one account is.
+ * A login for an email without a password still verifies against a dummy
+ * hash, so response times do not reveal which emails have accounts.
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+public class CredentialStore {
+    private static final Log LOG = Log.get(CredentialStore.class);
+
+    // The import has run (successfully); not retried on every login
+    private static volatile boolean imported = false;
+    // ...and it read accounts.txt, so an email missing from it is not a legacy account
+    private static volatile boolean importComplete = false;
+
+    private CredentialStore() {
+    }
+
+    /**
+     * A users row as seen by login and the profile page.
+     */
+    public record User(int userId, String email, String fullName, String studentId) {
+
+        public String firstName() {
+            int space = fullName.indexOf(' ');
+            return space < 0 ? fullName : fullName.substring(0, space);
+        }
+
+        public String lastName() {
+            int space = fullName.indexOf(' ');
+            return space < 0 ? "" : fullName.substring(space + 1);
+        }
+    }
+
+    /**
+     * The user if the email and password match, otherwise null.
+     */
+    public static User authenticate(String email, String password) throws SQLException, PasswordHasher.BusyException {
+        if (email == null || email.isEmpty() || password == null || password.isEmpty()) {
+            return null;
+        }
+        ensureImported();
+        String storedHash = null;
+        User user = null;
+        try (Connection conn = DatabaseSetup.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT user_id, email, full_name, student_id, password_hash FROM users WHERE email = ?")) {
+            stmt.setString(1, normalizeEmail(email));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    user = toUser(rs);
+                    storedHash = rs.getString("password_hash");
+                }
+            }
+        }
+        // The connection goes back to the pool before the slow hash check
+        PasswordHasher hasher = PasswordHasher.getInstance();
+        if (storedHash == null) {
+            hasher.verifyDummy(password);
+            return null;
+        }
+        return hasher.verify(password, storedHash) ? user : null;
+    }
+
+    /**
+     * Creates the account. Returns false if the email already has a password,
+     * or a row without one that canClaim() does not allow the signup to take.
+     */
+    public static boolean register(String enteredEmail, String password, String first, String last, String studentId)
+            throws SQLException, PasswordHasher.BusyException {
+        ensureImported();
+        String email = normalizeEmail(enteredEmail);
+        String hash = PasswordHasher.getInstance().hash(password);
+        String fullName = (first == null ? "" : first) + " " + (last == null ? "" : last);
+
+        try (Connection conn = DatabaseSetup.getConnection()) {
+            // A row without a password was auto-created; the signup may claim it only if no legacy account owns it
+            if (canClaim(email) && setHashIfMissing(conn, email, hash)) {
+                return true;
+            }
+            if (UserDirectory.findUserId(conn, email) != -1) {
+                return false;
+            }
+            boolean studentIdTaken = false;
+            if (studentId != null && !studentId.trim().isEmpty()) {
+                try (PreparedStatement check = conn.prepareStatement("SELECT COUNT(*) FROM users WHERE student_id = ?")) {
+                    check.setString(1, studentId);
+                    try (ResultSet rs = check.executeQuery()) {
+                        studentIdTaken = rs.next() && rs.getInt(1) > 0;
+                    }
+                }
+            }
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO users (username, email, full_name, student_id, password_hash) VALUES (?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                insert.setString(1, email.split("@")[0]);
+                insert.setString(2, email);
+                insert.setString(3, fullName.trim());
+                if (studentId != null && !studentId.trim().isEmpty() && !studentIdTaken) {
+                    insert.setString(4, studentId);
+                } else {
+                    insert.setNull(4, Types.VARCHAR);
+                }
+                insert.setString(5, hash);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        UserDirectory.remember(email, keys.getInt(1));
+                    }
+                }
+                LOG.info(() -> "Account created for " + email);
+                return true;
+            } catch (SQLException e) {
+                // A concurrent signup for the same email (or username) won the unique index
+                LOG.warn(() -> "Signup for " + email + " lost to an existing row: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Replaces the password if the current one matches.
+     */
+    public static boolean changePassword(String email, String currentPassword, String newPassword)
+            throws SQLException, PasswordHasher.BusyException {
+        if (authenticate(email, currentPassword) == null) {
+            return false;
+        }
+        String hash = PasswordHasher.getInstance().hash(newPassword);
+        try (Connection conn = DatabaseSetup.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("UPDATE users SET password_hash = ? WHERE email = ?")) {
+            stmt.setString(1, hash);
+            stmt.setString(2, normalizeEmail(email));
+            return stmt.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Changes the stored name; null or empty parts keep their current value.
+     */
+    public static boolean updateName(String email, String first, String last) throws SQLException {
+        User existing = find(email);
+        if (existing == null) {
+            return false;
+        }
+        String newFirst = first != null && !first.isEmpty() ? first : existing.firstName();
+        String newLast = last != null && !last.isEmpty() ? last : existing.lastName();
+        try (Connection conn = DatabaseSetup.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("UPDATE users SET full_name = ? WHERE email = ?")) {
+            stmt.setString(1, (newFirst + " " + newLast).trim());
+            stmt.setString(2, normalizeEmail(email));
+            return stmt.executeUpdate() == 1;
+        }
+    }
+
+    public static User find(String email) throws SQLException {
+        if (email == null) {
+            return null;
+        }
+        ensureImported();
+        try (Connection conn = DatabaseSetup.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT user_id, email, full_name, student_id FROM users WHERE email = ?")) {
+            stmt.setString(1, normalizeEmail(email));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? toUser(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Copies accounts.txt accounts that have no password in the users table yet.
+     * Safe to call repeatedly; returns how many accounts were imported.
+     */
+    public static synchronized int importAccounts() {
+        try {
+            int count = importFrom(Account.all());
+            importComplete = Account.sourceFound();
+            if (!importComplete) {
+                LOG.warn("accounts.txt was not found or could not be read; " +
+                         "signups will not claim existing users rows without a password");
+            }
+            imported = true;
+            return count;
+        } catch (SQLException | PasswordHasher.BusyException e) {
+            // Left unmarked so the next login tries again
+            LOG.error("Account import failed", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Whether a signup may set the password of this email's password-less row.
+     */
+    static boolean canClaim(String email) {
+        return importComplete && Account.getAccountByEmail(email) == null;
+    }
+
+    private static void ensureImported() {
+        if (!imported) {
+            importAccounts();
+        }
+    }
+
+    /**
+     * Imports accounts.txt into the database behind conn rather than the
+     * active one; used for the failover standby.
+     */
+    static int importAccounts(Connection conn) throws SQLException, PasswordHasher.BusyException {
+        return importFrom(conn, Account.all());
+    }
+
+    static int importFrom(List<Account> accounts) throws SQLException, PasswordHasher.BusyException {
+        if (accounts.isEmpty()) {
+            return 0;
+        }
+        try (Connection conn = DatabaseSetup.getConnection()) {
+            return importFrom(conn, accounts);
+        }
+    }
+
+    private static int importFrom(Connection conn, List<Account> accounts)
+            throws SQLException, PasswordHasher.BusyException {
+        if (accounts.isEmpty()) {
+            return 0;
+        }
+        // email -> whether the row already has a password
+        Map<String, Boolean> existing = new HashMap<>();
+        Set<String> usernames = new HashSet<>();
+        Set<String> studentIds = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT username, email, student_id, password_hash FROM users")) {
+            while (rs.next()) {
+                existing.put(key(rs.getString("email")), rs.getString("password_hash") != null);
+                usernames.add(rs.getString("username"));
+                studentIds.add(rs.getString("student_id"));
+            }
+        }
+
+        List<Account> toInsert = new ArrayList<>();
+        List<Account> toUpdate = new ArrayList<>();
+        for (Account a : accounts) {
+            Boolean hasHash = existing.get(key(a.email));
+            if (hasHash == null) {
+                toInsert.add(a);
+                existing.put(key(a.email), true);
+            } else if (!hasHash) {
+                toUpdate.add(a);
+            }
+        }
+        if (toInsert.isEmpty() && toUpdate.isEmpty()) {
+            return 0;
+        }
+
+        List<String> passwords = new ArrayList<>();
+        toInsert.forEach(a -> passwords.add(a.password));
+        toUpdate.forEach(a -> passwords.add(a.password));
+        List<String> hashes = PasswordHasher.getInstance().hashAll(passwords);
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement insert = conn.prepareStatement(
+                 "INSERT INTO users (username, email, full_name, student_id, password_hash) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement update = conn.prepareStatement(
+                 "UPDATE users SET password_hash = ? WHERE email = ? AND password_hash IS NULL")) {
+            int i = 0;
+            for (Account a : toInsert) {
+                String username = a.email.split("@")[0];
+                if (!usernames.add(username)) {
+                    username = username + "_" + a.id;
+                    usernames.add(username);
+                }
+                insert.setString(1, username);
+                insert.setString(2, key(a.email));
+                insert.setString(3, a.getFullName().trim());
+                // Student IDs are unique; a duplicate is stored as NULL like UserDirectory does
+                if (a.sid != null && !a.sid.trim().isEmpty() && studentIds.add(a.sid)) {
+                    insert.setString(4, a.sid);
+                } else {
+                    insert.setNull(4, Types.VARCHAR);
+                }
+                insert.setString(5, hashes.get(i++));
+                insert.addBatch();
+            }
+            for (Account a : toUpdate) {
+                update.setString(1, hashes.get(i++));
+                update.setString(2, key(a.email));
+                update.addBatch();
+            }
+            if (!toInsert.isEmpty()) {
+                insert.executeBatch();
+            }
+            if (!toUpdate.isEmpty()) {
+                update.executeBatch();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        LOG.info("Imported " + (toInsert.size() + toUpdate.size()) + " accounts from accounts.txt into users");
+        return toInsert.size() + toUpdate.size();
+    }
+
+    private static boolean setHashIfMissing(Connection conn, String email, String hash) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE users SET password_hash = ? WHERE email = ? AND password_hash IS NULL")) {
+            stmt.setString(1, hash);
+            stmt.setString(2, email);
+            return stmt.executeUpdate() == 1;
+        }
+    }
+
+    private static User toUser(ResultSet rs) throws SQLException {
+        String fullName = rs.getString("full_name");
+        return new User(rs.getInt("user_id"), rs.getString("email"),
+            fullName == null ? "" : fullName, rs.getString("student_id"));
+    }
+
+    /**
+     * The form emails are stored and looked up in: trimmed and lower-cased.
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String email) {
+        return email == null ? "" : normalizeEmail(email);
+    }
+}
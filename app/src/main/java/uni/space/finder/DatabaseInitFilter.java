@@ -0,0 +1,52 @@
+package uni.space.finder;
+
+/**
+ * DatabaseInitFilter - Holds API requests until the database is initialised
+ *
+ * Every /api/* request except /api/health waits in
+ * DatabaseSetup.ensureInitialized(), so no servlet has to remember to. If
+ * initialisation failed the request is answered with 503 instead of reaching
+ * a servlet. /api/health passes straight through so liveness and readiness
+ * can be reported while initialisation is running or after it failed.
+ *
+ * Mapped in web.xml ahead of UserIdentityFilter, which already reads users.
+ */
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+@WebFilter(filterName = "DatabaseInitFilter", urlPatterns = {"/api/*"})
+public class DatabaseInitFilter extends HttpFilter {
+    private static final Log LOG = Log.get(DatabaseInitFilter.class);
+
+    static final String HEALTH_PATH = "/api/health";
+
+    @Override
+    protected void doFilter(HttpServletRequest req, HttpServletResponse resp, FilterChain chain)
+            throws IOException, ServletException {
+        if (!isHealthCheck(req)) {
+            try {
+                DatabaseSetup.ensureInitialized();
+            } catch (IllegalStateException e) {
+                LOG.warn(() -> "Rejected " + req.getRequestURI() + ": " + e.getMessage());
+                resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                resp.setContentType("application/json");
+                resp.setCharacterEncoding("UTF-8");
+                resp.getWriter().write("{\"error\":\"Database unavailable\"}");
+                return;
+            }
+        }
+        chain.doFilter(req, resp);
+    }
+
+    static boolean isHealthCheck(HttpServletRequest req) {
+        String path = req.getRequestURI().substring(req.getContextPath().length());
+        return path.equals(HEALTH_PATH) || path.startsWith(HEALTH_PATH + "/");
+    }
+}
@@ -1,9 +1,15 @@
 package uni.space.finder;
 
 import java.sql.*;
-import java.nio.file.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DatabaseSetup {
+    private static final Log LOG = Log.get(DatabaseSetup.class);
+
     // H2 File-Based Database (persistent, no Docker needed)
     // Use absolute path to ensure consistent database access regardless of working directory
     // Removed AUTO_SERVER to fix NetworkConnectionInfo class loading error
@@ -16,254 +22,233 @@ public class DatabaseSetup {
     private static final String MYSQL_USER = "unispace_user";
     private static final String MYSQL_PASS = "unispace_pass";
 
+    // Pool tuning (override with -Dunispace.pool.* or application.properties)
+    private static final int POOL_MIN_SIZE = AppConfig.getInt("unispace.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = AppConfig.getInt("unispace.pool.maxSize", 10);
+    private static final long POOL_ACQUIRE_TIMEOUT_MS = AppConfig.getLong("unispace.pool.acquireTimeoutMs", 5_000);
+    private static final long POOL_IDLE_TIMEOUT_MS = AppConfig.getLong("unispace.pool.idleTimeoutMs", 300_000);
+    private static final int MYSQL_PROBE_TIMEOUT_SECONDS = AppConfig.getInt("unispace.mysql.probeTimeoutSeconds", 2);
+    private static final int FAILOVER_FAILURE_THRESHOLD = AppConfig.getInt("unispace.failover.failureThreshold", 1);
+    private static final long FAILOVER_PROBE_INTERVAL_MS = AppConfig.getLong("unispace.failover.probeIntervalMs", 30_000);
+    private static final long INIT_WAIT_TIMEOUT_MS = AppConfig.getLong("unispace.startup.initTimeoutMs", 120_000);
+
+    private static volatile BackendFailover failover;
+
+    // Initialisation runs once: whoever claims initStarted runs it, everyone else waits on initDone
+    private static final AtomicBoolean initStarted = new AtomicBoolean();
+    private static final CountDownLatch initDone = new CountDownLatch(1);
+    // Set once initDatabase() has run through; read by the health endpoint
+    private static volatile long initializedAt = 0;
+    // Why initDatabase() failed, if it did; initialisation is not retried
+    private static volatile Exception initFailure;
+    private static volatile String schemaVersion;
+
+    /**
+     * Borrow a pooled connection. Closing it returns it to the pool.
+     * MySQL is used while healthy; the failover breaker routes to H2 otherwise.
+     */
     public static Connection getConnection() throws SQLException {
-        try {
-            // Try to connect to MySQL first (if Docker is running)
-            return DriverManager.getConnection(MYSQL_DB_URL, MYSQL_USER, MYSQL_PASS);
-        } catch (SQLException e) {
-            System.out.println("⚠️  MySQL not available, using H2 file database: " + e.getMessage());
-            // Use H2 file-based database (persistent, no Docker needed)
-            return DriverManager.getConnection(DB_URL, USER, PASS);
-        }
+        return getFailover().getConnection();
     }
 
-    public static void initDatabase() {
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
-            
-            // Check if we're using MySQL or H2
-            String dbUrl = conn.getMetaData().getURL();
-            boolean isMySQL = dbUrl.contains("mysql");
-            
-            System.out.println("🗄️  Database Type: " + (isMySQL ? "MySQL" : "H2"));
-            System.out.println("🔗 Database URL: " + dbUrl);
-            
-            if (isMySQL) {
-                // For MySQL, the schema is already created by init-db.sql in Docker
-                System.out.println("✅ Using MySQL database - schema managed by Docker");
-                
-                // Test connection and verify tables exist
-                ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as room_count FROM room");
-                if (rs.next()) {
-                    int roomCount = rs.getInt("room_count");
-                    System.out.println("✅ MySQL Database connected successfully! Found " + roomCount + " rooms.");
-                }
-                
-                rs = stmt.executeQuery("SELECT COUNT(*) as user_count FROM users");
-                if (rs.next()) {
-                    int userCount = rs.getInt("user_count");
-                    System.out.println("✅ Found " + userCount + " users in database.");
-                }
-                
-                rs = stmt.executeQuery("SELECT COUNT(*) as booking_count FROM booktime");
-                if (rs.next()) {
-                    int bookingCount = rs.getInt("booking_count");
-                    System.out.println("✅ Found " + bookingCount + " bookings in database.");
-                }
-                return;
-            }
-            
-            // H2 Fallback - Try to read the external asd.sql file from project root
-            Path sqlPath = Paths.get(System.getProperty("user.dir")).getParent().resolve("asd.sql");
-            
-            if (Files.exists(sqlPath)) {
-                System.out.println("📁 Reading asd.sql from: " + sqlPath);
-                String sqlContent = Files.readString(sqlPath);
-                
-                // Clean up SQL for H2 (remove MySQL-specific syntax)
-                sqlContent = sqlContent.replaceAll("(?i)ENGINE=InnoDB DEFAULT CHARSET=latin1", "");
-                sqlContent = sqlContent.replaceAll("(?i)UNSIGNED", "");
-                sqlContent = sqlContent.replaceAll("tinyint\\(1\\)", "BOOLEAN");
-                sqlContent = sqlContent.replaceAll("int\\(\\d+\\)", "INT");
-                sqlContent = sqlContent.replaceAll("varchar\\((\\d+)\\)", "VARCHAR($1)");
-                sqlContent = sqlContent.replaceAll("(?i)START TRANSACTION;", "");
-                sqlContent = sqlContent.replaceAll("(?i)SET time_zone = \"\\+00:00\";", "");
-                sqlContent = sqlContent.replaceAll("(?i)COMMIT;", "");
-                // Remove MySQL backticks
-                sqlContent = sqlContent.replaceAll("`", "");
-                // Remove MySQL-specific datetime format
-                sqlContent = sqlContent.replaceAll("'0000-00-00 00:00:00'", "'1970-01-01 00:00:00'");
-                sqlContent = sqlContent.replaceAll("'0000-00-00 03:30:00'", "'1970-01-01 03:30:00'");
-                
-                // Execute SQL statements
-                String[] statements = sqlContent.split(";");
-                for (String statement : statements) {
-                    statement = statement.trim();
-                    if (!statement.isEmpty() && 
-                        !statement.startsWith("--") && 
-                        !statement.startsWith("/*") &&
-                        !statement.startsWith("/*!") &&
-                        !statement.toLowerCase().contains("set @") &&
-                        !statement.toLowerCase().contains("set sql_mode")) {
-                        try {
-                            System.out.println("🔄 Executing: " + statement.substring(0, Math.min(50, statement.length())) + "...");
-                            stmt.execute(statement);
-                        } catch (SQLException e) {
-                            // Skip non-critical errors (like duplicate inserts)
-                            if (!e.getMessage().contains("already exists") && 
-                                !e.getMessage().contains("Duplicate key")) {
-                                System.err.println("⚠️  SQL Warning: " + e.getMessage());
-                            }
-                        }
+    public static BackendFailover getFailover() {
+        BackendFailover current = failover;
+        if (current == null) {
+            synchronized (DatabaseSetup.class) {
+                current = failover;
+                if (current == null) {
+                    current = new BackendFailover(MYSQL_DB_URL, MYSQL_USER, MYSQL_PASS,
+                        DatabaseSetup::newPool, newPool(DB_URL, USER, PASS),
+                        FAILOVER_FAILURE_THRESHOLD, FAILOVER_PROBE_INTERVAL_MS, MYSQL_PROBE_TIMEOUT_SECONDS);
+                    if (current.isPrimaryActive()) {
+                        LOG.info("MySQL available, using pooled MySQL connections");
+                    } else {
+                        LOG.warn("MySQL not available, using H2 file database");
                     }
+                    current.addSwitchListener(new BackendFailover.SwitchListener() {
+                        @Override
+                        public void preparePrimary(ConnectionPool primary) throws SQLException {
+                            prepare(primary);
+                        }
+
+                        @Override
+                        public void switched(boolean primaryActive) {
+                            // User ids differ between the two databases
+                            UserDirectory.clear();
+                        }
+                    });
+                    failover = current;
                 }
-            } else {
-                System.out.println("⚠️  asd.sql not found, creating tables manually...");
             }
-            
-            // Always try to create tables manually as fallback
-            try {
-                stmt.execute("""
-                    CREATE TABLE IF NOT EXISTS room (
-                        room_id INT PRIMARY KEY,
-                        room_name VARCHAR(12) NOT NULL,
-                        room_type VARCHAR(50) NOT NULL,
-                        capacity INT NOT NULL,
-                        speaker BOOLEAN NOT NULL,
-                        whiteboard BOOLEAN NOT NULL,
-                        monitor BOOLEAN NOT NULL,
-                        hdmi_cable BOOLEAN NOT NULL,
-                        image TEXT DEFAULT NULL
-                    )
-                """);
-                System.out.println("✅ Created room table");
-                
-                stmt.execute("""
-                    CREATE TABLE IF NOT EXISTS users (
-                        user_id INT AUTO_INCREMENT PRIMARY KEY,
-                        username VARCHAR(50) UNIQUE NOT NULL,
-                        email VARCHAR(100) UNIQUE NOT NULL,
-                        full_name VARCHAR(100) NOT NULL,
-                        student_id VARCHAR(20) UNIQUE,
-                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                    )
-                """);
-                System.out.println("✅ Created users table");
-                
-                stmt.execute("""
-                    CREATE TABLE IF NOT EXISTS booktime (
-                        timeID INT AUTO_INCREMENT PRIMARY KEY,
-                        booking_ref VARCHAR(20) UNIQUE,
-                        room_id INT NOT NULL,
-                        user_id INT,
-                        start_Time TIMESTAMP NOT NULL,
-                        end_Time TIMESTAMP NOT NULL,
-                        booking_status VARCHAR(20) DEFAULT 'ACTIVE',
-                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                        cancelled_at TIMESTAMP NULL,
-                        FOREIGN KEY (room_id) REFERENCES room(room_id),
-                        FOREIGN KEY (user_id) REFERENCES users(user_id)
-                    )
-                """);
-                
-                // Add booking_ref column if it doesn't exist (migration for existing databases)
+        }
+        return current;
+    }
+
+    /**
+     * The failover if it has been created, without creating it. For status
+     * reporting that must not open connections.
+     */
+    public static BackendFailover peekFailover() {
+        return failover;
+    }
+
+    /**
+     * Returns once the database has been initialised. StartupListener starts
+     * initialisation when the web app deploys and servlets wait here for it;
+     * outside a container (tests, tools) the first caller runs it inline.
+     * If it is still running after unispace.startup.initTimeoutMs the caller
+     * carries on and its queries report their own errors.
+     *
+     * @throws IllegalStateException if initialisation failed
+     */
+    public static void ensureInitialized() {
+        if (initDone.getCount() != 0) {
+            if (initStarted.compareAndSet(false, true)) {
+                runInit();
+            } else {
                 try {
-                    stmt.execute("ALTER TABLE booktime ADD COLUMN booking_ref VARCHAR(20) UNIQUE");
-                    System.out.println("✅ Added booking_ref column to existing booktime table");
-                } catch (SQLException e) {
-                    if (e.getMessage().contains("already exists") || e.getMessage().contains("Duplicate column")) {
-                        System.out.println("✅ booking_ref column already exists");
-                    } else {
-                        System.out.println("⚠️  Note: " + e.getMessage());
+                    if (!initDone.await(INIT_WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        LOG.warn(() -> "Database initialisation still running after " + INIT_WAIT_TIMEOUT_MS + " ms, continuing");
                     }
-                }
-                System.out.println("✅ Created booktime table");
-                
-                // Insert sample data using MERGE to avoid duplicates
-                stmt.execute("""
-                    MERGE INTO room (room_id, room_name, room_type, capacity, speaker, whiteboard, monitor, hdmi_cable, image) VALUES 
-                    (1, 'CB06.06.112', 'Group Study Room', 8, true, true, true, true, 'Group_Study_Room'),
-                    (2, 'CB06.06.113', 'Group Study Room', 8, false, false, true, true, 'Group_Study_Room'),
-                    (3, 'CB07.02.010A', 'Online Learning Room', 2, false, false, true, true, 'Online_Learning_Room'),
-                    (4, 'CB07.02.010B', 'Online Learning Room', 2, true, false, true, true, 'Online_Learning_Room'),
-                    (5, 'CB06.03.205', 'Group Study Room', 12, true, true, true, true, 'Group_Study_Room'),
-                    (6, 'CB06.03.206', 'Group Study Room', 10, false, true, true, true, 'Group_Study_Room'),
-                    (7, 'CB08.01.115', 'Lecture Room', 50, true, true, true, true, 'Lecture_Room'),
-                    (8, 'CB08.01.116', 'Lecture Room', 40, true, true, false, true, 'Lecture_Room'),
-                    (9, 'CB07.04.020A', 'Online Learning Room', 4, true, false, true, true, 'Online_Learning_Room'),
-                    (10, 'CB07.04.020B', 'Online Learning Room', 4, false, false, true, false, 'Online_Learning_Room'),
-                    (11, 'CB09.02.301', 'Conference Room', 16, true, true, true, true, 'Conference_Room'),
-                    (12, 'CB09.02.302', 'Conference Room', 20, true, true, true, true, 'Conference_Room'),
-                    (13, 'CB05.01.108', 'Computer Lab', 24, false, true, true, true, 'Computer_Lab'),
-                    (14, 'CB05.01.109', 'Computer Lab', 28, false, true, true, true, 'Computer_Lab'),
-                    (15, 'CB06.05.220', 'Group Study Room', 6, false, true, false, true, 'Group_Study_Room')
-                """);
-                System.out.println("✅ Inserted room data");
-                
-                // Insert sample users using MERGE (no explicit user_id to avoid auto-increment conflicts)
-                stmt.execute("""
-                    INSERT INTO users (username, email, full_name, student_id) 
-                    SELECT 'adam_p', 'adam.pharrels@student.edu', 'Adam Pharrels', 'ST001' 
-                    WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'adam.pharrels@student.edu');
-                    
-                    INSERT INTO users (username, email, full_name, student_id) 
-                    SELECT 'sarah_j', 'sarah.jones@student.edu', 'Sarah Jones', 'ST002' 
-                    WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'sarah.jones@student.edu');
-                    
-                    INSERT INTO users (username, email, full_name, student_id) 
-                    SELECT 'mike_w', 'mike.wilson@student.edu', 'Mike Wilson', 'ST003' 
-                    WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'mike.wilson@student.edu');
-                    
-                    INSERT INTO users (username, email, full_name, student_id) 
-                    SELECT 'emma_d', 'emma.davis@student.edu', 'Emma Davis', 'ST004' 
-                    WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'emma.davis@student.edu');
-                    
-                    INSERT INTO users (username, email, full_name, student_id) 
-                    SELECT 'john_s', 'john.smith@student.edu', 'John Smith', 'ST005' 
-                    WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'john.smith@student.edu');
-                """);
-                System.out.println("✅ Inserted user data");
-                
-                // Insert sample bookings with memorable references using MERGE (no explicit timeID)
-                stmt.execute("""
-                    MERGE INTO booktime (booking_ref, room_id, user_id, start_Time, end_Time, booking_status) VALUES 
-                    ('CB112-1017E-A', 1, 1, '2025-10-17 16:30:00', '2025-10-17 17:30:00', 'COMPLETED'),
-                    ('CB113-1017E-S', 2, 1, '2025-10-17 17:00:00', '2025-10-17 18:00:00', 'COMPLETED'),
-                    ('CB010A-1018M-A', 3, 1, '2025-10-18 10:00:00', '2025-10-18 11:00:00', 'COMPLETED'),
-                    ('CB010B-1018A-M', 4, 1, '2025-10-18 14:00:00', '2025-10-18 15:00:00', 'COMPLETED'),
-                    ('CB112-1021M-A2K', 1, 1, '2025-10-21 09:00:00', '2025-10-21 10:00:00', 'ACTIVE'),
-                    ('CB205-1021A-S5X', 5, 1, '2025-10-21 14:00:00', '2025-10-21 16:00:00', 'ACTIVE'),
-                    ('CB115-1022M-A7F', 7, 1, '2025-10-22 11:00:00', '2025-10-22 12:00:00', 'ACTIVE')
-                """);
-                System.out.println("✅ Inserted booking data");
-                
-            } catch (SQLException fallbackError) {
-                if (!fallbackError.getMessage().contains("already exists") && 
-                    !fallbackError.getMessage().contains("Duplicate key")) {
-                    System.err.println("⚠️  Fallback table creation warning: " + fallbackError.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
             }
-            try (Connection conn1 = getConnection(); Statement s = conn1.createStatement()) {
-            
-            s.execute("CREATE TABLE IF NOT EXISTS ratings (" +
-                    "id IDENTITY PRIMARY KEY, " +
-                    "booking_id BIGINT NOT NULL, " +
-                    "rating INT NOT NULL, " +
-                    "comment VARCHAR(2000), " +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-                    ")");
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-            
-            // Test the database
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as count FROM room");
-            if (rs.next()) {
-                int roomCount = rs.getInt("count");
-                System.out.println("✅ H2 Database initialized successfully! Found " + roomCount + " rooms.");
+        Exception failure = initFailure;
+        if (failure != null) {
+            throw new IllegalStateException("Database initialisation failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Starts initialisation on the given executor. If it has already been
+     * started elsewhere, the returned future completes when that run does.
+     * The future completes exceptionally if initialisation failed.
+     */
+    public static CompletableFuture<Void> initializeAsync(Executor executor) {
+        if (initStarted.compareAndSet(false, true)) {
+            return CompletableFuture.runAsync(() -> {
+                runInit();
+                ensureInitialized();
+            }, executor);
+        }
+        return CompletableFuture.runAsync(DatabaseSetup::ensureInitialized, executor);
+    }
+
+    private static void runInit() {
+        try {
+            initDatabase();
+        } catch (SQLException | RuntimeException e) {
+            initFailure = e;
+            LOG.error("Database setup failed", e);
+        } finally {
+            initDone.countDown();
+        }
+    }
+
+    public static boolean isInitialized() {
+        return initializedAt != 0;
+    }
+
+    /**
+     * Why initialisation failed, or null if it has not failed (yet).
+     */
+    public static Exception getInitFailure() {
+        return initFailure;
+    }
+
+    /**
+     * When initDatabase() last completed (epoch millis), or 0 if it has not.
+     */
+    public static long getInitializedAt() {
+        return initializedAt;
+    }
+
+    /**
+     * Highest schema migration applied at startup, or null before initialisation.
+     */
+    public static String getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    /**
+     * The pool currently serving requests (MySQL or H2).
+     */
+    public static ConnectionPool getPool() {
+        return getFailover().getActivePool();
+    }
+
+    public static boolean isMySQL() {
+        return getFailover().isPrimaryActive();
+    }
+
+    public static void shutdown() {
+        synchronized (DatabaseSetup.class) {
+            if (failover != null) {
+                failover.close();
+                failover = null;
             }
-            
-            rs = stmt.executeQuery("SELECT COUNT(*) as count FROM booktime");
-            if (rs.next()) {
-                int bookingCount = rs.getInt("count");
-                System.out.println("✅ Found " + bookingCount + " bookings in database.");
+        }
+    }
+
+    private static ConnectionPool newPool(String url, String user, String pass) {
+        ConnectionPool created = new ConnectionPool(url, user, pass,
+            POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_ACQUIRE_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS);
+        try {
+            created.warmUp();
+        } catch (SQLException e) {
+            LOG.warn(() -> "Could not pre-open pooled connections: " + e.getMessage());
+        }
+        LOG.info(() -> "Connection pool ready for " + url + " (min " + POOL_MIN_SIZE + ", max " + POOL_MAX_SIZE + ")");
+        return created;
+    }
+
+    /**
+     * Brings the schema up to date with SchemaMigrator and syncs users, on
+     * the active backend and on the fallback if it is standing by, so a
+     * switch finds its schema current. A primary that only comes up later is
+     * prepared the same way before the failover switches to it.
+     * Called once per process through ensureInitialized().
+     */
+    public static void initDatabase() throws SQLException {
+        BackendFailover backends = getFailover();
+        try (Connection conn = getConnection()) {
+            schemaVersion = String.valueOf(migrate(conn).version());
+        }
+        // Sync users from accounts.txt to database
+        UserSync.syncAllUsers();
+
+        if (backends.isPrimaryActive()) {
+            try {
+                prepare(backends.getFallbackPool());
+            } catch (SQLException | RuntimeException e) {
+                LOG.error("Could not prepare the fallback database", e);
             }
-            
-            // Sync users from accounts.txt to database
-            UserSync.syncAllUsers();
-            
-        } catch (Exception e) {
-            System.err.println("❌ Database setup failed: " + e.getMessage());
         }
+        initializedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Migrates and syncs users into a backend that is not serving requests yet.
+     */
+    private static void prepare(ConnectionPool pool) throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            migrate(conn);
+            UserSync.syncAllUsers(conn);
+        }
+    }
+
+    private static SchemaMigrator.Result migrate(Connection conn) throws SQLException {
+        String dbUrl = conn.getMetaData().getURL();
+        boolean isMySQL = dbUrl.contains("mysql");
+        LOG.info(() -> "Migrating " + (isMySQL ? "MySQL" : "H2") + " database at " + dbUrl);
+
+        SchemaMigrator.Result result = new SchemaMigrator(isMySQL ? "mysql" : "h2").migrate(conn);
+        LOG.info(() -> result.applied() == 0
+            ? "Schema up to date at V" + result.version() + " (" + result.millis() + " ms)"
+            : "Schema migrated to V" + result.version() + ", " + result.applied()
+                + " migration(s) applied in " + result.millis() + " ms");
+        return result;
     }
-}
\ No newline at end of file
+}
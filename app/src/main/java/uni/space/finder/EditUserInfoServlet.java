@@ -7,12 +7,15 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import java.io.*;
+import java.sql.SQLException;
 import com.google.gson.Gson;
 import java.util.HashMap;
 import java.util.Map;
 
 @WebServlet(name = "EditUserInfoServlet", urlPatterns = {"/EditUserInfoServlet"})
 public class EditUserInfoServlet extends HttpServlet {
+    private static final Log LOG = Log.get(EditUserInfoServlet.class);
+
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
@@ -25,26 +28,15 @@ public class EditUserInfoServlet extends HttpServlet {
         String email = (String) session.getAttribute("email");
         String firstName = request.getParameter("firstName");
         String lastName = request.getParameter("lastName");
-        // Read all accounts
-        File file = new File("accounts.txt");
-        BufferedReader reader = new BufferedReader(new FileReader(file));
-        StringBuilder sb = new StringBuilder();
-        String line;
-        boolean updated = false;
-        while ((line = reader.readLine()) != null) {
-            String[] parts = line.split(",");
-            if (parts.length >= 6 && parts[1].equals(email)) {
-                if (firstName != null && !firstName.isEmpty()) parts[3] = firstName;
-                if (lastName != null && !lastName.isEmpty()) parts[4] = lastName;
-                updated = true;
-                line = String.join(",", parts);
-            }
-            sb.append(line).append("\n");
+        boolean updated;
+        try {
+            updated = CredentialStore.updateName(email, firstName, lastName);
+        } catch (SQLException e) {
+            LOG.error("Error updating user info", e);
+            updated = false;
         }
-        reader.close();
-        // Write back updated accounts
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            writer.write(sb.toString());
+        if (updated) {
+            UserDirectory.invalidate(email);
         }
         Map<String, Object> resp = new HashMap<>();
         resp.put("success", updated);
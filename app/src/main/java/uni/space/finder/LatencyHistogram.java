@@ -0,0 +1,104 @@
+package uni.space.finder;
+
+/**
+ * LatencyHistogram - Lock-free latency recorder with log-linear buckets
+ *
+ * Works like an HDR histogram with fixed precision: values (in microseconds)
+ * are grouped by power of two, and each power of two is split into 32 equal
+ * sub-buckets. Any percentile is therefore accurate to about 3%, across the
+ * whole range from 1 microsecond to days, in a fixed array of about a
+ * thousand slots.
+ *
+ * Recording is a few atomic increments and never allocates, so it can run on
+ * every request and every JDBC statement. Values are kept from startup; use
+ * the _sum/_count series in /api/metrics for rates over a window.
+ */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // Values of 2^38 microseconds (~76 hours) or more share the last bucket
+    private static final int MAX_MAGNITUDE = 37 - SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_MAGNITUDE + 2) * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void recordNanos(long nanos) {
+        record(Math.max(0, nanos / 1_000));
+    }
+
+    /**
+     * @param micros latency in microseconds
+     */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(Math.min(index(value), counts.length() - 1));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumMicros() {
+        return sum.sum();
+    }
+
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile (0-100), in microseconds.
+     */
+    public long percentile(double percentile) {
+        long total = 0;
+        int length = counts.length();
+        long[] snapshot = new long[length];
+        for (int i = 0; i < length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value; // magnitude 0 is exact
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS + 1;
+        if (magnitude > MAX_MAGNITUDE + 1) {
+            return (MAX_MAGNITUDE + 2) * SUB_BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (magnitude - 1)) - SUB_BUCKETS;
+        return magnitude * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        int magnitude = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (magnitude == 0) {
+            return sub;
+        }
+        return ((long) (SUB_BUCKETS + sub + 1) << (magnitude - 1)) - 1;
+    }
+}
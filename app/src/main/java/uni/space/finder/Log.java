@@ -0,0 +1,374 @@
+package uni.space.finder;
+
+/**
+ * Log - Levelled, asynchronous logging for request paths
+ *
+ * Request threads never write to the console themselves. A log call checks the
+ * category's level (one volatile read), builds the message only if it is
+ * enabled, and publishes it into a fixed-size ring buffer without taking a
+ * lock. A single "log-writer" thread drains the ring and writes each batch to
+ * stdout (stderr for WARN and ERROR) in one go.
+ *
+ * If the ring is full the entry is dropped rather than blocking the request;
+ * the writer reports how many were dropped.
+ *
+ * Usage:
+ *   private static final Log LOG = Log.get(BookingServlet.class);
+ *   LOG.debug(() -> "Booking request for room " + roomId);
+ *   LOG.error("Error in BookingServlet", e);
+ *
+ * Levels are per category and inherit by package prefix: setting
+ * "com.calendar" to DEBUG affects every logger under it. They start from
+ * unispace.log.level (root) and unispace.log.level.<category>, and can be
+ * changed at runtime through /api/admin/log-levels.
+ *
+ * Settings (application.properties or -D):
+ * - unispace.log.level       root level (default INFO)
+ * - unispace.log.bufferSize  ring slots, rounded up to a power of two
+ */
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+public final class Log {
+    public enum Level { TRACE, DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final String ROOT = "root";
+    private static final DateTimeFormatter TIME_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final Map<String, Log> LOGGERS = new ConcurrentHashMap<>();
+    // Explicitly configured levels; everything else inherits from the nearest prefix
+    private static final Map<String, Level> LEVELS = new ConcurrentHashMap<>();
+    private static final Ring RING = new Ring(AppConfig.getInt("unispace.log.bufferSize", 8192));
+
+    static {
+        LEVELS.put(ROOT, parseLevel(AppConfig.get("unispace.log.level", "INFO"), Level.INFO));
+        AppConfig.withPrefix("unispace.log.level.").forEach((category, level) ->
+            LEVELS.put(category, parseLevel(level, Level.INFO)));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(1000), "log-flush"));
+    }
+
+    private final String category;
+    private volatile Level threshold;
+
+    private Log(String category) {
+        this.category = category;
+        this.threshold = effectiveLevel(category);
+    }
+
+    public static Log get(Class<?> type) {
+        return get(type.getName());
+    }
+
+    public static Log get(String category) {
+        Log logger = LOGGERS.get(category);
+        if (logger != null) {
+            return logger;
+        }
+        // Same lock as setLevel, so a new logger cannot miss a level change
+        synchronized (LOGGERS) {
+            return LOGGERS.computeIfAbsent(category, Log::new);
+        }
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0 && level != Level.OFF;
+    }
+
+    public void debug(Supplier<String> message) {
+        log(Level.DEBUG, message, null);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message, null);
+    }
+
+    public void info(Supplier<String> message) {
+        log(Level.INFO, message, null);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message, null);
+    }
+
+    public void warn(Supplier<String> message) {
+        log(Level.WARN, message, null);
+    }
+
+    public void error(String message, Throwable error) {
+        log(Level.ERROR, message, error);
+    }
+
+    public void error(Supplier<String> message, Throwable error) {
+        log(Level.ERROR, message, error);
+    }
+
+    public void log(Level level, Supplier<String> message, Throwable error) {
+        if (isEnabled(level)) {
+            publish(level, message.get(), error);
+        }
+    }
+
+    public void log(Level level, String message, Throwable error) {
+        if (isEnabled(level)) {
+            publish(level, message, error);
+        }
+    }
+
+    private void publish(Level level, String message, Throwable error) {
+        RING.offer(new Entry(System.currentTimeMillis(), level, category, Thread.currentThread().getName(), message, error));
+    }
+
+    // ---- Runtime level control ----
+
+    /**
+     * Sets a category's level (null clears it so the category inherits again).
+     */
+    public static void setLevel(String category, Level level) {
+        synchronized (LOGGERS) {
+            applyLevel(category, level);
+            for (Log logger : LOGGERS.values()) {
+                logger.threshold = effectiveLevel(logger.category);
+            }
+        }
+    }
+
+    private static void applyLevel(String category, Level level) {
+        if (category == null || category.isEmpty() || ROOT.equals(category)) {
+            LEVELS.put(ROOT, level == null ? Level.INFO : level);
+        } else if (level == null) {
+            LEVELS.remove(category);
+        } else {
+            LEVELS.put(category, level);
+        }
+    }
+
+    /**
+     * Explicitly set levels, root first.
+     */
+    public static Map<String, String> getLevels() {
+        Map<String, String> levels = new TreeMap<>((a, b) -> ROOT.equals(a) ? -1 : ROOT.equals(b) ? 1 : a.compareTo(b));
+        LEVELS.forEach((category, level) -> levels.put(category, level.name()));
+        return levels;
+    }
+
+    public static Level getEffectiveLevel(String category) {
+        return effectiveLevel(category);
+    }
+
+    public static Map<String, Object> getStats() {
+        return RING.stats();
+    }
+
+    /**
+     * Waits up to timeoutMillis for everything published so far to be written.
+     */
+    public static boolean flush(long timeoutMillis) {
+        return RING.awaitDrained(timeoutMillis);
+    }
+
+    public static Level parseLevel(String value, Level fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    private static Level effectiveLevel(String category) {
+        String name = category;
+        while (true) {
+            Level level = LEVELS.get(name);
+            if (level != null) {
+                return level;
+            }
+            int dot = name.lastIndexOf('.');
+            if (dot < 0) {
+                return LEVELS.getOrDefault(ROOT, Level.INFO);
+            }
+            name = name.substring(0, dot);
+        }
+    }
+
+    // ---- Ring buffer and writer ----
+
+    private static final class Entry {
+        final long timestamp;
+        final Level level;
+        final String category;
+        final String thread;
+        final String message;
+        final Throwable error;
+
+        Entry(long timestamp, Level level, String category, String thread, String message, Throwable error) {
+            this.timestamp = timestamp;
+            this.level = level;
+            this.category = category;
+            this.thread = thread;
+            this.message = message;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Bounded multi-producer, single-consumer ring. Producers claim a slot by
+     * CAS on the tail; each slot carries a sequence number that tells the
+     * consumer when its entry is published and producers when it is free again.
+     */
+    static final class Ring {
+        private final Entry[] slots;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head = 0; // written only by the writer thread
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private volatile boolean writerParked = false;
+        private final Thread writer;
+
+        Ring(int requestedSize) {
+            int size = requestedSize <= 1 ? 2 : Integer.highestOneBit(requestedSize - 1) << 1;
+            this.slots = new Entry[size];
+            this.sequences = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+            this.mask = size - 1;
+            this.writer = new Thread(this::drainLoop, "log-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        boolean offer(Entry entry) {
+            while (true) {
+                long position = tail.get();
+                int index = (int) (position & mask);
+                long sequence = sequences.get(index);
+                if (sequence == position) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slots[index] = entry;
+                        sequences.set(index, position + 1); // publish
+                        if (writerParked) {
+                            LockSupport.unpark(writer);
+                        }
+                        return true;
+                    }
+                } else if (sequence < position) {
+                    dropped.incrementAndGet(); // full: the writer has not freed this slot yet
+                    return false;
+                }
+                // Another producer claimed this position first; retry with the new tail
+            }
+        }
+
+        private void drainLoop() {
+            StringBuilder out = new StringBuilder();
+            StringBuilder err = new StringBuilder();
+            long reportedDrops = 0;
+            while (true) {
+                long position = head;
+                int count = 0;
+                while (count < slots.length) {
+                    int index = (int) (position & mask);
+                    if (sequences.get(index) != position + 1) {
+                        break; // not published yet
+                    }
+                    Entry entry = slots[index];
+                    slots[index] = null;
+                    sequences.set(index, position + slots.length); // free for the next lap
+                    position++;
+                    count++;
+                    format(entry, entry.level.compareTo(Level.WARN) >= 0 ? err : out);
+                }
+                long drops = dropped.get();
+                if (drops != reportedDrops) {
+                    err.append(TIME_FORMAT.format(Instant.now())).append(" WARN  [log-writer] ")
+                        .append(Log.class.getName()).append(" - ").append(drops - reportedDrops)
+                        .append(" log messages dropped, buffer full\n");
+                    reportedDrops = drops;
+                }
+                write(System.out, out);
+                write(System.err, err);
+                head = position;
+                written.addAndGet(count);
+
+                if (count == 0) {
+                    writerParked = true;
+                    // Re-check after announcing we are parked so a publish cannot be missed
+                    if (sequences.get((int) (position & mask)) != position + 1) {
+                        LockSupport.parkNanos(50_000_000L);
+                    }
+                    writerParked = false;
+                }
+            }
+        }
+
+        private static void write(PrintStream stream, StringBuilder text) {
+            if (text.length() > 0) {
+                stream.print(text);
+                stream.flush();
+                text.setLength(0);
+            }
+        }
+
+        private static void format(Entry entry, StringBuilder sb) {
+            sb.append(TIME_FORMAT.format(Instant.ofEpochMilli(entry.timestamp))).append(' ');
+            String level = entry.level.name();
+            sb.append(level);
+            for (int i = level.length(); i < 5; i++) {
+                sb.append(' ');
+            }
+            sb.append(" [").append(entry.thread).append("] ")
+                .append(shortName(entry.category)).append(" - ").append(entry.message).append('\n');
+            if (entry.error != null) {
+                StringWriter trace = new StringWriter();
+                entry.error.printStackTrace(new PrintWriter(trace));
+                sb.append(trace);
+            }
+        }
+
+        private static String shortName(String category) {
+            int dot = category.lastIndexOf('.');
+            return dot < 0 ? category : category.substring(dot + 1);
+        }
+
+        boolean awaitDrained(long timeoutMillis) {
+            long target = tail.get();
+            long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+            while (head < target) {
+                if (System.nanoTime() > deadline) {
+                    return false;
+                }
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(1_000_000L);
+            }
+            return true;
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = new TreeMap<>();
+            long published = tail.get();
+            stats.put("capacity", slots.length);
+            stats.put("pending", Math.max(0, published - head));
+            stats.put("written", written.get());
+            stats.put("dropped", dropped.get());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package uni.space.finder;
+
+/**
+ * LogLevelsServlet - View and change log levels at runtime
+ *
+ * GET  /api/admin/log-levels
+ *      {"levels": {"root": "INFO", ...}, "buffer": {...}}
+ * POST /api/admin/log-levels?category=com.calendar.BookingServlet&level=DEBUG
+ *      level=INHERIT (or empty) removes the category's own level;
+ *      category=root (or empty) changes the default for everything.
+ *
+ * Access is checked by AdminAccess.
+ */
+
+import com.google.gson.Gson;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@WebServlet("/api/admin/log-levels")
+public class LogLevelsServlet extends HttpServlet {
+    private static final Log LOG = Log.get(LogLevelsServlet.class);
+    private final Gson gson = new Gson();
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        if (!AdminAccess.isAllowed(req)) {
+            resp.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            resp.getWriter().write("{\"error\":\"Forbidden\"}");
+            return;
+        }
+        resp.getWriter().write(gson.toJson(snapshot()));
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        if (!AdminAccess.isAllowed(req)) {
+            resp.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            resp.getWriter().write("{\"error\":\"Forbidden\"}");
+            return;
+        }
+
+        String category = req.getParameter("category");
+        String levelParam = req.getParameter("level");
+        Log.Level level = null;
+        if (levelParam != null && !levelParam.trim().isEmpty() && !"INHERIT".equalsIgnoreCase(levelParam.trim())) {
+            level = Log.parseLevel(levelParam, null);
+            if (level == null) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                resp.getWriter().write("{\"error\":\"level must be one of TRACE, DEBUG, INFO, WARN, ERROR, OFF or INHERIT\"}");
+                return;
+            }
+        }
+        Log.setLevel(category == null ? null : category.trim(), level);
+        LOG.info("Log level for " + (category == null || category.trim().isEmpty() ? "root" : category.trim())
+            + " set to " + (level == null ? "INHERIT" : level));
+        resp.getWriter().write(gson.toJson(snapshot()));
+    }
+
+    private static Map<String, Object> snapshot() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("levels", Log.getLevels());
+        body.put("buffer", Log.getStats());
+        return body;
+    }
+}
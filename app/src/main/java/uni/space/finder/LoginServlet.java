@@ -4,14 +4,18 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
 import java.io.BufferedReader;
 import java.io.IOException;
 import com.google.gson.Gson;
 import java.io.PrintWriter;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 
 public class LoginServlet extends HttpServlet {
+    private static final Log LOG = Log.get(LoginServlet.class);
+
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         resp.setContentType("application/json");
@@ -22,27 +26,40 @@ public class LoginServlet extends HttpServlet {
         BufferedReader reader = req.getReader();
         Gson gson = new Gson();
         Map<String, String> data = gson.fromJson(reader, Map.class);
-        String email = data.get("email");
-        String password = data.get("password");
-        boolean success = Account.login(email, password);
+        String email = data == null ? null : data.get("email");
+        String password = data == null ? null : data.get("password");
         Map<String, Object> result = new HashMap<>();
+        CredentialStore.User user = null;
+        try {
+            user = CredentialStore.authenticate(email, password);
+        } catch (PasswordHasher.BusyException e) {
+            resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            result.put("message", "Server is busy, please try again");
+        } catch (SQLException e) {
+            LOG.error("Login lookup failed", e);
+            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            result.put("message", "Server error");
+        }
+        boolean success = user != null;
         result.put("success", success);
         if (!success) {
-            result.put("message", "Invalid email or password");
+            result.putIfAbsent("message", "Invalid email or password");
         }
         if (success) {
-            // Get the full account information
-            Account account = Account.getAccountByEmail(email);
-            if (account != null) {
-                // Store all user information in session
-                req.getSession(true).setAttribute("email", email);
-                req.getSession().setAttribute("firstName", account.getFirst());
-                req.getSession().setAttribute("lastName", account.getLast());
-                req.getSession().setAttribute("studentId", account.getSid());
-                req.getSession().setAttribute("fullName", account.getFullName());
-                
-                System.out.println("Stored in session: " + account.getFullName() + " (ID: " + account.getSid() + ")");
-            }
+            // Store all user information in session
+            HttpSession session = req.getSession(true);
+            session.setAttribute("email", user.email());
+            session.setAttribute("firstName", user.firstName());
+            session.setAttribute("lastName", user.lastName());
+            session.setAttribute("studentId", user.studentId());
+            session.setAttribute("fullName", user.fullName());
+            // The users row is already known, so UserIdentityFilter need not look it up again
+            session.setAttribute(UserIdentityFilter.SESSION_USER_ID, user.userId());
+            session.setAttribute(UserIdentityFilter.SESSION_USER_ID_EMAIL, user.email());
+            UserDirectory.remember(user.email(), user.userId());
+
+            CredentialStore.User loggedIn = user;
+            LOG.debug(() -> "Stored in session: " + loggedIn.fullName() + " (ID: " + loggedIn.studentId() + ")");
         }
         PrintWriter out = resp.getWriter();
         out.print(gson.toJson(result));
@@ -0,0 +1,314 @@
+package uni.space.finder;
+
+/**
+ * Metrics - In-memory request and SQL statistics
+ *
+ * MetricsFilter records every /api request under its servlet path. The
+ * connection pool records every JDBC statement under its SQL fingerprint
+ * (the statement text with literals replaced by ?, whitespace collapsed and
+ * IN lists folded), so the same query with different values is one series.
+ *
+ * Each series keeps a count, an error count and a LatencyHistogram. Series are
+ * created on first use up to a fixed limit per kind; anything beyond that is
+ * folded into "other" so unexpected paths or generated SQL cannot grow memory
+ * without bound.
+ *
+ * Requests are also counted in a one-minute window of per-second slots, so
+ * the health endpoint can report a recent error rate rather than one averaged
+ * over the whole uptime.
+ *
+ * /api/metrics renders everything in the Prometheus text format; StatusServlet
+ * shows summary().
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+public class Metrics {
+    private static final int MAX_ENDPOINTS = 100;
+    private static final int MAX_STATEMENTS = 500;
+    private static final int MAX_FINGERPRINT_LENGTH = 300;
+    private static final String OTHER = "other";
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    private static final int WINDOW_SECONDS = 60;
+
+    private static final Map<String, Series> ENDPOINTS = new ConcurrentHashMap<>();
+    private static final Map<String, Series> STATEMENTS = new ConcurrentHashMap<>();
+    // Raw SQL -> fingerprint; call sites use constant SQL, so this stays small
+    private static final Map<String, String> FINGERPRINTS = new ConcurrentHashMap<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final RecentWindow RECENT = new RecentWindow(WINDOW_SECONDS);
+
+    private Metrics() {
+    }
+
+    /**
+     * Counts and latency for one endpoint or statement.
+     */
+    public static final class Series {
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        public long getCount() { return latency.getCount(); }
+        public long getErrors() { return errors.sum(); }
+        public long getClientErrors() { return clientErrors.sum(); }
+        public LatencyHistogram getLatency() { return latency; }
+    }
+
+    /**
+     * @param status HTTP status; 5xx (or a thrown exception, passed as 500) counts as an error
+     */
+    public static void recordRequest(String endpoint, long nanos, int status) {
+        Series series = series(ENDPOINTS, endpoint == null || endpoint.isEmpty() ? "/" : endpoint, MAX_ENDPOINTS);
+        series.latency.recordNanos(nanos);
+        RECENT.record(System.currentTimeMillis() / 1000, status >= 500);
+        if (status >= 500) {
+            series.errors.increment();
+        } else if (status >= 400) {
+            series.clientErrors.increment();
+        }
+    }
+
+    public static void recordStatement(String sql, long nanos, boolean failed) {
+        Series series = series(STATEMENTS, fingerprint(sql), MAX_STATEMENTS);
+        series.latency.recordNanos(nanos);
+        if (failed) {
+            series.errors.increment();
+        }
+    }
+
+    /**
+     * Requests and 5xx errors over the last minute, with the error ratio.
+     */
+    public static Map<String, Object> recent() {
+        long[] totals = RECENT.totals(System.currentTimeMillis() / 1000);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("windowSeconds", WINDOW_SECONDS);
+        m.put("requests", totals[0]);
+        m.put("errors", totals[1]);
+        m.put("errorRate", totals[0] == 0 ? 0.0 : Math.round(totals[1] * 10000.0 / totals[0]) / 10000.0);
+        return m;
+    }
+
+    /**
+     * Per-second request and error counts in a ring of slots. Each slot
+     * remembers which second it holds; a slot from an older lap is cleared by
+     * the first writer of the new second, and readers skip stale slots. A
+     * record racing with that reset can be lost, which is fine for a health
+     * indicator.
+     */
+    static final class RecentWindow {
+        private final int seconds;
+        private final AtomicLongArray epochs;
+        private final AtomicLongArray requests;
+        private final AtomicLongArray errors;
+
+        RecentWindow(int seconds) {
+            this.seconds = seconds;
+            this.epochs = new AtomicLongArray(seconds);
+            this.requests = new AtomicLongArray(seconds);
+            this.errors = new AtomicLongArray(seconds);
+        }
+
+        void record(long second, boolean error) {
+            int slot = (int) Math.floorMod(second, (long) seconds);
+            long seen = epochs.get(slot);
+            if (seen != second && epochs.compareAndSet(slot, seen, second)) {
+                requests.set(slot, 0);
+                errors.set(slot, 0);
+            }
+            requests.incrementAndGet(slot);
+            if (error) {
+                errors.incrementAndGet(slot);
+            }
+        }
+
+        /**
+         * {requests, errors} over the window ending at the given second.
+         */
+        long[] totals(long now) {
+            long total = 0;
+            long failed = 0;
+            for (int i = 0; i < seconds; i++) {
+                long epoch = epochs.get(i);
+                if (epoch > now - seconds && epoch <= now) {
+                    total += requests.get(i);
+                    failed += errors.get(i);
+                }
+            }
+            return new long[] {total, failed};
+        }
+    }
+
+    public static Map<String, Series> getEndpoints() {
+        return ENDPOINTS;
+    }
+
+    public static Map<String, Series> getStatements() {
+        return STATEMENTS;
+    }
+
+    static String fingerprint(String sql) {
+        if (sql == null) {
+            return OTHER;
+        }
+        String cached = FINGERPRINTS.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        normalized = IN_LIST.matcher(normalized).replaceAll("IN (?)");
+        if (normalized.length() > MAX_FINGERPRINT_LENGTH) {
+            normalized = normalized.substring(0, MAX_FINGERPRINT_LENGTH) + "...";
+        }
+        if (FINGERPRINTS.size() < MAX_STATEMENTS * 4) {
+            FINGERPRINTS.put(sql, normalized);
+        }
+        return normalized;
+    }
+
+    private static Series series(Map<String, Series> map, String key, int limit) {
+        Series series = map.get(key);
+        if (series != null) {
+            return series;
+        }
+        if (map.size() >= limit) {
+            return map.computeIfAbsent(OTHER, k -> new Series());
+        }
+        return map.computeIfAbsent(key, k -> new Series());
+    }
+
+    /**
+     * Per-endpoint counts and percentiles (milliseconds), plus the five slowest statements by p99.
+     */
+    public static Map<String, Object> summary() {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        ENDPOINTS.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(e -> endpoints.put(e.getKey(), describe(e.getValue())));
+
+        List<Map<String, Object>> slowest = new ArrayList<>();
+        STATEMENTS.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, Series> e) -> e.getValue().latency.percentile(99)).reversed())
+            .limit(5)
+            .forEach(e -> {
+                Map<String, Object> statement = describe(e.getValue());
+                statement.put("sql", e.getKey());
+                slowest.add(statement);
+            });
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("endpoints", endpoints);
+        summary.put("slowestStatements", slowest);
+        return summary;
+    }
+
+    private static Map<String, Object> describe(Series series) {
+        LatencyHistogram h = series.latency;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("count", h.getCount());
+        m.put("errors", series.getErrors());
+        m.put("p50Ms", millis(h.percentile(50)));
+        m.put("p95Ms", millis(h.percentile(95)));
+        m.put("p99Ms", millis(h.percentile(99)));
+        m.put("maxMs", millis(h.getMaxMicros()));
+        return m;
+    }
+
+    /**
+     * Writes all series in the Prometheus text exposition format (version 0.0.4).
+     */
+    public static void writePrometheus(Writer out) throws IOException {
+        writeFamily(out, "unispace_http_request_duration_seconds", "HTTP request latency by servlet path",
+            "endpoint", ENDPOINTS);
+        writeCounter(out, "unispace_http_request_errors_total", "Requests that ended with a 5xx status",
+            "endpoint", ENDPOINTS, Series::getErrors);
+        writeCounter(out, "unispace_http_request_client_errors_total", "Requests that ended with a 4xx status",
+            "endpoint", ENDPOINTS, Series::getClientErrors);
+        writeFamily(out, "unispace_jdbc_statement_duration_seconds", "JDBC statement execution time by SQL fingerprint",
+            "sql", STATEMENTS);
+        writeCounter(out, "unispace_jdbc_statement_errors_total", "JDBC statements that threw",
+            "sql", STATEMENTS, Series::getErrors);
+        out.flush();
+    }
+
+    private static void writeFamily(Writer out, String name, String help, String label, Map<String, Series> map)
+            throws IOException {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " summary\n");
+        for (Map.Entry<String, Series> e : sorted(map)) {
+            LatencyHistogram h = e.getValue().latency;
+            String labelPair = label + "=\"" + escape(e.getKey()) + "\"";
+            for (double q : QUANTILES) {
+                out.write(name + "{" + labelPair + ",quantile=\"" + q + "\"} " + seconds(h.percentile(q * 100)) + "\n");
+            }
+            out.write(name + "_sum{" + labelPair + "} " + seconds(h.getSumMicros()) + "\n");
+            out.write(name + "_count{" + labelPair + "} " + h.getCount() + "\n");
+        }
+        String maxName = name.replace("_seconds", "_max_seconds");
+        out.write("# HELP " + maxName + " Slowest observation since startup\n");
+        out.write("# TYPE " + maxName + " gauge\n");
+        for (Map.Entry<String, Series> e : sorted(map)) {
+            out.write(maxName + "{" + label + "=\"" + escape(e.getKey()) + "\"} "
+                + seconds(e.getValue().latency.getMaxMicros()) + "\n");
+        }
+    }
+
+    private interface Counter {
+        long value(Series series);
+    }
+
+    private static void writeCounter(Writer out, String name, String help, String label, Map<String, Series> map,
+                                     Counter counter) throws IOException {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " counter\n");
+        for (Map.Entry<String, Series> e : sorted(map)) {
+            out.write(name + "{" + label + "=\"" + escape(e.getKey()) + "\"} " + counter.value(e.getValue()) + "\n");
+        }
+    }
+
+    private static List<Map.Entry<String, Series>> sorted(Map<String, Series> map) {
+        List<Map.Entry<String, Series>> entries = new ArrayList<>(map.entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+        return entries;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String seconds(long micros) {
+        return Double.toString(micros / 1_000_000.0);
+    }
+
+    private static double millis(long micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    /**
+     * Clears everything; for tests.
+     */
+    static void reset() {
+        ENDPOINTS.clear();
+        STATEMENTS.clear();
+    }
+}
@@ -0,0 +1,34 @@
+package uni.space.finder;
+
+/**
+ * MetricsFilter - Times every API request for /api/metrics
+ *
+ * Records the request under its servlet path (e.g. /api/booking) with the
+ * final status code. A request that throws is recorded as a 500.
+ */
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+@WebFilter(filterName = "MetricsFilter", urlPatterns = {"/api/*"})
+public class MetricsFilter extends HttpFilter {
+
+    @Override
+    protected void doFilter(HttpServletRequest req, HttpServletResponse resp, FilterChain chain)
+            throws IOException, ServletException {
+        long start = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        try {
+            chain.doFilter(req, resp);
+            status = resp.getStatus();
+        } finally {
+            Metrics.recordRequest(req.getServletPath(), System.nanoTime() - start, status);
+        }
+    }
+}
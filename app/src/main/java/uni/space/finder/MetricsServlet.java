@@ -0,0 +1,32 @@
+package uni.space.finder;
+
+/**
+ * MetricsServlet - Prometheus scrape endpoint
+ *
+ * GET /api/metrics returns request and JDBC statement metrics in the
+ * Prometheus text format. Access is checked by AdminAccess, so a remote
+ * scraper sends the admin token as a bearer token.
+ */
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+@WebServlet("/api/metrics")
+public class MetricsServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (!AdminAccess.isAllowed(req)) {
+            resp.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        resp.setContentType("text/plain; version=0.0.4");
+        resp.setCharacterEncoding("UTF-8");
+        Metrics.writePrometheus(resp.getWriter());
+    }
+}
@@ -0,0 +1,210 @@
+package uni.space.finder;
+
+/**
+ * PasswordHasher - Salted PBKDF2 password hashes, computed off the request threads
+ *
+ * Hashes are stored in users.password_hash as
+ *   pbkdf2-sha256$<iterations>$<base64 salt>$<base64 hash>
+ * so the iteration count can be raised later without invalidating old hashes.
+ *
+ * Hashing is deliberately slow, so it runs on a small dedicated pool with a
+ * bounded queue. When the pool is saturated new work is rejected straight away
+ * (BusyException) instead of piling up, and a request waits at most
+ * unispace.auth.timeoutMs for its hash, so a burst of logins cannot tie up
+ * every servlet thread.
+ *
+ * Settings (application.properties or -D):
+ * - unispace.auth.iterations  PBKDF2 iterations for new hashes
+ * - unispace.auth.threads     hashing threads (default: half the CPUs)
+ * - unispace.auth.queueSize   hashes allowed to wait for a thread
+ * - unispace.auth.timeoutMs   how long a caller waits for its hash
+ */
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final PasswordHasher INSTANCE = new PasswordHasher(
+        AppConfig.getInt("unispace.auth.iterations", 210000),
+        AppConfig.getInt("unispace.auth.threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+        AppConfig.getInt("unispace.auth.queueSize", 64),
+        AppConfig.getLong("unispace.auth.timeoutMs", 10000));
+
+    private final int iterations;
+    private final int queueSize;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final SecureRandom random = new SecureRandom();
+    // Stands in for the stored hash of an email that has none: same format and
+    // iteration count as a real hash, so checking it costs the same, but no password derives to it
+    private final String dummyHash;
+
+    /**
+     * Thrown when the hashing pool is full or a hash took longer than the timeout.
+     */
+    public static class BusyException extends Exception {
+        public BusyException(String message) {
+            super(message);
+        }
+    }
+
+    PasswordHasher(int iterations, int threads, int queueSize, long timeoutMillis) {
+        this.iterations = iterations;
+        this.queueSize = Math.max(1, queueSize);
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(this.queueSize),
+            r -> {
+                Thread t = new Thread(r, "password-hasher-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        this.dummyHash = PREFIX + "$" + iterations + "$" + encoder.encodeToString(new byte[SALT_BYTES])
+            + "$" + encoder.encodeToString(new byte[HASH_BITS / 8]);
+    }
+
+    public static PasswordHasher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * New salted hash for a password, computed on the hashing pool.
+     */
+    public String hash(String password) throws BusyException {
+        return run(() -> hashNow(password));
+    }
+
+    /**
+     * True if the password matches a stored hash. Null or unrecognised hashes never match.
+     */
+    public boolean verify(String password, String storedHash) throws BusyException {
+        if (password == null || storedHash == null) {
+            return false;
+        }
+        return run(() -> verifyNow(password, storedHash));
+    }
+
+    /**
+     * Does the same work as verify() against a real hash and never matches,
+     * so a login for an unknown email takes as long as a wrong password.
+     */
+    public void verifyDummy(String password) throws BusyException {
+        verify(password == null ? "" : password, dummyHash);
+    }
+
+    /**
+     * Hashes many passwords for a bulk import, keeping at most half the queue
+     * in flight so the pool stays usable for logins.
+     */
+    public List<String> hashAll(List<String> passwords) throws BusyException {
+        List<String> hashes = new ArrayList<>(passwords.size());
+        int windowSize = Math.max(1, queueSize / 2);
+        for (int start = 0; start < passwords.size(); start += windowSize) {
+            List<Future<String>> window = new ArrayList<>();
+            for (String password : passwords.subList(start, Math.min(passwords.size(), start + windowSize))) {
+                window.add(submit(() -> hashNow(password)));
+            }
+            for (Future<String> future : window) {
+                hashes.add(await(future, 0));
+            }
+        }
+        return hashes;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    String hashNow(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = derive(password, salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    static boolean verifyNow(String password, String storedHash) {
+        String[] parts = storedHash.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            // Constant-time comparison so timing does not leak how much of the hash matched
+            return MessageDigest.isEqual(expected, derive(password, salt, storedIterations));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private <T> T run(Callable<T> task) throws BusyException {
+        return await(submit(task), timeoutMillis);
+    }
+
+    private <T> Future<T> submit(Callable<T> task) throws BusyException {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new BusyException("Password hashing queue is full");
+        }
+    }
+
+    /**
+     * @param timeoutMillis 0 waits as long as it takes
+     */
+    private static <T> T await(Future<T> future, long timeoutMillis) throws BusyException {
+        try {
+            return timeoutMillis > 0 ? future.get(timeoutMillis, TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new BusyException("Password hashing timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new BusyException("Interrupted while hashing password");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import java.io.*;
+import java.sql.SQLException;
 import com.google.gson.Gson;
 import java.util.HashMap;
 import java.util.Map;
@@ -15,6 +16,8 @@ import java.util.Map;
 
 @WebServlet(name = "ProfileServlet", urlPatterns = {"/ProfileServlet"})
 public class ProfileServlet extends HttpServlet {
+    private static final Log LOG = Log.get(ProfileServlet.class);
+
    @Override
    protected void doGet(HttpServletRequest request, HttpServletResponse response)
            throws ServletException, IOException {
@@ -22,37 +25,32 @@ public class ProfileServlet extends HttpServlet {
        HttpSession session = request.getSession(false);
        String email = null;
        if (session == null) {
-           System.out.println("[ProfileServlet] No session found.");
+           LOG.debug(() -> "No session found");
        } else {
            Object attr = session.getAttribute("email");
            if (attr == null) {
-               System.out.println("[ProfileServlet] Session found, but no email attribute.");
+               LOG.debug(() -> "Session found, but no email attribute");
            } else {
                email = (String) attr;
-               System.out.println("[ProfileServlet] Session email: " + email);
+               LOG.debug(() -> "Session email: " + attr);
            }
        }
-   // Read accounts.txt from the project/app root
-   File file = new File("accounts.txt");
-       BufferedReader reader = new BufferedReader(new FileReader(file));
-       String line;
-       Map<String, Object> result = new HashMap<>();
-       boolean found = false;
-       while ((line = reader.readLine()) != null) {
-           String[] parts = line.split(",");
-           if (parts.length >= 6 && parts[1].equals(email)) {
-               result.put("success", true);
-               result.put("id", parts[0]);
-               result.put("email", parts[1]);
-               result.put("firstName", parts[3]);
-               result.put("lastName", parts[4]);
-               result.put("studentNumber", parts[5]);
-               found = true;
-               break;
-           }
+       // Served from the users table
+       CredentialStore.User user = null;
+       try {
+           user = CredentialStore.find(email);
+       } catch (SQLException e) {
+           LOG.error("Profile lookup failed", e);
        }
-       reader.close();
-       if (!found) {
+       Map<String, Object> result = new HashMap<>();
+       if (user != null) {
+           result.put("success", true);
+           result.put("id", String.valueOf(user.userId()));
+           result.put("email", user.email());
+           result.put("firstName", user.firstName());
+           result.put("lastName", user.lastName());
+           result.put("studentNumber", user.studentId());
+       } else {
            result.put("success", false);
            result.put("error", "User not found");
        }
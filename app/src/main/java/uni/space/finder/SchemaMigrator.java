@@ -0,0 +1,271 @@
+package uni.space.finder;
+
+/**
+ * SchemaMigrator - Applies numbered schema migrations at startup
+ *
+ * Migrations are classpath resources db/migration/<dialect>/V<n>.sql, where
+ * the dialect is "h2" or "mysql" and n counts up from 1 without gaps. The
+ * first comment line of a script is its description. Both dialects carry the
+ * same versions creating the same tables and indexes, so H2 and MySQL end up
+ * with the same query plans.
+ *
+ * Applied versions are recorded in schema_version along with a CRC32 of the
+ * script. A run reads that table once and executes only the versions missing
+ * from it, so a normal startup costs one query. If an applied script has been
+ * edited since (checksum mismatch), the run stops with an error rather than
+ * guessing what state the schema is in.
+ *
+ * Scripts are split into statements at semicolons outside quotes and
+ * comments. A CREATE INDEX that fails only because the index already exists,
+ * or a DROP INDEX that fails only because it is already gone, counts as
+ * applied: MySQL has no IF [NOT] EXISTS for either, and DDL is not
+ * transactional, so a migration that failed part way must be re-runnable.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+public class SchemaMigrator {
+    private static final Log LOG = Log.get(SchemaMigrator.class);
+
+    private static final String RESOURCE_ROOT = "db/migration/";
+
+    private static final String VERSION_TABLE_DDL =
+        "CREATE TABLE IF NOT EXISTS schema_version (" +
+        "version INT PRIMARY KEY, " +
+        "description VARCHAR(200) NOT NULL, " +
+        "checksum BIGINT NOT NULL, " +
+        "execution_ms INT NOT NULL, " +
+        "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+
+    // "Index already exists": MySQL ER_DUP_KEYNAME, H2 INDEX_ALREADY_EXISTS_1
+    private static final int MYSQL_DUPLICATE_INDEX = 1061;
+    private static final int H2_DUPLICATE_INDEX = 42111;
+    // "Index does not exist": MySQL ER_CANT_DROP_FIELD_OR_KEY, H2 INDEX_NOT_FOUND_1
+    private static final int MYSQL_MISSING_INDEX = 1091;
+    private static final int H2_MISSING_INDEX = 42112;
+
+    public record Migration(int version, String description, String script, long checksum) {
+    }
+
+    /**
+     * @param version highest version now applied
+     * @param applied how many versions this run executed
+     */
+    public record Result(int version, int applied, long millis) {
+    }
+
+    private final String dialect;
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(String dialect) {
+        this(dialect, load(dialect, SchemaMigrator.class.getClassLoader()));
+    }
+
+    SchemaMigrator(String dialect, List<Migration> migrations) {
+        this.dialect = dialect;
+        this.migrations = migrations;
+    }
+
+    public List<Migration> getMigrations() {
+        return migrations;
+    }
+
+    public Result migrate(Connection conn) throws SQLException {
+        long start = System.currentTimeMillis();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(VERSION_TABLE_DDL);
+        }
+
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+
+        int current = applied.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        if (current > migrations.size()) {
+            int latest = current;
+            LOG.warn(() -> "Database schema is at V" + latest + " but this build only knows "
+                + migrations.size() + " " + dialect + " migrations");
+        }
+
+        int count = 0;
+        for (Migration migration : migrations) {
+            Long recorded = applied.get(migration.version());
+            if (recorded != null) {
+                if (recorded != migration.checksum()) {
+                    throw new SQLException("Migration " + dialect + "/V" + migration.version()
+                        + " was changed after it was applied (checksum " + recorded + " in schema_version, "
+                        + migration.checksum() + " now); add a new migration instead of editing it");
+                }
+                continue;
+            }
+            long started = System.nanoTime();
+            apply(conn, migration);
+            int millis = (int) ((System.nanoTime() - started) / 1_000_000);
+            record(conn, migration, millis);
+            current = Math.max(current, migration.version());
+            count++;
+            LOG.info(() -> "Applied schema migration V" + migration.version() + " ("
+                + migration.description() + ") in " + millis + " ms");
+        }
+        return new Result(current, count, System.currentTimeMillis() - start);
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : split(migration.script())) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (isCreateIndex(sql) && isDuplicateIndex(e) || isDropIndex(sql) && isMissingIndex(e)) {
+                        continue;
+                    }
+                    throw new SQLException("Migration " + dialect + "/V" + migration.version() + " failed at \""
+                        + abbreviate(sql) + "\": " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+                }
+            }
+        }
+    }
+
+    private static void record(Connection conn, Migration migration, int millis) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+            pstmt.setInt(1, migration.version());
+            pstmt.setString(2, abbreviate(migration.description()));
+            pstmt.setLong(3, migration.checksum());
+            pstmt.setInt(4, millis);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Reads V1.sql, V2.sql, ... for the dialect until the next version is missing.
+     */
+    static List<Migration> load(String dialect, ClassLoader loader) {
+        List<Migration> found = new ArrayList<>();
+        for (int version = 1; ; version++) {
+            String name = RESOURCE_ROOT + dialect + "/V" + version + ".sql";
+            try (InputStream in = loader.getResourceAsStream(name)) {
+                if (in == null) {
+                    break;
+                }
+                String script = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+                found.add(new Migration(version, describe(script), script, checksum(script)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read " + name, e);
+            }
+        }
+        if (found.isEmpty()) {
+            throw new IllegalStateException("No schema migrations found under " + RESOURCE_ROOT + dialect);
+        }
+        return found;
+    }
+
+    static long checksum(String script) {
+        CRC32 crc = new CRC32();
+        crc.update(script.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private static String describe(String script) {
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("--") && trimmed.length() > 2) {
+                return trimmed.substring(2).trim();
+            }
+            if (!trimmed.isEmpty()) {
+                break;
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Splits a script into statements on semicolons, skipping -- and block
+     * comments and leaving semicolons inside string literals alone.
+     */
+    static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int length = script.length();
+        for (int i = 0; i < length; i++) {
+            char c = script.charAt(i);
+            char next = i + 1 < length ? script.charAt(i + 1) : 0;
+            if (c == '\'') {
+                int end = i + 1;
+                while (end < length) {
+                    if (script.charAt(end) == '\'') {
+                        if (end + 1 < length && script.charAt(end + 1) == '\'') {
+                            end += 2; // '' is an escaped quote
+                            continue;
+                        }
+                        break;
+                    }
+                    end++;
+                }
+                end = Math.min(end, length - 1);
+                current.append(script, i, end + 1);
+                i = end;
+            } else if (c == '-' && next == '-') {
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? length : end - 1;
+            } else if (c == '/' && next == '*') {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 1;
+            } else if (c == ';') {
+                addStatement(statements, current);
+            } else {
+                current.append(c);
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String sql = current.toString().trim();
+        if (!sql.isEmpty()) {
+            statements.add(sql);
+        }
+        current.setLength(0);
+    }
+
+    private static boolean isCreateIndex(String sql) {
+        String upper = sql.toUpperCase(Locale.ROOT);
+        return upper.startsWith("CREATE INDEX") || upper.startsWith("CREATE UNIQUE INDEX");
+    }
+
+    private static boolean isDuplicateIndex(SQLException e) {
+        return e.getErrorCode() == MYSQL_DUPLICATE_INDEX || e.getErrorCode() == H2_DUPLICATE_INDEX;
+    }
+
+    private static boolean isDropIndex(String sql) {
+        return sql.toUpperCase(Locale.ROOT).startsWith("DROP INDEX");
+    }
+
+    private static boolean isMissingIndex(SQLException e) {
+        return e.getErrorCode() == MYSQL_MISSING_INDEX || e.getErrorCode() == H2_MISSING_INDEX;
+    }
+
+    private static String abbreviate(String text) {
+        String flat = text.replaceAll("\\s+", " ");
+        return flat.length() > 200 ? flat.substring(0, 197) + "..." : flat;
+    }
+}
@@ -7,16 +7,13 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import com.google.gson.Gson;
-import uni.space.finder.DatabaseSetup;
-import uni.space.finder.UserSync;
 
 @WebServlet("/api/signup")
 public class SignupServlet extends HttpServlet {
+    private static final Log LOG = Log.get(SignupServlet.class);
+
     // Add CORS headers to all responses
     private void setCorsHeaders(HttpServletResponse resp) {
         resp.setHeader("Access-Control-Allow-Origin", "*");
@@ -45,44 +42,27 @@ public class SignupServlet extends HttpServlet {
             return;
         }
 
-        boolean created = Account.createAccount(data.email, data.password, data.first, data.last, data.sid);
+        boolean created;
+        try {
+            created = CredentialStore.register(data.email, data.password, data.first, data.last, data.sid);
+        } catch (PasswordHasher.BusyException e) {
+            resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            resp.getWriter().write("{\"success\":false,\"message\":\"Server is busy, please try again\"}");
+            return;
+        } catch (SQLException e) {
+            LOG.error("Signup failed", e);
+            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            resp.getWriter().write("{\"success\":false,\"message\":\"Server error\"}");
+            return;
+        }
         if (created) {
-            // Also add user to database for booking system
-            try {
-                addUserToDatabase(data.email, data.first, data.last, data.sid);
-                resp.getWriter().write("{\"success\":true}");
-            } catch (Exception e) {
-                System.err.println("Database sync failed: " + e.getMessage());
-                resp.getWriter().write("{\"success\":true,\"message\":\"Account created successfully\"}");
-            }
+            UserDirectory.invalidate(data.email);
+            resp.getWriter().write("{\"success\":true}");
         } else {
             resp.getWriter().write("{\"success\":false,\"message\":\"Account already exists\"}");
         }
     }
 
-
-
-    /**
-     * Simple method to add user to database 
-     */
-    private void addUserToDatabase(String email, String firstName, String lastName, String studentId) throws SQLException {
-        String username = email.split("@")[0];
-        String fullName = firstName + " " + lastName;
-        
-        try (Connection conn = DatabaseSetup.getConnection()) {
-            String query = "INSERT INTO users (username, email, full_name, student_id) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setString(1, username);
-                stmt.setString(2, email);
-                stmt.setString(3, fullName);
-                stmt.setString(4, studentId);
-                
-                int rows = stmt.executeUpdate();
-                System.out.println("✅ Added user to database: " + email + " (rows: " + rows + ")");
-            }
-        }
-    }
-
     private static class SignupData {
         String first;
         String last;
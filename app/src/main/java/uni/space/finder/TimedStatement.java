@@ -0,0 +1,90 @@
+package uni.space.finder;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Statement proxy handed out by ConnectionPool that times every execute*
+ * call and records it in Metrics under the statement's SQL fingerprint.
+ * Everything else is passed straight through.
+ */
+class TimedStatement implements InvocationHandler {
+    private final Statement target;
+    private final String preparedSql;
+    private String batchSql;
+
+    private TimedStatement(Statement target, String preparedSql) {
+        this.target = target;
+        this.preparedSql = preparedSql;
+    }
+
+    /**
+     * @param preparedSql the SQL given to prepareStatement/prepareCall, or null for createStatement
+     */
+    static Statement wrap(Statement target, String preparedSql) {
+        Class<?> type = target instanceof CallableStatement ? CallableStatement.class
+            : target instanceof PreparedStatement ? PreparedStatement.class
+            : Statement.class;
+        return (Statement) Proxy.newProxyInstance(
+            TimedStatement.class.getClassLoader(), new Class<?>[] { type }, new TimedStatement(target, preparedSql));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Timed" + target;
+            case "addBatch":
+                if (args != null && args.length == 1 && batchSql == null) {
+                    batchSql = (String) args[0]; // Statement.addBatch(sql)
+                }
+                break;
+            default:
+                break;
+        }
+        if (!name.startsWith("execute")) {
+            return call(method, args);
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = call(method, args);
+            failed = false;
+            return result;
+        } finally {
+            Metrics.recordStatement(sqlFor(name, args), System.nanoTime() - start, failed);
+            if ("executeBatch".equals(name) || "executeLargeBatch".equals(name)) {
+                batchSql = null;
+            }
+        }
+    }
+
+    private String sqlFor(String method, Object[] args) {
+        if (args != null && args.length > 0 && args[0] instanceof String) {
+            return (String) args[0];
+        }
+        if (preparedSql != null) {
+            return preparedSql;
+        }
+        return method.endsWith("Batch") && batchSql != null ? batchSql : null;
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
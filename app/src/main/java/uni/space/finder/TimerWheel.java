@@ -0,0 +1,216 @@
+package uni.space.finder;
+
+/**
+ * TimerWheel - Hashed timing wheel for many coarse, mostly cancelled timers
+ *
+ * Time is cut into ticks of tickMs and the wheel has wheelSize buckets
+ * (rounded up to a power of two). A timer due at tick t sits in bucket
+ * t & (wheelSize - 1) as a node in that bucket's linked list; timers one or
+ * more rotations ahead share the bucket and are skipped until their tick
+ * comes round. Scheduling and cancelling are O(1) whatever the number of
+ * pending timers:
+ * - schedule() appends to a lock-free queue that advance() drains into the buckets
+ * - cancel() is a compare-and-set on the timer; the node is unlinked the
+ *   next time its bucket is swept
+ * Each tick sweeps one bucket, so a tick costs pending / wheelSize nodes on
+ * average. Timers fire at tick granularity and never before their deadline.
+ *
+ * The wheel has no thread of its own: the owner calls advance(now) from a
+ * single thread, normally every tickMs, and expired tasks run on that thread,
+ * so they should be short.
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TimerWheel {
+    private static final Log LOG = Log.get(TimerWheel.class);
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    /**
+     * A scheduled task. cancel() and expiry race on the state, so exactly one
+     * of them wins.
+     */
+    public static final class Timeout {
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state = PENDING;
+        // Owned by the advancing thread
+        private long tick;
+        private Timeout next;
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public long deadline() {
+            return deadline;
+        }
+
+        /**
+         * Stops the task from running. False if it has already run (or is
+         * running) or was cancelled before.
+         */
+        public boolean cancel() {
+            if (STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                wheel.pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+    }
+
+    private final long tickMs;
+    private final long origin;
+    private final int mask;
+    private final Timeout[] buckets;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong expired = new AtomicLong();
+    // Next tick to sweep; guarded by this
+    private long currentTick;
+
+    /**
+     * @param originMillis the time tick 0 starts, normally now
+     */
+    public TimerWheel(long tickMs, int wheelSize, long originMillis) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive: " + tickMs);
+        }
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickMs = tickMs;
+        this.origin = originMillis;
+        this.mask = size - 1;
+        this.buckets = new Timeout[size];
+    }
+
+    /**
+     * Runs task at the first tick at or after deadlineMillis; a deadline that
+     * has already passed runs at the next tick.
+     */
+    public Timeout schedule(Runnable task, long deadlineMillis) {
+        Timeout timeout = new Timeout(this, task, deadlineMillis);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Sweeps every tick up to now and runs the timers that are due. After a
+     * gap longer than a rotation each bucket is swept once instead of once
+     * per missed tick. Returns how many timers ran.
+     */
+    public synchronized int advance(long nowMillis) {
+        long target = Math.floorDiv(nowMillis - origin, tickMs);
+        if (target - currentTick >= buckets.length) {
+            currentTick = target - buckets.length + 1;
+        }
+        transferAdded();
+        if (target < currentTick) {
+            return 0;
+        }
+
+        List<Timeout> due = new ArrayList<>();
+        for (; currentTick <= target; currentTick++) {
+            sweep((int) (currentTick & mask), currentTick, due);
+        }
+        for (Timeout timeout : due) {
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                LOG.error("Timer task failed", e);
+            }
+        }
+        expired.addAndGet(due.size());
+        return due.size();
+    }
+
+    /**
+     * Timers scheduled and neither run nor cancelled.
+     */
+    public int size() {
+        return pending.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.get());
+        stats.put("expired", expired.get());
+        stats.put("tickMs", tickMs);
+        stats.put("wheelSize", buckets.length);
+        return stats;
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            // Round up so a timer never fires before its deadline
+            long tick = Math.floorDiv(timeout.deadline - origin + tickMs - 1, tickMs);
+            timeout.tick = Math.max(tick, currentTick);
+            int bucket = (int) (timeout.tick & mask);
+            timeout.next = buckets[bucket];
+            buckets[bucket] = timeout;
+        }
+    }
+
+    /**
+     * Unlinks cancelled timers and the ones due by tick from one bucket,
+     * adding the due ones that this sweep claimed to due.
+     */
+    private void sweep(int bucket, long tick, List<Timeout> due) {
+        Timeout previous = null;
+        Timeout timeout = buckets[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            boolean unlink = timeout.isCancelled();
+            if (!unlink && timeout.tick <= tick) {
+                unlink = true;
+                if (Timeout.STATE.compareAndSet(timeout, PENDING, EXPIRED)) {
+                    pending.decrementAndGet();
+                    due.add(timeout);
+                }
+            }
+            if (unlink) {
+                timeout.next = null;
+                if (previous == null) {
+                    buckets[bucket] = next;
+                } else {
+                    previous.next = next;
+                }
+            } else {
+                previous = timeout;
+            }
+            timeout = next;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package uni.space.finder;
+
+/**
+ * UserDirectory - Maps a logged-in email to its users.user_id
+ *
+ * The single place that knows how to find (and, if needed, create) the
+ * database row for a session user:
+ * - resolve() checks a bounded LRU cache shared by all requests, then the
+ *   users table, and adds the user from the session details if missing
+ * - createUser() is the one auto-create path; BookingPipeline calls it inside
+ *   its own transaction
+ * - invalidate() is called by signup and profile edits, clear() when the
+ *   database backend switches
+ *
+ * Cache size is set with unispace.users.cacheSize.
+ */
+
+import jakarta.servlet.http.HttpSession;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class UserDirectory {
+    private static final Log LOG = Log.get(UserDirectory.class);
+
+    private static final int CACHE_SIZE = AppConfig.getInt("unispace.users.cacheSize", 1024);
+
+    // Access-ordered so the least recently used email is evicted first
+    private static final Map<String, Integer> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    private UserDirectory() {
+    }
+
+    /**
+     * user_id for the session's email, creating the users row if needed.
+     * Returns -1 if there is no logged-in user or the lookup fails.
+     */
+    public static int resolve(HttpSession session) {
+        if (session == null || session.getAttribute("email") == null) {
+            return -1;
+        }
+        String email = CredentialStore.normalizeEmail((String) session.getAttribute("email"));
+
+        Integer cached = cached(email);
+        if (cached != null) {
+            HITS.increment();
+            return cached;
+        }
+        MISSES.increment();
+
+        try (Connection conn = DatabaseSetup.getConnection()) {
+            int userId = findUserId(conn, email);
+            if (userId == -1) {
+                LOG.debug(() -> "User not found in database: " + email);
+                userId = createUser(conn, email, sessionFullName(session), (String) session.getAttribute("studentId"));
+            }
+            if (userId != -1) {
+                remember(email, userId);
+            }
+            return userId;
+        } catch (SQLException e) {
+            LOG.error("Error getting current user ID", e);
+            return -1;
+        }
+    }
+
+    public static int findUserId(Connection conn, String email) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT user_id FROM users WHERE email = ?")) {
+            pstmt.setString(1, CredentialStore.normalizeEmail(email));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("user_id") : -1;
+            }
+        }
+    }
+
+    /**
+     * Adds a users row for a logged-in account that is not in the database yet.
+     * A student ID that is already taken is stored as NULL; if another request
+     * created the same user first, its id is returned.
+     */
+    public static int createUser(Connection conn, String email, String fullName, String studentId) throws SQLException {
+        String username = email.split("@")[0];
+        if (fullName == null || fullName.trim().isEmpty()) {
+            fullName = username;
+        }
+        String name = fullName;
+        LOG.debug(() -> "Creating user in database: " + email + " (Full name: " + name + ", Student ID: " + studentId + ")");
+
+        boolean studentIdExists = false;
+        if (studentId != null && !studentId.trim().isEmpty()) {
+            try (PreparedStatement checkStmt = conn.prepareStatement("SELECT COUNT(*) FROM users WHERE student_id = ?")) {
+                checkStmt.setString(1, studentId);
+                try (ResultSet rs = checkStmt.executeQuery()) {
+                    if (rs.next() && rs.getInt(1) > 0) {
+                        studentIdExists = true;
+                        LOG.warn(() -> "Student ID " + studentId + " already exists, using NULL for this user");
+                    }
+                }
+            }
+        }
+
+        String insertQuery = "INSERT INTO users (username, email, full_name, student_id) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement insertStmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+            insertStmt.setString(1, username);
+            insertStmt.setString(2, CredentialStore.normalizeEmail(email));
+            insertStmt.setString(3, fullName);
+            if (studentId != null && !studentId.trim().isEmpty() && !studentIdExists) {
+                insertStmt.setString(4, studentId);
+            } else {
+                insertStmt.setNull(4, Types.VARCHAR);
+            }
+            insertStmt.executeUpdate();
+            try (ResultSet keys = insertStmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    int userId = keys.getInt(1);
+                    LOG.info(() -> "Added user to database: " + email + " (ID: " + userId + ")");
+                    return userId;
+                }
+            }
+        } catch (SQLException e) {
+            // Another request may have created the same user concurrently
+            LOG.debug(() -> "User might already exist, trying to retrieve (" + e.getMessage() + ")");
+        }
+        return findUserId(conn, email);
+    }
+
+    /**
+     * Full name from the login session ("fullName", or first + last name).
+     */
+    public static String sessionFullName(HttpSession session) {
+        String fullName = (String) session.getAttribute("fullName");
+        if (fullName == null || fullName.trim().isEmpty()) {
+            String firstName = (String) session.getAttribute("firstName");
+            String lastName = (String) session.getAttribute("lastName");
+            if (firstName != null && lastName != null) {
+                fullName = firstName + " " + lastName;
+            }
+        }
+        return fullName;
+    }
+
+    public static void remember(String email, int userId) {
+        synchronized (CACHE) {
+            CACHE.put(email, userId);
+        }
+    }
+
+    /**
+     * Drops the cached mapping after the user's account or profile changes.
+     */
+    public static void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        synchronized (CACHE) {
+            CACHE.remove(email);
+        }
+    }
+
+    /**
+     * Drops every cached mapping, e.g. after the database backend switched.
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    public static int cacheSize() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    /**
+     * Size and hit ratio of the resolve() cache.
+     */
+    public static Map<String, Object> getCacheStats() {
+        long hits = HITS.sum();
+        long misses = MISSES.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cacheSize());
+        stats.put("capacity", CACHE_SIZE);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses == 0 ? null : Math.round(hits * 1000.0 / (hits + misses)) / 1000.0);
+        return stats;
+    }
+
+    static Integer cached(String email) {
+        synchronized (CACHE) {
+            return CACHE.get(email);
+        }
+    }
+}
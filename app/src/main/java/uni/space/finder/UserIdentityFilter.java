@@ -0,0 +1,85 @@
+package uni.space.finder;
+
+/**
+ * UserIdentityFilter - Resolves the logged-in user once per API request
+ *
+ * For requests with a logged-in session the user's database id is looked up
+ * once and kept in the session ("userId", tied to the email it was resolved
+ * for). Later requests read it from there without touching the database.
+ * The id is exposed to servlets as the "currentUserId" request attribute.
+ *
+ * Requests without a session pass through untouched; servlets still decide
+ * whether they need a logged-in user.
+ */
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+@WebFilter(filterName = "UserIdentityFilter", urlPatterns = {"/api/*"})
+public class UserIdentityFilter extends HttpFilter {
+    public static final String USER_ID_ATTRIBUTE = "currentUserId";
+    static final String SESSION_USER_ID = "userId";
+    static final String SESSION_USER_ID_EMAIL = "userIdEmail";
+
+    // Ids served from the session versus handed to UserDirectory
+    private static final LongAdder SESSION_HITS = new LongAdder();
+    private static final LongAdder DIRECTORY_LOOKUPS = new LongAdder();
+
+    @Override
+    protected void doFilter(HttpServletRequest req, HttpServletResponse resp, FilterChain chain)
+            throws IOException, ServletException {
+        int userId = resolve(req);
+        if (userId != -1) {
+            req.setAttribute(USER_ID_ATTRIBUTE, userId);
+        }
+        chain.doFilter(req, resp);
+    }
+
+    /**
+     * The current user's id: request attribute, then session, then UserDirectory.
+     * Returns -1 if nobody is logged in.
+     */
+    public static int resolve(HttpServletRequest req) {
+        Object attribute = req.getAttribute(USER_ID_ATTRIBUTE);
+        if (attribute instanceof Integer) {
+            return (Integer) attribute;
+        }
+
+        HttpSession session = req.getSession(false);
+        if (session == null || session.getAttribute("email") == null) {
+            return -1;
+        }
+        String email = (String) session.getAttribute("email");
+
+        // Only trust the stored id if it was resolved for the email now in the session
+        Object stored = session.getAttribute(SESSION_USER_ID);
+        if (stored instanceof Integer && email.equals(session.getAttribute(SESSION_USER_ID_EMAIL))) {
+            SESSION_HITS.increment();
+            return (Integer) stored;
+        }
+
+        DIRECTORY_LOOKUPS.increment();
+        int userId = UserDirectory.resolve(session);
+        if (userId != -1) {
+            session.setAttribute(SESSION_USER_ID, userId);
+            session.setAttribute(SESSION_USER_ID_EMAIL, email);
+        }
+        return userId;
+    }
+
+    public static long getSessionHits() {
+        return SESSION_HITS.sum();
+    }
+
+    public static long getDirectoryLookups() {
+        return DIRECTORY_LOOKUPS.sum();
+    }
+}
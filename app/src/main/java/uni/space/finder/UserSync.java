@@ -6,11 +6,13 @@ import java.sql.*;
  * Simple utility to manually sync user accounts from accounts.txt to database
  */
 public class UserSync {
+    private static final Log LOG = Log.get(UserSync.class);
     
     /**
      * Add a specific user to the database
      */
-    public static boolean addUserToDatabase(String email, String firstName, String lastName, String studentId) {
+    public static boolean addUserToDatabase(String enteredEmail, String firstName, String lastName, String studentId) {
+        String email = CredentialStore.normalizeEmail(enteredEmail);
         String username = email.split("@")[0];
         String fullName = firstName + " " + lastName;
         
@@ -23,7 +25,7 @@ public class UserSync {
                 ResultSet rs = checkStmt.executeQuery();
                 
                 if (rs.next() && rs.getInt(1) > 0) {
-                    System.out.println("ℹ️  User already exists in database: " + email);
+                    LOG.debug(() -> "User already exists in database: " + email);
                     return true;
                 }
             }
@@ -37,25 +39,34 @@ public class UserSync {
                 insertStmt.setString(4, studentId);
                 
                 int rowsAffected = insertStmt.executeUpdate();
-                System.out.println("✅ Added user to database: " + email + " (rows affected: " + rowsAffected + ")");
+                LOG.info(() -> "Added user to database: " + email + " (rows affected: " + rowsAffected + ")");
                 return rowsAffected > 0;
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error adding user to database: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error adding user to database: " + email, e);
             return false;
         }
     }
     
     /**
-     * Sync all users from accounts.txt to database
+     * Sync all users from accounts.txt to database (with their password hashes)
      */
     public static void syncAllUsers() {
-        // Skip UserSync for now since we have sample data in asd.sql
-        // This prevents primary key conflicts with auto-increment sequence
-        System.out.println("🔄 Syncing users from accounts.txt to database...");
-        System.out.println("ℹ️  Skipping UserSync - sample data already exists in database");
-        System.out.println("✅ User sync completed");
+        // Rows get auto-increment ids, so sample users in asd.sql are left alone
+        LOG.info("Syncing users from accounts.txt to database");
+        int imported = CredentialStore.importAccounts();
+        LOG.info(() -> "User sync completed (" + imported + " imported)");
+    }
+
+    /**
+     * Sync all users into a database that is not serving requests yet (the failover standby)
+     */
+    static void syncAllUsers(Connection conn) throws SQLException {
+        try {
+            CredentialStore.importAccounts(conn);
+        } catch (PasswordHasher.BusyException e) {
+            throw new SQLException("Password hashing busy, users not synced", e);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+-- Base tables: users, room, booktime, ratings
+--
+-- Also brings H2 files created before schema versioning up to date: tables
+-- are created if missing, and columns added since then are added if missing.
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id INT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(50) UNIQUE NOT NULL,
+    email VARCHAR(100) UNIQUE NOT NULL,
+    full_name VARCHAR(100) NOT NULL,
+    student_id VARCHAR(20) UNIQUE,
+    password_hash VARCHAR(255),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+ALTER TABLE users ADD COLUMN IF NOT EXISTS password_hash VARCHAR(255);
+ALTER TABLE users ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+
+CREATE TABLE IF NOT EXISTS room (
+    room_id INT AUTO_INCREMENT PRIMARY KEY,
+    room_name VARCHAR(50) UNIQUE NOT NULL,
+    room_type VARCHAR(50) NOT NULL,
+    capacity INT NOT NULL,
+    speaker BOOLEAN DEFAULT FALSE,
+    whiteboard BOOLEAN DEFAULT FALSE,
+    monitor BOOLEAN DEFAULT FALSE,
+    hdmi_cable BOOLEAN DEFAULT FALSE,
+    image VARCHAR(255) DEFAULT NULL,
+    location VARCHAR(100),
+    description VARCHAR(2000),
+    is_active BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+ALTER TABLE room ALTER COLUMN room_name SET DATA TYPE VARCHAR(50);
+ALTER TABLE room ADD COLUMN IF NOT EXISTS location VARCHAR(100);
+ALTER TABLE room ADD COLUMN IF NOT EXISTS description VARCHAR(2000);
+ALTER TABLE room ADD COLUMN IF NOT EXISTS is_active BOOLEAN DEFAULT TRUE;
+ALTER TABLE room ADD COLUMN IF NOT EXISTS created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+
+CREATE TABLE IF NOT EXISTS booktime (
+    timeID INT AUTO_INCREMENT PRIMARY KEY,
+    booking_ref VARCHAR(20) UNIQUE,
+    room_id INT NOT NULL,
+    user_id INT,
+    start_time TIMESTAMP NOT NULL,
+    end_time TIMESTAMP NOT NULL,
+    booking_status VARCHAR(20) DEFAULT 'ACTIVE',
+    purpose VARCHAR(255),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    cancelled_at TIMESTAMP NULL,
+    checked_in_at TIMESTAMP NULL,
+    checked_out_at TIMESTAMP NULL,
+    FOREIGN KEY (room_id) REFERENCES room(room_id) ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE SET NULL
+);
+ALTER TABLE booktime ADD COLUMN IF NOT EXISTS booking_ref VARCHAR(20) UNIQUE;
+ALTER TABLE booktime ADD COLUMN IF NOT EXISTS purpose VARCHAR(255);
+ALTER TABLE booktime ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+ALTER TABLE booktime ADD COLUMN IF NOT EXISTS cancelled_at TIMESTAMP NULL;
+ALTER TABLE booktime ADD COLUMN IF NOT EXISTS checked_in_at TIMESTAMP NULL;
+ALTER TABLE booktime ADD COLUMN IF NOT EXISTS checked_out_at TIMESTAMP NULL;
+
+CREATE TABLE IF NOT EXISTS ratings (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    booking_id INT NOT NULL,
+    rating INT NOT NULL CHECK (rating >= 1 AND rating <= 5),
+    comment VARCHAR(2000),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (booking_id) REFERENCES booktime(timeID) ON DELETE CASCADE
+);
@@ -0,0 +1,11 @@
+-- Secondary indexes (kept identical to mysql/V2.sql)
+
+CREATE INDEX IF NOT EXISTS idx_room_time ON booktime(room_id, start_time, end_time);
+CREATE INDEX IF NOT EXISTS idx_user_bookings ON booktime(user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_status ON booktime(booking_status);
+CREATE INDEX IF NOT EXISTS idx_booking_ref ON booktime(booking_ref);
+CREATE INDEX IF NOT EXISTS idx_booktime_room_status ON booktime(room_id, booking_status);
+CREATE INDEX IF NOT EXISTS idx_booktime_time_range ON booktime(start_time, end_time);
+CREATE INDEX IF NOT EXISTS idx_booking_rating ON ratings(booking_id);
+CREATE INDEX IF NOT EXISTS idx_room_type ON room(room_type);
+CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
@@ -0,0 +1,49 @@
+-- Sample data for development: rooms, users and a few bookings
+--
+-- Safe to run against a database that already has this data.
+
+MERGE INTO room (room_id, room_name, room_type, capacity, speaker, whiteboard, monitor, hdmi_cable, image, location) KEY (room_id) VALUES
+(1, 'CB06.06.112', 'Group Study Room', 8, true, true, true, true, 'Group_Study_Room', 'Building CB06, Level 6'),
+(2, 'CB06.06.113', 'Group Study Room', 8, false, false, true, true, 'Group_Study_Room', 'Building CB06, Level 6'),
+(3, 'CB07.02.010A', 'Online Learning Room', 2, false, false, true, true, 'Online_Learning_Room', 'Building CB07, Level 2'),
+(4, 'CB07.02.010B', 'Online Learning Room', 2, true, false, true, true, 'Online_Learning_Room', 'Building CB07, Level 2'),
+(5, 'CB06.03.205', 'Group Study Room', 12, true, true, true, true, 'Group_Study_Room', 'Building CB06, Level 3'),
+(6, 'CB06.03.206', 'Group Study Room', 10, false, true, true, true, 'Group_Study_Room', 'Building CB06, Level 3'),
+(7, 'CB08.01.115', 'Lecture Room', 50, true, true, true, true, 'Lecture_Room', 'Building CB08, Level 1'),
+(8, 'CB08.01.116', 'Lecture Room', 40, true, true, false, true, 'Lecture_Room', 'Building CB08, Level 1'),
+(9, 'CB07.04.020A', 'Online Learning Room', 4, true, false, true, true, 'Online_Learning_Room', 'Building CB07, Level 4'),
+(10, 'CB07.04.020B', 'Online Learning Room', 4, false, false, true, false, 'Online_Learning_Room', 'Building CB07, Level 4'),
+(11, 'CB09.02.301', 'Conference Room', 16, true, true, true, true, 'Conference_Room', 'Building CB09, Level 2'),
+(12, 'CB09.02.302', 'Conference Room', 20, true, true, true, true, 'Conference_Room', 'Building CB09, Level 2'),
+(13, 'CB05.01.108', 'Computer Lab', 24, false, true, true, true, 'Computer_Lab', 'Building CB05, Level 1'),
+(14, 'CB05.01.109', 'Computer Lab', 28, false, true, true, true, 'Computer_Lab', 'Building CB05, Level 1'),
+(15, 'CB06.05.220', 'Group Study Room', 6, false, true, false, true, 'Group_Study_Room', 'Building CB06, Level 5');
+
+INSERT INTO users (username, email, full_name, student_id)
+SELECT 'adam_p', 'adam.pharrels@student.edu', 'Adam Pharrels', 'ST001'
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'adam.pharrels@student.edu');
+
+INSERT INTO users (username, email, full_name, student_id)
+SELECT 'sarah_j', 'sarah.jones@student.edu', 'Sarah Jones', 'ST002'
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'sarah.jones@student.edu');
+
+INSERT INTO users (username, email, full_name, student_id)
+SELECT 'mike_w', 'mike.wilson@student.edu', 'Mike Wilson', 'ST003'
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'mike.wilson@student.edu');
+
+INSERT INTO users (username, email, full_name, student_id)
+SELECT 'emma_d', 'emma.davis@student.edu', 'Emma Davis', 'ST004'
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'emma.davis@student.edu');
+
+INSERT INTO users (username, email, full_name, student_id)
+SELECT 'john_s', 'john.smith@student.edu', 'John Smith', 'ST005'
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'john.smith@student.edu');
+
+MERGE INTO booktime (booking_ref, room_id, user_id, start_time, end_time, booking_status) KEY (booking_ref) VALUES
+('CB112-1017E-A', 1, 1, '2025-10-17 16:30:00', '2025-10-17 17:30:00', 'COMPLETED'),
+('CB113-1017E-S', 2, 1, '2025-10-17 17:00:00', '2025-10-17 18:00:00', 'COMPLETED'),
+('CB010A-1018M-A', 3, 1, '2025-10-18 10:00:00', '2025-10-18 11:00:00', 'COMPLETED'),
+('CB010B-1018A-M', 4, 1, '2025-10-18 14:00:00', '2025-10-18 15:00:00', 'COMPLETED'),
+('CB112-1021M-A2K', 1, 1, '2025-10-21 09:00:00', '2025-10-21 10:00:00', 'ACTIVE'),
+('CB205-1021A-S5X', 5, 1, '2025-10-21 14:00:00', '2025-10-21 16:00:00', 'ACTIVE'),
+('CB115-1022M-A7F', 7, 1, '2025-10-22 11:00:00', '2025-10-22 12:00:00', 'ACTIVE');
@@ -0,0 +1,7 @@
+-- Covering indexes for booking conflict checks and per-user listings
+--
+-- idx_booktime_room_status is a prefix of idx_booktime_room_status_time and is dropped.
+
+CREATE INDEX IF NOT EXISTS idx_booktime_room_status_time ON booktime(room_id, booking_status, start_time, end_time);
+CREATE INDEX IF NOT EXISTS idx_booktime_user_start ON booktime(user_id, start_time);
+DROP INDEX IF EXISTS idx_booktime_room_status;
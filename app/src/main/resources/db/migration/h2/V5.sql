@@ -0,0 +1,17 @@
+-- Booking lifecycle: completing expired bookings
+--
+-- job_watermarks records how far each background job has got (one row per job).
+-- idx_booktime_status_end finds ACTIVE bookings that have ended with one range
+-- scan; idx_status is a prefix of it and is dropped.
+
+CREATE TABLE IF NOT EXISTS job_watermarks (
+    job VARCHAR(64) PRIMARY KEY,
+    watermark TIMESTAMP NULL,
+    processed BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NULL
+);
+
+MERGE INTO job_watermarks (job, processed) KEY (job) VALUES ('booking-lifecycle', 0);
+
+CREATE INDEX IF NOT EXISTS idx_booktime_status_end ON booktime(booking_status, end_time);
+DROP INDEX IF EXISTS idx_status;
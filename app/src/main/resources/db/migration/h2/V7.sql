@@ -0,0 +1,14 @@
+-- Lower-case user emails
+--
+-- Logins and profile lookups now lower-case the email before querying, so the
+-- stored emails are lower-cased to match. A row whose lower-cased email is
+-- already taken (by a lower-case row, or by an older row with the same email
+-- in another case) keeps its email; lookups reach the surviving row.
+
+UPDATE users u SET email = LOWER(TRIM(email))
+WHERE email <> LOWER(TRIM(email))
+  AND NOT EXISTS (
+    SELECT 1 FROM users o
+    WHERE LOWER(TRIM(o.email)) = LOWER(TRIM(u.email)) AND o.user_id <> u.user_id
+      AND (o.email = LOWER(TRIM(o.email)) OR o.user_id < u.user_id)
+  );
@@ -0,0 +1,14 @@
+-- Secondary indexes (kept identical to h2/V2.sql)
+--
+-- MySQL has no CREATE INDEX IF NOT EXISTS; SchemaMigrator treats an index
+-- that already exists (e.g. created by init-db.sql) as applied.
+
+CREATE INDEX idx_room_time ON booktime(room_id, start_time, end_time);
+CREATE INDEX idx_user_bookings ON booktime(user_id, created_at);
+CREATE INDEX idx_status ON booktime(booking_status);
+CREATE INDEX idx_booking_ref ON booktime(booking_ref);
+CREATE INDEX idx_booktime_room_status ON booktime(room_id, booking_status);
+CREATE INDEX idx_booktime_time_range ON booktime(start_time, end_time);
+CREATE INDEX idx_booking_rating ON ratings(booking_id);
+CREATE INDEX idx_room_type ON room(room_type);
+CREATE INDEX idx_users_email ON users(email);
@@ -0,0 +1,29 @@
+-- Archive for old COMPLETED and CANCELLED bookings
+--
+-- BookingArchive moves rows here once they are past the retention window, so
+-- booktime only holds recent and upcoming bookings. timeID keeps the original
+-- id. There are no foreign keys: history must survive room and user changes.
+-- Rows are rarely read, so they are stored compressed.
+
+CREATE TABLE IF NOT EXISTS booktime_archive (
+    timeID INT PRIMARY KEY,
+    booking_ref VARCHAR(20),
+    room_id INT NOT NULL,
+    user_id INT,
+    start_time TIMESTAMP NOT NULL,
+    end_time TIMESTAMP NOT NULL,
+    booking_status VARCHAR(20),
+    purpose VARCHAR(255),
+    created_at TIMESTAMP NULL,
+    updated_at TIMESTAMP NULL,
+    cancelled_at TIMESTAMP NULL,
+    checked_in_at TIMESTAMP NULL,
+    checked_out_at TIMESTAMP NULL,
+    archived_at TIMESTAMP NULL
+) ROW_FORMAT=COMPRESSED;
+
+CREATE INDEX idx_archive_user_start ON booktime_archive(user_id, start_time);
+CREATE INDEX idx_archive_start ON booktime_archive(start_time);
+CREATE INDEX idx_archive_ref ON booktime_archive(booking_ref);
+
+INSERT IGNORE INTO job_watermarks (job, processed) VALUES ('booking-archive', 0);
@@ -0,0 +1,18 @@
+-- Lower-case user emails
+--
+-- Logins and profile lookups now lower-case the email before querying, so the
+-- stored emails are lower-cased to match. A row whose lower-cased email is
+-- already taken (by a lower-case row, or by an older row with the same email
+-- in another case) keeps its email; lookups reach the surviving row. BINARY
+-- compares case-sensitively under the default case-insensitive collation, and
+-- the derived table lets MySQL read users while updating it.
+
+UPDATE users SET email = LOWER(TRIM(email))
+WHERE BINARY email <> BINARY LOWER(TRIM(email))
+  AND user_id NOT IN (
+    SELECT user_id FROM (
+      SELECT u.user_id FROM users u
+      JOIN users o ON LOWER(TRIM(o.email)) = LOWER(TRIM(u.email)) AND o.user_id <> u.user_id
+      WHERE BINARY o.email = BINARY LOWER(TRIM(o.email)) OR o.user_id < u.user_id
+    ) clashes
+  );
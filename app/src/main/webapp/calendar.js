@@ -150,17 +150,39 @@ async function loadRooms() {
     }
 }
 
+// Date range shown on the timeline (today), as yyyy-mm-dd strings
+function visibleRange() {
+    const format = d => `${d.getFullYear()}-${String(d.getMonth() + 1).padStart(2, '0')}-${String(d.getDate()).padStart(2, '0')}`;
+    const start = new Date();
+    const end = new Date(start);
+    end.setDate(start.getDate() + 1);
+    return { from: format(start), to: format(end) };
+}
+
 // Load bookings from API
 async function loadBookings() {
     try {
         console.log('Loading bookings...');
         
-        const response = await fetch('/api/bookings');
-        if (!response.ok) {
-            throw new Error(`HTTP error! status: ${response.status}`);
-        }
+        // Only load the day shown on the timeline, page by page
+        const { from, to } = visibleRange();
+        const loaded = [];
+        let cursor = null;
+        do {
+            const params = new URLSearchParams({ from, to, limit: '500' });
+            if (cursor) {
+                params.set('cursor', cursor);
+            }
+            const response = await fetch(`/api/bookings?${params}`);
+            if (!response.ok) {
+                throw new Error(`HTTP error! status: ${response.status}`);
+            }
+            const page = await response.json();
+            loaded.push(...page.bookings);
+            cursor = page.nextCursor;
+        } while (cursor);
         
-        bookings = await response.json();
+        bookings = loaded;
         console.log('Loaded bookings:', bookings);
         
         updateTimelineWithBookings();
@@ -0,0 +1,131 @@
+package com.calendar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Archives four COMPLETED bookings on 2025-10-17/18 and keeps three ACTIVE
+ * ones on 2025-10-21/22, all for the test user.
+ */
+class BookingArchiveTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 6, 1, 12, 0);
+
+    private TestDatabase db;
+
+    @BeforeEach
+    void migrate() throws SQLException {
+        db = new TestDatabase("archive");
+        booking("CB114-1017E-J1A", LocalDateTime.of(2025, 10, 17, 16, 30), "COMPLETED");
+        booking("CB114-1017E-J2A", LocalDateTime.of(2025, 10, 17, 17, 0), "COMPLETED");
+        booking("CB114-1018M-J3A", LocalDateTime.of(2025, 10, 18, 10, 0), "COMPLETED");
+        booking("CB114-1018A-J4A", LocalDateTime.of(2025, 10, 18, 14, 0), "COMPLETED");
+        booking("CB114-1021M-J5A", LocalDateTime.of(2025, 10, 21, 9, 0), "ACTIVE");
+        booking("CB114-1021A-J6A", LocalDateTime.of(2025, 10, 21, 14, 0), "ACTIVE");
+        booking("CB114-1022M-J7A", LocalDateTime.of(2025, 10, 22, 11, 0), "ACTIVE");
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void testFinishedBookingsMoveInChunks() throws SQLException {
+        BookingArchive archive = new BookingArchive(180, 3, 10);
+
+        assertEquals(4, archive.run(db.connection(), NOW));
+
+        assertEquals(3, db.count("SELECT COUNT(*) FROM booktime"));
+        assertEquals(4, db.count("SELECT COUNT(*) FROM booktime_archive"));
+        assertEquals(0, db.count("SELECT COUNT(*) FROM booktime WHERE booking_status = 'COMPLETED'"));
+        assertEquals("2025-10-18T15:00", archive.getStats().get("watermark"));
+        assertEquals(0, archive.run(db.connection(), NOW));
+    }
+
+    @Test
+    void testArchiveIsOnlyNeededBeforeWatermark() throws SQLException {
+        BookingArchive archive = new BookingArchive(180, 100, 10);
+        archive.run(db.connection(), NOW);
+
+        assertTrue(archive.hasArchived());
+        assertTrue(archive.needed(LocalDateTime.of(2025, 10, 18, 10, 0)));
+        assertFalse(archive.needed(LocalDateTime.of(2025, 10, 19, 0, 0)));
+    }
+
+    @Test
+    void testNothingArchivedYet() throws SQLException {
+        BookingArchive archive = new BookingArchive(180, 100, 10);
+        assertEquals(0, archive.run(db.connection(), LocalDateTime.of(2025, 11, 1, 0, 0)));
+
+        assertFalse(archive.hasArchived());
+        assertFalse(archive.needed(LocalDateTime.of(2025, 10, 18, 10, 0)));
+        String sql = BookingQueries.USER_BOOKINGS + "ORDER BY b.start_Time DESC";
+        assertEquals(sql, archive.source(sql, List.of(db.userId()), null).sql());
+    }
+
+    @Test
+    void testIncludedQueryReadsBothTables() throws SQLException {
+        new BookingArchive(180, 100, 10).run(db.connection(), NOW);
+        String sql = BookingQueries.USER_BOOKINGS + "ORDER BY b.start_Time DESC";
+
+        assertEquals(3, refs(sql, List.of(db.userId())).size());
+        assertEquals(4, refs(BookingArchive.archived(sql), List.of(db.userId())).size());
+        BookingArchive.Query both = BookingArchive.include(sql, List.of(db.userId()));
+        assertEquals(List.of("CB114-1022M-J7A", "CB114-1021A-J6A", "CB114-1021M-J5A", "CB114-1018A-J4A",
+            "CB114-1018M-J3A", "CB114-1017E-J2A", "CB114-1017E-J1A"), refs(both.sql(), both.params()));
+    }
+
+    @Test
+    void testIncludedPageIsMergedAndLimited() throws SQLException {
+        new BookingArchive(180, 100, 10).run(db.connection(), NOW);
+        StringBuilder sql = new StringBuilder(BookingQueries.USER_BOOKINGS);
+        List<Object> params = new ArrayList<>();
+        params.add(db.userId());
+        new BookingPage.Query(null, null, new BookingCursor(LocalDateTime.of(2025, 10, 21, 14, 0), Integer.MAX_VALUE), 2)
+            .appendTo(sql, params, true);
+
+        BookingArchive.Query both = BookingArchive.include(sql.toString(), params);
+
+        // limit + 1 rows, across the watermark
+        assertEquals(List.of("CB114-1021A-J6A", "CB114-1021M-J5A", "CB114-1018A-J4A"), refs(both.sql(), both.params()));
+    }
+
+    @Test
+    void testRatedBookingsStayInBooktime() throws SQLException {
+        db.execute("INSERT INTO ratings (booking_id, rating) " +
+            "SELECT timeID, 5 FROM booktime WHERE booking_ref = 'CB114-1017E-J1A'");
+
+        assertEquals(3, new BookingArchive(180, 100, 10).run(db.connection(), NOW));
+        assertEquals(1, db.count("SELECT COUNT(*) FROM booktime WHERE booking_ref = 'CB114-1017E-J1A'"));
+        assertEquals(1, db.count("SELECT COUNT(*) FROM ratings"));
+    }
+
+    private void booking(String ref, LocalDateTime start, String status) throws SQLException {
+        db.insertBooking(ref, start, start.plusHours(1), status);
+    }
+
+    private List<String> refs(String sql, List<Object> params) throws SQLException {
+        try (PreparedStatement pstmt = db.connection().prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                List<String> refs = new ArrayList<>();
+                while (rs.next()) {
+                    refs.add(rs.getString("booking_ref"));
+                }
+                return refs;
+            }
+        }
+    }
+}
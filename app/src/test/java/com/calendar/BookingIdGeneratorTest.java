@@ -0,0 +1,40 @@
+package com.calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingIdGeneratorTest {
+    private static final LocalDateTime MORNING = LocalDateTime.of(2025, 10, 21, 9, 0);
+
+    private final BookingRefAllocator allocator = new BookingRefAllocator((conn, prefix) -> new HashSet<>());
+
+    @Test
+    void testCbRoomNamesAreAbbreviated() throws SQLException {
+        assertTrue(ref("CB06.06.112").startsWith("CB112-1021M-A"));
+        assertTrue(ref("CB07.02.010A").startsWith("CB10A-1021M-A"));
+        assertTrue(ref("CB05.01.000").startsWith("CB0-1021M-A"));
+    }
+
+    @Test
+    void testOtherRoomNamesUseTheirFirstCharacters() throws SQLException {
+        assertTrue(ref("Lab 5 West").startsWith("LAB5-1021M-A"));
+        assertTrue(ref("CB06.06").startsWith("CB060-1021M-A"));
+        assertTrue(ref("CB06.06.112a").startsWith("CB060-1021M-A"));
+    }
+
+    @Test
+    void testGeneratedRefsAreValid() throws SQLException {
+        String ref = BookingIdGenerator.generateBookingRef(allocator, null, "CB06.06.112", MORNING.withHour(19), "sarah");
+        assertTrue(ref.startsWith("CB112-1021E-S"), ref);
+        assertTrue(BookingIdGenerator.isValidBookingRef(ref), ref);
+    }
+
+    private String ref(String roomName) throws SQLException {
+        return BookingIdGenerator.generateBookingRef(allocator, null, roomName, MORNING, "Adam Nguyen");
+    }
+}
@@ -0,0 +1,83 @@
+package com.calendar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the lifecycle job over three ACTIVE bookings ending 2025-10-21 10:00,
+ * 2025-10-21 16:00 and 2025-10-22 12:00.
+ */
+class BookingLifecycleTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 10, 21, 17, 0);
+
+    private TestDatabase db;
+    private final List<Integer> completed = new ArrayList<>();
+
+    @BeforeEach
+    void migrate() throws SQLException {
+        db = new TestDatabase("lifecycle");
+        db.insertBooking("CB114-1021M-J1A", LocalDateTime.of(2025, 10, 21, 9, 0), LocalDateTime.of(2025, 10, 21, 10, 0), "ACTIVE");
+        db.insertBooking("CB114-1021A-J2A", LocalDateTime.of(2025, 10, 21, 14, 0), LocalDateTime.of(2025, 10, 21, 16, 0), "ACTIVE");
+        db.insertBooking("CB114-1022M-J3A", LocalDateTime.of(2025, 10, 22, 11, 0), LocalDateTime.of(2025, 10, 22, 12, 0), "ACTIVE");
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void testEndedBookingsAreCompletedInBatches() throws SQLException {
+        BookingLifecycle lifecycle = new BookingLifecycle(1, 10, completed::add);
+
+        assertEquals(2, lifecycle.run(db.connection(), NOW));
+
+        assertEquals(2, completed.size());
+        assertEquals("COMPLETED", db.status("CB114-1021M-J1A"));
+        assertEquals("COMPLETED", db.status("CB114-1021A-J2A"));
+        assertEquals("ACTIVE", db.status("CB114-1022M-J3A"));
+        assertEquals("2025-10-21T16:00", lifecycle.getStats().get("watermark"));
+        assertEquals(2L, processed());
+    }
+
+    @Test
+    void testRerunAfterRestartCompletesNothingTwice() throws SQLException {
+        new BookingLifecycle(500, 10, completed::add).run(db.connection(), NOW);
+
+        BookingLifecycle restarted = new BookingLifecycle(500, 10, completed::add);
+        assertEquals(0, restarted.run(db.connection(), NOW));
+
+        assertEquals(2, completed.size());
+        assertEquals(2L, restarted.getStats().get("completed"));
+        assertEquals(2L, processed());
+    }
+
+    @Test
+    void testRunStopsAfterMaxBatches() throws SQLException {
+        BookingLifecycle lifecycle = new BookingLifecycle(1, 1, completed::add);
+
+        assertEquals(1, lifecycle.run(db.connection(), NOW));
+        assertEquals("COMPLETED", db.status("CB114-1021M-J1A"));
+        assertEquals("ACTIVE", db.status("CB114-1021A-J2A"));
+    }
+
+    private long processed() throws SQLException {
+        try (PreparedStatement pstmt = db.connection().prepareStatement("SELECT processed FROM job_watermarks WHERE job = ?")) {
+            pstmt.setString(1, BookingLifecycle.JOB);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.calendar;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingPageTest {
+
+    @Test
+    void testCursorRoundTrip() {
+        BookingCursor cursor = new BookingCursor(LocalDateTime.of(2025, 10, 21, 9, 30), 42);
+        assertEquals(cursor, BookingCursor.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> BookingCursor.decode("not-a-cursor"));
+    }
+
+    @Test
+    void testQueryParsesRangeAndCapsLimit() {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getParameter("from")).thenReturn("2025-10-21");
+        when(request.getParameter("to")).thenReturn("2025-10-22 12:00");
+        when(request.getParameter("limit")).thenReturn("10000");
+
+        assertTrue(BookingPage.Query.isRequested(request));
+        BookingPage.Query query = BookingPage.Query.parse(request);
+        assertEquals(LocalDateTime.of(2025, 10, 21, 0, 0), query.from());
+        assertEquals(LocalDateTime.of(2025, 10, 22, 12, 0), query.to());
+        assertEquals(BookingPage.MAX_LIMIT, query.limit());
+        assertNull(query.after());
+    }
+
+    @Test
+    void testKeysetClauseFollowsSortDirection() {
+        BookingCursor after = new BookingCursor(LocalDateTime.of(2025, 10, 21, 9, 0), 7);
+        BookingPage.Query query = new BookingPage.Query(null, null, after, 20);
+
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        query.appendTo(sql, params, true);
+        assertTrue(sql.toString().contains("AND b.start_Time <= ? AND (b.start_Time < ? OR b.timeID < ?)"));
+        assertTrue(sql.toString().endsWith("ORDER BY b.start_Time DESC, b.timeID DESC LIMIT ?"));
+        assertEquals(List.of(7, 21), params.subList(2, 4));
+    }
+
+    @Test
+    void testRangeSelectsOverlappingBookings() {
+        LocalDateTime from = LocalDateTime.of(2025, 10, 21, 9, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 10, 21, 17, 0);
+        BookingCursor after = new BookingCursor(LocalDateTime.of(2025, 10, 21, 10, 0), 7);
+        BookingPage.Query query = new BookingPage.Query(from, to, after, 20);
+
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        query.appendTo(sql, params, false);
+        assertTrue(sql.toString().startsWith("AND b.start_Time < ? AND b.end_Time > ? AND b.start_Time >= ? "));
+        assertEquals(List.of(Timestamp.valueOf(to), Timestamp.valueOf(from)), params.subList(0, 2));
+        assertEquals(after.startTime(), query.earliestStart(false));
+        assertEquals(from, query.earliestStart(true));
+    }
+
+    @Test
+    void testNextCursorOnlyWhenMoreRowsExist() {
+        List<Booking> rows = new ArrayList<>();
+        List<BookingCursor> cursors = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            rows.add(new Booking(i, i, 1, "2025-10-21 0" + i + ":00:00", "2025-10-21 0" + i + ":30:00",
+                "CB06.06.112", "Group Study Room", 6, true, true, false, false, null));
+            cursors.add(new BookingCursor(LocalDateTime.of(2025, 10, 21, i, 0), i));
+        }
+
+        BookingPage page = BookingPage.of(rows, cursors, 2);
+        assertEquals(2, page.bookings().size());
+        assertEquals(cursors.get(1), BookingCursor.decode(page.nextCursor()));
+        assertNull(BookingPage.of(rows, cursors, 3).nextCursor());
+    }
+}
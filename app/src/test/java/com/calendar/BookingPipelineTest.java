@@ -0,0 +1,161 @@
+package com.calendar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the booking transaction against a TestDatabase, booking its room as
+ * its user.
+ */
+class BookingPipelineTest {
+    private static final int ROOM = TestDatabase.ROOM;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 11, 3, 10, 0);
+    private static final LocalDateTime END = START.plusHours(1);
+    private static final BookingPipeline.SessionUser JANE =
+        new BookingPipeline.SessionUser(TestDatabase.EMAIL, TestDatabase.FULL_NAME, "ST900");
+
+    private TestDatabase db;
+    private RoomIntervalIndex index;
+    private final List<Integer> removed = new ArrayList<>();
+
+    @BeforeEach
+    void migrate() throws SQLException {
+        db = new TestDatabase("pipeline");
+        index = new RoomIntervalIndex(false);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void testBookingIsCreatedAndPublished() throws SQLException {
+        BookingPipeline.Result result = pipeline(new RoomLockManager(16, true, 5_000)).create(JANE, ROOM, START, END);
+
+        assertEquals(BookingPipeline.Status.CREATED, result.status());
+        assertEquals(TestDatabase.ROOM_NAME, result.roomName());
+        assertEquals("Jane Doe", result.userFullName());
+        assertEquals(1, countBookings());
+        assertFalse(index.isAvailable(ROOM, START, END));
+    }
+
+    @Test
+    void testUnknownRoom() throws SQLException {
+        BookingPipeline.Result result = pipeline(new RoomLockManager(16, true, 5_000)).create(JANE, 999, START, END);
+
+        assertEquals(BookingPipeline.Status.ROOM_NOT_FOUND, result.status());
+        assertEquals(0, countBookings());
+    }
+
+    @Test
+    void testUnknownUserIsCreatedInTheSameTransaction() throws SQLException {
+        BookingPipeline.SessionUser sam = new BookingPipeline.SessionUser("sam.lee@student.edu", "Sam Lee", null);
+
+        BookingPipeline.Result result = pipeline(new RoomLockManager(16, true, 5_000)).create(sam, ROOM, START, END);
+
+        assertEquals(BookingPipeline.Status.CREATED, result.status());
+        assertEquals("Sam Lee", result.userFullName());
+        try (PreparedStatement pstmt = db.connection().prepareStatement(
+                "SELECT COUNT(*) FROM booktime b JOIN users u ON u.user_id = b.user_id WHERE u.email = ?")) {
+            pstmt.setString(1, sam.email());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(1, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    void testUserThatCannotBeCreated() throws SQLException {
+        // Same username as the test user, so the insert fails and the lookup finds nothing
+        BookingPipeline.SessionUser clash = new BookingPipeline.SessionUser("jane.doe@staff.edu", "Jane Doe", null);
+
+        BookingPipeline.Result result = pipeline(new RoomLockManager(16, true, 5_000)).create(clash, ROOM, START, END);
+
+        assertEquals(BookingPipeline.Status.USER_NOT_FOUND, result.status());
+        assertEquals(0, countBookings());
+    }
+
+    @Test
+    void testOverlappingBookingConflicts() throws SQLException {
+        BookingPipeline pipeline = pipeline(new RoomLockManager(16, true, 5_000));
+        assertEquals(BookingPipeline.Status.CREATED, pipeline.create(JANE, ROOM, START, END).status());
+
+        BookingPipeline.Result result = pipeline.create(JANE, ROOM, START.plusMinutes(30), END.plusMinutes(30));
+
+        assertEquals(BookingPipeline.Status.CONFLICT, result.status());
+        assertEquals(BookingPipeline.Status.CREATED, pipeline.create(JANE, ROOM, END, END.plusHours(1)).status());
+        assertEquals(2, countBookings());
+    }
+
+    @Test
+    void testConcurrentCreatesOnOneRoom() throws Exception {
+        // Separate lock managers, as on two servers: only the room row lock orders the writers
+        BookingPipeline first = pipeline(new RoomLockManager(16, true, 5_000));
+        BookingPipeline second = pipeline(new RoomLockManager(16, true, 5_000));
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<BookingPipeline.Result> a = executor.submit(createAfter(go, first));
+            Future<BookingPipeline.Result> b = executor.submit(createAfter(go, second));
+            go.countDown();
+
+            List<BookingPipeline.Status> statuses = List.of(a.get().status(), b.get().status());
+            assertTrue(statuses.contains(BookingPipeline.Status.CREATED), statuses.toString());
+            assertTrue(statuses.contains(BookingPipeline.Status.CONFLICT), statuses.toString());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, countBookings());
+        assertTrue(removed.isEmpty());
+    }
+
+    private Callable<BookingPipeline.Result> createAfter(CountDownLatch go, BookingPipeline pipeline) {
+        return () -> {
+            go.await();
+            return pipeline.create(JANE, ROOM, START, END);
+        };
+    }
+
+    private BookingPipeline pipeline(RoomLockManager locks) {
+        return new BookingPipeline(db::open, locks, index,
+            new BookingPipeline.Publisher() {
+                @Override
+                public void created(BookingRefIndex.Entry booking) {
+                    index.add(booking.bookingId(), booking.roomId(), booking.start(), booking.end());
+                }
+
+                @Override
+                public void removed(int bookingId) {
+                    removed.add(bookingId);
+                    index.remove(bookingId);
+                }
+            });
+    }
+
+    private int countBookings() throws SQLException {
+        try (PreparedStatement pstmt = db.connection().prepareStatement("SELECT COUNT(*) FROM booktime WHERE room_id = ?")) {
+            pstmt.setInt(1, ROOM);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getInt(1);
+            }
+        }
+    }
+}
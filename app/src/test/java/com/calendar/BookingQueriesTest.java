@@ -0,0 +1,112 @@
+package com.calendar;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks with EXPLAIN on a TestDatabase that each hot booking query
+ * range-scans the index it was written for.
+ */
+class BookingQueriesTest {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 10, 21, 9, 0);
+    private static final LocalDateTime END = START.plusHours(1);
+
+    private static TestDatabase db;
+
+    @BeforeAll
+    static void migrate() throws SQLException {
+        db = new TestDatabase("booking_queries");
+        db.insertBooking("CB114-1021M-J1A", START, END, "ACTIVE");
+    }
+
+    @AfterAll
+    static void close() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void testConflictCheckUsesCoveringRoomIndex() throws SQLException {
+        String plan = explain(BookingQueries.CONFLICT, 1, Timestamp.valueOf(END), Timestamp.valueOf(START));
+        assertUsesIndex(plan, "idx_booktime_room_status_time");
+    }
+
+    @Test
+    void testUpcomingBookingsUseUserStartIndex() throws SQLException {
+        String sql = BookingQueries.USER_BOOKINGS + BookingQueries.UPCOMING + "ORDER BY b.start_Time DESC";
+        assertUsesIndex(explain(sql, 1, Timestamp.valueOf(START)), "idx_booktime_user_start");
+    }
+
+    @Test
+    void testPastBookingsUseUserStartIndex() throws SQLException {
+        String sql = BookingQueries.USER_BOOKINGS + BookingQueries.PAST + "ORDER BY b.start_Time DESC";
+        assertUsesIndex(explain(sql, 1, Timestamp.valueOf(START)), "idx_booktime_user_start");
+    }
+
+    @Test
+    void testExpiredActiveScanUsesStatusEndIndex() throws SQLException {
+        assertUsesIndex(explain(BookingQueries.EXPIRED_ACTIVE, Timestamp.valueOf(END), 100), "idx_booktime_status_end");
+    }
+
+    @Test
+    void testKeysetPageUsesUserStartIndex() throws SQLException {
+        StringBuilder sql = new StringBuilder(BookingQueries.USER_BOOKINGS);
+        List<Object> params = new ArrayList<>();
+        params.add(1);
+        new BookingPage.Query(null, null, new BookingCursor(START, 5), 20).appendTo(sql, params, true);
+        assertUsesIndex(explain(sql.toString(), params.toArray()), "idx_booktime_user_start");
+    }
+
+    @Test
+    void testIncludedKeysetPageUsesEachTablesUserIndex() throws SQLException {
+        StringBuilder sql = new StringBuilder(BookingQueries.USER_BOOKINGS);
+        List<Object> params = new ArrayList<>();
+        params.add(1);
+        new BookingPage.Query(null, null, new BookingCursor(START, 5), 20).appendTo(sql, params, true);
+
+        BookingArchive.Query both = BookingArchive.include(sql.toString(), params);
+
+        String plan = explain(both.sql(), both.params().toArray());
+        assertUsesIndex(plan, "idx_booktime_user_start");
+        assertUsesIndex(plan, "idx_archive_user_start");
+    }
+
+    @Test
+    void testConflictQueryFindsOnlyOverlaps() throws SQLException {
+        int room = TestDatabase.ROOM;
+        assertTrue(BookingQueries.hasConflict(db.connection(), room, START.plusMinutes(30), END.plusMinutes(30)));
+        assertFalse(BookingQueries.hasConflict(db.connection(), room, END, END.plusHours(1)));
+        assertFalse(BookingQueries.hasConflict(db.connection(), room, START.minusHours(1), START));
+    }
+
+    private static String explain(String sql, Object... params) throws SQLException {
+        try (PreparedStatement pstmt = db.connection().prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        }
+    }
+
+    private static void assertUsesIndex(String plan, String index) {
+        assertTrue(plan.toUpperCase(Locale.ROOT).contains(index.toUpperCase(Locale.ROOT)),
+            "expected " + index + " in plan:\n" + plan);
+    }
+}
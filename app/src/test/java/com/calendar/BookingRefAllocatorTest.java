@@ -0,0 +1,144 @@
+package com.calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingRefAllocatorTest {
+    private static final LocalDate DATE = LocalDate.of(2025, 10, 21);
+    private static final String PREFIX = "CB112-1021M-";
+
+    @Test
+    void testSuffixesAreUniqueAcrossThreads() throws Exception {
+        BookingRefAllocator allocator = new BookingRefAllocator((conn, prefix) -> new HashSet<>());
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        assertTrue(seen.add(allocator.nextSuffix(null, PREFIX, DATE)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(4000, seen.size());
+    }
+
+    @Test
+    void testExistingSuffixesAreSeededOnceAndSkipped() throws SQLException {
+        AtomicInteger seeds = new AtomicInteger();
+        Set<String> existing = Set.of(BookingRefAllocator.encode(0), BookingRefAllocator.encode(1));
+        BookingRefAllocator allocator = new BookingRefAllocator((conn, prefix) -> {
+            seeds.incrementAndGet();
+            return existing;
+        });
+        Connection conn = mock(Connection.class);
+
+        String first = allocator.nextSuffix(conn, PREFIX, DATE);
+        String second = allocator.nextSuffix(conn, PREFIX, DATE);
+
+        assertEquals(BookingRefAllocator.encode(2), first);
+        assertEquals(BookingRefAllocator.encode(3), second);
+        assertEquals(1, seeds.get());
+    }
+
+    @Test
+    void testPastPrefixesAreDroppedAndReseeded() throws SQLException {
+        AtomicInteger seeds = new AtomicInteger();
+        BookingRefAllocator allocator = new BookingRefAllocator((conn, prefix) -> {
+            seeds.incrementAndGet();
+            return Set.of();
+        });
+        allocator.nextSuffix(null, PREFIX, DATE);
+        allocator.nextSuffix(null, "CB112-1022M-", DATE.plusDays(1));
+
+        assertEquals(1, allocator.dropBefore(DATE.plusDays(1)));
+        assertEquals(1, allocator.size());
+
+        allocator.nextSuffix(null, PREFIX, DATE);
+        assertEquals(3, seeds.get());
+    }
+
+    @Test
+    void testPrefixInUseIsNotDropped() throws Exception {
+        CountDownLatch seeding = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        BookingRefAllocator allocator = new BookingRefAllocator((conn, prefix) -> {
+            seeding.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new HashSet<>();
+        });
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> first = pool.submit(() -> allocator.nextSuffix(null, PREFIX, DATE));
+            seeding.await();
+
+            assertEquals(0, allocator.dropBefore(DATE.plusDays(1)));
+            proceed.countDown();
+            String suffix = first.get();
+
+            // The same sequence carries on rather than a new one restarting at 0
+            assertNotEquals(suffix, allocator.nextSuffix(null, PREFIX, DATE));
+            assertEquals(1, allocator.dropBefore(DATE.plusDays(1)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testSuffixWidthGrowsWithoutRepeats() {
+        Set<String> suffixes = new HashSet<>();
+        for (int n = 0; n < 1024 + 32768 + 10; n++) {
+            String suffix = BookingRefAllocator.encode(n);
+            int width = n < 1024 ? 2 : n < 1024 + 32768 ? 3 : 4;
+            assertEquals(width, suffix.length(), "suffix " + n);
+            assertTrue(suffixes.add(suffix), "repeated " + suffix);
+        }
+    }
+
+    @Test
+    void testGeneratedAndLegacyRefsValidate() {
+        assertTrue(BookingIdGenerator.isValidBookingRef(PREFIX + "A" + BookingRefAllocator.encode(5000)));
+        assertTrue(BookingIdGenerator.isValidBookingRef("CB112-1021M-A1K"));
+        assertFalse(BookingIdGenerator.isValidBookingRef("CB112-1021M-A"));
+        assertEquals("CB112-1021M-A7Q (10/21 Morning, User A)",
+            BookingIdGenerator.formatBookingRefForDisplay("CB112-1021M-A7Q"));
+    }
+
+    @Test
+    void testSuffixQueryEscapesWithoutBackslash() {
+        // A backslash before the closing quote leaves the literal open on MySQL
+        assertFalse(BookingRefAllocator.SUFFIXES.contains("\\"), BookingRefAllocator.SUFFIXES);
+        assertTrue(BookingRefAllocator.SUFFIXES.endsWith("LIKE ? ESCAPE '!'"), BookingRefAllocator.SUFFIXES);
+        assertFalse(BookingArchive.archived(BookingRefAllocator.SUFFIXES).contains("\\"));
+        assertEquals("CB112-1021M-%", BookingQueries.likePrefix(PREFIX));
+        assertEquals("A!_B!%C!!D\\%", BookingQueries.likePrefix("A_B%C!D\\"));
+    }
+}
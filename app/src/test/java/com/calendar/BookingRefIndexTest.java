@@ -0,0 +1,226 @@
+package com.calendar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingRefIndexTest {
+    private static final LocalDateTime TODAY = LocalDateTime.of(2025, 11, 3, 9, 0);
+
+    private TestDatabase db;
+    private BookingRefIndex index;
+
+    @BeforeEach
+    void migrate() throws SQLException {
+        db = new TestDatabase("refs");
+        index = new BookingRefIndex(db::open,
+            Clock.fixed(TODAY.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void testPrefixCoversDayOnlyWithFullDateCode() {
+        assertTrue(BookingRefIndex.coversDay("CB112-1021", "1021"));
+        assertTrue(BookingRefIndex.coversDay("CB112-1021M-A", "1021"));
+        assertFalse(BookingRefIndex.coversDay("CB112-10", "1021"));
+        assertFalse(BookingRefIndex.coversDay("CB112", "1021"));
+        assertFalse(BookingRefIndex.coversDay("CB112-1022", "1021"));
+    }
+
+    @Test
+    void testReferencesAreNormalized() {
+        assertEquals("CB112-1021M-A7Q", BookingRefIndex.normalize("  cb112-1021m-a7q "));
+        assertEquals("", BookingRefIndex.normalize(null));
+    }
+
+    @Test
+    void testPrefixQueryEscapesWithoutBackslash() {
+        String sql = BookingQueries.REF_DETAILS + BookingQueries.REFS_WITH_PREFIX;
+
+        assertFalse(sql.contains("\\"), sql);
+        assertTrue(sql.contains("LIKE ? ESCAPE '!' ORDER BY"), sql);
+    }
+
+    @Test
+    void testSearchTreatsWildcardsLiterally() throws SQLException {
+        insert("CB114-1104M-J2K", TODAY.plusDays(1), "ACTIVE");
+
+        assertTrue(index.search("CB114-11_4", 10).isEmpty());
+        assertTrue(index.search("CB114-%", 10).isEmpty());
+        assertEquals(1, index.search("CB114-1104", 10).size());
+    }
+
+    @Test
+    void testMalformedReferenceIsRejectedWithoutDatabase() throws SQLException {
+        assertNull(index.lookup("not-a-ref"));
+        assertEquals(0L, index.getStats().get("databaseReads"));
+    }
+
+    @Test
+    void testTodaysLookupIsServedFromMemory() throws SQLException {
+        int id = insert("CB114-1103M-J2K", TODAY, "ACTIVE");
+
+        BookingRefIndex.Entry entry = index.lookup(" cb114-1103m-j2k");
+
+        assertEquals(id, entry.bookingId());
+        assertEquals(TestDatabase.ROOM_NAME, entry.roomName());
+        assertEquals(TestDatabase.FULL_NAME, entry.userFullName());
+        assertEquals(1L, index.getStats().get("memoryHits"));
+        assertEquals(0L, index.getStats().get("databaseReads"));
+    }
+
+    @Test
+    void testOtherDaysLookupReadsTheDatabase() throws SQLException {
+        insert("CB114-1104M-J2K", TODAY.plusDays(1), "ACTIVE");
+
+        assertEquals("CB114-1104M-J2K", index.lookup("CB114-1104M-J2K").bookingRef());
+        assertEquals(1L, index.getStats().get("databaseReads"));
+    }
+
+    @Test
+    void testTodaysSearchIsServedFromMemoryInReferenceOrder() throws SQLException {
+        insert("CB114-1103M-J2K", TODAY, "ACTIVE");
+        insert("CB114-1103A-J3K", TODAY.plusHours(5), "ACTIVE");
+        insert("CB114-1104M-J2K", TODAY.plusDays(1), "ACTIVE");
+
+        List<BookingRefIndex.Entry> found = index.search("CB114-1103", 10);
+
+        assertEquals(List.of("CB114-1103A-J3K", "CB114-1103M-J2K"), refs(found));
+        assertEquals(0L, index.getStats().get("databaseReads"));
+        assertEquals(1, index.search("CB114-1103", 1).size());
+    }
+
+    @Test
+    void testSearchWithoutDateCodeReadsTheDatabase() throws SQLException {
+        insert("CB114-1103M-J2K", TODAY, "ACTIVE");
+        insert("CB114-1104M-J2K", TODAY.plusDays(1), "ACTIVE");
+
+        List<BookingRefIndex.Entry> found = index.search("CB114-", 10);
+
+        assertEquals(List.of("CB114-1104M-J2K", "CB114-1103M-J2K"), refs(found));
+        assertEquals(1L, index.getStats().get("databaseReads"));
+    }
+
+    @Test
+    void testCreatedBookingIsFoundWithoutReload() throws SQLException {
+        index.warmUp();
+        int id = insert("CB114-1103E-J4K", TODAY.plusHours(8), "ACTIVE");
+
+        index.bookingCreated(new BookingRefIndex.Entry(id, "CB114-1103E-J4K", TestDatabase.ROOM, TestDatabase.ROOM_NAME,
+            db.userId(), TestDatabase.FULL_NAME, TODAY.plusHours(8), TODAY.plusHours(9), "ACTIVE"));
+
+        assertEquals(List.of("CB114-1103E-J4K"), refs(index.search("CB114-1103", 10)));
+        assertEquals(0L, index.getStats().get("databaseReads"));
+    }
+
+    @Test
+    void testBookingCreatedDuringLoadIsKept() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        BookingRefIndex slow = new BookingRefIndex(() -> {
+            loading.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return db.open();
+        }, Clock.fixed(TODAY.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+        Thread loader = new Thread(slow::warmUp);
+        loader.start();
+        loading.await();
+
+        // Committed after the load read booktime, published while it is still running
+        Thread creator = new Thread(() -> slow.bookingCreated(new BookingRefIndex.Entry(9_001, "CB114-1103E-J4K",
+            TestDatabase.ROOM, TestDatabase.ROOM_NAME, 1, TestDatabase.FULL_NAME,
+            TODAY.plusHours(8), TODAY.plusHours(9), "ACTIVE")));
+        creator.start();
+        while (creator.getState() != Thread.State.BLOCKED && creator.isAlive()) {
+            Thread.onSpinWait();
+        }
+        proceed.countDown();
+        loader.join();
+        creator.join();
+
+        assertEquals(List.of("CB114-1103E-J4K"), refs(slow.search("CB114-1103", 10)));
+        assertEquals(0L, slow.getStats().get("databaseReads"));
+    }
+
+    @Test
+    void testStatusChangeKeepsTheEntrySearchable() throws SQLException {
+        int cancelled = insert("CB114-1103M-J2K", TODAY, "ACTIVE");
+        int checkedIn = insert("CB114-1103A-J3K", TODAY.plusHours(5), "ACTIVE");
+        index.warmUp();
+
+        index.statusChanged(cancelled, "CANCELLED");
+        index.statusChanged(checkedIn, "CHECKED_IN");
+
+        List<BookingRefIndex.Entry> found = index.search("CB114-1103", 10);
+        assertEquals(List.of("CB114-1103A-J3K", "CB114-1103M-J2K"), refs(found));
+        assertEquals("CHECKED_IN", found.get(0).status());
+        assertEquals("CANCELLED", found.get(1).status());
+        assertEquals("CANCELLED", index.lookup("CB114-1103M-J2K").status());
+        assertEquals(0L, index.getStats().get("databaseReads"));
+    }
+
+    @Test
+    void testRefreshFollowsTheRow() throws SQLException {
+        int moved = insert("CB114-1103M-J2K", TODAY, "ACTIVE");
+        int restored = insert("CB114-1103A-J3K", TODAY.plusHours(5), "ACTIVE");
+        index.warmUp();
+        update("UPDATE booktime SET start_time = ?, end_time = ? WHERE timeID = " + moved,
+            TODAY.plusDays(1), TODAY.plusDays(1).plusHours(1));
+        db.execute("UPDATE booktime SET booking_status = 'CHECKED_IN' WHERE timeID = " + restored);
+
+        index.refresh(db.connection(), moved);
+        index.refresh(db.connection(), restored);
+
+        List<BookingRefIndex.Entry> found = index.search("CB114-1103", 10);
+        assertEquals(List.of("CB114-1103A-J3K"), refs(found));
+        assertEquals("CHECKED_IN", found.get(0).status());
+    }
+
+    @Test
+    void testDeletedBookingIsDropped() throws SQLException {
+        int deleted = insert("CB114-1103M-J2K", TODAY, "ACTIVE");
+        insert("CB114-1103A-J3K", TODAY.plusHours(5), "ACTIVE");
+        index.warmUp();
+        db.execute("DELETE FROM booktime WHERE timeID = " + deleted);
+
+        index.forget(deleted);
+
+        assertEquals(List.of("CB114-1103A-J3K"), refs(index.search("CB114-1103", 10)));
+        assertEquals(1, index.getStats().get("refs"));
+    }
+
+    private int insert(String ref, LocalDateTime start, String status) throws SQLException {
+        return db.insertBooking(ref, start, start.plusHours(1), status);
+    }
+
+    private void update(String sql, LocalDateTime start, LocalDateTime end) throws SQLException {
+        try (PreparedStatement pstmt = db.connection().prepareStatement(sql)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(start));
+            pstmt.setTimestamp(2, Timestamp.valueOf(end));
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static List<String> refs(List<BookingRefIndex.Entry> entries) {
+        return entries.stream().map(BookingRefIndex.Entry::bookingRef).toList();
+    }
+}
@@ -0,0 +1,90 @@
+package com.calendar;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Streams bookings from a small H2 table into a JsonWriter.
+ */
+class CalendarServiceTest {
+    private static final String QUERY =
+        "SELECT b.timeID, b.room_id, b.start_Time, b.end_Time, r.room_name, r.room_type, " +
+        "r.capacity, r.speaker, r.whiteboard, r.monitor, r.hdmi_cable, r.image " +
+        "FROM booktime b JOIN room r ON b.room_id = r.room_id ORDER BY b.timeID";
+
+    private final Gson gson = new Gson();
+    private Connection conn;
+
+    @BeforeEach
+    void createTables() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:calendar_stream", "sa", "");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE room (room_id INT PRIMARY KEY, room_name VARCHAR(50), room_type VARCHAR(50), " +
+                         "capacity INT, speaker BOOLEAN, whiteboard BOOLEAN, monitor BOOLEAN, hdmi_cable BOOLEAN, " +
+                         "image VARCHAR(255))");
+            stmt.execute("CREATE TABLE booktime (timeID INT PRIMARY KEY, room_id INT, start_Time TIMESTAMP, end_Time TIMESTAMP)");
+            stmt.execute("INSERT INTO room VALUES (1, 'CB06.06.112', 'Group Study Room', 8, true, true, true, true, 'Group_Study_Room')");
+            stmt.execute("INSERT INTO booktime VALUES (10, 1, TIMESTAMP '2025-10-21 09:00:00', TIMESTAMP '2025-10-21 10:00:00')");
+            stmt.execute("INSERT INTO booktime VALUES (11, 1, TIMESTAMP '2025-10-21 11:00:00', TIMESTAMP '2025-10-21 12:00:00')");
+        }
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    void testBookingsAreStreamedAsOneArray() throws IOException {
+        StringWriter json = new StringWriter();
+
+        assertEquals(2, CalendarService.writeBookings(conn, QUERY, gson, new JsonWriter(json)));
+
+        Booking[] bookings = gson.fromJson(json.toString(), Booking[].class);
+        assertEquals(2, bookings.length);
+        assertEquals(10, bookings[0].getBookingID());
+        assertEquals(11, bookings[1].getBookingID());
+        assertEquals("CB06.06.112", bookings[1].getRoomName());
+    }
+
+    @Test
+    void testEmptyTableGivesEmptyArray() throws IOException, SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM booktime");
+        }
+        StringWriter json = new StringWriter();
+
+        assertEquals(0, CalendarService.writeBookings(conn, QUERY, gson, new JsonWriter(json)));
+        assertEquals("[]", json.toString());
+    }
+
+    @Test
+    void testFailedQueryStillWritesOneArray() throws IOException {
+        StringWriter json = new StringWriter();
+
+        assertEquals(0, CalendarService.writeBookings(conn, "SELECT * FROM no_such_table", gson, new JsonWriter(json)));
+        assertEquals("[]", json.toString());
+    }
+
+    @Test
+    void testClosedConnectionStillWritesOneArray() throws IOException, SQLException {
+        StringWriter json = new StringWriter();
+        conn.close();
+
+        assertEquals(0, CalendarService.writeBookings(conn, QUERY, gson, new JsonWriter(json)));
+        assertEquals("[]", json.toString());
+        conn = DriverManager.getConnection("jdbc:h2:mem:calendar_stream", "sa", "");
+    }
+}
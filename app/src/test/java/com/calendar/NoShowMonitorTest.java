@@ -0,0 +1,129 @@
+package com.calendar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uni.space.finder.TimerWheel;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the wheel by hand over three ACTIVE bookings made well in advance:
+ * 2025-10-21 09:00-10:00 (MORNING_REF), 2025-10-21 14:00-16:00
+ * (AFTERNOON_REF) and 2025-10-22 11:00-12:00.
+ */
+class NoShowMonitorTest {
+    private static final LocalDateTime MORNING = LocalDateTime.of(2025, 10, 21, 8, 0);
+    private static final String MORNING_REF = "CB114-1021M-J1A";
+    private static final String AFTERNOON_REF = "CB114-1021A-J2A";
+
+    private TestDatabase db;
+    private Connection conn;
+    private TimerWheel wheel;
+    private NoShowMonitor monitor;
+    private final List<Integer> released = new ArrayList<>();
+    private final List<Integer> restored = new ArrayList<>();
+
+    @BeforeEach
+    void migrate() throws SQLException {
+        db = new TestDatabase("noshow");
+        conn = db.connection();
+        db.insertBooking(MORNING_REF, LocalDateTime.of(2025, 10, 21, 9, 0), LocalDateTime.of(2025, 10, 21, 10, 0), "ACTIVE");
+        db.insertBooking(AFTERNOON_REF, LocalDateTime.of(2025, 10, 21, 14, 0), LocalDateTime.of(2025, 10, 21, 16, 0), "ACTIVE");
+        db.insertBooking("CB114-1022M-J3A", LocalDateTime.of(2025, 10, 22, 11, 0), LocalDateTime.of(2025, 10, 22, 12, 0), "ACTIVE");
+        db.execute("UPDATE booktime SET created_at = TIMESTAMP '2025-10-01 00:00:00'");
+        wheel = new TimerWheel(1000, 64, millis(MORNING));
+        monitor = new NoShowMonitor(wheel, 15, 15, 500, released::add, (c, id) -> restored.add(id));
+        assertEquals(3, monitor.load(conn, MORNING));
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void testBookingIsReleasedAfterGracePeriodAndSavedInBatch() throws SQLException {
+        wheel.advance(millis(LocalDateTime.of(2025, 10, 21, 9, 14, 59)));
+        assertTrue(released.isEmpty());
+
+        wheel.advance(millis(LocalDateTime.of(2025, 10, 21, 9, 15)));
+        assertEquals(List.of(db.id(MORNING_REF)), released);
+        assertEquals("ACTIVE", db.status(MORNING_REF));
+
+        assertEquals(1, monitor.flush(conn, LocalDateTime.of(2025, 10, 21, 9, 15)));
+        assertEquals("CANCELLED", db.status(MORNING_REF));
+        assertEquals("ACTIVE", db.status(AFTERNOON_REF));
+        assertEquals(0, monitor.flush(conn, LocalDateTime.of(2025, 10, 21, 9, 16)));
+    }
+
+    @Test
+    void testCheckInCancelsTheTimer() throws SQLException {
+        LocalDateTime start = LocalDateTime.of(2025, 10, 21, 14, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 10, 21, 16, 0);
+        int bookingId = db.id(AFTERNOON_REF);
+
+        assertEquals(NoShowMonitor.Result.CHECKED_IN, monitor.checkIn(conn, bookingId, start, end, start.plusMinutes(5)));
+        assertEquals("CHECKED_IN", db.status(AFTERNOON_REF));
+        assertEquals(NoShowMonitor.Result.ALREADY_CHECKED_IN,
+            monitor.checkIn(conn, bookingId, start, end, start.plusMinutes(6)));
+
+        wheel.advance(millis(start.plusMinutes(30)));
+        assertFalse(released.contains(bookingId));
+    }
+
+    @Test
+    void testCheckInWindow() throws SQLException {
+        LocalDateTime start = LocalDateTime.of(2025, 10, 21, 14, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 10, 21, 16, 0);
+        int bookingId = db.id(AFTERNOON_REF);
+
+        assertEquals(NoShowMonitor.Result.TOO_EARLY, monitor.checkIn(conn, bookingId, start, end, start.minusMinutes(16)));
+        assertEquals(NoShowMonitor.Result.ENDED, monitor.checkIn(conn, bookingId, start, end, end));
+        assertEquals("ACTIVE", db.status(AFTERNOON_REF));
+    }
+
+    @Test
+    void testLateCheckInIsRefused() throws SQLException {
+        LocalDateTime start = LocalDateTime.of(2025, 10, 21, 9, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 10, 21, 10, 0);
+        int bookingId = db.id(MORNING_REF);
+        wheel.advance(millis(start.plusMinutes(15)));
+
+        assertEquals(NoShowMonitor.Result.RELEASED, monitor.checkIn(conn, bookingId, start, end, start.plusMinutes(16)));
+        monitor.flush(conn, start.plusMinutes(16));
+        assertEquals(NoShowMonitor.Result.NOT_ACTIVE, monitor.checkIn(conn, bookingId, start, end, start.plusMinutes(17)));
+    }
+
+    @Test
+    void testRefusedReleaseIsRestored() throws SQLException {
+        db.execute("UPDATE booktime SET booking_status = 'CHECKED_IN' WHERE booking_ref = '" + MORNING_REF + "'");
+        wheel.advance(millis(LocalDateTime.of(2025, 10, 21, 9, 15)));
+
+        assertEquals(0, monitor.flush(conn, LocalDateTime.of(2025, 10, 21, 9, 15)));
+        assertEquals(List.of(db.id(MORNING_REF)), restored);
+        assertEquals("CHECKED_IN", db.status(MORNING_REF));
+    }
+
+    @Test
+    void testBookingMadeAfterItStartedGetsFullGracePeriod() {
+        LocalDateTime start = LocalDateTime.of(2025, 10, 21, 8, 0);
+        monitor.watch(99, start, start.plusHours(2), start.plusMinutes(40));
+
+        wheel.advance(millis(start.plusMinutes(54)));
+        assertFalse(released.contains(99));
+        wheel.advance(millis(start.plusMinutes(55)));
+        assertTrue(released.contains(99));
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,83 @@
+package com.calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomCatalogTest {
+
+    @Test
+    void testViewsKeepEachEndpointsFormat() {
+        RoomCatalog.Room room = new RoomCatalog.Room(3, "CB06.06.112", "Group Study Room", 6, true, true, false, false, "room.jpg");
+
+        Map<String, Object> calendar = room.getCalendarView();
+        assertEquals("Building CB06", calendar.get("location"));
+        assertEquals(List.of("Speaker System", "Whiteboard"), calendar.get("equipment"));
+
+        Map<String, Object> listing = room.getListingView();
+        assertEquals("CB Building", listing.get("location"));
+        assertEquals(List.of("Speaker", "Whiteboard"), listing.get("equipment"));
+        assertEquals(6, listing.get("capacity"));
+    }
+
+    @Test
+    void testViewsAreReadOnly() {
+        RoomCatalog.Room room = new RoomCatalog.Room(1, "CB11.04.201", "Lab", 30, false, false, false, false, null);
+        assertThrows(UnsupportedOperationException.class, () -> room.getCalendarView().put("rating", 5.0));
+        assertEquals(List.of("Basic furniture"), room.getCalendarView().get("equipment"));
+        assertEquals(List.of("Basic Equipment"), room.getListingView().get("equipment"));
+    }
+
+    @Test
+    void testSnapshotIndexesAndOrdering() {
+        RoomCatalog.Snapshot snapshot = new RoomCatalog.Snapshot(1, 0, List.of(
+            new RoomCatalog.Room(2, "CB11.04.201", "Lab", 30, false, false, true, true, null),
+            new RoomCatalog.Room(1, "CB06.06.112", "Group Study Room", 6, true, true, false, false, null)));
+
+        assertEquals(2, snapshot.byIdOrder.get(1).getRoomId());
+        assertEquals("CB06.06.112", snapshot.byNameOrder.get(0).getRoomName());
+        assertSame(snapshot.byId.get(2), snapshot.byName.get("CB11.04.201"));
+        assertTrue(snapshot.ids.get(1) && snapshot.ids.get(2));
+    }
+
+    @Test
+    void testFailedLoadIsRetriedAtMostOncePerInterval() {
+        AtomicInteger attempts = new AtomicInteger();
+        RoomCatalog catalog = new RoomCatalog(() -> {
+            attempts.incrementAndGet();
+            throw new SQLException("database down");
+        }, 3_600_000);
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(catalog.roomsById().isEmpty());
+                assertNull(catalog.byId(1));
+            }
+            assertEquals(1, attempts.get());
+        } finally {
+            catalog.stop();
+        }
+    }
+
+    @Test
+    void testEmptyCatalogRetriesOnceTheIntervalHasPassed() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        RoomCatalog catalog = new RoomCatalog(() -> {
+            attempts.incrementAndGet();
+            throw new SQLException("database down");
+        }, 20);
+        try {
+            catalog.roomsById();
+            Thread.sleep(40);
+            catalog.roomsById();
+
+            assertTrue(attempts.get() >= 2);
+        } finally {
+            catalog.stop();
+        }
+    }
+}
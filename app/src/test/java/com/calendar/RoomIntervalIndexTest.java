@@ -0,0 +1,71 @@
+package com.calendar;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomIntervalIndexTest {
+    private RoomIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RoomIntervalIndex(false);
+        index.add(1, 10, at(9, 0), at(10, 0));
+        index.add(2, 10, at(13, 0), at(15, 0));
+    }
+
+    @Test
+    void testOverlappingRequestsConflict() {
+        assertFalse(index.isAvailable(10, at(9, 30), at(10, 30)));
+        assertFalse(index.isAvailable(10, at(8, 0), at(9, 15)));
+        assertFalse(index.isAvailable(10, at(13, 30), at(14, 0)));
+        assertFalse(index.isAvailable(10, at(12, 0), at(16, 0)));
+    }
+
+    @Test
+    void testAdjacentRequestsDoNotConflict() {
+        assertTrue(index.isAvailable(10, at(10, 0), at(11, 0)));
+        assertTrue(index.isAvailable(10, at(8, 0), at(9, 0)));
+        assertTrue(index.isAvailable(10, at(10, 0), at(13, 0)));
+    }
+
+    @Test
+    void testOtherRoomsAreIndependent() {
+        assertTrue(index.isAvailable(11, at(9, 0), at(10, 0)));
+    }
+
+    @Test
+    void testLongBookingBeforeShortOneIsFound() {
+        index.add(3, 20, at(8, 0), at(18, 0));
+        index.add(4, 20, at(11, 0), at(11, 30));
+        assertFalse(index.isAvailable(20, at(16, 0), at(17, 0)));
+        assertEquals(1, index.overlapping(20, at(16, 0), at(17, 0)).size());
+    }
+
+    @Test
+    void testCancelledBookingFreesTheSlot() {
+        index.remove(1);
+        assertTrue(index.isAvailable(10, at(9, 0), at(10, 0)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testBusyAtSeesBookingsInProgressOnly() {
+        index.add(3, 11, at(9, 50), at(10, 5));
+
+        BitSet busy = index.busyAt(at(10, 0));
+        assertFalse(busy.get(10)); // Booking 1 ended exactly now
+        assertTrue(busy.get(11));
+
+        index.remove(3);
+        assertFalse(index.busyAt(at(10, 0)).get(11));
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return LocalDateTime.of(2025, 10, 21, hour, minute);
+    }
+}
@@ -0,0 +1,78 @@
+package com.calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomLockManagerTest {
+
+    @Test
+    void testStripeCountIsRoundedToPowerOfTwo() {
+        assertEquals(64, new RoomLockManager(64, true, 100).getStripeCount());
+        assertEquals(16, new RoomLockManager(10, true, 100).getStripeCount());
+        assertEquals(1, new RoomLockManager(1, true, 100).getStripeCount());
+    }
+
+    @Test
+    void testMultiDayBookingTakesOneStripePerDay() {
+        RoomLockManager locks = new RoomLockManager(1024, true, 100);
+        assertEquals(1, locks.stripesFor(5, at(21, 9), at(21, 17)).size());
+        assertEquals(1, locks.stripesFor(5, at(21, 9), at(22, 0)).size());
+        assertTrue(locks.stripesFor(5, at(21, 22), at(23, 2)).size() >= 2);
+    }
+
+    @Test
+    void testSameRoomAndDayIsSerialised() throws Exception {
+        RoomLockManager locks = new RoomLockManager(64, true, 50);
+        try (RoomLockManager.Held held = locks.acquire(7, at(21, 9), at(21, 10))) {
+            assertNotNull(held);
+            AtomicReference<RoomLockManager.Held> other = new AtomicReference<>();
+            Thread t = new Thread(() -> {
+                try {
+                    other.set(locks.acquire(7, at(21, 14), at(21, 15)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            t.start();
+            t.join();
+            assertNull(other.get(), "Second writer should time out while the stripe is held");
+        }
+
+        Map<String, Object> stats = locks.getStats();
+        assertEquals(1L, stats.get("contended"));
+        assertEquals(1L, stats.get("timeouts"));
+        assertEquals(1, stats.get("maxQueueDepth"));
+    }
+
+    @Test
+    void testWaiterProceedsOnceReleased() throws Exception {
+        RoomLockManager locks = new RoomLockManager(64, false, 5000);
+        CountDownLatch acquired = new CountDownLatch(1);
+        RoomLockManager.Held held = locks.acquire(3, at(21, 9), at(21, 10));
+        Thread t = new Thread(() -> {
+            try (RoomLockManager.Held h = locks.acquire(3, at(21, 9), at(21, 10))) {
+                if (h != null) {
+                    acquired.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        t.start();
+        assertFalse(acquired.await(50, TimeUnit.MILLISECONDS));
+        held.close();
+        assertTrue(acquired.await(2, TimeUnit.SECONDS));
+        t.join();
+    }
+
+    private static LocalDateTime at(int day, int hour) {
+        return LocalDateTime.of(2025, 10, day, hour, 0);
+    }
+}
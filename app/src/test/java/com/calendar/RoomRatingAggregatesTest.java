@@ -0,0 +1,127 @@
+package com.calendar;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomRatingAggregatesTest {
+    /**
+     * One scripted result per load; each may act (record, clear) while "the query runs".
+     */
+    private final Deque<Runnable> during = new ArrayDeque<>();
+    private final Deque<Map<Integer, RoomRatingAggregates.RoomRating>> results = new ArrayDeque<>();
+    private int loads = 0;
+    private RoomRatingAggregates aggregates;
+
+    @BeforeEach
+    void setUp() {
+        aggregates = new RoomRatingAggregates(() -> {
+            loads++;
+            Runnable action = during.poll();
+            if (action != null) {
+                action.run();
+            }
+            return results.isEmpty() ? new HashMap<>() : results.poll();
+        }, false);
+        aggregates.warmUp();
+        loads = 0;
+    }
+
+    @Test
+    void testRecordedRatingsAreAveraged() {
+        aggregates.recordRating(1, 4);
+        aggregates.recordRating(1, 5);
+
+        assertEquals(4.5, aggregates.getAverageRating(1));
+        assertEquals(2, aggregates.getRoomRating(1).getCount());
+        assertEquals(0.0, aggregates.getAverageRating(2));
+    }
+
+    @Test
+    void testReconcileReplacesDriftedTotals() {
+        aggregates.recordRating(1, 1);
+        results.add(totals(1, 3, 2));
+
+        assertTrue(aggregates.reconcile());
+        assertEquals(3.0, aggregates.getAverageRating(1));
+        assertEquals(2, aggregates.getRoomRating(1).getCount());
+    }
+
+    @Test
+    void testRatingRecordedDuringRebuildIsKept() {
+        // First query misses the rating recorded while it ran; the retry sees it
+        during.add(() -> aggregates.recordRating(1, 5));
+        results.add(totals(1, 3, 1));
+        Map<Integer, RoomRatingAggregates.RoomRating> retry = totals(1, 3, 1);
+        retry.get(1).add(5, 1);
+        results.add(retry);
+
+        assertTrue(aggregates.reconcile());
+        assertEquals(2, loads);
+        assertEquals(4.0, aggregates.getAverageRating(1));
+        assertEquals(2, aggregates.getRoomRating(1).getCount());
+    }
+
+    @Test
+    void testClearDuringRebuildIsNotUndone() {
+        aggregates.recordRating(1, 4);
+        during.add(aggregates::clear);
+        results.add(totals(1, 4, 1));
+
+        assertTrue(aggregates.reconcile());
+        assertNull(aggregates.getRoomRating(1));
+    }
+
+    @Test
+    void testIncrementalTotalsKeptWhenRatingsKeepChanging() {
+        for (int i = 0; i < RoomRatingAggregates.MAX_REBUILDS; i++) {
+            during.add(() -> aggregates.recordRating(1, 2));
+            results.add(totals(1, 5, 10));
+        }
+
+        assertFalse(aggregates.reconcile());
+        assertEquals(2.0, aggregates.getAverageRating(1));
+        assertEquals(RoomRatingAggregates.MAX_REBUILDS, aggregates.getRoomRating(1).getCount());
+    }
+
+    @Test
+    void testRatingSavedBeforeRebuildButRecordedAfterIsCountedOnce() {
+        // Committed before the query read, so the rebuilt totals already hold it
+        RoomRatingAggregates.Pending pending = aggregates.begin();
+        for (int i = 0; i < RoomRatingAggregates.MAX_REBUILDS; i++) {
+            results.add(totals(1, 5, 1));
+        }
+
+        assertFalse(aggregates.reconcile());
+        pending.record(1, 5);
+        pending.close();
+        assertEquals(1, aggregates.getRoomRating(1).getCount());
+
+        results.add(totals(1, 5, 1));
+        assertTrue(aggregates.reconcile());
+        assertEquals(1, aggregates.getRoomRating(1).getCount());
+    }
+
+    @Test
+    void testAbandonedRatingDoesNotBlockRebuilds() {
+        aggregates.begin().close();
+        results.add(totals(1, 3, 1));
+
+        assertTrue(aggregates.reconcile());
+        assertEquals(1, aggregates.getRoomRating(1).getCount());
+    }
+
+    private static Map<Integer, RoomRatingAggregates.RoomRating> totals(int roomId, int rating, long times) {
+        Map<Integer, RoomRatingAggregates.RoomRating> totals = new HashMap<>();
+        RoomRatingAggregates.RoomRating room = new RoomRatingAggregates.RoomRating();
+        room.add(rating, times);
+        totals.put(roomId, room);
+        return totals;
+    }
+}
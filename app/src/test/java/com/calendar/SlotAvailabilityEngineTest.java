@@ -0,0 +1,81 @@
+package com.calendar;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotAvailabilityEngineTest {
+    private RoomIntervalIndex index;
+    private SlotAvailabilityEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        index = new RoomIntervalIndex(false);
+        engine = new SlotAvailabilityEngine(15, index, false);
+        for (int roomId = 1; roomId <= 3; roomId++) {
+            engine.registerRoom(roomId);
+        }
+        book(1, 1, at(9, 0), at(10, 0));
+        book(2, 2, at(9, 30), at(9, 45));
+    }
+
+    @Test
+    void testFreeRoomsForWindow() {
+        BitSet free = engine.freeRooms(at(9, 15), at(9, 30));
+        assertFalse(free.get(1));
+        assertTrue(free.get(2));
+        assertTrue(free.get(3));
+    }
+
+    @Test
+    void testPartialSlotIsTreatedAsBusy() {
+        book(3, 3, at(11, 5), at(11, 20));
+        assertFalse(engine.isFree(3, at(11, 0), at(11, 5)));
+        assertFalse(engine.isFree(3, at(11, 20), at(11, 30)));
+        assertTrue(engine.isFree(3, at(11, 30), at(12, 0)));
+    }
+
+    @Test
+    void testCancelKeepsSharedSlotsBusy() {
+        book(4, 3, at(14, 0), at(14, 10));
+        book(5, 3, at(14, 10), at(14, 30));
+        cancel(5);
+        assertFalse(engine.isFree(3, at(14, 0), at(14, 15)));
+        assertTrue(engine.isFree(3, at(14, 15), at(14, 30)));
+    }
+
+    @Test
+    void testWindowAcrossMidnight() {
+        book(6, 3, at(23, 30).plusMinutes(15), at(23, 30).plusHours(1));
+        assertFalse(engine.freeRooms(at(23, 0), at(23, 0).plusHours(2)).get(3));
+        assertTrue(engine.freeRooms(at(23, 0), at(23, 45)).get(3));
+    }
+
+    @Test
+    void testPastDaysAreDropped() {
+        book(6, 3, at(9, 0).plusDays(1), at(10, 0).plusDays(1));
+
+        assertEquals(1, engine.dropDaysBefore(at(0, 0).toLocalDate().plusDays(1)));
+        assertTrue(engine.isFree(1, at(9, 0), at(10, 0)));
+        assertFalse(engine.isFree(3, at(9, 0).plusDays(1), at(10, 0).plusDays(1)));
+    }
+
+    private void book(int bookingId, int roomId, LocalDateTime start, LocalDateTime end) {
+        index.add(bookingId, roomId, start, end);
+        engine.markBooked(roomId, start, end);
+    }
+
+    private void cancel(int bookingId) {
+        RoomIntervalIndex.Interval removed = index.remove(bookingId);
+        engine.release(removed.roomId(),
+            RoomIntervalIndex.fromSeconds(removed.start()), RoomIntervalIndex.fromSeconds(removed.end()));
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return LocalDateTime.of(2025, 10, 21, hour, minute);
+    }
+}
@@ -0,0 +1,131 @@
+package com.calendar;
+
+import uni.space.finder.SchemaMigrator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TestDatabase - A fresh in-memory H2 database built by the real migrations
+ *
+ * Each instance is a database of its own, migrated by SchemaMigrator, with
+ * the V3 sample bookings removed and one room (ROOM) and one user (Jane Doe)
+ * added, so a test only sees the bookings it inserts. Closing it shuts the
+ * database down.
+ */
+final class TestDatabase implements AutoCloseable {
+    static final int ROOM = 100;
+    static final String ROOM_NAME = "CB11.04.400";
+    static final String EMAIL = "jane.doe@student.edu";
+    static final String FULL_NAME = "Jane Doe";
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private final String url;
+    private final Connection conn;
+    private final int userId;
+
+    TestDatabase(String name) throws SQLException {
+        url = "jdbc:h2:mem:" + name + "_" + DATABASES.getAndIncrement() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+        conn = DriverManager.getConnection(url, "sa", "");
+        new SchemaMigrator("h2").migrate(conn);
+        execute("DELETE FROM booktime");
+        execute("INSERT INTO room (room_id, room_name, room_type, capacity) " +
+                "VALUES (" + ROOM + ", '" + ROOM_NAME + "', 'Group Study Room', 6)");
+        execute("INSERT INTO users (username, email, full_name) VALUES ('jane.doe', '" + EMAIL + "', '" + FULL_NAME + "')");
+        userId = count("SELECT user_id FROM users WHERE username = 'jane.doe'");
+    }
+
+    /**
+     * The connection the database was built on; stays open until close().
+     */
+    Connection connection() {
+        return conn;
+    }
+
+    /**
+     * Another connection to the same database, for code that borrows its own.
+     */
+    Connection open() throws SQLException {
+        return DriverManager.getConnection(url, "sa", "");
+    }
+
+    int userId() {
+        return userId;
+    }
+
+    /**
+     * A booking of ROOM by the test user; returns its id.
+     */
+    int insertBooking(String ref, LocalDateTime start, LocalDateTime end, String status) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO booktime (booking_ref, room_id, user_id, start_time, end_time, booking_status) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, ref);
+            pstmt.setInt(2, ROOM);
+            pstmt.setInt(3, userId);
+            pstmt.setTimestamp(4, Timestamp.valueOf(start));
+            pstmt.setTimestamp(5, Timestamp.valueOf(end));
+            pstmt.setString(6, status);
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                assertTrue(keys.next(), ref);
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    int id(String ref) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT timeID FROM booktime WHERE booking_ref = ?")) {
+            pstmt.setString(1, ref);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next(), ref);
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    String status(String ref) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT booking_status FROM booktime WHERE booking_ref = ?")) {
+            pstmt.setString(1, ref);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next(), ref);
+                return rs.getString(1);
+            }
+        }
+    }
+
+    /**
+     * The first column of the first row, e.g. of a SELECT COUNT(*).
+     */
+    int count(String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next(), sql);
+            return rs.getInt(1);
+        }
+    }
+
+    void execute(String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            execute("SHUTDOWN");
+        } finally {
+            conn.close();
+        }
+    }
+}
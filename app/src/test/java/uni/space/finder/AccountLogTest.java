@@ -0,0 +1,84 @@
+package uni.space.finder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLogReplaysOverSnapshot() throws Exception {
+        Path snapshot = dir.resolve("accounts.txt");
+        Files.writeString(snapshot, "0,a@student.uts.edu.au,pw1,Ann,Lee,100\n");
+
+        AccountLog log = new AccountLog(snapshot.toString(), List::of);
+        log.load();
+        log.append(new Account(1, "b@student.uts.edu.au", "pw2", "Ben", "Ng", "101")).get();
+        log.append(new Account(0, "a@student.uts.edu.au", "changed", "Ann", "Lee", "100")).get();
+
+        // Snapshot is untouched until compaction; changes live in the log
+        assertEquals(1, Files.readAllLines(snapshot).size());
+        List<Account> records = new AccountLog(snapshot.toString(), List::of).load();
+        assertEquals(3, records.size());
+        assertEquals("changed", records.get(2).password);
+    }
+
+    @Test
+    void testMissingFilesAreReportedAsNotFound() throws Exception {
+        Path snapshot = dir.resolve("accounts.txt");
+        AccountLog log = new AccountLog(snapshot.toString(), List::of);
+
+        assertTrue(log.load().isEmpty());
+        assertFalse(log.wasFound());
+
+        Files.writeString(snapshot, "");
+        assertTrue(log.load().isEmpty());
+        assertTrue(log.wasFound());
+    }
+
+    @Test
+    void testCompactionRewritesSnapshotAndClearsLog() throws Exception {
+        Path snapshot = dir.resolve("accounts.txt");
+        AccountLog log = new AccountLog(snapshot.toString(), List::of);
+        Account account = new Account(0, "c@student.uts.edu.au", "pw", "Cat", "Wu", "102");
+        log.append(account).get();
+
+        log.compact(List.of(account));
+
+        assertEquals(List.of("0,c@student.uts.edu.au,pw,Cat,Wu,102"), Files.readAllLines(snapshot));
+        assertFalse(new File(snapshot + ".log").exists());
+        assertEquals(0, log.getLogEntries());
+    }
+
+    @Test
+    void testConcurrentChangesAreAllDurable() throws Exception {
+        Path snapshot = dir.resolve("accounts.txt");
+        AccountLog log = new AccountLog(snapshot.toString(), List::of);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            writes.add(log.append(new Account(i, "user" + i + "@student.uts.edu.au", "pw", "U", "" + i, "" + i)));
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).get();
+
+        assertEquals(50, new AccountLog(snapshot.toString(), List::of).load().size());
+    }
+
+    @Test
+    void testTornLastLineIsIgnored() throws Exception {
+        Path snapshot = dir.resolve("accounts.txt");
+        Files.writeString(Path.of(snapshot + ".log"), "0,d@student.uts.edu.au,pw,Dan,Ho,103\n1,e@stud");
+
+        assertEquals(1, new AccountLog(snapshot.toString(), List::of).load().size());
+    }
+}
@@ -0,0 +1,48 @@
+package uni.space.finder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdminAccessTest {
+
+    @AfterEach
+    void clearSettings() {
+        System.clearProperty("unispace.admin.token");
+        System.clearProperty("unispace.admin.trustLocalhost");
+    }
+
+    @Test
+    void testLoopbackIsRefusedWithoutTokenByDefault() {
+        assertFalse(AdminAccess.isAllowed(request("127.0.0.1")));
+    }
+
+    @Test
+    void testLoopbackIsAllowedWhenTrusted() {
+        System.setProperty("unispace.admin.trustLocalhost", "true");
+
+        assertTrue(AdminAccess.isAllowed(request("127.0.0.1")));
+        assertFalse(AdminAccess.isAllowed(request("10.0.0.5")));
+    }
+
+    @Test
+    void testTokenIsRequiredEvenFromLoopbackOnceSet() {
+        System.setProperty("unispace.admin.token", "s3cret");
+        System.setProperty("unispace.admin.trustLocalhost", "true");
+        HttpServletRequest withToken = request("10.0.0.5");
+        when(withToken.getHeader("Authorization")).thenReturn("Bearer s3cret");
+
+        assertFalse(AdminAccess.isAllowed(request("127.0.0.1")));
+        assertTrue(AdminAccess.isAllowed(withToken));
+    }
+
+    private static HttpServletRequest request(String remoteAddr) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn(remoteAddr);
+        return request;
+    }
+}
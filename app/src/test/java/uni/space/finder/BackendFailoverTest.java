@@ -0,0 +1,137 @@
+package uni.space.finder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BackendFailoverTest {
+    private final AtomicBoolean primaryUp = new AtomicBoolean(true);
+    private ConnectionPool primaryPool;
+    private ConnectionPool fallbackPool;
+    private Connection fallbackConnection;
+    private BackendFailover failover;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primaryPool = mock(ConnectionPool.class);
+        fallbackPool = mock(ConnectionPool.class);
+        fallbackConnection = mock(Connection.class);
+        when(fallbackPool.getConnection()).thenReturn(fallbackConnection);
+        failover = new BackendFailover("jdbc:mysql://primary/test", "u", "p",
+            (url, user, password) -> primaryPool, fallbackPool, 1, 3_600_000, 1, primaryUp::get);
+        assertEquals(BackendFailover.State.CLOSED, failover.getState());
+    }
+
+    @AfterEach
+    void tearDown() {
+        failover.close();
+    }
+
+    @Test
+    void testConnectionFailureTripsToFallback() throws SQLException {
+        when(primaryPool.getConnection()).thenThrow(new SQLException("Communications link failure", "08S01"));
+
+        assertSame(fallbackConnection, failover.getConnection());
+        assertEquals(BackendFailover.State.OPEN, failover.getState());
+        assertFalse(failover.isPrimaryActive());
+        verify(primaryPool).close();
+    }
+
+    @Test
+    void testPoolErrorsDoNotTrip() throws SQLException {
+        when(primaryPool.getConnection())
+            .thenThrow(new SQLException("Connection pool is closed", ConnectionPool.POOL_CLOSED))
+            .thenThrow(new SQLException("Interrupted while waiting for a database connection", ConnectionPool.INTERRUPTED))
+            .thenThrow(new SQLTransientConnectionException("Timed out", "HYT00"))
+            .thenThrow(new SQLException("no state"));
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(SQLException.class, () -> failover.getConnection());
+        }
+        assertEquals(BackendFailover.State.CLOSED, failover.getState());
+        verify(fallbackPool, never()).getConnection();
+    }
+
+    @Test
+    void testConnectionFailureClassification() {
+        assertTrue(BackendFailover.isConnectionFailure(new SQLException("refused", "08001")));
+        assertTrue(BackendFailover.isConnectionFailure(new SQLNonTransientConnectionException("gone")));
+        assertFalse(BackendFailover.isConnectionFailure(new SQLException("closed", ConnectionPool.POOL_CLOSED)));
+        assertFalse(BackendFailover.isConnectionFailure(new SQLException("no state")));
+        assertFalse(BackendFailover.isConnectionFailure(new SQLException("duplicate", "23000")));
+    }
+
+    @Test
+    void testProbeClosesBreakerWhenPrimaryRecovers() throws SQLException {
+        when(primaryPool.getConnection()).thenThrow(new SQLException("Communications link failure", "08S01"));
+        failover.getConnection();
+
+        primaryUp.set(false);
+        failover.probeIfOpen();
+        assertEquals(BackendFailover.State.OPEN, failover.getState());
+
+        Connection primaryConnection = mock(Connection.class);
+        reset(primaryPool);
+        when(primaryPool.getConnection()).thenReturn(primaryConnection);
+        primaryUp.set(true);
+        failover.probeIfOpen();
+
+        assertEquals(BackendFailover.State.CLOSED, failover.getState());
+        assertSame(primaryConnection, failover.getConnection());
+    }
+
+    @Test
+    void testListenersHearBothSwitches() throws Exception {
+        List<Boolean> switches = new CopyOnWriteArrayList<>();
+        CountDownLatch tripped = new CountDownLatch(1);
+        failover.addSwitchListener(primaryActive -> {
+            switches.add(primaryActive);
+            tripped.countDown();
+        });
+        when(primaryPool.getConnection()).thenThrow(new SQLException("Communications link failure", "08S01"));
+        failover.getConnection();
+
+        // Told on the probe thread, not the request thread that tripped
+        assertTrue(tripped.await(5, TimeUnit.SECONDS));
+        reset(primaryPool);
+        failover.probeIfOpen();
+
+        assertEquals(List.of(false, true), switches);
+    }
+
+    @Test
+    void testFailedPreparationKeepsFallback() throws SQLException {
+        failover.addSwitchListener(new BackendFailover.SwitchListener() {
+            @Override
+            public void preparePrimary(ConnectionPool primary) throws SQLException {
+                throw new SQLException("migration failed");
+            }
+
+            @Override
+            public void switched(boolean primaryActive) {
+            }
+        });
+        when(primaryPool.getConnection()).thenThrow(new SQLException("Communications link failure", "08S01"));
+        failover.getConnection();
+        reset(primaryPool);
+
+        failover.probeIfOpen();
+
+        assertEquals(BackendFailover.State.OPEN, failover.getState());
+        assertSame(fallbackConnection, failover.getConnection());
+        verify(primaryPool).close();
+    }
+}
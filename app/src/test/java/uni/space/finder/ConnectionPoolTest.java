@@ -0,0 +1,72 @@
+package uni.space.finder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1", "sa", "", 1, 2, 200, 60_000);
+        pool.warmUp();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void testClosedConnectionIsReused() throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+        }
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+        }
+        assertEquals(1, pool.getOpenConnections());
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    void testAcquireTimesOutWhenExhausted() throws SQLException {
+        try (Connection first = pool.getConnection(); Connection second = pool.getConnection()) {
+            assertEquals(2, pool.getActiveConnections());
+            assertThrows(SQLTransientConnectionException.class, () -> pool.getConnection());
+        }
+    }
+
+    @Test
+    void testReturnedConnectionCannotBeUsed() throws SQLException {
+        Connection conn = pool.getConnection();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::createStatement);
+    }
+
+    @Test
+    void testUncommittedWorkIsRolledBackOnReturn() throws SQLException {
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS pool_rollback (id INT)");
+        }
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.createStatement().execute("INSERT INTO pool_rollback VALUES (1)");
+        }
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            assertTrue(conn.getAutoCommit());
+            var rs = stmt.executeQuery("SELECT COUNT(*) FROM pool_rollback");
+            rs.next();
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package uni.space.finder;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseInitFilterTest {
+
+    @Test
+    void testHealthChecksSkipInitialisation() {
+        assertTrue(DatabaseInitFilter.isHealthCheck(request("/app", "/app/api/health")));
+        assertTrue(DatabaseInitFilter.isHealthCheck(request("", "/api/health/ready")));
+        assertFalse(DatabaseInitFilter.isHealthCheck(request("", "/api/healthy")));
+        assertFalse(DatabaseInitFilter.isHealthCheck(request("/app", "/app/api/bookings")));
+    }
+
+    @Test
+    void testHealthCheckPassesThrough() throws Exception {
+        HttpServletRequest request = request("", "/api/health/live");
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        FilterChain chain = mock(FilterChain.class);
+
+        new DatabaseInitFilter().doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(response, never()).setStatus(anyInt());
+    }
+
+    private static HttpServletRequest request(String contextPath, String uri) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContextPath()).thenReturn(contextPath);
+        when(request.getRequestURI()).thenReturn(uri);
+        return request;
+    }
+}
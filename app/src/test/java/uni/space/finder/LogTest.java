@@ -0,0 +1,61 @@
+package uni.space.finder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogTest {
+
+    @AfterEach
+    void resetLevels() {
+        Log.setLevel("test.log", null);
+        Log.setLevel("test.log.child", null);
+    }
+
+    @Test
+    void testLevelsInheritByPrefix() {
+        Log child = Log.get("test.log.child.Component");
+        Log.setLevel("test.log", Log.Level.DEBUG);
+        assertTrue(child.isEnabled(Log.Level.DEBUG));
+        assertFalse(child.isEnabled(Log.Level.TRACE));
+
+        // The closest configured prefix wins
+        Log.setLevel("test.log.child", Log.Level.ERROR);
+        assertFalse(child.isEnabled(Log.Level.WARN));
+        assertEquals(Log.Level.ERROR, Log.getEffectiveLevel("test.log.child.Component"));
+
+        // Clearing falls back to the parent again
+        Log.setLevel("test.log.child", null);
+        assertTrue(child.isEnabled(Log.Level.DEBUG));
+    }
+
+    @Test
+    void testDisabledMessagesAreNeverBuilt() {
+        Log log = Log.get("test.log.Lazy");
+        Log.setLevel("test.log", Log.Level.WARN);
+        AtomicInteger built = new AtomicInteger();
+
+        log.debug(() -> "debug " + built.incrementAndGet());
+        log.info(() -> "info " + built.incrementAndGet());
+        assertEquals(0, built.get());
+
+        log.warn(() -> "warn " + built.incrementAndGet());
+        assertEquals(1, built.get());
+    }
+
+    @Test
+    void testPublishedMessagesAreWritten() {
+        Log log = Log.get("test.log.Writer");
+        long before = ((Number) Log.getStats().get("written")).longValue();
+        for (int i = 0; i < 10; i++) {
+            log.info("message " + i);
+        }
+        assertTrue(Log.flush(5000));
+        long after = ((Number) Log.getStats().get("written")).longValue();
+        long dropped = ((Number) Log.getStats().get("dropped")).longValue();
+        assertTrue(after - before + dropped >= 10);
+    }
+}
@@ -0,0 +1,97 @@
+package uni.space.finder;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @BeforeEach
+    void clear() {
+        Metrics.reset();
+    }
+
+    @Test
+    void testHistogramPercentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMaxMicros());
+        assertEquals(5_000, histogram.percentile(50), 5_000 * 0.035);
+        assertEquals(9_900, histogram.percentile(99), 9_900 * 0.035);
+        assertEquals(10_000, histogram.percentile(100));
+    }
+
+    @Test
+    void testBucketBoundsCoverEveryValue() {
+        for (long value : new long[] {0, 1, 31, 32, 33, 63, 64, 1_000, 123_456, 59_000_000L}) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(LatencyHistogram.upperBound(index) >= value, "upper bound for " + value);
+            assertTrue(index == 0 || LatencyHistogram.upperBound(index - 1) < value, "lower bound for " + value);
+        }
+    }
+
+    @Test
+    void testFingerprintFoldsLiteralsAndInLists() {
+        assertEquals("SELECT * FROM booktime WHERE room_id = ? AND booking_status = ?",
+            Metrics.fingerprint("SELECT *  FROM booktime\n WHERE room_id = 42 AND booking_status = 'ACTIVE'"));
+        assertEquals("DELETE FROM room WHERE room_id IN (?)",
+            Metrics.fingerprint("DELETE FROM room WHERE room_id IN (?, ?, ?)"));
+        // Digits inside identifiers are left alone
+        assertEquals("SELECT col1 FROM t2 WHERE x = ?", Metrics.fingerprint("SELECT col1 FROM t2 WHERE x = 7"));
+    }
+
+    @Test
+    void testRequestsAndErrorsAreCountedPerEndpoint() {
+        Metrics.recordRequest("/api/booking", 2_000_000, 200);
+        Metrics.recordRequest("/api/booking", 4_000_000, 409);
+        Metrics.recordRequest("/api/booking", 8_000_000, 500);
+
+        Metrics.Series series = Metrics.getEndpoints().get("/api/booking");
+        assertEquals(3, series.getCount());
+        assertEquals(1, series.getErrors());
+        assertEquals(1, series.getClientErrors());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> booking = (Map<String, Object>) ((Map<String, Object>) Metrics.summary().get("endpoints")).get("/api/booking");
+        assertEquals(3L, booking.get("count"));
+        assertEquals(8.0, (Double) booking.get("maxMs"), 0.01);
+    }
+
+    @Test
+    void testPrometheusOutput() throws Exception {
+        Metrics.recordRequest("/api/available-rooms", 1_500_000, 200);
+        Metrics.recordStatement("SELECT \"x\" FROM room WHERE room_id = 3", 300_000, false);
+
+        StringWriter out = new StringWriter();
+        Metrics.writePrometheus(out);
+        String text = out.toString();
+
+        assertTrue(text.contains("# TYPE unispace_http_request_duration_seconds summary"));
+        assertTrue(text.contains("unispace_http_request_duration_seconds_count{endpoint=\"/api/available-rooms\"} 1"));
+        assertTrue(text.contains("unispace_http_request_duration_seconds{endpoint=\"/api/available-rooms\",quantile=\"0.99\"}"));
+        // Quotes in the SQL label are escaped
+        assertTrue(text.contains("unispace_jdbc_statement_duration_seconds_count{sql=\"SELECT \\\"x\\\" FROM room WHERE room_id = ?\"} 1"));
+    }
+
+    @Test
+    void testRecentWindowOnlyCountsTheLastMinute() {
+        Metrics.RecentWindow window = new Metrics.RecentWindow(60);
+        window.record(1_000, false);
+        window.record(1_000, true);
+        window.record(1_030, false);
+
+        assertArrayEquals(new long[] {3, 1}, window.totals(1_030));
+        // Second 1000 has left the window; its slot is reused by second 1060
+        assertArrayEquals(new long[] {1, 0}, window.totals(1_060));
+        window.record(1_060, true);
+        assertArrayEquals(new long[] {2, 1}, window.totals(1_060));
+        assertArrayEquals(new long[] {0, 0}, window.totals(2_000));
+    }
+}
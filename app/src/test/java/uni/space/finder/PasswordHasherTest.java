@@ -0,0 +1,70 @@
+package uni.space.finder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    @Test
+    void testHashVerifiesOnlyTheOriginalPassword() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(1000, 2, 8, 5000);
+        String hash = hasher.hash("TestPass123!");
+
+        assertTrue(hash.startsWith("pbkdf2-sha256$1000$"));
+        assertTrue(hasher.verify("TestPass123!", hash));
+        assertFalse(hasher.verify("testpass123!", hash));
+        assertFalse(hasher.verify("TestPass123!", null));
+        assertFalse(hasher.verify("TestPass123!", "TestPass123!")); // plain-text values never match
+    }
+
+    @Test
+    void testSaltMakesEachHashDifferent() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(1000, 1, 8, 5000);
+        String first = hasher.hash("same");
+        String second = hasher.hash("same");
+
+        assertNotEquals(first, second);
+        assertTrue(hasher.verify("same", first));
+        assertTrue(hasher.verify("same", second));
+    }
+
+    @Test
+    void testHashesFromOtherIterationCountsStillVerify() throws Exception {
+        String oldHash = new PasswordHasher(500, 1, 8, 5000).hash("pw");
+        assertTrue(new PasswordHasher(2000, 1, 8, 5000).verify("pw", oldHash));
+    }
+
+    @Test
+    void testHashAllKeepsOrder() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(1000, 2, 2, 5000);
+        List<String> hashes = hasher.hashAll(List.of("a", "b", "c", "d", "e"));
+
+        assertEquals(5, hashes.size());
+        assertTrue(hasher.verify("c", hashes.get(2)));
+        assertFalse(hasher.verify("c", hashes.get(3)));
+    }
+
+    @Test
+    void testDummyVerifyDoesTheWorkOfARealCheck() throws Exception {
+        new PasswordHasher(1000, 1, 8, 5000).verifyDummy("pw");
+
+        // At a cost no check finishes within the timeout, the dummy check times out like a real one
+        PasswordHasher slow = new PasswordHasher(5_000_000, 1, 1, 1);
+        assertThrows(PasswordHasher.BusyException.class, () -> slow.verifyDummy("pw"));
+    }
+
+    @Test
+    void testSaturatedPoolRejectsInsteadOfQueueing() {
+        // One thread, one queue slot, and hashes far slower than the 1 ms timeout
+        PasswordHasher hasher = new PasswordHasher(5_000_000, 1, 1, 1);
+
+        PasswordHasher.BusyException running = assertThrows(PasswordHasher.BusyException.class, () -> hasher.hash("a"));
+        assertTrue(running.getMessage().contains("timed out"));
+        assertThrows(PasswordHasher.BusyException.class, () -> hasher.hash("b")); // waits in the queue, times out
+        PasswordHasher.BusyException full = assertThrows(PasswordHasher.BusyException.class, () -> hasher.hash("c"));
+        assertTrue(full.getMessage().contains("full"));
+    }
+}
@@ -0,0 +1,157 @@
+package uni.space.finder;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+        "(?i)CREATE\\s+INDEX\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?(\\w+)\\s+ON\\s+(\\w+)\\s*\\(([^)]*)\\)");
+
+    @Test
+    void testSplitIgnoresSemicolonsInStringsAndComments() {
+        List<String> statements = SchemaMigrator.split(
+            "-- header; not a statement\n" +
+            "INSERT INTO t VALUES ('a;b', 'it''s');\n" +
+            "/* block; comment */ UPDATE t SET x = 1;\n" +
+            "\n");
+
+        assertEquals(List.of("INSERT INTO t VALUES ('a;b', 'it''s')", "UPDATE t SET x = 1"), statements);
+    }
+
+    @Test
+    void testDialectsDefineTheSameVersionsAndIndexes() {
+        List<SchemaMigrator.Migration> h2 = new SchemaMigrator("h2").getMigrations();
+        List<SchemaMigrator.Migration> mysql = new SchemaMigrator("mysql").getMigrations();
+
+        assertEquals(h2.size(), mysql.size());
+        for (int i = 0; i < h2.size(); i++) {
+            assertEquals(indexes(h2.get(i)), indexes(mysql.get(i)), "indexes in V" + (i + 1));
+        }
+        assertTrue(indexes(h2.get(1)).contains("idx_room_time ON booktime(room_id,start_time,end_time)"));
+    }
+
+    @Test
+    void testEmailsAreLowerCasedWhereTheLowerCaseIsFree() throws SQLException {
+        List<SchemaMigrator.Migration> all = new SchemaMigrator("h2").getMigrations();
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:lower_emails", "sa", "")) {
+            new SchemaMigrator("h2", all.subList(0, 6)).migrate(conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("INSERT INTO users (username, email, full_name) VALUES " +
+                             "('mixed', ' Mixed.Case@Uni.edu', 'M'), ('upper', 'Taken@uni.edu', 'U'), " +
+                             "('lower', 'taken@uni.edu', 'L'), ('twin1', 'Twin@uni.edu', 'T'), ('twin2', 'TWIN@uni.edu', 'T')");
+            }
+
+            new SchemaMigrator("h2", all).migrate(conn);
+
+            assertEquals("mixed.case@uni.edu", email(conn, "mixed"));
+            assertEquals("Taken@uni.edu", email(conn, "upper"));
+            assertEquals("taken@uni.edu", email(conn, "lower"));
+            assertEquals("twin@uni.edu", email(conn, "twin1"));
+            assertEquals("TWIN@uni.edu", email(conn, "twin2"));
+        }
+    }
+
+    @Test
+    void testAppliedVersionsAreSkipped() throws SQLException {
+        SchemaMigrator.Migration v1 = migration(1, "CREATE TABLE a (id INT)");
+        SchemaMigrator.Migration v2 = migration(2, "CREATE TABLE b (id INT)");
+        Connection conn = connectionWithApplied(v1);
+        Statement stmt = conn.createStatement();
+
+        SchemaMigrator.Result result = new SchemaMigrator("h2", List.of(v1, v2)).migrate(conn);
+
+        assertEquals(2, result.version());
+        assertEquals(1, result.applied());
+        verify(stmt, never()).execute("CREATE TABLE a (id INT)");
+        verify(stmt).execute("CREATE TABLE b (id INT)");
+    }
+
+    @Test
+    void testIndexChangesAlreadyMadeByAFailedRunCountAsApplied() throws SQLException {
+        SchemaMigrator.Migration v1 = migration(1, "CREATE TABLE a (id INT)");
+        SchemaMigrator.Migration v2 = migration(2,
+            "CREATE INDEX idx_new ON a(id);\nDROP INDEX idx_old ON a;\nCREATE TABLE b (id INT)");
+        Connection conn = connectionWithApplied(v1);
+        Statement stmt = conn.createStatement();
+        when(stmt.execute("CREATE INDEX idx_new ON a(id)"))
+            .thenThrow(new SQLException("Duplicate key name 'idx_new'", "42000", 1061));
+        when(stmt.execute("DROP INDEX idx_old ON a"))
+            .thenThrow(new SQLException("Can't DROP 'idx_old'; check that column/key exists", "42000", 1091));
+
+        SchemaMigrator.Result result = new SchemaMigrator("mysql", List.of(v1, v2)).migrate(conn);
+
+        assertEquals(2, result.version());
+        verify(stmt).execute("CREATE TABLE b (id INT)");
+    }
+
+    @Test
+    void testOtherDropIndexErrorsFailTheMigration() throws SQLException {
+        SchemaMigrator.Migration v1 = migration(1, "CREATE TABLE a (id INT)");
+        SchemaMigrator.Migration v2 = migration(2, "DROP INDEX idx_old ON a");
+        Connection conn = connectionWithApplied(v1);
+        when(conn.createStatement().execute("DROP INDEX idx_old ON a"))
+            .thenThrow(new SQLException("Lock wait timeout exceeded", "HY000", 1205));
+
+        assertThrows(SQLException.class, () -> new SchemaMigrator("mysql", List.of(v1, v2)).migrate(conn));
+    }
+
+    @Test
+    void testEditedMigrationIsRejected() throws SQLException {
+        SchemaMigrator.Migration applied = migration(1, "CREATE TABLE a (id INT)");
+        Connection conn = connectionWithApplied(applied);
+
+        SchemaMigrator migrator = new SchemaMigrator("h2", List.of(migration(1, "CREATE TABLE a (id BIGINT)")));
+
+        assertThrows(SQLException.class, () -> migrator.migrate(conn));
+    }
+
+    private static SchemaMigrator.Migration migration(int version, String script) {
+        return new SchemaMigrator.Migration(version, "test", script, SchemaMigrator.checksum(script));
+    }
+
+    private static Connection connectionWithApplied(SchemaMigrator.Migration applied) throws SQLException {
+        Connection conn = mock(Connection.class);
+        Statement stmt = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(conn.createStatement()).thenReturn(stmt);
+        when(conn.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        when(stmt.executeQuery(anyString())).thenReturn(rs);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getInt("version")).thenReturn(applied.version());
+        when(rs.getLong("checksum")).thenReturn(applied.checksum());
+        return conn;
+    }
+
+    private static Set<String> indexes(SchemaMigrator.Migration migration) {
+        Set<String> found = new TreeSet<>();
+        Matcher m = CREATE_INDEX.matcher(migration.script());
+        while (m.find()) {
+            found.add(m.group(1) + " ON " + m.group(2) + "(" + m.group(3).replaceAll("\\s+", "") + ")");
+        }
+        return found;
+    }
+
+    private static String email(Connection conn, String username) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT email FROM users WHERE username = ?")) {
+            pstmt.setString(1, username);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next(), username);
+                return rs.getString(1);
+            }
+        }
+    }
+}
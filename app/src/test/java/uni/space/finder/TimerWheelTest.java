@@ -0,0 +1,92 @@
+package uni.space.finder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    @Test
+    void testTimerFiresAtItsTickAndNeverEarly() {
+        TimerWheel wheel = new TimerWheel(100, 8, 0);
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(fired::incrementAndGet, 250);
+
+        assertEquals(0, wheel.advance(200));
+        assertEquals(0, wheel.advance(299));
+        assertEquals(1, wheel.advance(300));
+        assertEquals(1, fired.get());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testTimersRotationsAheadWaitForTheirTick() {
+        TimerWheel wheel = new TimerWheel(10, 8, 0);
+        TimerWheel.Timeout timeout = wheel.schedule(() -> { }, 1_000);
+
+        for (long now = 0; now < 1_000; now += 5) {
+            assertEquals(0, wheel.advance(now), "fired at " + now);
+        }
+        assertEquals(1, wheel.advance(1_000));
+        assertTrue(timeout.isExpired());
+    }
+
+    @Test
+    void testCancelledTimerNeverRuns() {
+        TimerWheel wheel = new TimerWheel(100, 8, 0);
+        AtomicInteger fired = new AtomicInteger();
+        TimerWheel.Timeout timeout = wheel.schedule(fired::incrementAndGet, 500);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(0, wheel.size());
+        assertEquals(0, wheel.advance(1_000));
+        assertEquals(0, fired.get());
+    }
+
+    @Test
+    void testExpiredTimerCannotBeCancelled() {
+        TimerWheel wheel = new TimerWheel(100, 8, 0);
+        TimerWheel.Timeout timeout = wheel.schedule(() -> { }, 100);
+        wheel.advance(100);
+
+        assertFalse(timeout.cancel());
+        assertFalse(timeout.isCancelled());
+    }
+
+    @Test
+    void testPassedDeadlineRunsAtTheNextTick() {
+        TimerWheel wheel = new TimerWheel(1_000, 16, 0);
+        wheel.advance(50_000);
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(fired::incrementAndGet, 1_000);
+
+        assertEquals(1, wheel.advance(51_000));
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void testManyTimersAfterALongGap() {
+        TimerWheel wheel = new TimerWheel(1_000, 512, 0);
+        Random random = new Random(42);
+        AtomicInteger fired = new AtomicInteger();
+        List<TimerWheel.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            timeouts.add(wheel.schedule(fired::incrementAndGet, random.nextInt(86_400_000)));
+        }
+        for (int i = 0; i < timeouts.size(); i += 2) {
+            timeouts.get(i).cancel();
+        }
+        assertEquals(10_000, wheel.size());
+
+        // A day in one call: each bucket is swept once, not once per missed tick
+        assertEquals(10_000, wheel.advance(86_400_000));
+        assertEquals(10_000, fired.get());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,57 @@
+package uni.space.finder;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserIdentityFilterTest {
+
+    @Test
+    void testNoSessionPassesThroughWithoutIdentity() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        FilterChain chain = mock(FilterChain.class);
+
+        new UserIdentityFilter().doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(request, never()).setAttribute(eq(UserIdentityFilter.USER_ID_ATTRIBUTE), any());
+    }
+
+    @Test
+    void testIdStoredInSessionIsReusedForSameEmail() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpSession session = mock(HttpSession.class);
+        FilterChain chain = mock(FilterChain.class);
+        when(request.getSession(false)).thenReturn(session);
+        when(session.getAttribute("email")).thenReturn("test@student.uts.edu.au");
+        when(session.getAttribute(UserIdentityFilter.SESSION_USER_ID)).thenReturn(42);
+        when(session.getAttribute(UserIdentityFilter.SESSION_USER_ID_EMAIL)).thenReturn("test@student.uts.edu.au");
+
+        new UserIdentityFilter().doFilter(request, mock(HttpServletResponse.class), chain);
+
+        verify(request).setAttribute(UserIdentityFilter.USER_ID_ATTRIBUTE, 42);
+        verify(chain).doFilter(any(), any());
+    }
+
+    @Test
+    void testCachedMappingIsUsedAndInvalidated() {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpSession session = mock(HttpSession.class);
+        when(request.getSession(false)).thenReturn(session);
+        when(session.getAttribute("email")).thenReturn("cached@student.uts.edu.au");
+
+        UserDirectory.remember("cached@student.uts.edu.au", 7);
+        assertEquals(7, UserIdentityFilter.resolve(request));
+        verify(session).setAttribute(UserIdentityFilter.SESSION_USER_ID, 7);
+
+        UserDirectory.invalidate("cached@student.uts.edu.au");
+        assertNull(UserDirectory.cached("cached@student.uts.edu.au"));
+    }
+}